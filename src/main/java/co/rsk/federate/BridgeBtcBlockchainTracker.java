@@ -0,0 +1,107 @@
+package co.rsk.federate;
+
+import java.util.Optional;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.store.BlockStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the last block of the Bridge BTC blockchain that is in the federator's best chain.
+ * In the usual case the Bridge tip is in the federator's best chain, so a single call to the Bridge is enough.
+ * After a fork, the depth of the last matched block is tried first, and otherwise the Bridge blockchain is searched
+ * exponentially and then bisected, as a block in the federator's best chain only has ancestors in it too.
+ */
+class BridgeBtcBlockchainTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(BridgeBtcBlockchainTracker.class);
+
+    private final FederatorSupport federatorSupport;
+    private final BestChainBlockFinder bestChainBlockFinder;
+
+    private StoredBlock lastMatchedBlock;
+
+    BridgeBtcBlockchainTracker(FederatorSupport federatorSupport, BestChainBlockFinder bestChainBlockFinder) {
+        this.federatorSupport = federatorSupport;
+        this.bestChainBlockFinder = bestChainBlockFinder;
+    }
+
+    synchronized Optional<StoredBlock> findMatchingAncestor(int bridgeBtcBlockchainBestChainHeight) throws BlockStoreException {
+        Optional<StoredBlock> bridgeTip = findBlockAtDepth(0);
+        if (bridgeTip.isPresent()) {
+            lastMatchedBlock = bridgeTip.get();
+            return bridgeTip;
+        }
+
+        int bridgeBtcBlockchainInitialBlockHeight = federatorSupport.getBtcBlockchainInitialBlockHeight();
+        int maxSearchDepth = bridgeBtcBlockchainBestChainHeight - bridgeBtcBlockchainInitialBlockHeight;
+        logger.debug(
+            "[findMatchingAncestor] Bridge tip not in best chain. Initial block height: {}, max search depth : {}.",
+            bridgeBtcBlockchainInitialBlockHeight,
+            maxSearchDepth
+        );
+
+        // Deepest depth known not to be in the best chain, and shallowest one known to be
+        int mismatchDepth = 0;
+        int matchDepth = -1;
+        Optional<StoredBlock> match = Optional.empty();
+
+        if (lastMatchedBlock != null) {
+            int lastMatchedBlockDepth = bridgeBtcBlockchainBestChainHeight - lastMatchedBlock.getHeight();
+            if (lastMatchedBlockDepth > 0 && lastMatchedBlockDepth <= maxSearchDepth) {
+                match = findBlockAtDepth(lastMatchedBlockDepth);
+                if (match.isPresent()) {
+                    matchDepth = lastMatchedBlockDepth;
+                } else {
+                    mismatchDepth = lastMatchedBlockDepth;
+                }
+            }
+        }
+
+        int iteration = 0;
+        while (match.isEmpty() && mismatchDepth < maxSearchDepth) {
+            int searchDepth = Math.min(1 << iteration, maxSearchDepth);
+            iteration++;
+            if (searchDepth <= mismatchDepth) {
+                continue;
+            }
+            match = findBlockAtDepth(searchDepth);
+            if (match.isPresent()) {
+                matchDepth = searchDepth;
+            } else {
+                mismatchDepth = searchDepth;
+            }
+        }
+        if (match.isEmpty()) {
+            return Optional.empty();
+        }
+
+        while (matchDepth - mismatchDepth > 1) {
+            int searchDepth = (mismatchDepth + matchDepth) >>> 1;
+            Optional<StoredBlock> block = findBlockAtDepth(searchDepth);
+            if (block.isPresent()) {
+                match = block;
+                matchDepth = searchDepth;
+            } else {
+                mismatchDepth = searchDepth;
+            }
+        }
+
+        logger.debug("[findMatchingAncestor] Bridge forked from best chain at depth {}.", matchDepth);
+        lastMatchedBlock = match.get();
+        return match;
+    }
+
+    private Optional<StoredBlock> findBlockAtDepth(int depth) throws BlockStoreException {
+        Sha256Hash blockHash = federatorSupport.getBtcBlockchainBlockHashAtDepth(depth);
+        Optional<StoredBlock> block = bestChainBlockFinder.find(blockHash);
+        logger.trace("[findBlockAtDepth] block at depth {} in best chain? {}", depth, block.isPresent());
+        return block;
+    }
+
+    @FunctionalInterface
+    interface BestChainBlockFinder {
+        Optional<StoredBlock> find(Sha256Hash blockHash) throws BlockStoreException;
+    }
+}
@@ -0,0 +1,87 @@
+package co.rsk.federate;
+
+import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.ethereum.core.CallTransaction;
+import org.ethereum.db.ByteArrayWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Results of calls to the Bridge, for the functions opted in to be cached.
+ * A call always gives the same result on the same best block, so results are keyed by it,
+ * and all of them are dropped once a call is made on a new best block.
+ */
+class BridgeCallCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BridgeCallCache.class);
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    private final Set<String> cachedFunctionNames;
+    private final Cache<CallKey, Object> results = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .recordStats()
+        .build();
+
+    private Keccak256 bestBlockHash;
+
+    BridgeCallCache(Collection<CallTransaction.Function> cachedFunctions) {
+        this.cachedFunctionNames = cachedFunctions.stream()
+            .map(function -> function.name)
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    boolean isCached(CallTransaction.Function function) {
+        return cachedFunctionNames.contains(function.name);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(Keccak256 blockHash, RskAddress from, byte[] encodedCall, Supplier<T> call) {
+        onBestBlock(blockHash);
+
+        CallKey key = new CallKey(blockHash, from, new ByteArrayWrapper(encodedCall));
+        T result = (T) results.getIfPresent(key);
+        if (result != null) {
+            return result;
+        }
+
+        // Calls are made outside any lock, the same call may be made concurrently but both get the same result
+        result = call.get();
+        if (result != null) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    CacheStats getStats() {
+        return results.stats();
+    }
+
+    private synchronized void onBestBlock(Keccak256 blockHash) {
+        if (blockHash.equals(bestBlockHash)) {
+            return;
+        }
+        if (bestBlockHash != null) {
+            CacheStats stats = results.stats();
+            logger.debug(
+                "[onBestBlock] Dropping {} calls made on block {}. Hits: {}, misses: {}, hit rate: {}",
+                results.size(),
+                bestBlockHash,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate()
+            );
+        }
+        results.invalidateAll();
+        bestBlockHash = blockHash;
+    }
+
+    private record CallKey(Keccak256 blockHash, RskAddress from, ByteArrayWrapper encodedCall) { }
+}
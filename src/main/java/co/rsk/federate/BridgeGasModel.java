@@ -0,0 +1,91 @@
+package co.rsk.federate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Estimates the gas of a Bridge method from the size of its call data, learned from the gas used by
+ * previous executions of the same method, so most txs can be sent without executing them first.
+ *
+ * <p>Each method is modelled as a line fitted by least squares. An estimate is only given once the
+ * method was seen enough times, when the size is within the sizes already seen, and while the recent
+ * observations are close to what the model predicted. Even then, one in every
+ * {@code fullExecutionInterval} estimates is left to a full execution, to keep the model up to date.
+ */
+class BridgeGasModel {
+
+    static final int MIN_OBSERVATIONS = 10;
+    static final double MAX_RELATIVE_ERROR = 0.1;
+    static final double SAFETY_MARGIN = 0.2;
+    // How much of the error of previous observations is kept on each new one
+    private static final double RELATIVE_ERROR_DECAY = 0.9;
+
+    private final long fullExecutionInterval;
+    private final Map<String, MethodGasModel> methodModels = new HashMap<>();
+
+    BridgeGasModel(long fullExecutionInterval) {
+        this.fullExecutionInterval = fullExecutionInterval;
+    }
+
+    synchronized void observe(String method, int callDataSize, long gasUsed) {
+        methodModels.computeIfAbsent(method, m -> new MethodGasModel()).observe(callDataSize, gasUsed);
+    }
+
+    synchronized OptionalLong estimate(String method, int callDataSize) {
+        MethodGasModel methodModel = methodModels.get(method);
+        if (methodModel == null || !methodModel.isConfidentFor(callDataSize)) {
+            return OptionalLong.empty();
+        }
+        methodModel.estimates++;
+        if (fullExecutionInterval > 0 && methodModel.estimates % fullExecutionInterval == 0) {
+            return OptionalLong.empty();
+        }
+        double margin = 1 + SAFETY_MARGIN + methodModel.relativeError;
+        return OptionalLong.of((long) Math.ceil(methodModel.predict(callDataSize) * margin));
+    }
+
+    private static class MethodGasModel {
+        private long observations;
+        private double sumX;
+        private double sumY;
+        private double sumXY;
+        private double sumXX;
+        private int minX = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE;
+        private double relativeError;
+        private long estimates;
+
+        private void observe(int x, long y) {
+            if (observations >= MIN_OBSERVATIONS && y > 0) {
+                double error = Math.abs(predict(x) - y) / y;
+                relativeError = Math.max(error, relativeError * RELATIVE_ERROR_DECAY);
+            }
+            observations++;
+            sumX += x;
+            sumY += y;
+            sumXY += (double) x * y;
+            sumXX += (double) x * x;
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+        }
+
+        private boolean isConfidentFor(int x) {
+            return observations >= MIN_OBSERVATIONS
+                && relativeError <= MAX_RELATIVE_ERROR
+                && x >= minX
+                && x <= maxX;
+        }
+
+        private double predict(int x) {
+            double denominator = observations * sumXX - sumX * sumX;
+            if (denominator == 0) {
+                // Every call had the same size
+                return sumY / observations;
+            }
+            double slope = (observations * sumXY - sumX * sumY) / denominator;
+            double intercept = (sumY - slope * sumX) / observations;
+            return intercept + slope * x;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package co.rsk.federate;
+
+import co.rsk.core.RskAddress;
+import java.util.Optional;
+import org.ethereum.core.CallTransaction;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.program.ProgramResult;
+
+/**
+ * The result of executing a tx to the Bridge on the best block before sending it,
+ * which tells the gas it needs and whether the Bridge would reject it.
+ */
+public class BridgePreflight {
+
+    private final CallTransaction.Function function;
+    private final ProgramResult programResult;
+
+    BridgePreflight(CallTransaction.Function function, ProgramResult programResult) {
+        this.function = function;
+        this.programResult = programResult;
+    }
+
+    public ProgramResult getProgramResult() {
+        return programResult;
+    }
+
+    public long getGasUsed() {
+        return programResult.getGasUsed();
+    }
+
+    public boolean isRejected() {
+        return programResult.getException() != null || programResult.isRevert();
+    }
+
+    /**
+     * Whether the Bridge ran the call to the end without emitting any event. That is how registerBtcTransaction
+     * refuses a tx it will never process, like one with an invalid PMT or one already processed, while a
+     * registration, a refund and an unrefundable pegin all emit an event.
+     */
+    public boolean isSilentlyRefused() {
+        return !isRejected() && programResult.getLogInfoList().stream().noneMatch(BridgePreflight::isLogFromBridge);
+    }
+
+    public String getRejectionReason() {
+        if (programResult.getException() != null) {
+            return programResult.getException().getMessage();
+        }
+        if (programResult.isRevert()) {
+            return "reverted";
+        }
+        return isSilentlyRefused() ? "no Bridge event emitted" : "";
+    }
+
+    /**
+     * The decoded value the Bridge would return, empty if it rejects the call or the method returns nothing.
+     */
+    public Optional<Object> getReturnValue() {
+        if (isRejected()) {
+            return Optional.empty();
+        }
+        Object[] result = function.decodeResult(programResult.getHReturn());
+        return result.length == 0 ? Optional.empty() : Optional.ofNullable(result[0]);
+    }
+
+    private static boolean isLogFromBridge(LogInfo logInfo) {
+        return new RskAddress(logInfo.getAddress()).equals(PrecompiledContracts.BRIDGE_ADDR);
+    }
+}
@@ -0,0 +1,166 @@
+package co.rsk.federate;
+
+import co.rsk.bitcoinj.core.Address;
+import co.rsk.bitcoinj.core.BtcECKey;
+import co.rsk.db.RepositoryLocator;
+import co.rsk.peg.BridgeSupport;
+import co.rsk.peg.BridgeSupportFactory;
+import co.rsk.peg.federation.FederationMember;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.Repository;
+import org.ethereum.crypto.ECKey;
+import org.ethereum.vm.PrecompiledContracts;
+
+/**
+ * Reads from the Bridge pinned to the best block at the time the snapshot was taken.
+ * All the reads go through the same {@link BridgeSupport}, built once over the repository at that block,
+ * so values that depend on each other, like a federation size, members, creation and address, are consistent
+ * even if a new best block arrives while they are being read. The repository is never committed.
+ */
+public class BridgeSnapshot {
+
+    private final Block bestBlock;
+    private final BridgeSupport bridgeSupport;
+
+    BridgeSnapshot(Block bestBlock, BridgeSupport bridgeSupport) {
+        this.bestBlock = bestBlock;
+        this.bridgeSupport = bridgeSupport;
+    }
+
+    public long getBlockNumber() {
+        return bestBlock.getNumber();
+    }
+
+    public Address getFederationAddress() {
+        return bridgeSupport.getActiveFederationAddress();
+    }
+
+    public List<FederationMember> getFederationMembers() {
+        return getFederationMembers(bridgeSupport.getActiveFederationSize(), bridgeSupport::getActiveFederatorPublicKeyOfType);
+    }
+
+    public Instant getFederationCreationTime() {
+        return bridgeSupport.getActiveFederationCreationTime();
+    }
+
+    public long getFederationCreationBlockNumber() {
+        return bridgeSupport.getActiveFederationCreationBlockNumber();
+    }
+
+    public Integer getRetiringFederationSize() {
+        return bridgeSupport.getRetiringFederationSize();
+    }
+
+    public Optional<Address> getRetiringFederationAddress() {
+        return Optional.ofNullable(bridgeSupport.getRetiringFederationAddress());
+    }
+
+    /**
+     * Members of the retiring federation, or an empty list if there is none.
+     */
+    public List<FederationMember> getRetiringFederationMembers() {
+        return getFederationMembers(bridgeSupport.getRetiringFederationSize(), bridgeSupport::getRetiringFederatorPublicKeyOfType);
+    }
+
+    public Instant getRetiringFederationCreationTime() {
+        return bridgeSupport.getRetiringFederationCreationTime();
+    }
+
+    public long getRetiringFederationCreationBlockNumber() {
+        return bridgeSupport.getRetiringFederationCreationBlockNumber();
+    }
+
+    public Optional<Integer> getProposedFederationSize() {
+        return bridgeSupport.getProposedFederationSize();
+    }
+
+    public Optional<Address> getProposedFederationAddress() {
+        return bridgeSupport.getProposedFederationAddress();
+    }
+
+    /**
+     * Members of the proposed federation, or an empty list if there is none.
+     */
+    public List<FederationMember> getProposedFederationMembers() {
+        return getFederationMembers(
+            bridgeSupport.getProposedFederationSize().orElse(null),
+            (index, keyType) -> bridgeSupport.getProposedFederatorPublicKeyOfType(index, keyType)
+                .map(ECKey::getPubKey)
+                .orElse(null)
+        );
+    }
+
+    public Optional<Instant> getProposedFederationCreationTime() {
+        return bridgeSupport.getProposedFederationCreationTime();
+    }
+
+    public Optional<Long> getProposedFederationCreationBlockNumber() {
+        return bridgeSupport.getProposedFederationCreationBlockNumber();
+    }
+
+    private static List<FederationMember> getFederationMembers(Integer federationSize, FederatorPublicKeyReader publicKeyReader) {
+        if (federationSize == null || federationSize < 0) {
+            return List.of();
+        }
+
+        List<FederationMember> members = new ArrayList<>(federationSize);
+        for (int i = 0; i < federationSize; i++) {
+            members.add(new FederationMember(
+                BtcECKey.fromPublicOnly(getPublicKey(publicKeyReader, i, FederationMember.KeyType.BTC)),
+                ECKey.fromPublicOnly(getPublicKey(publicKeyReader, i, FederationMember.KeyType.RSK)),
+                ECKey.fromPublicOnly(getPublicKey(publicKeyReader, i, FederationMember.KeyType.MST))
+            ));
+        }
+        return members;
+    }
+
+    private static byte[] getPublicKey(FederatorPublicKeyReader publicKeyReader, int index, FederationMember.KeyType keyType) {
+        byte[] publicKey = publicKeyReader.read(index, keyType);
+        if (publicKey == null || publicKey.length == 0) {
+            throw new IllegalStateException(String.format(
+                "Public key %s of federator %d was not found",
+                keyType.getValue(),
+                index
+            ));
+        }
+        return publicKey;
+    }
+
+    @FunctionalInterface
+    private interface FederatorPublicKeyReader {
+        byte[] read(int index, FederationMember.KeyType keyType);
+    }
+
+    /**
+     * Takes snapshots of the Bridge at the current best block.
+     */
+    public static class Factory {
+
+        private final Blockchain blockchain;
+        private final RepositoryLocator repositoryLocator;
+        private final BridgeSupportFactory bridgeSupportFactory;
+
+        public Factory(Blockchain blockchain, RepositoryLocator repositoryLocator, BridgeSupportFactory bridgeSupportFactory) {
+            this.blockchain = blockchain;
+            this.repositoryLocator = repositoryLocator;
+            this.bridgeSupportFactory = bridgeSupportFactory;
+        }
+
+        public BridgeSnapshot atBestBlock() {
+            Block bestBlock = blockchain.getBestBlock();
+            Repository repository = repositoryLocator.startTrackingAt(bestBlock.getHeader());
+            BridgeSupport bridgeSupport = bridgeSupportFactory.newInstance(
+                repository,
+                bestBlock,
+                PrecompiledContracts.BRIDGE_ADDR,
+                null
+            );
+            return new BridgeSnapshot(bestBlock, bridgeSupport);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package co.rsk.federate;
+
+import co.rsk.bitcoinj.core.Sha256Hash;
+import co.rsk.bitcoinj.store.BlockStoreException;
+import co.rsk.db.RepositoryLocator;
+import co.rsk.peg.BridgeStorageProvider;
+import co.rsk.peg.BtcBlockStoreWithCache;
+import co.rsk.peg.StateForFederator;
+import co.rsk.peg.constants.BridgeConstants;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import org.ethereum.config.blockchain.upgrades.ActivationConfig;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.Repository;
+
+/**
+ * Reads values that only depend on the Bridge storage straight from the repository at the best block,
+ * instead of executing a call to the Bridge. The repository is never committed, so it is only read.
+ */
+public class BridgeStorageReader {
+
+    private final Blockchain blockchain;
+    private final RepositoryLocator repositoryLocator;
+    private final BridgeConstants bridgeConstants;
+    private final ActivationConfig activationConfig;
+    private final BtcBlockStoreWithCache.Factory btcBlockStoreFactory;
+
+    public BridgeStorageReader(
+        Blockchain blockchain,
+        RepositoryLocator repositoryLocator,
+        BridgeConstants bridgeConstants,
+        ActivationConfig activationConfig,
+        BtcBlockStoreWithCache.Factory btcBlockStoreFactory
+    ) {
+        this.blockchain = blockchain;
+        this.repositoryLocator = repositoryLocator;
+        this.bridgeConstants = bridgeConstants;
+        this.activationConfig = activationConfig;
+        this.btcBlockStoreFactory = btcBlockStoreFactory;
+    }
+
+    public Optional<Long> getBtcTxHashProcessedHeight(Sha256Hash btcTxHash) {
+        try {
+            return atBestBlock().provider().getHeightIfBtcTxhashIsAlreadyProcessed(btcTxHash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean hasBlockCoinbaseInformed(Sha256Hash blockHash) {
+        return atBestBlock().provider().getCoinbaseInformation(blockHash) != null;
+    }
+
+    public int getBtcBlockchainBestChainHeight() {
+        StorageAtBlock storage = atBestBlock();
+        try {
+            return btcBlockStoreFactory
+                .newInstance(storage.repository(), bridgeConstants, storage.provider(), storage.activations())
+                .getChainHead()
+                .getHeight();
+        } catch (BlockStoreException e) {
+            throw new IllegalStateException("Unable to read the Bridge BTC blockchain chain head", e);
+        }
+    }
+
+    public StateForFederator getStateForFederator() {
+        try {
+            return new StateForFederator(atBestBlock().provider().getPegoutsWaitingForSignatures());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private StorageAtBlock atBestBlock() {
+        Block bestBlock = blockchain.getBestBlock();
+        Repository repository = repositoryLocator.startTrackingAt(bestBlock.getHeader());
+        ActivationConfig.ForBlock activations = activationConfig.forBlock(bestBlock.getNumber());
+        BridgeStorageProvider provider = new BridgeStorageProvider(
+            repository,
+            bridgeConstants.getBtcParams(),
+            activations
+        );
+        return new StorageAtBlock(repository, provider, activations);
+    }
+
+    private record StorageAtBlock(Repository repository, BridgeStorageProvider provider, ActivationConfig.ForBlock activations) { }
+}
@@ -4,27 +4,72 @@ import co.rsk.core.Coin;
 import co.rsk.core.ReversibleTransactionExecutor;
 import co.rsk.core.RskAddress;
 import co.rsk.core.bc.PendingState;
+import co.rsk.crypto.Keccak256;
 import co.rsk.federate.config.PowpegNodeSystemProperties;
 import co.rsk.federate.gas.GasPriceProviderFactory;
 import co.rsk.federate.gas.IGasPriceProvider;
 import co.rsk.federate.signing.ECDSASigner;
 import co.rsk.federate.signing.hsm.message.SignerMessageV1;
 import co.rsk.federate.signing.hsm.SignerException;
+import co.rsk.peg.Bridge;
+import com.google.common.base.Suppliers;
 import org.ethereum.core.*;
 import org.ethereum.crypto.ECKey;
+import org.ethereum.db.TransactionInfo;
 import org.ethereum.facade.Ethereum;
 import org.ethereum.vm.PrecompiledContracts;
 import org.ethereum.vm.program.ProgramResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static co.rsk.federate.signing.PowPegNodeKeyId.RSK;
 
 public class BridgeTransactionSender {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BridgeTransactionSender.class);
+    // Calls repeated by the different clients on the same best block, their results are cached until it changes
+    private static final List<CallTransaction.Function> CACHED_CALLS = List.of(
+            Bridge.GET_BTC_BLOCKCHAIN_BEST_CHAIN_HEIGHT,
+            Bridge.GET_BTC_BLOCKCHAIN_INITIAL_BLOCK_HEIGHT,
+            Bridge.GET_BTC_BLOCKCHAIN_BLOCK_HASH_AT_DEPTH,
+            Bridge.GET_FEDERATION_ADDRESS,
+            Bridge.GET_FEDERATION_SIZE,
+            Bridge.GET_FEDERATION_THRESHOLD,
+            Bridge.GET_FEDERATOR_PUBLIC_KEY_OF_TYPE,
+            Bridge.GET_FEDERATION_CREATION_TIME,
+            Bridge.GET_FEDERATION_CREATION_BLOCK_NUMBER,
+            Bridge.GET_RETIRING_FEDERATION_ADDRESS,
+            Bridge.GET_RETIRING_FEDERATION_SIZE,
+            Bridge.GET_RETIRING_FEDERATION_THRESHOLD,
+            Bridge.GET_RETIRING_FEDERATOR_PUBLIC_KEY_OF_TYPE,
+            Bridge.GET_RETIRING_FEDERATION_CREATION_TIME,
+            Bridge.GET_RETIRING_FEDERATION_CREATION_BLOCK_NUMBER,
+            Bridge.GET_PROPOSED_FEDERATION_ADDRESS,
+            Bridge.GET_PROPOSED_FEDERATION_SIZE,
+            Bridge.GET_PROPOSED_FEDERATOR_PUBLIC_KEY_OF_TYPE,
+            Bridge.GET_PROPOSED_FEDERATION_CREATION_TIME,
+            Bridge.GET_PROPOSED_FEDERATION_CREATION_BLOCK_NUMBER
+    );
+    // Txs whose gas depends mostly on the size of their call data and that are executed before sending them only
+    // to learn that gas, so the gas model can replace the execution, rejection check included. registerBtcTransaction
+    // is left out, its execution decides whether the pegin is sent or quarantined, so it is always executed
+    private static final List<CallTransaction.Function> MODELLED_GAS_CALLS = List.of(
+            Bridge.RECEIVE_HEADERS,
+            Bridge.ADD_SIGNATURE
+    );
 
     private final Ethereum ethereum;
     private final Blockchain blockchain;
@@ -33,6 +78,17 @@ public class BridgeTransactionSender {
     private final Coin gasPrice;
     private final PowpegNodeSystemProperties config;
     private final IGasPriceProvider gasPriceProvider;
+    private final InFlightBridgeTxTracker inFlightTxs;
+    // Optional, when present the gas of the modelled calls is estimated without executing them when possible
+    private final BridgeGasModel gasModel;
+    private final BridgeCallCache callCache = new BridgeCallCache(CACHED_CALLS);
+    // Accessed only by the submission thread, which signs and submits the txs one at a time in order
+    private final RskNonceManager nonceManager = new RskNonceManager();
+    private final ExecutorService submissionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BridgeTxSubmission");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public BridgeTransactionSender(Ethereum ethereum,
                                    Blockchain blockchain,
@@ -46,6 +102,8 @@ public class BridgeTransactionSender {
         this.config = config;
         this.gasPrice = Coin.valueOf(config.federatorGasPrice());
         this.gasPriceProvider = GasPriceProviderFactory.get(config.gasPriceProviderConfig(), this.blockchain);
+        this.inFlightTxs = new InFlightBridgeTxTracker(config.getInFlightBridgeTxRetentionBlocks(), this::onMined);
+        this.gasModel = config.isGasModelEnabled() ? new BridgeGasModel(config.getGasModelFullExecutionInterval()) : null;
     }
 
     public <T> T callTx(RskAddress federatorAddress, CallTransaction.Function function) {
@@ -56,6 +114,19 @@ public class BridgeTransactionSender {
         logBridgeInteraction("call", function, params);
         params = params != null ? params : new Object[]{};
         Block bestBlock = blockchain.getBestBlock();
+        byte[] encodedCall = function.encode(params);
+        if (!callCache.isCached(function)) {
+            return executeCall(bestBlock, federatorAddress, function, encodedCall);
+        }
+        return callCache.get(
+                bestBlock.getHash(),
+                federatorAddress,
+                encodedCall,
+                () -> executeCall(bestBlock, federatorAddress, function, encodedCall)
+        );
+    }
+
+    private <T> T executeCall(Block bestBlock, RskAddress federatorAddress, CallTransaction.Function function, byte[] encodedCall) {
         byte[] longMaxValue = longToByteArray(Long.MAX_VALUE);
         ProgramResult res = reversibleTransactionExecutor.executeTransaction(
                 bestBlock,
@@ -64,69 +135,277 @@ public class BridgeTransactionSender {
                 longMaxValue,
                 PrecompiledContracts.BRIDGE_ADDR.getBytes(),
                 longToByteArray(0L),
-                function.encode(params),
+                encodedCall,
                 federatorAddress
         );
         T[] result = (T[]) function.decodeResult(res.getHReturn());
         return result[0];
     }
 
-    public synchronized void sendRskTx(RskAddress federatorAddress,
-                                       ECDSASigner signer,
-                                       CallTransaction.Function function,
-                                       Object... functionArgs) {
+    /**
+     * Executes the tx on the caller thread to get the gas it needs and enqueues it to be signed and submitted,
+     * unless the Bridge would reject it. For the modelled calls, the execution and so the rejection check are
+     * skipped when the gas model can estimate the gas.
+     * The returned future completes with the tx once it is added to the pool, or empty if it was not submitted.
+     */
+    public CompletableFuture<Optional<SubmittedRskTx>> sendRskTx(RskAddress federatorAddress,
+                                                             ECDSASigner signer,
+                                                             CallTransaction.Function function,
+                                                             Object... functionArgs) {
         logBridgeInteraction("send tx", function, functionArgs);
 
-            PendingState pendingState = transactionPool.getPendingState();
-            Block block = blockchain.getBestBlock();
-            // First, calculate how much gas is needed
-            long gasNeeded = reversibleTransactionExecutor.executeTransaction(
-                    block,
-                    block.getCoinbase(),
-                    longToByteArray(gasPrice.asBigInteger().longValue()),
-                    longToByteArray(Long.MAX_VALUE),
-                    PrecompiledContracts.BRIDGE_ADDR.getBytes(),
-                    longToByteArray(0L),
-                    function.encode(functionArgs),
-                    federatorAddress
-            ).getGasUsed();
+        byte[] callData = function.encode(functionArgs);
+        OptionalLong modelledGas = estimateWithModel(function, callData);
+        if (modelledGas.isPresent()) {
+            return enqueue(new RskTxIntent(federatorAddress, signer, function, modelledGas.getAsLong(), functionArgs));
+        }
 
-        synchronized (transactionPool) {
-            Coin federatorRskBalance = pendingState.getBalance(federatorAddress);
-            Coin minGasPrice = this.gasPriceProvider.get();
-            Coin finalGasPrice = gasPrice.compareTo(minGasPrice) < 0 ? minGasPrice : gasPrice;
-
-            // See if we can afford this (just useful after txs to the bridge are no longer gas free)
-            Coin txCost = finalGasPrice.multiply(BigInteger.valueOf(gasNeeded));
-            if (federatorRskBalance.compareTo(txCost) >= 0) {
-                long nonce = pendingState.getNonce(federatorAddress).longValue();
-                Transaction rskTx = CallTransaction.createCallTransaction(
-                        nonce,
-                        finalGasPrice.asBigInteger().longValue(),
-                        gasNeeded,
-                        PrecompiledContracts.BRIDGE_ADDR,
-                        0,
-                        function,
-                        config.getNetworkConstants().getChainId(),
-                        functionArgs);
-                try {
-                    SignerMessageV1 messageToSign = new SignerMessageV1(rskTx.getRawHash().getBytes());
-                    ECKey.ECDSASignature txSignature = signer.sign(RSK.getKeyId(), messageToSign);
-                    rskTx.setSignature(txSignature);
-                    LOGGER.debug("[tx={} | nonce={} | method={}] Submit to Bridge", rskTx.getHash(), nonce, function.name);
-                    ethereum.submitTransaction(rskTx);
-                } catch (SignerException e) {
-                    LOGGER.error("[tx={} | nonce={} | method={}] Could not sign RSK tx. {}", rskTx.getHash(), nonce, function.name, e);
-                }
-            } else {
-                LOGGER.warn(
-                        "[method={}] Not enough balance. Required: {}, Balance: {}",
-                        function.name,
-                        txCost,
-                        federatorRskBalance
-                );
+        // First, check the Bridge would accept it and calculate how much gas is needed
+        BridgePreflight preflight = preflight(federatorAddress, function, callData);
+        if (preflight.isRejected()) {
+            LOGGER.warn("[method={}] Not sending tx, the Bridge would reject it. {}", function.name, preflight.getRejectionReason());
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return enqueue(new RskTxIntent(federatorAddress, signer, function, preflight.getGasUsed(), functionArgs));
+    }
+
+    /**
+     * Sends a tx with the given gas limit instead of estimating it on the best block, for txs that depend on
+     * others sent before them that are not yet in a block. Txs are submitted in the order they are enqueued.
+     */
+    public CompletableFuture<Optional<SubmittedRskTx>> sendRskTxWithGasLimit(RskAddress federatorAddress,
+                                                                         ECDSASigner signer,
+                                                                         CallTransaction.Function function,
+                                                                         long gasLimit,
+                                                                         Object... functionArgs) {
+        logBridgeInteraction("send tx", function, functionArgs);
+        return enqueue(new RskTxIntent(federatorAddress, signer, function, gasLimit, functionArgs));
+    }
+
+    /**
+     * Sends the tx unless one informing the same is already in flight, in which case the returned future
+     * completes empty right away.
+     */
+    public CompletableFuture<Optional<SubmittedRskTx>> sendTrackedRskTx(BridgeTxKey key,
+                                                                      RskAddress federatorAddress,
+                                                                      ECDSASigner signer,
+                                                                      CallTransaction.Function function,
+                                                                      Object... functionArgs) {
+        if (!tryTrack(key)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return track(key, () -> sendRskTx(federatorAddress, signer, function, functionArgs));
+    }
+
+    public CompletableFuture<Optional<SubmittedRskTx>> sendTrackedRskTxWithGasLimit(BridgeTxKey key,
+                                                                                  RskAddress federatorAddress,
+                                                                                  ECDSASigner signer,
+                                                                                  CallTransaction.Function function,
+                                                                                  long gasLimit,
+                                                                                  Object... functionArgs) {
+        if (!tryTrack(key)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return track(key, () -> sendRskTxWithGasLimit(federatorAddress, signer, function, gasLimit, functionArgs));
+    }
+
+    /**
+     * Whether a tx informing the given key was already sent and is not yet resolved, so sending it again
+     * would be skipped. Lets callers avoid preparing a tx that would not be sent.
+     */
+    public boolean isInFlight(BridgeTxKey key) {
+        resolveInFlightTxs();
+        return inFlightTxs.contains(key);
+    }
+
+    private boolean tryTrack(BridgeTxKey key) {
+        resolveInFlightTxs();
+        if (inFlightTxs.tryAdd(key)) {
+            return true;
+        }
+        LOGGER.debug("[tryTrack] Tx for {} already in flight, not sending it again", key);
+        return false;
+    }
+
+    private void resolveInFlightTxs() {
+        // Submitted txs are resolved once per best block, the first time one is sent on it. The pool is read
+        // once per pass, and only if some tx is not in a block
+        Supplier<Set<Keccak256>> poolTxHashes = Suppliers.memoize(this::getPoolTxHashes);
+        inFlightTxs.onRskBestBlock(blockchain.getBestBlock().getNumber(), txHash -> resolveTx(txHash, poolTxHashes));
+    }
+
+    private Set<Keccak256> getPoolTxHashes() {
+        return Stream.concat(
+                transactionPool.getPendingTransactions().stream(),
+                transactionPool.getQueuedTransactions().stream()
+        ).map(Transaction::getHash).collect(Collectors.toSet());
+    }
+
+    private CompletableFuture<Optional<SubmittedRskTx>> track(BridgeTxKey key,
+                                                           Supplier<CompletableFuture<Optional<SubmittedRskTx>>> sender) {
+        CompletableFuture<Optional<SubmittedRskTx>> submission;
+        try {
+            submission = sender.get();
+        } catch (RuntimeException e) {
+            inFlightTxs.onSubmitted(key, Optional.empty());
+            throw e;
+        }
+        return submission.whenComplete((submittedTx, e) ->
+                inFlightTxs.onSubmitted(key, e == null ? submittedTx : Optional.empty())
+        );
+    }
+
+    private InFlightBridgeTxTracker.ResolvedTx resolveTx(Keccak256 txHash, Supplier<Set<Keccak256>> poolTxHashes) {
+        TransactionInfo txInfo = blockchain.getTransactionInfo(txHash.getBytes());
+        if (txInfo != null) {
+            TransactionReceipt receipt = txInfo.getReceipt();
+            if (!receipt.isSuccessful()) {
+                return InFlightBridgeTxTracker.ResolvedTx.of(InFlightBridgeTxTracker.TxStatus.FAILED);
             }
+            return InFlightBridgeTxTracker.ResolvedTx.mined(new BigInteger(1, receipt.getGasUsed()).longValue());
+        }
+        boolean inPool = poolTxHashes.get().contains(txHash);
+        return InFlightBridgeTxTracker.ResolvedTx.of(
+                inPool ? InFlightBridgeTxTracker.TxStatus.PENDING : InFlightBridgeTxTracker.TxStatus.DROPPED
+        );
+    }
+
+    private CompletableFuture<Optional<SubmittedRskTx>> enqueue(RskTxIntent intent) {
+        return CompletableFuture.supplyAsync(() -> submitRskTx(intent), submissionExecutor)
+                .whenComplete((txHash, e) -> {
+                    if (e != null) {
+                        LOGGER.error("[method={}] Could not submit RSK tx", intent.function().name, e);
+                    }
+                });
+    }
+
+    public long estimateGas(RskAddress federatorAddress, CallTransaction.Function function, Object... functionArgs) {
+        byte[] callData = function.encode(functionArgs);
+        OptionalLong modelledGas = estimateWithModel(function, callData);
+        if (modelledGas.isPresent()) {
+            return modelledGas.getAsLong();
+        }
+        return preflight(federatorAddress, function, callData).getGasUsed();
+    }
+
+    /**
+     * Executes the tx on the best block without sending it.
+     */
+    public BridgePreflight preflight(RskAddress federatorAddress, CallTransaction.Function function, Object... functionArgs) {
+        return preflight(federatorAddress, function, function.encode(functionArgs));
+    }
+
+    private BridgePreflight preflight(RskAddress federatorAddress, CallTransaction.Function function, byte[] callData) {
+        Block block = blockchain.getBestBlock();
+        ProgramResult programResult = reversibleTransactionExecutor.executeTransaction(
+                block,
+                block.getCoinbase(),
+                longToByteArray(gasPrice.asBigInteger().longValue()),
+                longToByteArray(Long.MAX_VALUE),
+                PrecompiledContracts.BRIDGE_ADDR.getBytes(),
+                longToByteArray(0L),
+                callData,
+                federatorAddress
+        );
+        BridgePreflight preflight = new BridgePreflight(function, programResult);
+        if (isGasModelled(function) && !preflight.isRejected()) {
+            gasModel.observe(function.name, callData.length, preflight.getGasUsed());
+        }
+        return preflight;
+    }
+
+    private OptionalLong estimateWithModel(CallTransaction.Function function, byte[] callData) {
+        if (!isGasModelled(function)) {
+            return OptionalLong.empty();
+        }
+        return gasModel.estimate(function.name, callData.length);
+    }
+
+    private boolean isGasModelled(CallTransaction.Function function) {
+        return gasModel != null && MODELLED_GAS_CALLS.contains(function);
+    }
+
+    // The gas used comes from the receipt read when resolving the tx
+    private void onMined(SubmittedRskTx submittedTx, long gasUsed) {
+        boolean modelled = MODELLED_GAS_CALLS.stream().anyMatch(function -> function.name.equals(submittedTx.method()));
+        if (gasModel == null || !modelled) {
+            return;
+        }
+        gasModel.observe(submittedTx.method(), submittedTx.callDataSize(), gasUsed);
+    }
+
+    /**
+     * Stops the submission thread. The txs still waiting to be submitted are not sent, the clients
+     * send them again once the node is started.
+     */
+    @PreDestroy
+    public void tearDown() {
+        List<Runnable> pendingSubmissions = submissionExecutor.shutdownNow();
+        if (!pendingSubmissions.isEmpty()) {
+            LOGGER.warn("[tearDown] {} txs to the Bridge were not submitted", pendingSubmissions.size());
+        }
+    }
+
+    public long getBestBlockGasLimit() {
+        return new BigInteger(1, blockchain.getBestBlock().getGasLimit()).longValue();
+    }
+
+    private Optional<SubmittedRskTx> submitRskTx(RskTxIntent intent) {
+        RskAddress federatorAddress = intent.federatorAddress();
+        CallTransaction.Function function = intent.function();
+        long gasNeeded = intent.gasLimit();
+        PendingState pendingState = transactionPool.getPendingState();
+        long bestBlockNumber = blockchain.getBestBlock().getNumber();
+
+        Coin federatorRskBalance = pendingState.getBalance(federatorAddress);
+        Coin minGasPrice = this.gasPriceProvider.get();
+        Coin finalGasPrice = gasPrice.compareTo(minGasPrice) < 0 ? minGasPrice : gasPrice;
+
+        // See if we can afford this (just useful after txs to the bridge are no longer gas free)
+        Coin txCost = finalGasPrice.multiply(BigInteger.valueOf(gasNeeded));
+        if (federatorRskBalance.compareTo(txCost) < 0) {
+            LOGGER.warn(
+                    "[method={}] Not enough balance. Required: {}, Balance: {}",
+                    function.name,
+                    txCost,
+                    federatorRskBalance
+            );
+            return Optional.empty();
+        }
+
+        long nonce = nonceManager.next(pendingState, federatorAddress, bestBlockNumber);
+        Transaction rskTx = CallTransaction.createCallTransaction(
+                nonce,
+                finalGasPrice.asBigInteger().longValue(),
+                gasNeeded,
+                PrecompiledContracts.BRIDGE_ADDR,
+                0,
+                function,
+                config.getNetworkConstants().getChainId(),
+                intent.functionArgs());
+        try {
+            SignerMessageV1 messageToSign = new SignerMessageV1(rskTx.getRawHash().getBytes());
+            ECKey.ECDSASignature txSignature = intent.signer().sign(RSK.getKeyId(), messageToSign);
+            rskTx.setSignature(txSignature);
+        } catch (SignerException e) {
+            LOGGER.error("[tx={} | nonce={} | method={}] Could not sign RSK tx. {}", rskTx.getHash(), nonce, function.name, e);
+            return Optional.empty();
+        }
+
+        LOGGER.debug("[tx={} | nonce={} | method={}] Submit to Bridge", rskTx.getHash(), nonce, function.name);
+        TransactionPoolAddResult result;
+        // Only this thread submits txs, so the pool lock is no longer contended by the clients
+        synchronized (transactionPool) {
+            result = ethereum.submitTransaction(rskTx);
+        }
+        if (result == null || result.transactionsWereAdded()) {
+            nonceManager.onAdded(federatorAddress, nonce);
+            return Optional.of(new SubmittedRskTx(rskTx.getHash(), nonce, bestBlockNumber, function.name, rskTx.getData().length));
         }
+        // Let the pending state decide the nonce of the next tx, a locally assigned one could leave a gap
+        nonceManager.resync(federatorAddress);
+        LOGGER.warn("[tx={} | nonce={}] Tx not added to the pool. {}", rskTx.getHash(), nonce, result.getErrorMessage());
+        return Optional.empty();
     }
 
     private void logBridgeInteraction(String action, CallTransaction.Function function, Object... functionArgs) {
@@ -0,0 +1,14 @@
+package co.rsk.federate;
+
+import org.ethereum.core.CallTransaction;
+
+/**
+ * Identifies what a tx to the Bridge informs, regardless of the tx that carries it,
+ * like the BTC tx a registerBtcTransaction registers.
+ */
+public record BridgeTxKey(String method, String payloadId) {
+
+    public static BridgeTxKey of(CallTransaction.Function function, Object payloadId) {
+        return new BridgeTxKey(function.name, String.valueOf(payloadId));
+    }
+}
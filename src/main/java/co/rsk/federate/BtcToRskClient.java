@@ -11,6 +11,8 @@ import co.rsk.bitcoinj.wallet.Wallet;
 import co.rsk.federate.adapter.ThinConverter;
 import co.rsk.federate.bitcoin.BitcoinWrapper;
 import co.rsk.federate.bitcoin.BlockListener;
+import co.rsk.federate.bitcoin.BlockMerkleTree;
+import co.rsk.federate.bitcoin.BlockTransactionIndex;
 import co.rsk.federate.bitcoin.TransactionListener;
 import co.rsk.federate.config.PowpegNodeSystemProperties;
 import co.rsk.federate.io.BtcToRskClientFileData;
@@ -27,12 +29,10 @@ import co.rsk.peg.federation.Federation;
 import co.rsk.peg.federation.FederationMember;
 import co.rsk.peg.pegininstructions.PeginInstructionsProvider;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -40,10 +40,10 @@ import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.IntStream;
 import javax.annotation.PreDestroy;
 
 import org.bitcoinj.core.*;
+import org.bitcoinj.core.listeners.NewBestBlockListener;
 import org.bitcoinj.store.BlockStoreException;
 import org.ethereum.config.blockchain.upgrades.ActivationConfig;
 import org.slf4j.Logger;
@@ -51,12 +51,16 @@ import org.slf4j.LoggerFactory;
 
 public class BtcToRskClient implements BlockListener, TransactionListener {
     protected static final int MAXIMUM_REGISTER_BTC_LOCK_TXS_PER_TURN = 40;
+    // Header batches sent while catching up are sized to leave room for other txs in the block
+    private static final int MAX_HEADER_BATCHES_PER_BLOCK = 2;
+    private static final int HEADER_BATCH_GAS_MARGIN_PERCENT = 10;
 
     private static final Logger logger = LoggerFactory.getLogger(BtcToRskClient.class);
 
     private ActivationConfig activationConfig;
     private BridgeConstants bridgeConstants;
     private FederatorSupport federatorSupport;
+    private FederationProvider federationProvider;
     private NodeBlockProcessor nodeBlockProcessor;
     private BitcoinWrapper bitcoinWrapper;
     private BtcToRskClientFileStorage btcToRskClientFileStorage;
@@ -66,7 +70,12 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
     private Federation federationToListen; // Federation on which this client is operating
     private ScheduledExecutorService updateBridgeTimer; // Timer that updates the bridge periodically
     private int amountOfHeadersToSend; // Set amount of headers to inform in a single call
+    private int maxHeaderBatchesPerTurn; // Max amount of receiveHeaders calls in a single turn while catching up
+    private final HeaderRelayMetrics headerRelayMetrics = new HeaderRelayMetrics(Clock.systemUTC());
+    private BridgeBtcBlockchainTracker bridgeBtcBlockchainTracker;
     private BtcToRskClientFileData fileData = new BtcToRskClientFileData();
+    private final PendingPeginQueue pendingPegins = new PendingPeginQueue();
+    private final NewBestBlockListener newBtcBestBlockListener = storedBlock -> pendingPegins.onNewBtcBestBlock();
     private boolean shouldUpdateBridgeBtcBlockchain;
     private boolean shouldUpdateBridgeBtcCoinbaseTransactions;
     private boolean shouldUpdateBridgeBtcTransactions;
@@ -87,7 +96,12 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
     ) throws Exception {
         this.bitcoinWrapper = bitcoinWrapper;
         this.federatorSupport = federatorSupport;
+        this.bridgeBtcBlockchainTracker = new BridgeBtcBlockchainTracker(federatorSupport, this::getMatchingStoredBlockInMainChain);
         this.bridgeConstants = bridgeConstants;
+        this.federationProvider = new FederationProviderFromFederatorSupport(
+            federatorSupport,
+            bridgeConstants.getFederationConstants()
+        );
         this.btcToRskClientFileStorage = btcToRskClientFileStorage;
         this.restoreFileData();
         this.btcLockSenderProvider = btcLockSenderProvider;
@@ -102,15 +116,19 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         BtcToRskClientFileStorage btcToRskClientFileStorage,
         BtcLockSenderProvider btcLockSenderProvider,
         PeginInstructionsProvider peginInstructionsProvider,
+        FederationProvider federationProvider,
         PowpegNodeSystemProperties config
     ) throws Exception {
         this.bridgeConstants = bridgeConstants;
+        this.federationProvider = federationProvider;
         this.btcToRskClientFileStorage = btcToRskClientFileStorage;
         this.restoreFileData();
         this.bitcoinWrapper = bitcoinWrapper;
+        this.bridgeBtcBlockchainTracker = new BridgeBtcBlockchainTracker(federatorSupport, this::getMatchingStoredBlockInMainChain);
         this.btcLockSenderProvider = btcLockSenderProvider;
         this.peginInstructionsProvider = peginInstructionsProvider;
         bitcoinWrapper.addBlockListener(this);
+        bitcoinWrapper.addNewBlockListener(newBtcBestBlockListener);
         setConfigVariables(config);
 
         logger.debug("[setup] BtcToRskClient setup complete");
@@ -181,6 +199,10 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         logger.debug("[stop] Stopped");
     }
 
+    public HeaderRelayMetrics getHeaderRelayMetrics() {
+        return headerRelayMetrics;
+    }
+
     public synchronized Map<Sha256Hash, List<Proof>> getTransactionsToSendToRsk() {
         return fileData.getTransactionProofs();
     }
@@ -241,23 +263,29 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
 
     @Override
     public void onBlock(Block block) {
+        onBlock(block, BlockTransactionIndex.of(block));
+    }
+
+    @Override
+    public void onBlock(Block block, BlockTransactionIndex blockTransactionIndex) {
+        logger.debug("[onBlock] {}", block.getHash());
+        // Tracked txs are added by the wallet listeners, which bitcoinj runs in the same thread as this one
+        List<Transaction> trackedTxs = blockTransactionIndex.findTransactions(fileData.getTransactionProofs().keySet());
+        if (trackedTxs.isEmpty()) {
+            // no tx of this block is important, move on
+            return;
+        }
+
         synchronized (this) {
-            logger.debug("[onBlock] {}", block.getHash());
             PartialMerkleTree tree;
-            Transaction coinbase = null;
+            Transaction firstTx = block.getTransactions().get(0);
+            Transaction coinbase = firstTx.isCoinBase() ? firstTx : null;
             boolean dataToWrite = false;
             boolean coinbaseRegistered = false;
-            for (Transaction tx: block.getTransactions()) {
+            for (Transaction tx: trackedTxs) {
 
-                if (tx.isCoinBase()) {
-                    // safe keep the coinbase and move on
-                    logger.debug("[onBlock] Transaction {} is the coinbase", tx.getTxId());
-                    coinbase = tx;
-                    continue;
-                }
-
-                if (!fileData.getTransactionProofs().containsKey(tx.getWTxId())) {
-                    // this tx is not important move on
+                if (tx.isCoinBase() || !fileData.getTransactionProofs().containsKey(tx.getWTxId())) {
+                    // this tx is not important (or not anymore) move on
                     continue;
                 }
                 logger.debug(
@@ -273,8 +301,10 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
                     continue;
                 }
 
+                // The merkle tree of the block is shared by all the proofs of the block
+                BlockMerkleTree blockMerkleTree = blockTransactionIndex.getBlockMerkleTree();
                 // Always use the wtxid for peg-in transactions
-                tree = generatePMT(block, tx, tx.hasWitnesses());
+                tree = blockMerkleTree.buildPartialMerkleTree(tx, tx.hasWitnesses());
                 // If the transaction has a witness, then we need to store the coinbase information to inform it
                 if (tx.hasWitnesses() && !coinbaseRegistered) {
                     logger.debug(
@@ -284,9 +314,9 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
                     );
                     // We don't want to generate the PMT with the wtxid for the coinbase
                     // as it doesn't have a corresponding hash in the witness root
-                    PartialMerkleTree coinbasePmt = generatePMT(block, coinbase, false);
+                    PartialMerkleTree coinbasePmt = blockMerkleTree.buildPartialMerkleTree(coinbase, false);
                     try {
-                        Sha256Hash witnessMerkleRoot = tree.getTxnHashAndMerkleRoot(new ArrayList<>());
+                        Sha256Hash witnessMerkleRoot = blockMerkleTree.getMerkleRoot(true);
                         CoinbaseInformation coinbaseInformation = new CoinbaseInformation(
                             coinbase,
                             witnessMerkleRoot,
@@ -315,7 +345,11 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
                     }
                 }
 
-                proofs.add(new Proof(block.getHash(), tree));
+                // Put the updated list back, the storage may not be holding the one we got
+                List<Proof> updatedProofs = new ArrayList<>(proofs);
+                updatedProofs.add(new Proof(block.getHash(), tree));
+                fileData.getTransactionProofs().put(tx.getWTxId(), updatedProofs);
+                pendingPegins.onProofAdded(tx.getWTxId());
                 logger.info(
                     "[onBlock] New proof for tx {} (wtxid: {}) in block {}",
                     tx.getTxId(),
@@ -387,6 +421,7 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         logger.debug("[onTransaction] {} (wtxid:{})", tx.getTxId(), tx.getWTxId());
         synchronized (this) {
             this.fileData.getTransactionProofs().put(tx.getWTxId(), new ArrayList<>());
+            pendingPegins.add(tx.getWTxId());
             try {
                 this.btcToRskClientFileStorage.write(this.fileData);
             } catch (IOException e) {
@@ -408,8 +443,7 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
             // update the bridge with the latest.
 
             // First, find the common ancestor that is in the federator's bestchain
-            // using block depth incremental search
-            Optional<StoredBlock> commonAncestorOpt = findBridgeBtcBlockchainMatchingAncestor(bridgeBtcBlockchainBestChainHeight);
+            Optional<StoredBlock> commonAncestorOpt = bridgeBtcBlockchainTracker.findMatchingAncestor(bridgeBtcBlockchainBestChainHeight);
             if (commonAncestorOpt.isEmpty()) {
                 throw new BlockStoreException("No best chain block found");
             }
@@ -421,77 +455,112 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
             );
 
             // We found a common ancestor. Send receiveHeaders with the blocks it is missing.
-            StoredBlock current = bitcoinWrapper.getChainHead();
-            List<Block> headersToSendToBridge = new LinkedList<>();
-            while (!current.equals(commonAncestor)) {
-                headersToSendToBridge.add(current.getHeader());
-                current = bitcoinWrapper.getBlock(current.getHeader().getPrevBlockHash());
-            }
-            if (headersToSendToBridge.isEmpty()) {
+            int headersMissingInBridge = federatorBtcBlockchainBestChainHeight - commonAncestor.getHeight();
+            List<StoredBlock> blocksToSendToBridge = getBestChainBlocksAfter(
+                commonAncestor,
+                Math.min(amountOfHeadersToSend, headersMissingInBridge)
+            );
+            if (blocksToSendToBridge.isEmpty()) {
                 logger.debug(
                     "[updateBridgeBtcBlockchain] Bridge was just updated, no new blocks to send, matchedBlock: {}.",
                     commonAncestor.getHeader().getHash()
                 );
+                headerRelayMetrics.onTurn(0, headersMissingInBridge <= 0);
                 return 0;
             }
-            headersToSendToBridge = Lists.reverse(headersToSendToBridge);
             logger.debug(
                 "[updateBridgeBtcBlockchain] Headers missing in the bridge {}.",
-                headersToSendToBridge.size()
+                headersMissingInBridge
             );
-            int to = Math.min(amountOfHeadersToSend, headersToSendToBridge.size());
-            List<Block> headersToSendToBridgeSubList = headersToSendToBridge.subList(0, to);
-            federatorSupport.sendReceiveHeaders(headersToSendToBridgeSubList.toArray(new Block[]{}));
+            if (blocksToSendToBridge.size() < headersMissingInBridge && maxHeaderBatchesPerTurn > 1) {
+                return catchUpBridgeBtcBlockchain(blocksToSendToBridge, headersMissingInBridge);
+            }
+
+            Block[] headersToSendToBridge = getHeaders(blocksToSendToBridge);
+            federatorSupport.sendReceiveHeaders(headersToSendToBridge);
+            headerRelayMetrics.onTurn(1, headersToSendToBridge.length == headersMissingInBridge);
 
             logger.debug(
                 "[updateBridgeBtcBlockchain] Invoked receiveHeaders with {} blocks. First {}, Last {}.",
-                headersToSendToBridgeSubList.size(),
-                headersToSendToBridgeSubList.get(0).getHash(),
-                headersToSendToBridgeSubList.get(headersToSendToBridgeSubList.size()-1).getHash()
+                headersToSendToBridge.length,
+                headersToSendToBridge[0].getHash(),
+                headersToSendToBridge[headersToSendToBridge.length - 1].getHash()
             );
-            return headersToSendToBridgeSubList.size();
+            return headersToSendToBridge.length;
         }
 
+        headerRelayMetrics.onTurn(0, true);
         return 0;
     }
 
-    private Optional<StoredBlock> findBridgeBtcBlockchainMatchingAncestor(int bridgeBtcBlockchainBestChainHeight) throws BlockStoreException {
-        // Find the last federator's best chain block the bridge has and update from there
-        int bridgeBtcBlockchainInitialBlockHeight = federatorSupport.getBtcBlockchainInitialBlockHeight();
-        int maxSearchDepth = bridgeBtcBlockchainBestChainHeight - bridgeBtcBlockchainInitialBlockHeight;
-        logger.debug(
-            "[findBridgeBtcBlockchainMatchingAncestor] Bridge BTC blockchain initial block height: {}, max search depth : {}.",
-            bridgeBtcBlockchainInitialBlockHeight,
-            maxSearchDepth
-        );
+    /**
+     * Sends consecutive batches of headers in a single turn, until the Bridge reaches the tip
+     * or the maximum amount of batches per turn is sent.
+     * Batches are shrunk to fit in the RSK block gas limit, and since the ones after the first
+     * would not connect in the Bridge until the previous ones are mined, they are all sent with
+     * the gas estimated for the first one.
+     */
+    private int catchUpBridgeBtcBlockchain(List<StoredBlock> firstBatch, int headersMissingInBridge) throws BlockStoreException {
+        long batchGas = federatorSupport.estimateReceiveHeadersGas(getHeaders(firstBatch));
+        long gasPerHeader = Math.max(1, batchGas / firstBatch.size());
+        long maxHeadersPerBatch = federatorSupport.getRskBestBlockGasLimit() / MAX_HEADER_BATCHES_PER_BLOCK / gasPerHeader;
+        int batchSize = (int) Math.max(1, Math.min(firstBatch.size(), maxHeadersPerBatch));
+        List<StoredBlock> batch = firstBatch;
+        if (batchSize < firstBatch.size()) {
+            batch = firstBatch.subList(0, batchSize);
+            batchGas = federatorSupport.estimateReceiveHeadersGas(getHeaders(batch));
+        }
+        long batchGasLimit = batchGas + batchGas * HEADER_BATCH_GAS_MARGIN_PERCENT / 100;
+
+        int headersSent = 0;
+        int batchesSent = 0;
+        while (!batch.isEmpty()) {
+            federatorSupport.sendReceiveHeaders(getHeaders(batch), batchGasLimit);
+            headersSent += batch.size();
+            batchesSent++;
+            if (batchesSent >= maxHeaderBatchesPerTurn || headersSent >= headersMissingInBridge) {
+                break;
+            }
+            batch = getBestChainBlocksAfter(
+                batch.get(batch.size() - 1),
+                Math.min(batchSize, headersMissingInBridge - headersSent)
+            );
+        }
 
-        int currentSearchDepth = 0;
-        int iteration = 0;
-        while (true) {
-            Sha256Hash storedBlockHash = federatorSupport.getBtcBlockchainBlockHashAtDepth(currentSearchDepth);
-            Optional<StoredBlock> storedBlock = getMatchingStoredBlockInMainChain(storedBlockHash);
-            logger.trace(
-                "[findBridgeBtcBlockchainMatchingAncestor] block[storedBlockHash] found? {}",
-                storedBlock.isPresent()
+        boolean reachedTip = headersSent >= headersMissingInBridge;
+        headerRelayMetrics.onTurn(batchesSent, reachedTip);
+        logger.info(
+            "[catchUpBridgeBtcBlockchain] Invoked receiveHeaders {} times with {} blocks, {} blocks still missing in the bridge.",
+            batchesSent,
+            headersSent,
+            headersMissingInBridge - headersSent
+        );
+        if (reachedTip) {
+            headerRelayMetrics.getLastCatchUpLatencyToTip().ifPresent(latency ->
+                logger.info("[catchUpBridgeBtcBlockchain] Bridge caught up with the tip in {}.", latency)
             );
-            if (storedBlock.isPresent()) {
-                return storedBlock;
-            }
+        }
+        return headersSent;
+    }
 
-            // Have we just searched at maximum depth? If so, no more to search, nothing found!
-            if (currentSearchDepth == maxSearchDepth) {
+    private List<StoredBlock> getBestChainBlocksAfter(StoredBlock ancestor, int amountOfBlocks) throws BlockStoreException {
+        List<StoredBlock> blocks = new ArrayList<>();
+        Sha256Hash previousBlockHash = ancestor.getHeader().getHash();
+        for (int height = ancestor.getHeight() + 1; blocks.size() < amountOfBlocks; height++) {
+            StoredBlock block = bitcoinWrapper.getBlockAtHeight(height);
+            // The best chain may have been reorganized since the ancestor was found,
+            // only the blocks that follow it are sent
+            if (block == null || !block.getHeader().getPrevBlockHash().equals(previousBlockHash)) {
                 break;
             }
-
-            // Exponentially increase the search depth in the blockchain
-            // so that we find an ancestor fast in case of a fork.
-            // The normal case is the federator's btc blockchain
-            // is just one block ahead, so the block at bridge btc blockchain depth zero is the parent
-            // of the current fed block, hence the ancestor is immediately found and this code isn't reached.
-            currentSearchDepth = IntStream.of(1 << iteration, maxSearchDepth).min().getAsInt();
-            iteration++;
+            blocks.add(block);
+            previousBlockHash = block.getHeader().getHash();
         }
-        return Optional.empty();
+        return blocks;
+    }
+
+    private static Block[] getHeaders(List<StoredBlock> blocks) {
+        return blocks.stream().map(StoredBlock::getHeader).toArray(Block[]::new);
     }
 
     private Optional<StoredBlock> getMatchingStoredBlockInMainChain(Sha256Hash blockHash) throws BlockStoreException {
@@ -524,13 +593,9 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
             null
         );
 
-        FederationProviderFromFederatorSupport federationProviderFromFederatorSupport = new FederationProviderFromFederatorSupport(
-            federatorSupport,
-            bridgeConstants.getFederationConstants()
-        );
-        Optional<Federation> proposedFederation = federationProviderFromFederatorSupport.getProposedFederation();
-        Optional<Federation> retiringFederation = federationProviderFromFederatorSupport.getRetiringFederation();
-        Federation activeFederation = federationProviderFromFederatorSupport.getActiveFederation();
+        Optional<Federation> proposedFederation = federationProvider.getProposedFederation();
+        Optional<Federation> retiringFederation = federationProvider.getRetiringFederation();
+        Federation activeFederation = federationProvider.getActiveFederation();
 
         int btcToRskMinimumAcceptableConfirmations = bridgeConstants.getBtc2RskMinimumAcceptableConfirmations();
         Map<Sha256Hash, Transaction> federatorWalletTxMap = bitcoinWrapper.getTransactionMap(btcToRskMinimumAcceptableConfirmations);
@@ -538,11 +603,26 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         Set<Sha256Hash> txsToSendToRskHashes = this.fileData.getTransactionProofs().keySet();
         logger.debug("[updateBridgeBtcTransactions] Tx to send count: {}", txsToSendToRskHashes.size());
 
+        pendingPegins.sync(txsToSendToRskHashes);
+        pendingPegins.onRskBestBlock(federatorSupport.getRskBestChainHeight());
+        logger.debug(
+            "[updateBridgeBtcTransactions] Txs ready to register: {}, awaiting confirmations: {}, awaiting proof: {}, registered: {}, quarantined: {}",
+            pendingPegins.size(PendingPeginQueue.Status.READY_TO_REGISTER),
+            pendingPegins.size(PendingPeginQueue.Status.AWAITING_CONFIRMATIONS),
+            pendingPegins.size(PendingPeginQueue.Status.AWAITING_PROOF),
+            pendingPegins.size(PendingPeginQueue.Status.REGISTERED),
+            pendingPegins.size(PendingPeginQueue.Status.QUARANTINED)
+        );
+
         int numberOfTxsSent = 0;
 
         Iterator<Sha256Hash> txHashIterator = txsToSendToRskHashes.iterator();
         while (txHashIterator.hasNext()) {
             Sha256Hash txHash = txHashIterator.next();
+            if (!pendingPegins.isReadyToRegister(txHash)) {
+                // Its status can only change after a new btc best block, a new proof or reaching rsk finality
+                continue;
+            }
             try {
                 Transaction tx = federatorWalletTxMap.get(txHash);
                 logger.debug("[updateBridgeBtcTransactions] Evaluating Btc Tx {}", txHash);
@@ -553,6 +633,7 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
                         txHash
                     );
                     // Don't remove it as we still have to wait for its confirmations.
+                    pendingPegins.markAwaitingConfirmations(txHash);
                     continue;
                 }
 
@@ -578,14 +659,19 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
                     // If M >= N + K, then remove the transaction from the list
                     Long txProcessedHeight = federatorSupport.getBtcTxHashProcessedHeight(txId);
                     Long bestChainHeight = federatorSupport.getRskBestChainHeight();
-                    if (bestChainHeight >= txProcessedHeight + getBtcToRskMinimumAcceptableConfirmationsOnRsk()) {
+                    long finalityHeight = txProcessedHeight + getBtcToRskMinimumAcceptableConfirmationsOnRsk();
+                    if (bestChainHeight >= finalityHeight) {
                         removeTxHashFromFile(txHashIterator);
+                        pendingPegins.remove(txHash);
                         logger.debug(
                             "[updateBridgeBtcTransactions] Btc Tx {} was processed at height {}, current height is {}. Tx removed from pending lock list",
                             txHash,
                             txProcessedHeight,
                             bestChainHeight
                         );
+                    } else {
+                        // Check it again once it can be removed
+                        pendingPegins.markRegistered(txHash, finalityHeight);
                     }
 
                     // already processed tx should not be sent again
@@ -597,22 +683,26 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
                     Optional<List<Proof>> txProofs = getTxProofs(tx);
                     if (txProofs.isEmpty()) {
                         logger.debug("[updateBridgeBtcTransactions] Couldn't find proof for tx {}", txHash);
+                        pendingPegins.markAwaitingProof(txHash);
                         continue;
                     }
                     Optional<StoredBlock> txStoredBlockOpt = getStoredBlock(tx);
                     if (txStoredBlockOpt.isEmpty()) {
                         logger.debug("[updateBridgeBtcTransactions] Couldn't find stored block for tx {}", txHash);
+                        pendingPegins.markAwaitingProof(txHash);
                         continue;
                     }
                     StoredBlock txStoredBlock = txStoredBlockOpt.get();
-                    Optional<PartialMerkleTree> pmt = getPMT(txProofs.get(), txStoredBlock);
-                    if (pmt.isEmpty()) {
+                    Optional<Proof> proof = getProof(txProofs.get(), txStoredBlock);
+                    if (proof.isEmpty()) {
                         logger.debug("[updateBridgeBtcTransactions] Couldn't find pmt for tx {}", txHash);
+                        pendingPegins.markAwaitingProof(txHash);
                         continue;
                     }
 
                     if (!shouldSendTx(tx, federationWallet, proposedFederation, retiringFederation, activeFederation)) {
                         removeTxHashFromFile(txHashIterator);
+                        pendingPegins.remove(txHash);
                         logger.warn(
                             "[updateBridgeBtcTransactions] Removed transaction {} (wtxid: {}) from txs to send to the Bridge",
                             txId,
@@ -621,7 +711,11 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
                         continue;
                     }
 
-                    sendTx(tx, txStoredBlock, pmt.get());
+                    if (sendTx(tx, txStoredBlock, proof.get()).isPresent()) {
+                        // Retrying it on every turn would not change the Bridge mind, wait before trying again
+                        pendingPegins.markQuarantined(txHash, federatorSupport.getRskBestChainHeight());
+                        continue;
+                    }
                     numberOfTxsSent++;
                     // Sent a maximum of 40 registerBtcTransaction txs per federator
                     if (numberOfTxsSent >= MAXIMUM_REGISTER_BTC_LOCK_TXS_PER_TURN) {
@@ -683,13 +777,12 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         }
     }
 
-    private Optional<PartialMerkleTree> getPMT(List<Proof> txProofs, StoredBlock txStoredBlock) {
+    private Optional<Proof> getProof(List<Proof> txProofs, StoredBlock txStoredBlock) {
         Sha256Hash blockHash = txStoredBlock.getHeader().getHash();
 
         return txProofs.stream()
             .filter(proof -> proof.getBlockHash().equals(blockHash))
-            .findFirst()
-            .map(Proof::getPartialMerkleTree);
+            .findFirst();
     }
 
     private boolean shouldSendTx(Transaction tx, Wallet federationWallet, Optional<Federation> proposedFederation, Optional<Federation> retiringFederation, Federation activeFederation) {
@@ -721,7 +814,7 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         return isValidPegInTx(btcTx, federationWallet, peginInformation);
     }
 
-    private void sendTx(Transaction tx, StoredBlock txStoredBlock, PartialMerkleTree pmt) {
+    private Optional<BridgePreflight> sendTx(Transaction tx, StoredBlock txStoredBlock, Proof proof) {
         int blockHeight = txStoredBlock.getHeight();
 
         logger.debug(
@@ -732,12 +825,22 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
             blockHeight
         );
 
-        federatorSupport.sendRegisterBtcTransaction(tx, blockHeight, pmt);
+        Optional<BridgePreflight> rejection = federatorSupport.sendRegisterBtcTransaction(tx, blockHeight, proof);
+        if (rejection.isPresent()) {
+            logger.info(
+                "[sendTx] Bridge would refuse tx {} (wtxid: {}), quarantined. {}",
+                tx.getTxId(),
+                tx.getWTxId(),
+                rejection.get().getRejectionReason()
+            );
+            return rejection;
+        }
         logger.debug(
             "[sendTx] Invoked registerBtcTransaction for tx {} (wtxid: {})",
             tx.getTxId(),
             tx.getWTxId()
         );
+        return rejection;
     }
 
     /**
@@ -759,7 +862,7 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
             Sha256Hash coinbaseBlockHash = coinbaseBlockHashIterator.next();
             CoinbaseInformation coinbaseInformation = coinbaseInformationMap.get(coinbaseBlockHash);
 
-            Sha256Hash coinbaseTxHash = coinbaseInformation.getCoinbaseTransaction().getTxId();
+            Sha256Hash coinbaseTxHash = coinbaseInformation.getCoinbaseTransactionId();
             if (federatorSupport.hasBlockCoinbaseInformed(coinbaseBlockHash)) {
                 logger.debug(
                     "[updateBridgeBtcCoinbaseTransactions] Coinbase tx {} of block {} was already informed. Removing from map",
@@ -834,9 +937,11 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         }
 
         bitcoinWrapper.removeBlockListener(this);
+        bitcoinWrapper.removeNewBestBlockListener(newBtcBestBlockListener);
 
         synchronized (this) {
             this.btcToRskClientFileStorage.write(this.fileData);
+            this.btcToRskClientFileStorage.close();
         }
 
         logger.info("[tearDown] BtcToRskClient tearDown finished.");
@@ -864,23 +969,7 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
 
     @VisibleForTesting
     protected PartialMerkleTree generatePMT(Block block, Transaction transaction, boolean useWtxId) {
-        List<Transaction> txns = block.getTransactions();
-        List<Sha256Hash> txHashes = new ArrayList<>(txns.size());
-        Sha256Hash transactionId = useWtxId ? transaction.getWTxId() : transaction.getTxId();
-        byte[] bits = new byte[(int) Math.ceil(txns.size() / 8.0)];
-        for (int i = 0; i < txns.size(); i++) {
-            Transaction tx = txns.get(i);
-            Sha256Hash txId = useWtxId ? tx.getWTxId() : tx.getTxId();
-            // If we are using wtxId, the coinbase must be included as a ZERO hash
-            if (useWtxId && tx.isCoinBase()) {
-                txId = Sha256Hash.ZERO_HASH;
-            }
-            txHashes.add(txId);
-            if (txId.equals(transactionId)) {
-                Utils.setBitLE(bits, i);
-            }
-        }
-        return PartialMerkleTree.buildFromLeaves(block.getParams(), bits, txHashes);
+        return new BlockMerkleTree(block).buildPartialMerkleTree(transaction, useWtxId);
     }
 
     @VisibleForTesting
@@ -893,6 +982,7 @@ public class BtcToRskClient implements BlockListener, TransactionListener {
         this.isUpdateBridgeTimerEnabled = config.isUpdateBridgeTimerEnabled();
         this.isUpdateBridgeTimerEnabled = config.isUpdateBridgeTimerEnabled();
         this.amountOfHeadersToSend = config.getAmountOfHeadersToSend();
+        this.maxHeaderBatchesPerTurn = config.getMaxHeaderBatchesPerTurn();
         this.shouldUpdateBridgeBtcBlockchain = config.shouldUpdateBridgeBtcBlockchain();
         this.shouldUpdateBridgeBtcCoinbaseTransactions = config.shouldUpdateBridgeBtcCoinbaseTransactions();
         this.shouldUpdateBridgeBtcTransactions = config.shouldUpdateBridgeBtcTransactions();
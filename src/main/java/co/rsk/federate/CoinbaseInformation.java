@@ -7,33 +7,77 @@ import org.bitcoinj.core.Transaction;
 import org.ethereum.util.RLP;
 import org.ethereum.util.RLPList;
 
+import java.util.Arrays;
 import java.util.Objects;
 
+/**
+ * Immutable information needed to register a coinbase transaction in the Bridge.
+ * The coinbase transaction and its partial merkle tree are kept in their serialized form and only
+ * decoded when first requested, while the encodings sent to the Bridge and persisted to storage
+ * are computed once and reused.
+ */
 public class CoinbaseInformation {
 
-    private final Transaction coinbaseTransaction;
+    private final NetworkParameters parameters;
     private final Sha256Hash witnessRoot;
     private final Sha256Hash blockHash;
-    private final PartialMerkleTree pmt;
+
+    private volatile Transaction coinbaseTransaction;
+    private volatile byte[] serializedCoinbaseTransaction;
+    private volatile byte[] serializedCoinbaseTransactionWithoutWitness;
+    private volatile PartialMerkleTree pmt;
+    private volatile byte[] serializedPmt;
+    private volatile byte[] encoded;
 
     public CoinbaseInformation(Transaction coinbaseTransaction, Sha256Hash witnessRoot, Sha256Hash blockHash, PartialMerkleTree pmt) throws Exception {
         checkCoinbase(coinbaseTransaction);
+        this.parameters = coinbaseTransaction.getParams();
         this.coinbaseTransaction = coinbaseTransaction;
         this.witnessRoot = witnessRoot;
         this.blockHash = blockHash;
         this.pmt = pmt;
     }
 
+    private CoinbaseInformation(NetworkParameters parameters, byte[] serializedCoinbaseTransaction, Sha256Hash witnessRoot, Sha256Hash blockHash, byte[] serializedPmt, byte[] encoded) {
+        this.parameters = parameters;
+        this.serializedCoinbaseTransaction = serializedCoinbaseTransaction;
+        this.witnessRoot = witnessRoot;
+        this.blockHash = blockHash;
+        this.serializedPmt = serializedPmt;
+        this.encoded = encoded;
+    }
+
     public byte[] getSerializedCoinbaseTransactionWithoutWitness() {
-        byte[] serializedOriginalTx = this.coinbaseTransaction.bitcoinSerialize();
-        // We need to clear the witness so the serialized tx doesn't contain the witness
-        Transaction tempTx = new Transaction(this.coinbaseTransaction.getParams(), serializedOriginalTx);
-        tempTx.getInputs().get(0).setWitness(null);
-        return tempTx.bitcoinSerialize();
+        return serializeCoinbaseTransactionWithoutWitness().clone();
+    }
+
+    private byte[] serializeCoinbaseTransactionWithoutWitness() {
+        byte[] serializedTx = this.serializedCoinbaseTransactionWithoutWitness;
+        if (serializedTx == null) {
+            // We need to clear the witness so the serialized tx doesn't contain the witness
+            Transaction tempTx = new Transaction(parameters, serializeCoinbaseTransaction());
+            tempTx.getInputs().get(0).setWitness(null);
+            serializedTx = tempTx.bitcoinSerialize();
+            this.serializedCoinbaseTransactionWithoutWitness = serializedTx;
+        }
+        return serializedTx;
+    }
+
+    /**
+     * The coinbase transaction id, computed from its serialization without witness
+     * so the transaction doesn't need to be decoded.
+     */
+    public Sha256Hash getCoinbaseTransactionId() {
+        return Sha256Hash.wrapReversed(Sha256Hash.hashTwice(serializeCoinbaseTransactionWithoutWitness()));
     }
 
     public Transaction getCoinbaseTransaction() {
-        return coinbaseTransaction;
+        Transaction tx = this.coinbaseTransaction;
+        if (tx == null) {
+            tx = new Transaction(parameters, this.serializedCoinbaseTransaction);
+            this.coinbaseTransaction = tx;
+        }
+        return tx;
     }
 
     public Sha256Hash getWitnessRoot() {
@@ -45,11 +89,29 @@ public class CoinbaseInformation {
     }
 
     public PartialMerkleTree getPmt() {
-        return pmt;
+        PartialMerkleTree tree = this.pmt;
+        if (tree == null && this.serializedPmt != null) {
+            tree = new PartialMerkleTree(parameters, this.serializedPmt, 0);
+            this.pmt = tree;
+        }
+        return tree;
+    }
+
+    public byte[] getSerializedPmt() {
+        return serializePmt().clone();
+    }
+
+    private byte[] serializePmt() {
+        byte[] serialized = this.serializedPmt;
+        if (serialized == null && this.pmt != null) {
+            serialized = this.pmt.bitcoinSerialize();
+            this.serializedPmt = serialized;
+        }
+        return serialized;
     }
 
     public byte[] getCoinbaseWitnessReservedValue() {
-        byte[] witnessReservedValue = this.coinbaseTransaction.getInput(0).getWitness().getPush(0);
+        byte[] witnessReservedValue = getCoinbaseTransaction().getInput(0).getWitness().getPush(0);
         if (witnessReservedValue.length != 32) {
             return null;
         }
@@ -57,12 +119,26 @@ public class CoinbaseInformation {
     }
 
     public byte[] serializeToRLP() {
-        byte[] rlpTx = RLP.encodeElement(this.coinbaseTransaction.bitcoinSerialize());
-        byte[] rlpWitnessRoot = RLP.encodeElement(this.witnessRoot.getBytes());
-        byte[] rlpBlockHash = RLP.encodeElement(this.blockHash.getBytes());
-        byte[] rlpPmt = RLP.encodeElement(this.pmt.bitcoinSerialize());
+        byte[] rlpData = this.encoded;
+        if (rlpData == null) {
+            byte[] rlpTx = RLP.encodeElement(serializeCoinbaseTransaction());
+            byte[] rlpWitnessRoot = RLP.encodeElement(this.witnessRoot.getBytes());
+            byte[] rlpBlockHash = RLP.encodeElement(this.blockHash.getBytes());
+            byte[] rlpPmt = RLP.encodeElement(serializePmt());
+
+            rlpData = RLP.encodeList(rlpTx, rlpWitnessRoot, rlpBlockHash, rlpPmt);
+            this.encoded = rlpData;
+        }
+        return rlpData.clone();
+    }
 
-        return RLP.encodeList(rlpTx, rlpWitnessRoot, rlpBlockHash, rlpPmt);
+    private byte[] serializeCoinbaseTransaction() {
+        byte[] serializedTx = this.serializedCoinbaseTransaction;
+        if (serializedTx == null) {
+            serializedTx = this.coinbaseTransaction.bitcoinSerialize();
+            this.serializedCoinbaseTransaction = serializedTx;
+        }
+        return serializedTx;
     }
 
     @Override
@@ -77,8 +153,8 @@ public class CoinbaseInformation {
 
         CoinbaseInformation input = (CoinbaseInformation) o;
 
-        return this.getCoinbaseTransaction().equals(input.getCoinbaseTransaction()) &&
-                this.getPmt().equals(input.getPmt()) &&
+        return Arrays.equals(this.serializeCoinbaseTransaction(), input.serializeCoinbaseTransaction()) &&
+                Arrays.equals(this.serializePmt(), input.serializePmt()) &&
                 this.getBlockHash().equals(input.getBlockHash()) &&
                 this.getWitnessRoot().equals(input.getWitnessRoot());
     }
@@ -86,20 +162,27 @@ public class CoinbaseInformation {
     @Override
     public int hashCode() {
         return Objects.hash(
-                this.getCoinbaseTransaction(),
+                Arrays.hashCode(this.serializeCoinbaseTransaction()),
                 this.getBlockHash().hashCode(),
                 this.getWitnessRoot().hashCode(),
-                this.getPmt().hashCode());
+                Arrays.hashCode(this.serializePmt()));
     }
 
+    /**
+     * The coinbase transaction was already checked before being serialized,
+     * so it is only decoded when first requested.
+     */
     public static CoinbaseInformation fromRlp(byte[] input, NetworkParameters parameters) throws Exception {
         RLPList rlpList = (RLPList) RLP.decode2(input).get(0);
-        Transaction tx = new Transaction(parameters, rlpList.get(0).getRLPData());
+        byte[] serializedTx = rlpList.get(0).getRLPData();
         Sha256Hash witnessRoot = Sha256Hash.wrap(rlpList.get(1).getRLPData());
         Sha256Hash blockHash = Sha256Hash.wrap(rlpList.get(2).getRLPData());
-        PartialMerkleTree pmt = new PartialMerkleTree(parameters, rlpList.get(3).getRLPData(), 0);
+        byte[] serializedPmt = rlpList.get(3).getRLPData();
+        if (serializedTx == null || serializedPmt == null) {
+            throw new Exception("Coinbase information is missing the transaction or the pmt");
+        }
 
-        return new CoinbaseInformation(tx, witnessRoot, blockHash, pmt);
+        return new CoinbaseInformation(parameters, serializedTx, witnessRoot, blockHash, serializedPmt, input);
     }
 
     private void checkCoinbase(Transaction tx) throws Exception {
@@ -21,6 +21,8 @@ import co.rsk.NodeRunner;
 import co.rsk.RskContext;
 import co.rsk.config.ConfigLoader;
 import co.rsk.config.RskSystemProperties;
+import co.rsk.core.bc.BlockTxSignatureCache;
+import co.rsk.core.bc.ReceivedTxSignatureCache;
 import co.rsk.federate.btcreleaseclient.BtcReleaseClient;
 import co.rsk.federate.config.PowpegNodeSystemProperties;
 import co.rsk.federate.log.FederateLogger;
@@ -30,6 +32,7 @@ import co.rsk.federate.signing.hsm.advanceblockchain.HSMBookKeepingClientProvide
 import co.rsk.federate.signing.hsm.client.HSMClientProtocolFactory;
 import co.rsk.federate.solidity.DummySolidityCompiler;
 import co.rsk.federate.watcher.FederationWatcher;
+import co.rsk.peg.BridgeSupportFactory;
 import java.util.concurrent.TimeUnit;
 import org.ethereum.rpc.Web3;
 import org.ethereum.solidity.compiler.SolidityCompiler;
@@ -44,6 +47,7 @@ public class FedNodeContext extends RskContext {
     private BtcToRskClient.Factory btcToRskClientFactory;
     private BtcToRskClient btcToRskClientActive;
     private BtcToRskClient btcToRskClientRetiring;
+    private BtcReleaseClient btcReleaseClient;
     private FederatorSupport federatorSupport;
     private FederationWatcher federationWatcher;
     private FederateLogger federateLogger;
@@ -57,12 +61,7 @@ public class FedNodeContext extends RskContext {
         return new FedNodeRunner(
             getBtcToRskClientActive(),
             getBtcToRskClientRetiring(),
-            new BtcReleaseClient(
-                getRsk(),
-                getFederatorSupport(),
-                getPowpegNodeSystemProperties(),
-                getNodeBlockProcessor()
-            ),
+            getBtcReleaseClient(),
             getFederationWatcher(),
             getFederatorSupport(),
             getFederateLogger(),
@@ -98,6 +97,7 @@ public class FedNodeContext extends RskContext {
             getRskModule(),
             getBtcToRskClientActive(),
             getBtcToRskClientRetiring(),
+            getBtcReleaseClient(),
             getChannelManager(),
             getPeerScoringManager(),
             getNetworkStateExporter(),
@@ -136,6 +136,19 @@ public class FedNodeContext extends RskContext {
         return btcToRskClientRetiring;
     }
 
+    private BtcReleaseClient getBtcReleaseClient() {
+        if (btcReleaseClient == null) {
+            btcReleaseClient = new BtcReleaseClient(
+                getRsk(),
+                getFederatorSupport(),
+                getPowpegNodeSystemProperties(),
+                getNodeBlockProcessor()
+            );
+        }
+
+        return btcReleaseClient;
+    }
+
     private BtcToRskClient.Factory getBtcToRskClientFactory() {
         if (btcToRskClientFactory == null) {
             btcToRskClientFactory = new BtcToRskClient.Factory(
@@ -149,7 +162,10 @@ public class FedNodeContext extends RskContext {
 
     private FederationWatcher getFederationWatcher() {
         if (federationWatcher == null) {
-            federationWatcher = new FederationWatcher(getRsk());
+            federationWatcher = new FederationWatcher(
+                getRsk(),
+                getPowpegNodeSystemProperties().getFederationReconciliationIntervalInBlocks()
+            );
         }
 
         return federationWatcher;
@@ -181,13 +197,42 @@ public class FedNodeContext extends RskContext {
             federatorSupport = new FederatorSupport(
                 getBlockchain(),
                 getPowpegNodeSystemProperties(),
-                bridgeTransactionSender
+                bridgeTransactionSender,
+                buildBridgeStorageReader(),
+                buildBridgeSnapshotFactory()
             );
         }
 
         return federatorSupport;
     }
 
+    private BridgeStorageReader buildBridgeStorageReader() {
+        PowpegNodeSystemProperties config = getPowpegNodeSystemProperties();
+        if (!config.isDirectBridgeStorageReadsEnabled()) {
+            return null;
+        }
+
+        return new BridgeStorageReader(
+            getBlockchain(),
+            getRepositoryLocator(),
+            config.getNetworkConstants().getBridgeConstants(),
+            config.getActivationConfig(),
+            getBtcBlockStoreFactory()
+        );
+    }
+
+    private BridgeSnapshot.Factory buildBridgeSnapshotFactory() {
+        PowpegNodeSystemProperties config = getPowpegNodeSystemProperties();
+        BridgeSupportFactory bridgeSupportFactory = new BridgeSupportFactory(
+            getBtcBlockStoreFactory(),
+            config.getNetworkConstants().getBridgeConstants(),
+            config.getActivationConfig(),
+            new BlockTxSignatureCache(new ReceivedTxSignatureCache())
+        );
+
+        return new BridgeSnapshot.Factory(getBlockchain(), getRepositoryLocator(), bridgeSupportFactory);
+    }
+
     private PowpegNodeSystemProperties getPowpegNodeSystemProperties() {
         if (powpegNodeSystemProperties == null) {
             powpegNodeSystemProperties = new PowpegNodeSystemProperties(new ConfigLoader(getCliArgs()));
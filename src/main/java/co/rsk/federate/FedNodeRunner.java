@@ -53,6 +53,7 @@ import co.rsk.federate.signing.hsm.client.HSMBookkeepingClient;
 import co.rsk.federate.signing.hsm.client.HSMClientProtocol;
 import co.rsk.federate.signing.hsm.client.HSMClientProtocolFactory;
 import co.rsk.federate.signing.hsm.config.PowHSMConfig;
+import co.rsk.federate.signing.hsm.message.PegoutCreationIndex;
 import co.rsk.federate.signing.hsm.message.ReleaseCreationInformationGetter;
 import co.rsk.federate.signing.hsm.message.SignerMessageBuilderFactory;
 import co.rsk.federate.signing.hsm.requirements.AncestorBlockUpdater;
@@ -78,6 +79,7 @@ import org.slf4j.LoggerFactory;
 
 public class FedNodeRunner implements NodeRunner {
     private static final Logger logger = LoggerFactory.getLogger(FedNodeRunner.class);
+    private static final String PEGOUT_CREATION_INDEX_DIRECTORY = "pegoutCreationIndex-db";
     private final BtcToRskClient btcToRskClientActive;
     private final BtcToRskClient btcToRskClientRetiring;
     private final BtcReleaseClient btcReleaseClient;
@@ -98,6 +100,7 @@ public class FedNodeRunner implements NodeRunner {
     private ECDSASigner signer;
     private HSMBookkeepingClient hsmBookkeepingClient;
     private HSMBookkeepingService hsmBookkeepingService;
+    private PegoutCreationIndex pegoutCreationIndex;
 
     public FedNodeRunner(
         BtcToRskClient btcToRskClientActive,
@@ -303,15 +306,21 @@ public class FedNodeRunner implements NodeRunner {
         logger.debug("[startFederate] Starting Federation Behaviour");
         // Set up a federation watcher to trigger starts and stops of the
         // btc to rsk client upon federation changes
-        FederationProvider federationProvider = new FederationProviderFromFederatorSupport(
-            federatorSupport,
-            bridgeConstants.getFederationConstants()
+        // Shared by the watcher and the btc to rsk clients, so each federation is built once
+        FederationProvider federationProvider = new FederationRegistry(
+            new FederationProviderFromFederatorSupport(
+                federatorSupport,
+                bridgeConstants.getFederationConstants()
+            )
         );
 
         directoryStorageInfo = new BtcToRskClientDirectoryStorageInfo(config);
         bitcoinWrapper = createAndSetupBitcoinWrapper();
 
-        BtcToRskClientFileStorageFactory fileStorageFactory = new BtcToRskClientFileStorageFactory(directoryStorageInfo);
+        BtcToRskClientFileStorageFactory fileStorageFactory = new BtcToRskClientFileStorageFactory(
+            directoryStorageInfo,
+            config.btcToRskClientStorageConfig()
+        );
         BtcLockSenderProvider btcLockSenderProvider = new BtcLockSenderProvider();
         PeginInstructionsProvider peginInstructionsProvider = new PeginInstructionsProvider();
         BtcToRskClientFileStorage btcToRskActiveClientFileStorage = fileStorageFactory.forActive();
@@ -321,6 +330,7 @@ public class FedNodeRunner implements NodeRunner {
             btcToRskActiveClientFileStorage,
             btcLockSenderProvider,
             peginInstructionsProvider,
+            federationProvider,
             config
         );
         BtcToRskClientFileStorage btcToRskRetiringClientFileStorage = fileStorageFactory.forRetiring();
@@ -330,6 +340,7 @@ public class FedNodeRunner implements NodeRunner {
             btcToRskRetiringClientFileStorage,
             btcLockSenderProvider,
             peginInstructionsProvider,
+            federationProvider,
             config
         );
         BtcLogMonitor btcLogMonitor = new BtcLogMonitor(bitcoinWrapper, federateLogger);
@@ -343,6 +354,16 @@ public class FedNodeRunner implements NodeRunner {
             hsmBookkeepingService.start();
         }
         federateLogger.log();
+        if (config.isPegoutCreationIndexEnabled()) {
+            pegoutCreationIndex = new PegoutCreationIndex(
+                new File(directoryStorageInfo.getPath(), PEGOUT_CREATION_INDEX_DIRECTORY),
+                fedNodeContext.getRsk(),
+                fedNodeContext.getBlockStore(),
+                fedNodeContext.getReceiptStore(),
+                config.getBtcReleaseClientInitializationMaxDepth()
+            );
+            pegoutCreationIndex.start();
+        }
         btcReleaseClient.setup(
             signer,
             new SignerMessageBuilderFactory(
@@ -350,7 +371,8 @@ public class FedNodeRunner implements NodeRunner {
             ),
             new ReleaseCreationInformationGetter(
                 fedNodeContext.getReceiptStore(),
-                fedNodeContext.getBlockStore()
+                fedNodeContext.getBlockStore(),
+                pegoutCreationIndex
             ),
             new ReleaseRequirementsEnforcer(
                 new AncestorBlockUpdater(
@@ -401,6 +423,10 @@ public class FedNodeRunner implements NodeRunner {
         if (hsmBookkeepingService != null) {
             hsmBookkeepingService.stop();
         }
+        if (pegoutCreationIndex != null) {
+            pegoutCreationIndex.close();
+        }
+        federatorSupport.tearDown();
 
         fullNodeRunner.stop();
         logger.info("[stop] Federation node Shut down.");
@@ -18,19 +18,14 @@
 package co.rsk.federate;
 
 import static co.rsk.peg.federation.FederationChangeResponseCode.FEDERATION_NON_EXISTENT;
-import static co.rsk.peg.federation.FederationMember.KeyType;
 
 import co.rsk.bitcoinj.core.Address;
-import co.rsk.bitcoinj.core.BtcECKey;
 import co.rsk.bitcoinj.core.NetworkParameters;
 import co.rsk.peg.federation.*;
 import co.rsk.peg.federation.constants.FederationConstants;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.IntStream;
-import org.ethereum.crypto.ECKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,22 +55,14 @@ public class FederationProviderFromFederatorSupport implements FederationProvide
 
     @Override
     public Federation getActiveFederation() {
-        List<FederationMember> members = new ArrayList<>();
-        int federationSize = federatorSupport.getFederationSize();
-        for (int i = 0; i < federationSize; i++) {
-            BtcECKey btcKey = BtcECKey.fromPublicOnly(federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC).getPubKey());
-            ECKey rskKey = federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK);
-            ECKey mstKey = federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.MST);
-
-            FederationMember member = new FederationMember(btcKey, rskKey, mstKey);
-            members.add(member);
-        }
-        Instant creationTime = federatorSupport.getFederationCreationTime();
-        long creationBlockNumber = federatorSupport.getFederationCreationBlockNumber();
+        BridgeSnapshot snapshot = federatorSupport.snapshotAtBestBlock();
+        List<FederationMember> members = snapshot.getFederationMembers();
+        Instant creationTime = snapshot.getFederationCreationTime();
+        long creationBlockNumber = snapshot.getFederationCreationBlockNumber();
         NetworkParameters btcParams = federatorSupport.getBtcParams();
         FederationArgs federationArgs = new FederationArgs(members, creationTime, creationBlockNumber, btcParams);
 
-        Address activeFederationAddress = getActiveFederationAddress();
+        Address activeFederationAddress = snapshot.getFederationAddress();
         logger.debug("[getActiveFederation] Attempting to get active federation with address {}", activeFederationAddress);
         return buildFederation(federationArgs, activeFederationAddress);
     }
@@ -87,25 +74,18 @@ public class FederationProviderFromFederatorSupport implements FederationProvide
 
     @Override
     public Optional<Federation> getRetiringFederation() {
-        Integer federationSize = federatorSupport.getRetiringFederationSize();
+        BridgeSnapshot snapshot = federatorSupport.snapshotAtBestBlock();
+        Integer federationSize = snapshot.getRetiringFederationSize();
 
         if (federationSize == FEDERATION_NON_EXISTENT.getCode()) {
             return Optional.empty();
         }
 
-        Address retiringFederationAddress = getRetiringFederationAddress().orElseThrow(IllegalStateException::new);
-        List<FederationMember> members = new ArrayList<>();
-        for (int i = 0; i < federationSize; i++) {
-            BtcECKey btcKey = BtcECKey.fromPublicOnly(federatorSupport.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC).getPubKey());
-            ECKey rskKey = federatorSupport.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK);
-            ECKey mstKey = federatorSupport.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.MST);
-
-            FederationMember member = new FederationMember(btcKey, rskKey, mstKey);
-            members.add(member);
-        }
+        Address retiringFederationAddress = snapshot.getRetiringFederationAddress().orElseThrow(IllegalStateException::new);
+        List<FederationMember> members = snapshot.getRetiringFederationMembers();
 
-        Instant creationTime = federatorSupport.getRetiringFederationCreationTime();
-        long creationBlockNumber = federatorSupport.getRetiringFederationCreationBlockNumber();
+        Instant creationTime = snapshot.getRetiringFederationCreationTime();
+        long creationBlockNumber = snapshot.getRetiringFederationCreationBlockNumber();
         NetworkParameters btcParams = federatorSupport.getBtcParams();
         FederationArgs federationArgs = new FederationArgs(members, creationTime, creationBlockNumber, btcParams);
 
@@ -121,30 +101,20 @@ public class FederationProviderFromFederatorSupport implements FederationProvide
 
     @Override
     public Optional<Federation> getProposedFederation() {
-        int federationSize = federatorSupport.getProposedFederationSize()
+        BridgeSnapshot snapshot = federatorSupport.snapshotAtBestBlock();
+        int federationSize = snapshot.getProposedFederationSize()
             .orElse(FEDERATION_NON_EXISTENT.getCode());
         if (federationSize == FEDERATION_NON_EXISTENT.getCode()) {
             return Optional.empty();
         }
 
-        List<FederationMember> federationMembers = IntStream.range(0, federationSize)
-            .mapToObj(i -> new FederationMember(
-                federatorSupport.getProposedFederatorPublicKeyOfType(i, KeyType.BTC)
-                    .map(ECKey::getPubKey)
-                    .map(BtcECKey::fromPublicOnly)
-                    .orElseThrow(IllegalStateException::new),
-                federatorSupport.getProposedFederatorPublicKeyOfType(i, KeyType.RSK)
-                    .orElseThrow(IllegalStateException::new),
-                federatorSupport.getProposedFederatorPublicKeyOfType(i, KeyType.MST)
-                    .orElseThrow(IllegalStateException::new)
-            ))
-            .toList();
+        List<FederationMember> federationMembers = snapshot.getProposedFederationMembers();
 
         FederationArgs federationArgs = new FederationArgs(
             federationMembers,
-            federatorSupport.getProposedFederationCreationTime()
+            snapshot.getProposedFederationCreationTime()
                 .orElseThrow(IllegalStateException::new),
-            federatorSupport.getProposedFederationCreationBlockNumber()
+            snapshot.getProposedFederationCreationBlockNumber()
                 .orElseThrow(IllegalStateException::new),
             federatorSupport.getBtcParams()
         );
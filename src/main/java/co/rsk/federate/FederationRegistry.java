@@ -0,0 +1,86 @@
+package co.rsk.federate;
+
+import co.rsk.bitcoinj.core.Address;
+import co.rsk.peg.federation.Federation;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link FederationProvider} that builds each federation once and keeps it by its address.
+ *
+ * <p>The addresses are always read from the underlying provider, so a federation is built again only
+ * when the Bridge reports a different address for it. Components sharing the registry, like the
+ * {@link co.rsk.federate.watcher.FederationWatcher} and the btc to rsk clients, share the federations
+ * already built, and the watcher notifies its listeners when an address changes.
+ */
+public class FederationRegistry implements FederationProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(FederationRegistry.class);
+    // Enough for the active, retiring and proposed federations, plus the ones just replaced
+    private static final int MAXIMUM_SIZE = 6;
+
+    private final FederationProvider federationProvider;
+    private final Cache<Address, Federation> federations = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .build();
+
+    public FederationRegistry(FederationProvider federationProvider) {
+        this.federationProvider = federationProvider;
+    }
+
+    @Override
+    public Federation getActiveFederation() {
+        Address activeFederationAddress = getActiveFederationAddress();
+        return getOrBuild(activeFederationAddress, () -> Optional.of(federationProvider.getActiveFederation()))
+            .orElseThrow(IllegalStateException::new);
+    }
+
+    @Override
+    public Address getActiveFederationAddress() {
+        return federationProvider.getActiveFederationAddress();
+    }
+
+    @Override
+    public Optional<Federation> getRetiringFederation() {
+        return getRetiringFederationAddress()
+            .flatMap(address -> getOrBuild(address, federationProvider::getRetiringFederation));
+    }
+
+    @Override
+    public Optional<Address> getRetiringFederationAddress() {
+        return federationProvider.getRetiringFederationAddress();
+    }
+
+    @Override
+    public Optional<Federation> getProposedFederation() {
+        return getProposedFederationAddress()
+            .flatMap(address -> getOrBuild(address, federationProvider::getProposedFederation));
+    }
+
+    @Override
+    public Optional<Address> getProposedFederationAddress() {
+        return federationProvider.getProposedFederationAddress();
+    }
+
+    private Optional<Federation> getOrBuild(Address address, Supplier<Optional<Federation>> federationBuilder) {
+        Federation federation = federations.getIfPresent(address);
+        if (federation != null) {
+            return Optional.of(federation);
+        }
+
+        Optional<Federation> builtFederation = federationBuilder.get();
+        // A new best block may change the federation between reading its address and building it,
+        // in that case it is returned as built but kept only once it is read again under its own address
+        builtFederation
+            .filter(builtFed -> builtFed.getAddress().equals(address))
+            .ifPresent(builtFed -> {
+                logger.debug("[getOrBuild] Built federation {}", address);
+                federations.put(address, builtFed);
+            });
+        return builtFederation;
+    }
+}
@@ -12,13 +12,14 @@ import co.rsk.peg.StateForFederator;
 import co.rsk.peg.StateForProposedFederator;
 import co.rsk.peg.constants.BridgeConstants;
 import co.rsk.peg.federation.FederationMember;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.math.BigInteger;
 import java.net.UnknownHostException;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import org.bitcoinj.core.PartialMerkleTree;
 import org.bitcoinj.core.PeerAddress;
 import org.bitcoinj.core.Sha256Hash;
 import org.bouncycastle.util.encoders.Hex;
@@ -30,11 +31,19 @@ import org.slf4j.LoggerFactory;
 
 public class FederatorSupport {
     private static final Logger logger = LoggerFactory.getLogger(FederatorSupport.class);
+    // Headers are sent again on every turn until the Bridge has them
+    private static final int SERIALIZED_HEADERS_CACHE_SIZE = 1000;
 
     private final Blockchain blockchain;
     private final PowpegNodeSystemProperties config;
     private final NetworkParameters parameters;
     private final BridgeTransactionSender bridgeTransactionSender;
+    // Optional, when present the values that only depend on the Bridge storage are read from it
+    private final BridgeStorageReader bridgeStorageReader;
+    private final BridgeSnapshot.Factory bridgeSnapshotFactory;
+    private final Cache<Sha256Hash, byte[]> serializedHeaders = CacheBuilder.newBuilder()
+        .maximumSize(SERIALIZED_HEADERS_CACHE_SIZE)
+        .build();
 
     private ECDSASigner signer;
     private FederationMember federationMember;
@@ -44,11 +53,23 @@ public class FederatorSupport {
         Blockchain blockchain,
         PowpegNodeSystemProperties config,
         BridgeTransactionSender bridgeTransactionSender
+    ) {
+        this(blockchain, config, bridgeTransactionSender, null, null);
+    }
+
+    public FederatorSupport(
+        Blockchain blockchain,
+        PowpegNodeSystemProperties config,
+        BridgeTransactionSender bridgeTransactionSender,
+        BridgeStorageReader bridgeStorageReader,
+        BridgeSnapshot.Factory bridgeSnapshotFactory
     ) {
         this.blockchain = blockchain;
         this.config = config;
         this.parameters = config.getNetworkConstants().getBridgeConstants().getBtcParams();
         this.bridgeTransactionSender = bridgeTransactionSender;
+        this.bridgeStorageReader = bridgeStorageReader;
+        this.bridgeSnapshotFactory = bridgeSnapshotFactory;
     }
 
     public void setMember(FederationMember fedMember) {
@@ -74,6 +95,9 @@ public class FederatorSupport {
     }
 
     public int getBtcBlockchainBestChainHeight() {
+        if (bridgeStorageReader != null) {
+            return bridgeStorageReader.getBtcBlockchainBestChainHeight();
+        }
         BigInteger btcBlockchainBestChainHeight = this.bridgeTransactionSender.callTx(
             federatorAddress,
             Bridge.GET_BTC_BLOCKCHAIN_BEST_CHAIN_HEIGHT
@@ -109,20 +133,76 @@ public class FederatorSupport {
             headers[headers.length - 1].getHash()
         );
 
-        Object[] objectArray = new Object[headers.length];
+        this.bridgeTransactionSender.sendTrackedRskTx(
+            receiveHeadersKey(headers),
+            federatorAddress,
+            signer,
+            Bridge.RECEIVE_HEADERS,
+            new Object[]{serializeHeaders(headers)}
+        );
+    }
 
-        for (int i = 0; i < headers.length; i++) {
-            objectArray[i] = headers[i].cloneAsHeader().bitcoinSerialize();
-        }
-        this.bridgeTransactionSender.sendRskTx(
+    /**
+     * Sends headers that follow others already sent but not yet in a block, so the gas limit is given
+     * since the Bridge would not connect them when estimating it.
+     */
+    public void sendReceiveHeaders(org.bitcoinj.core.Block[] headers, long gasLimit) {
+        logger.debug(
+            "[sendReceiveHeaders] About to send to the bridge headers from {} to {} with gas limit {}",
+            headers[0].getHash(),
+            headers[headers.length - 1].getHash(),
+            gasLimit
+        );
+
+        this.bridgeTransactionSender.sendTrackedRskTxWithGasLimit(
+            receiveHeadersKey(headers),
             federatorAddress,
             signer,
             Bridge.RECEIVE_HEADERS,
-            new Object[]{objectArray}
+            gasLimit,
+            new Object[]{serializeHeaders(headers)}
         );
     }
 
+    public long estimateReceiveHeadersGas(org.bitcoinj.core.Block[] headers) {
+        return this.bridgeTransactionSender.estimateGas(
+            federatorAddress,
+            Bridge.RECEIVE_HEADERS,
+            new Object[]{serializeHeaders(headers)}
+        );
+    }
+
+    public long getRskBestBlockGasLimit() {
+        return this.bridgeTransactionSender.getBestBlockGasLimit();
+    }
+
+    // A batch is identified by its last header, the ones before it are sent along until the Bridge has them
+    private static BridgeTxKey receiveHeadersKey(org.bitcoinj.core.Block[] headers) {
+        return BridgeTxKey.of(Bridge.RECEIVE_HEADERS, headers[headers.length - 1].getHash());
+    }
+
+    private Object[] serializeHeaders(org.bitcoinj.core.Block[] headers) {
+        Object[] objectArray = new Object[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            objectArray[i] = serializeHeader(headers[i]);
+        }
+        return objectArray;
+    }
+
+    private byte[] serializeHeader(org.bitcoinj.core.Block header) {
+        Sha256Hash headerHash = header.getHash();
+        byte[] serializedHeader = serializedHeaders.getIfPresent(headerHash);
+        if (serializedHeader == null) {
+            serializedHeader = header.cloneAsHeader().bitcoinSerialize();
+            serializedHeaders.put(headerHash, serializedHeader);
+        }
+        return serializedHeader;
+    }
+
     public Boolean isBtcTxHashAlreadyProcessed(Sha256Hash btcTxHash) {
+        if (bridgeStorageReader != null) {
+            return bridgeStorageReader.getBtcTxHashProcessedHeight(toThinHash(btcTxHash)).isPresent();
+        }
         return this.bridgeTransactionSender.callTx(
             federatorAddress,
             Bridge.IS_BTC_TX_HASH_ALREADY_PROCESSED,
@@ -131,6 +211,9 @@ public class FederatorSupport {
     }
 
     public Long getBtcTxHashProcessedHeight(Sha256Hash btcTxHash) {
+        if (bridgeStorageReader != null) {
+            return bridgeStorageReader.getBtcTxHashProcessedHeight(toThinHash(btcTxHash)).orElse(-1L);
+        }
         BigInteger btcTxHashProcessedHeight = this.bridgeTransactionSender.callTx(
             federatorAddress,
             Bridge.GET_BTC_TX_HASH_PROCESSED_HEIGHT,
@@ -148,7 +231,13 @@ public class FederatorSupport {
         return blockHeaderBytes.length > 0;
     }
 
-    public void sendRegisterBtcTransaction(org.bitcoinj.core.Transaction tx, int blockHeight, PartialMerkleTree pmt) {
+    /**
+     * Sends the registration unless one is already in flight or executing it on the best block shows the Bridge
+     * would refuse it, that is, the execution ends without any Bridge event. An execution that throws or reverts
+     * is taken as a transient failure of this node, the registration is not sent and gets retried on the next turn.
+     * @return the execution that showed the Bridge would refuse it, empty otherwise
+     */
+    public Optional<BridgePreflight> sendRegisterBtcTransaction(org.bitcoinj.core.Transaction tx, int blockHeight, Proof proof) {
         logger.debug(
             "[sendRegisterBtcTransaction] About to send to the bridge btc tx {} (wtxid: {}). Block height {}",
             tx.getTxId(),
@@ -156,29 +245,65 @@ public class FederatorSupport {
             blockHeight
         );
 
+        BridgeTxKey key = BridgeTxKey.of(Bridge.REGISTER_BTC_TRANSACTION, tx.getTxId());
+        if (this.bridgeTransactionSender.isInFlight(key)) {
+            logger.debug("[sendRegisterBtcTransaction] Registration of btc tx {} already in flight, not sending it again", tx.getTxId());
+            return Optional.empty();
+        }
+
         byte[] txSerialized = tx.bitcoinSerialize();
-        byte[] pmtSerialized = pmt.bitcoinSerialize();
-        this.bridgeTransactionSender.sendRskTx(
+        byte[] pmtSerialized = proof.getSerializedPartialMerkleTree();
+        BridgePreflight preflight = this.bridgeTransactionSender.preflight(
+            federatorAddress,
+            Bridge.REGISTER_BTC_TRANSACTION,
+            txSerialized,
+            blockHeight,
+            pmtSerialized
+        );
+        if (preflight.isRejected()) {
+            logger.warn(
+                "[sendRegisterBtcTransaction] Could not execute the registration of btc tx {} (wtxid: {}), it will be retried. {}",
+                tx.getTxId(),
+                tx.getWTxId(),
+                preflight.getRejectionReason()
+            );
+            return Optional.empty();
+        }
+        if (preflight.isSilentlyRefused()) {
+            logger.warn(
+                "[sendRegisterBtcTransaction] The bridge would refuse btc tx {} (wtxid: {}). {}",
+                tx.getTxId(),
+                tx.getWTxId(),
+                preflight.getRejectionReason()
+            );
+            return Optional.of(preflight);
+        }
+
+        this.bridgeTransactionSender.sendTrackedRskTxWithGasLimit(
+            key,
             federatorAddress,
             signer,
             Bridge.REGISTER_BTC_TRANSACTION,
+            preflight.getGasUsed(),
             txSerialized,
             blockHeight,
             pmtSerialized
         );
+        return Optional.empty();
     }
 
     public void sendRegisterCoinbaseTransaction(CoinbaseInformation coinbaseInformation) {
         logger.debug(
             "[sendRegisterCoinbaseTransaction] About to send to the bridge btc coinbase tx hash {}. Block hash {}",
-            coinbaseInformation.getCoinbaseTransaction().getTxId(),
+            coinbaseInformation.getCoinbaseTransactionId(),
             coinbaseInformation.getBlockHash()
         );
 
         byte[] txSerialized = coinbaseInformation.getSerializedCoinbaseTransactionWithoutWitness();
-        byte[] pmtSerialized = coinbaseInformation.getPmt().bitcoinSerialize();
+        byte[] pmtSerialized = coinbaseInformation.getSerializedPmt();
 
-        this.bridgeTransactionSender.sendRskTx(
+        this.bridgeTransactionSender.sendTrackedRskTx(
+            BridgeTxKey.of(Bridge.REGISTER_BTC_COINBASE_TRANSACTION, coinbaseInformation.getBlockHash()),
             federatorAddress,
             signer,
             Bridge.REGISTER_BTC_COINBASE_TRANSACTION,
@@ -191,6 +316,9 @@ public class FederatorSupport {
     }
 
     public boolean hasBlockCoinbaseInformed(Sha256Hash blockHash) {
+        if (bridgeStorageReader != null) {
+            return bridgeStorageReader.hasBlockCoinbaseInformed(toThinHash(blockHash));
+        }
         return this.bridgeTransactionSender.callTx(
             federatorAddress,
             Bridge.HAS_BTC_BLOCK_COINBASE_TRANSACTION_INFORMATION,
@@ -199,6 +327,9 @@ public class FederatorSupport {
     }
 
     public StateForFederator getStateForFederator() {
+        if (bridgeStorageReader != null) {
+            return bridgeStorageReader.getStateForFederator();
+        }
         byte[] result = this.bridgeTransactionSender.callTx(federatorAddress, Bridge.GET_STATE_FOR_BTC_RELEASE_CLIENT);
         return new StateForFederator(result, this.parameters);
     }
@@ -257,6 +388,13 @@ public class FederatorSupport {
         return ECKey.fromPublicOnly(federatorPublicKey);
     }
 
+    /**
+     * Members of the active federation, reading its size and all its members keys on the same best block.
+     */
+    public List<FederationMember> getFederationMembers() {
+        return snapshotAtBestBlock().getFederationMembers();
+    }
+
     public Instant getFederationCreationTime() {
         BigInteger federationCreationTime = this.bridgeTransactionSender.callTx(federatorAddress, Bridge.GET_FEDERATION_CREATION_TIME);
         return Instant.ofEpochSecond(federationCreationTime.longValue());
@@ -319,6 +457,14 @@ public class FederatorSupport {
         return ECKey.fromPublicOnly(publicKeyBytes);
     }
 
+    /**
+     * Members of the retiring federation, or an empty list if there is none.
+     * Its size and all its members keys are read on the same best block.
+     */
+    public List<FederationMember> getRetiringFederationMembers() {
+        return snapshotAtBestBlock().getRetiringFederationMembers();
+    }
+
     public Instant getRetiringFederationCreationTime() {
         BigInteger creationTime = this.bridgeTransactionSender.callTx(federatorAddress, Bridge.GET_RETIRING_FEDERATION_CREATION_TIME);
         if (creationTime == null) {
@@ -359,6 +505,14 @@ public class FederatorSupport {
             .map(ECKey::fromPublicOnly);
     }
 
+    /**
+     * Members of the proposed federation, or an empty list if there is none.
+     * Its size and all its members keys are read on the same best block.
+     */
+    public List<FederationMember> getProposedFederationMembers() {
+        return snapshotAtBestBlock().getProposedFederationMembers();
+    }
+
     public Optional<Instant> getProposedFederationCreationTime() {
         BigInteger creationTime = bridgeTransactionSender.callTx(
             federatorAddress,
@@ -380,6 +534,13 @@ public class FederatorSupport {
             .map(BigInteger::longValue);
     }
 
+    /**
+     * Takes a snapshot of the Bridge at the best block, to make several reads that must be consistent with each other.
+     */
+    public BridgeSnapshot snapshotAtBestBlock() {
+        return bridgeSnapshotFactory.atBestBlock();
+    }
+
     public NetworkParameters getBtcParams() {
         return this.parameters;
     }
@@ -388,4 +549,14 @@ public class FederatorSupport {
         long bestBlockNumber = blockchain.getBestBlock().getNumber();
         return config.getActivationConfig().forBlock(bestBlockNumber);
     }
+
+    public void tearDown() {
+        if (bridgeTransactionSender != null) {
+            bridgeTransactionSender.tearDown();
+        }
+    }
+
+    private static co.rsk.bitcoinj.core.Sha256Hash toThinHash(Sha256Hash hash) {
+        return co.rsk.bitcoinj.core.Sha256Hash.wrap(hash.getBytes());
+    }
 }
@@ -0,0 +1,55 @@
+package co.rsk.federate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Progress of the headers relayed to the Bridge. The Bridge is catching up from the first turn in which
+ * it could not be brought to the tip with a single batch of headers until the turn that reaches the tip.
+ */
+public class HeaderRelayMetrics {
+
+    private final Clock clock;
+
+    private int batchesSentLastTurn;
+    private long totalBatchesSent;
+    private Instant catchUpStartedAt;
+    private Duration lastCatchUpLatencyToTip;
+
+    public HeaderRelayMetrics(Clock clock) {
+        this.clock = clock;
+    }
+
+    synchronized void onTurn(int batchesSent, boolean reachedTip) {
+        batchesSentLastTurn = batchesSent;
+        totalBatchesSent += batchesSent;
+        if (!reachedTip) {
+            if (catchUpStartedAt == null) {
+                catchUpStartedAt = clock.instant();
+            }
+            return;
+        }
+        if (catchUpStartedAt != null) {
+            lastCatchUpLatencyToTip = Duration.between(catchUpStartedAt, clock.instant());
+            catchUpStartedAt = null;
+        }
+    }
+
+    public synchronized int getBatchesSentLastTurn() {
+        return batchesSentLastTurn;
+    }
+
+    public synchronized long getTotalBatchesSent() {
+        return totalBatchesSent;
+    }
+
+    public synchronized boolean isCatchingUp() {
+        return catchUpStartedAt != null;
+    }
+
+    public synchronized Optional<Duration> getLastCatchUpLatencyToTip() {
+        return Optional.ofNullable(lastCatchUpLatencyToTip);
+    }
+}
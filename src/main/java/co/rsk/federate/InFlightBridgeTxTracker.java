@@ -0,0 +1,130 @@
+package co.rsk.federate;
+
+import co.rsk.crypto.Keccak256;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the txs sent to the Bridge until what they inform is reflected in its state, so the same
+ * registration is not sent again with a new nonce while the previous tx is queued, in the pool, or
+ * was just mined.
+ *
+ * <p>On each new RSK best block the submitted txs are resolved: the ones that failed or left the pool
+ * without being mined are forgotten so they are sent again, and the mined ones are forgotten once
+ * they have been in the chain for the retention blocks.
+ */
+class InFlightBridgeTxTracker {
+
+    enum TxStatus {
+        PENDING,
+        MINED,
+        FAILED,
+        DROPPED
+    }
+
+    /**
+     * What was found about a submitted tx, with the gas it used when it was mined.
+     */
+    record ResolvedTx(TxStatus status, long gasUsed) {
+
+        static ResolvedTx of(TxStatus status) {
+            return new ResolvedTx(status, 0L);
+        }
+
+        static ResolvedTx mined(long gasUsed) {
+            return new ResolvedTx(TxStatus.MINED, gasUsed);
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(InFlightBridgeTxTracker.class);
+
+    private final long retentionBlocks;
+    // Notified once for each tx with the gas it used, the first time it is found mined
+    private final ObjLongConsumer<SubmittedRskTx> minedTxListener;
+    private final Map<BridgeTxKey, InFlightTx> inFlightTxs = new HashMap<>();
+    private long resolvedBestBlockNumber = -1;
+
+    InFlightBridgeTxTracker(long retentionBlocks, ObjLongConsumer<SubmittedRskTx> minedTxListener) {
+        this.retentionBlocks = retentionBlocks;
+        this.minedTxListener = minedTxListener;
+    }
+
+    /**
+     * Starts tracking the given key, unless a tx for it is already in flight.
+     * @return true if the tx should be sent
+     */
+    synchronized boolean tryAdd(BridgeTxKey key) {
+        return inFlightTxs.putIfAbsent(key, new InFlightTx()) == null;
+    }
+
+    synchronized boolean contains(BridgeTxKey key) {
+        return inFlightTxs.containsKey(key);
+    }
+
+    synchronized void onSubmitted(BridgeTxKey key, Optional<SubmittedRskTx> submittedTx) {
+        InFlightTx inFlightTx = inFlightTxs.get(key);
+        if (inFlightTx == null) {
+            return;
+        }
+        if (submittedTx.isEmpty()) {
+            inFlightTxs.remove(key);
+            return;
+        }
+        inFlightTx.submittedTx = submittedTx.get();
+    }
+
+    synchronized void onRskBestBlock(long bestBlockNumber, Function<Keccak256, ResolvedTx> txResolver) {
+        if (bestBlockNumber == resolvedBestBlockNumber) {
+            return;
+        }
+        resolvedBestBlockNumber = bestBlockNumber;
+
+        Iterator<Map.Entry<BridgeTxKey, InFlightTx>> iterator = inFlightTxs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<BridgeTxKey, InFlightTx> entry = iterator.next();
+            InFlightTx inFlightTx = entry.getValue();
+            if (inFlightTx.submittedTx == null) {
+                // Still waiting to be submitted
+                continue;
+            }
+            ResolvedTx resolvedTx = txResolver.apply(inFlightTx.submittedTx.hash());
+            TxStatus txStatus = resolvedTx.status();
+            switch (txStatus) {
+                case PENDING -> inFlightTx.minedAtBlockNumber = null;
+                case MINED -> {
+                    if (inFlightTx.minedAtBlockNumber == null) {
+                        inFlightTx.minedAtBlockNumber = bestBlockNumber;
+                        minedTxListener.accept(inFlightTx.submittedTx, resolvedTx.gasUsed());
+                    }
+                    if (bestBlockNumber - inFlightTx.minedAtBlockNumber >= retentionBlocks) {
+                        iterator.remove();
+                    }
+                }
+                case FAILED, DROPPED -> {
+                    logger.debug(
+                        "[onRskBestBlock] Tx {} for {} {}, it will be sent again",
+                        inFlightTx.submittedTx.hash(),
+                        entry.getKey(),
+                        txStatus
+                    );
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    synchronized int size() {
+        return inFlightTxs.size();
+    }
+
+    private static class InFlightTx {
+        private SubmittedRskTx submittedTx;
+        private Long minedAtBlockNumber;
+    }
+}
@@ -0,0 +1,172 @@
+package co.rsk.federate;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.bitcoinj.core.Sha256Hash;
+
+/**
+ * In memory status of the transactions waiting to be registered in the Bridge, grouped in buckets.
+ * Only the transactions ready to be registered need to be evaluated on each turn. The rest are moved
+ * back to that bucket by the event that can change their status: a new BTC best block for the ones
+ * awaiting confirmations or a proof, a new proof for a given transaction, or the RSK best block
+ * reaching the height at which a registered transaction is final or a quarantined one is retried.
+ */
+class PendingPeginQueue {
+
+    enum Status {
+        AWAITING_CONFIRMATIONS,
+        AWAITING_PROOF,
+        READY_TO_REGISTER,
+        REGISTERED,
+        QUARANTINED
+    }
+
+    // RSK blocks a transaction the Bridge would reject is not retried, doubled on each consecutive rejection
+    static final long QUARANTINE_BLOCKS = 20;
+    static final long MAX_QUARANTINE_BLOCKS = 2880;
+
+    private final Map<Sha256Hash, Status> statuses = new HashMap<>();
+    private final Map<Status, Set<Sha256Hash>> buckets = new EnumMap<>(Status.class);
+    // RSK height at which each registered transaction has enough confirmations to be removed,
+    // or at which each quarantined transaction is retried
+    private final Map<Sha256Hash, Long> recheckHeights = new HashMap<>();
+    private final Map<Sha256Hash, Integer> rejections = new HashMap<>();
+
+    PendingPeginQueue() {
+        for (Status status : Status.values()) {
+            buckets.put(status, new HashSet<>());
+        }
+    }
+
+    /**
+     * Keeps only the given transactions, adding the unknown ones as ready to register.
+     */
+    synchronized void sync(Collection<Sha256Hash> wtxIds) {
+        Iterator<Map.Entry<Sha256Hash, Status>> iterator = statuses.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Sha256Hash, Status> entry = iterator.next();
+            if (!wtxIds.contains(entry.getKey())) {
+                buckets.get(entry.getValue()).remove(entry.getKey());
+                recheckHeights.remove(entry.getKey());
+                rejections.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+        for (Sha256Hash wtxId : wtxIds) {
+            if (!statuses.containsKey(wtxId)) {
+                moveTo(wtxId, Status.READY_TO_REGISTER);
+            }
+        }
+    }
+
+    synchronized void add(Sha256Hash wtxId) {
+        moveTo(wtxId, Status.READY_TO_REGISTER);
+    }
+
+    synchronized void remove(Sha256Hash wtxId) {
+        Status status = statuses.remove(wtxId);
+        if (status != null) {
+            buckets.get(status).remove(wtxId);
+        }
+        recheckHeights.remove(wtxId);
+        rejections.remove(wtxId);
+    }
+
+    synchronized Status getStatus(Sha256Hash wtxId) {
+        return statuses.get(wtxId);
+    }
+
+    synchronized boolean isReadyToRegister(Sha256Hash wtxId) {
+        return statuses.get(wtxId) == Status.READY_TO_REGISTER;
+    }
+
+    synchronized int size(Status status) {
+        return buckets.get(status).size();
+    }
+
+    synchronized void markAwaitingConfirmations(Sha256Hash wtxId) {
+        moveTo(wtxId, Status.AWAITING_CONFIRMATIONS);
+    }
+
+    synchronized void markAwaitingProof(Sha256Hash wtxId) {
+        moveTo(wtxId, Status.AWAITING_PROOF);
+    }
+
+    synchronized void markRegistered(Sha256Hash wtxId, long finalityHeight) {
+        moveTo(wtxId, Status.REGISTERED);
+        recheckHeights.put(wtxId, finalityHeight);
+        rejections.remove(wtxId);
+    }
+
+    /**
+     * Keeps a transaction the Bridge would reject from being retried on every turn.
+     * The longer it keeps being rejected, the longer it waits, up to {@link #MAX_QUARANTINE_BLOCKS}.
+     */
+    synchronized void markQuarantined(Sha256Hash wtxId, long rskBestChainHeight) {
+        int consecutiveRejections = rejections.merge(wtxId, 1, Integer::sum);
+        long quarantineBlocks = QUARANTINE_BLOCKS;
+        for (int i = 1; i < consecutiveRejections && quarantineBlocks < MAX_QUARANTINE_BLOCKS; i++) {
+            quarantineBlocks *= 2;
+        }
+        moveTo(wtxId, Status.QUARANTINED);
+        recheckHeights.put(wtxId, rskBestChainHeight + Math.min(quarantineBlocks, MAX_QUARANTINE_BLOCKS));
+    }
+
+    /**
+     * A new best block may give the transactions the confirmations they lack,
+     * and change which of their proofs belongs to the best chain.
+     */
+    synchronized void onNewBtcBestBlock() {
+        moveAll(Status.AWAITING_CONFIRMATIONS, Status.READY_TO_REGISTER);
+        moveAll(Status.AWAITING_PROOF, Status.READY_TO_REGISTER);
+    }
+
+    synchronized void onProofAdded(Sha256Hash wtxId) {
+        moveTo(wtxId, Status.READY_TO_REGISTER);
+    }
+
+    /**
+     * Registered transactions that reached their finality height, and quarantined ones that served
+     * their time, are checked again against the Bridge.
+     */
+    synchronized void onRskBestBlock(long rskBestChainHeight) {
+        moveReached(Status.REGISTERED, rskBestChainHeight);
+        moveReached(Status.QUARANTINED, rskBestChainHeight);
+    }
+
+    private void moveReached(Status from, long rskBestChainHeight) {
+        Iterator<Sha256Hash> iterator = buckets.get(from).iterator();
+        while (iterator.hasNext()) {
+            Sha256Hash wtxId = iterator.next();
+            if (recheckHeights.get(wtxId) <= rskBestChainHeight) {
+                iterator.remove();
+                recheckHeights.remove(wtxId);
+                statuses.put(wtxId, Status.READY_TO_REGISTER);
+                buckets.get(Status.READY_TO_REGISTER).add(wtxId);
+            }
+        }
+    }
+
+    private void moveAll(Status from, Status to) {
+        Set<Sha256Hash> wtxIds = buckets.get(from);
+        for (Sha256Hash wtxId : wtxIds) {
+            statuses.put(wtxId, to);
+        }
+        buckets.get(to).addAll(wtxIds);
+        wtxIds.clear();
+    }
+
+    private void moveTo(Sha256Hash wtxId, Status status) {
+        Status previousStatus = statuses.put(wtxId, status);
+        if (previousStatus != null) {
+            buckets.get(previousStatus).remove(wtxId);
+        }
+        recheckHeights.remove(wtxId);
+        buckets.get(status).add(wtxId);
+    }
+}
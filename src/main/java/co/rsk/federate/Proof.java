@@ -16,14 +16,24 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by mario on 20/04/17.
+ *
+ * Immutable proof of a transaction being included in a block. The partial merkle tree is kept
+ * in its serialized form and only decoded when first requested, and the RLP encoding is computed
+ * once and then reused every time the proof is persisted.
  */
 public class Proof {
 
-    private Sha256Hash blockHash;
-    private PartialMerkleTree partialMerkleTree;
+    private final Sha256Hash blockHash;
+    private final byte[] serializedPartialMerkleTree;
+    private final NetworkParameters parameters;
+
+    private volatile PartialMerkleTree partialMerkleTree;
+    private volatile byte[] encoded;
 
     public Proof(Sha256Hash blockHash, PartialMerkleTree partialMerkleTree) {
         this.blockHash = blockHash;
+        this.serializedPartialMerkleTree = partialMerkleTree.bitcoinSerialize();
+        this.parameters = partialMerkleTree.getParams();
         this.partialMerkleTree = partialMerkleTree;
     }
 
@@ -33,7 +43,9 @@ public class Proof {
         byte[] encodedMerkle = rlpList.get(1).getRLPData();
 
         this.blockHash = Sha256Hash.wrap(encodedHash);
-        this.partialMerkleTree = new PartialMerkleTree(parameters, encodedMerkle, 0);
+        this.serializedPartialMerkleTree = encodedMerkle;
+        this.parameters = parameters;
+        this.encoded = rlpData;
     }
 
     public Sha256Hash getBlockHash() {
@@ -41,14 +53,31 @@ public class Proof {
     }
 
     public PartialMerkleTree getPartialMerkleTree() {
-        return partialMerkleTree;
+        PartialMerkleTree tree = this.partialMerkleTree;
+        if (tree == null) {
+            tree = new PartialMerkleTree(parameters, serializedPartialMerkleTree, 0);
+            this.partialMerkleTree = tree;
+        }
+        return tree;
+    }
+
+    public byte[] getSerializedPartialMerkleTree() {
+        return serializedPartialMerkleTree.clone();
     }
 
     public byte[] getEnconded() {
-        byte[] hastToEncode = RLP.encodeElement(this.blockHash.getBytes());
-        byte[] partialMerkleToEncode = RLP.encodeElement(this.partialMerkleTree.bitcoinSerialize());
+        return getEncodedInternal().clone();
+    }
 
-        return RLP.encodeList(hastToEncode, partialMerkleToEncode);
+    private byte[] getEncodedInternal() {
+        byte[] rlpData = this.encoded;
+        if (rlpData == null) {
+            byte[] hastToEncode = RLP.encodeElement(this.blockHash.getBytes());
+            byte[] partialMerkleToEncode = RLP.encodeElement(this.serializedPartialMerkleTree);
+            rlpData = RLP.encodeList(hastToEncode, partialMerkleToEncode);
+            this.encoded = rlpData;
+        }
+        return rlpData;
     }
 
     public static byte[] serializeProofList(List<Proof> list){
@@ -56,7 +85,7 @@ public class Proof {
         byte[][] bytes = new byte[nProof][];
         int n = 0;
         for (Proof proof : list) {
-            bytes[n++] = proof.getEnconded();
+            bytes[n++] = proof.getEncodedInternal();
         }
         return RLP.encodeList(bytes);
     }
@@ -118,12 +147,12 @@ public class Proof {
 
         return new EqualsBuilder()
                 .append(blockHash, proof.blockHash)
-                .append(partialMerkleTree, proof.partialMerkleTree)
+                .append(serializedPartialMerkleTree, proof.serializedPartialMerkleTree)
                 .isEquals();
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37).append(blockHash).append(partialMerkleTree).toHashCode();
+        return new HashCodeBuilder(17, 37).append(blockHash).append(serializedPartialMerkleTree).toHashCode();
     }
 }
@@ -0,0 +1,38 @@
+package co.rsk.federate;
+
+import co.rsk.core.RskAddress;
+import co.rsk.core.bc.PendingState;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns sequential nonces to the txs sent by the federator, without waiting for the pending state
+ * to reflect the ones just submitted.
+ *
+ * <p>The pending state becomes authoritative again on each new best block, and whenever a tx is not
+ * added to the pool, so a dropped or rejected tx never leaves a gap the following ones would wait on.
+ * It is not thread safe, it is meant to be used by the single thread that submits the txs.
+ */
+class RskNonceManager {
+
+    private final Map<RskAddress, Long> nextNonces = new HashMap<>();
+    private long bestBlockNumber = -1;
+
+    long next(PendingState pendingState, RskAddress federatorAddress, long currentBestBlockNumber) {
+        if (currentBestBlockNumber != bestBlockNumber) {
+            nextNonces.clear();
+            bestBlockNumber = currentBestBlockNumber;
+        }
+        long pendingStateNonce = pendingState.getNonce(federatorAddress).longValue();
+        // Txs sent by someone else with the same key move the pending state ahead of the local nonce
+        return Math.max(pendingStateNonce, nextNonces.getOrDefault(federatorAddress, pendingStateNonce));
+    }
+
+    void onAdded(RskAddress federatorAddress, long nonce) {
+        nextNonces.put(federatorAddress, nonce + 1);
+    }
+
+    void resync(RskAddress federatorAddress) {
+        nextNonces.remove(federatorAddress);
+    }
+}
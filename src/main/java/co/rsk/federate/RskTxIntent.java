@@ -0,0 +1,16 @@
+package co.rsk.federate;
+
+import co.rsk.core.RskAddress;
+import co.rsk.federate.signing.ECDSASigner;
+import org.ethereum.core.CallTransaction;
+
+/**
+ * A tx to the Bridge waiting to be signed and submitted, its nonce is assigned when it is submitted.
+ */
+record RskTxIntent(
+    RskAddress federatorAddress,
+    ECDSASigner signer,
+    CallTransaction.Function function,
+    long gasLimit,
+    Object[] functionArgs
+) { }
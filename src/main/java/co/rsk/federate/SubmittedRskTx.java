@@ -0,0 +1,9 @@
+package co.rsk.federate;
+
+import co.rsk.crypto.Keccak256;
+
+/**
+ * A tx added to the pool, with the nonce it was given, the best block number when it was submitted,
+ * and the Bridge method it calls along with the size of its call data.
+ */
+public record SubmittedRskTx(Keccak256 hash, long nonce, long bestBlockNumber, String method, int callDataSize) { }
@@ -0,0 +1,273 @@
+package co.rsk.federate.bitcoin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.BlockStoreException;
+import org.fusesource.leveldbjni.JniDBFactory;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBException;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashes of the blocks of the best chain, indexed by height.
+ * On each new best block, only the blocks since the point where the new best chain joins the indexed one are written,
+ * and the heights above the new best block are removed, so reorganizations are rewound.
+ * The index covers a contiguous range of heights that ends at the best block. A single update indexes at most
+ * the given depth below the new best block, so on first start only the most recent blocks are indexed.
+ */
+public class BestChainHeightIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BestChainHeightIndex.class);
+    // About a month of blocks, deeper than the headers missing in the Bridge and the pegins waiting to be registered
+    private static final int MAX_DEPTH_TO_INDEX = 4_320;
+
+    private final Storage storage;
+    private final int maxDepthToIndex;
+
+    private int lowestHeight;
+    private int bestBlockHeight;
+    private Sha256Hash bestBlockHash;
+
+    private BestChainHeightIndex(Storage storage, int maxDepthToIndex) {
+        this.storage = storage;
+        this.maxDepthToIndex = maxDepthToIndex;
+        OptionalInt storedLowestHeight = storage.getLowestHeight();
+        OptionalInt storedHighestHeight = storage.getHighestHeight();
+        if (storedLowestHeight.isPresent() && storedHighestHeight.isPresent()) {
+            this.lowestHeight = storedLowestHeight.getAsInt();
+            this.bestBlockHeight = storedHighestHeight.getAsInt();
+            this.bestBlockHash = storage.get(bestBlockHeight).orElse(null);
+        } else {
+            this.lowestHeight = -1;
+            this.bestBlockHeight = -1;
+            this.bestBlockHash = null;
+        }
+    }
+
+    public static BestChainHeightIndex inMemory() {
+        return inMemory(MAX_DEPTH_TO_INDEX);
+    }
+
+    static BestChainHeightIndex inMemory(int maxDepthToIndex) {
+        return new BestChainHeightIndex(new InMemoryStorage(), maxDepthToIndex);
+    }
+
+    public static BestChainHeightIndex open(File databaseDirectory) throws IOException {
+        File parentDirectory = databaseDirectory.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists() && !parentDirectory.mkdirs()) {
+            throw new IOException("Could not create directory " + parentDirectory.getAbsolutePath());
+        }
+        Options options = new Options();
+        options.createIfMissing(true);
+        DB db = JniDBFactory.factory.open(databaseDirectory, options);
+        BestChainHeightIndex bestChainHeightIndex = new BestChainHeightIndex(new LevelDbStorage(db), MAX_DEPTH_TO_INDEX);
+        logger.info(
+            "[open] Loaded best chain index from {} with heights {} to {}",
+            databaseDirectory,
+            bestChainHeightIndex.lowestHeight,
+            bestChainHeightIndex.bestBlockHeight
+        );
+        return bestChainHeightIndex;
+    }
+
+    /**
+     * Makes the given block the tip of the index. Does nothing if it already is.
+     */
+    public synchronized void onNewBestBlock(StoredBlock newBestBlock, BlockStore blockStore) throws BlockStoreException {
+        Sha256Hash newBestBlockHash = newBestBlock.getHeader().getHash();
+        if (newBestBlockHash.equals(bestBlockHash)) {
+            return;
+        }
+
+        int newBestBlockHeight = newBestBlock.getHeight();
+        Map<Integer, Sha256Hash> blockHashesToPut = new HashMap<>();
+        Set<Integer> heightsToDelete = new HashSet<>();
+        // After a reorganization the best block can be lower than the previous one
+        for (int height = newBestBlockHeight + 1; height <= bestBlockHeight; height++) {
+            heightsToDelete.add(height);
+        }
+
+        int lowestPutHeight = newBestBlockHeight;
+        boolean joinedIndexedChain = false;
+        StoredBlock block = newBestBlock;
+        while (block != null) {
+            Sha256Hash blockHash = block.getHeader().getHash();
+            if (isInRange(block.getHeight()) && blockHash.equals(storage.get(block.getHeight()).orElse(null))) {
+                // The new best chain joins the indexed one here
+                joinedIndexedChain = true;
+                break;
+            }
+            blockHashesToPut.put(block.getHeight(), blockHash);
+            lowestPutHeight = block.getHeight();
+            if (blockHashesToPut.size() >= maxDepthToIndex) {
+                break;
+            }
+            block = blockStore.get(block.getHeader().getPrevBlockHash());
+        }
+
+        if (!joinedIndexedChain && bestBlockHash != null) {
+            // Whatever is left below is either too deep or comes from a chain that is no longer in the block store,
+            // dropping it keeps the indexed heights contiguous
+            for (int height = lowestHeight; height < lowestPutHeight; height++) {
+                heightsToDelete.add(height);
+            }
+        }
+
+        try {
+            storage.write(blockHashesToPut, heightsToDelete);
+        } catch (DBException e) {
+            throw new BlockStoreException(e);
+        }
+        if (!joinedIndexedChain) {
+            lowestHeight = lowestPutHeight;
+        }
+        bestBlockHeight = newBestBlockHeight;
+        bestBlockHash = newBestBlockHash;
+        logger.debug(
+            "[onNewBestBlock] Best block {} at height {}, {} heights indexed and {} removed",
+            newBestBlockHash,
+            newBestBlockHeight,
+            blockHashesToPut.size(),
+            heightsToDelete.size()
+        );
+    }
+
+    public synchronized Optional<Sha256Hash> getBlockHash(int height) {
+        if (!isInRange(height)) {
+            return Optional.empty();
+        }
+        return storage.get(height);
+    }
+
+    public synchronized OptionalInt getLowestHeight() {
+        return bestBlockHash == null ? OptionalInt.empty() : OptionalInt.of(lowestHeight);
+    }
+
+    public synchronized void close() {
+        storage.close();
+    }
+
+    private boolean isInRange(int height) {
+        return bestBlockHash != null && height >= lowestHeight && height <= bestBlockHeight;
+    }
+
+    private interface Storage {
+        Optional<Sha256Hash> get(int height);
+
+        OptionalInt getLowestHeight();
+
+        OptionalInt getHighestHeight();
+
+        void write(Map<Integer, Sha256Hash> blockHashesToPut, Set<Integer> heightsToDelete);
+
+        void close();
+    }
+
+    private static class InMemoryStorage implements Storage {
+        private final TreeMap<Integer, Sha256Hash> blockHashes = new TreeMap<>();
+
+        @Override
+        public Optional<Sha256Hash> get(int height) {
+            return Optional.ofNullable(blockHashes.get(height));
+        }
+
+        @Override
+        public OptionalInt getLowestHeight() {
+            return blockHashes.isEmpty() ? OptionalInt.empty() : OptionalInt.of(blockHashes.firstKey());
+        }
+
+        @Override
+        public OptionalInt getHighestHeight() {
+            return blockHashes.isEmpty() ? OptionalInt.empty() : OptionalInt.of(blockHashes.lastKey());
+        }
+
+        @Override
+        public void write(Map<Integer, Sha256Hash> blockHashesToPut, Set<Integer> heightsToDelete) {
+            heightsToDelete.forEach(blockHashes::remove);
+            blockHashes.putAll(blockHashesToPut);
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+
+    private static class LevelDbStorage implements Storage {
+        private final DB db;
+
+        LevelDbStorage(DB db) {
+            this.db = db;
+        }
+
+        @Override
+        public Optional<Sha256Hash> get(int height) {
+            byte[] blockHash = db.get(toKey(height));
+            return Optional.ofNullable(blockHash).map(Sha256Hash::wrap);
+        }
+
+        @Override
+        public OptionalInt getLowestHeight() {
+            try (DBIterator iterator = db.iterator()) {
+                iterator.seekToFirst();
+                return iterator.hasNext() ? OptionalInt.of(fromKey(iterator.peekNext().getKey())) : OptionalInt.empty();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public OptionalInt getHighestHeight() {
+            try (DBIterator iterator = db.iterator()) {
+                iterator.seekToLast();
+                return iterator.hasNext() ? OptionalInt.of(fromKey(iterator.peekNext().getKey())) : OptionalInt.empty();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void write(Map<Integer, Sha256Hash> blockHashesToPut, Set<Integer> heightsToDelete) {
+            try (WriteBatch batch = db.createWriteBatch()) {
+                heightsToDelete.forEach(height -> batch.delete(toKey(height)));
+                blockHashesToPut.forEach((height, blockHash) -> batch.put(toKey(height), blockHash.getBytes()));
+                db.write(batch);
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                db.close();
+            } catch (IOException e) {
+                logger.warn("[close] Could not close best chain index", e);
+            }
+        }
+
+        // Heights are never negative, so big endian keys are sorted by height
+        private static byte[] toKey(int height) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(height).array();
+        }
+
+        private static int fromKey(byte[] key) {
+            return ByteBuffer.wrap(key).getInt();
+        }
+    }
+}
@@ -12,12 +12,12 @@ import java.util.concurrent.TimeoutException;
 
 import com.google.common.util.concurrent.Service;
 import org.bitcoinj.core.*;
-import org.bitcoinj.core.TransactionConfidence.ConfidenceType;
 import org.bitcoinj.core.listeners.BlocksDownloadedEventListener;
 import org.bitcoinj.core.listeners.NewBestBlockListener;
 import org.bitcoinj.script.Script;
 import org.bitcoinj.store.BlockStore;
 import org.bitcoinj.store.BlockStoreException;
+import org.bitcoinj.utils.Threading;
 import org.bitcoinj.wallet.listeners.WalletCoinsReceivedEventListener;
 import org.bitcoinj.wallet.listeners.WalletCoinsSentEventListener;
 import org.slf4j.Logger;
@@ -51,6 +51,7 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
     private final Collection<NewBestBlockListener> newBestBlockListeners;
 
     private final Kit kit;
+    private final ConfirmedTransactionIndex confirmedTransactionIndex;
 
     private boolean running = false;
 
@@ -63,6 +64,7 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
         this.watchedFederations = new LinkedList<>();
         this.newBestBlockListeners = new LinkedList<>();
         this.kit = kit;
+        this.confirmedTransactionIndex = new ConfirmedTransactionIndex(kit::wallet);
     }
 
     @Override
@@ -71,8 +73,12 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
             if (block != null && block.getTransactions() != null && !block.getTransactions().isEmpty()) {
                 // block may be empty if we are downloading just headers before fastCatchupTimeSecs
                 Context.propagate(btcContext);
+                if (blockListeners.isEmpty()) {
+                    return;
+                }
+                BlockTransactionIndex blockTransactionIndex = BlockTransactionIndex.of(block);
                 for (BlockListener listener : blockListeners) {
-                    listener.onBlock(block);
+                    listener.onBlock(block, blockTransactionIndex);
                 }
             }
         };
@@ -88,9 +94,16 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
             prevBalance,
             newBalance
         ) -> coinsReceivedOrSent(tx);
-        NewBestBlockListener newBestBlockListener = storedBlock -> newBestBlockListeners.forEach(
-            listener -> listener.notifyNewBestBlock(storedBlock)
-        );
+        NewBestBlockListener newBestBlockListener = storedBlock -> {
+            updateBestChainHeightIndex(storedBlock);
+            kit.blockStoreCacheStats().ifPresent(stats -> logger.debug(
+                "[newBestBlockListener] Block store cache hits: {}, misses: {}, evictions: {}",
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount()
+            ));
+            newBestBlockListeners.forEach(listener -> listener.notifyNewBestBlock(storedBlock));
+        };
 
         kit.setup(
             blocksDownloadedEventListener,
@@ -104,6 +117,15 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
         }
     }
 
+    private void updateBestChainHeightIndex(StoredBlock newBestBlock) {
+        try {
+            kit.bestChainHeightIndex().onNewBestBlock(newBestBlock, kit.store());
+        } catch (BlockStoreException e) {
+            // The index is brought up to date again before being queried
+            logger.warn("[updateBestChainHeightIndex] Could not index best block {}", newBestBlock.getHeader().getHash(), e);
+        }
+    }
+
     @Override
     public void start(Duration progressCheckInterval) {
         Context.propagate(btcContext);
@@ -119,6 +141,9 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
                 checkPeers();
             }
         }
+        // Same thread so the index changes along with the wallet, its listener just updates a map
+        kit.wallet().addTransactionConfidenceEventListener(Threading.SAME_THREAD, confirmedTransactionIndex);
+        kit.wallet().addReorganizeEventListener(Threading.SAME_THREAD, confirmedTransactionIndex);
         running = true;
         logger.info("[start] BitcoinWrapper started successfully");
         logBestChainHeight();
@@ -152,6 +177,8 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
     @Override
     public void stop() {
         Context.propagate(btcContext);
+        kit.wallet().removeTransactionConfidenceEventListener(confirmedTransactionIndex);
+        kit.wallet().removeReorganizeEventListener(confirmedTransactionIndex);
         kit.stopAsync().awaitTerminated();
         running = false;
         logger.debug("[stop] BitcoinWrapper stopped");
@@ -172,35 +199,51 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
         return kit.store().get(hash);
     }
 
+    // Only the most recent blocks are indexed, older ones are found walking back from the lowest indexed block
+    private Optional<Sha256Hash> getBlockHashBelowIndexedHeights(
+        BestChainHeightIndex bestChainHeightIndex,
+        int height,
+        BlockStore blockStore
+    ) throws BlockStoreException {
+        OptionalInt lowestIndexedHeight = bestChainHeightIndex.getLowestHeight();
+        if (lowestIndexedHeight.isEmpty() || height >= lowestIndexedHeight.getAsInt()) {
+            return Optional.empty();
+        }
+
+        Sha256Hash blockHash = bestChainHeightIndex.getBlockHash(lowestIndexedHeight.getAsInt()).orElse(null);
+        for (int currentHeight = lowestIndexedHeight.getAsInt(); currentHeight > height && blockHash != null; currentHeight--) {
+            StoredBlock currentBlock = blockStore.get(blockHash);
+            if (currentBlock == null) {
+                return Optional.empty();
+            }
+            blockHash = currentBlock.getHeader().getPrevBlockHash();
+        }
+        return Optional.ofNullable(blockHash);
+    }
+
     @Override
     public StoredBlock getBlockAtHeight(int height) throws BlockStoreException {
         logger.debug("[getBlockAtHeight] Getting block at height {}", height);
         BlockStore blockStore = kit.store();
         StoredBlock chainHead = blockStore.getChainHead();
-        Sha256Hash blockHash = chainHead.getHeader().getHash();
-        logger.debug("[getBlockAtHeight] Chain head is {} at height {}", blockHash, chainHead.getHeight());
+        logger.debug("[getBlockAtHeight] Chain head is {} at height {}", chainHead.getHeader().getHash(), chainHead.getHeight());
 
         if (height > chainHead.getHeight()) {
             logger.debug("[getBlockAtHeight] Requested height {} is greater than chain head height {}", height, chainHead.getHeight());
             return null;
         }
 
-        for (int i = 0; i < (chainHead.getHeight() - height); i++) {
-            if (blockHash == null) {
-                return null;
-            }
-
-            StoredBlock currentBlock = blockStore.get(blockHash);
-            if (currentBlock == null) {
-                return null;
-            }
-            blockHash = currentBlock.getHeader().getPrevBlockHash();
+        BestChainHeightIndex bestChainHeightIndex = kit.bestChainHeightIndex();
+        // The index may not have been notified of the chain head yet
+        bestChainHeightIndex.onNewBestBlock(chainHead, blockStore);
+        Optional<Sha256Hash> blockHash = bestChainHeightIndex.getBlockHash(height);
+        if (blockHash.isEmpty()) {
+            blockHash = getBlockHashBelowIndexedHeights(bestChainHeightIndex, height, blockStore);
         }
-
-        if (blockHash == null) {
+        if (blockHash.isEmpty()) {
             return null;
         }
-        StoredBlock block = blockStore.get(blockHash);
+        StoredBlock block = blockStore.get(blockHash.get());
 
         if (block == null) {
             return null;
@@ -223,59 +266,14 @@ public class BitcoinWrapperImpl implements BitcoinWrapper {
 
     @Override
     public Set<Transaction> getTransactions(int minConfirmations) {
-        Set<Transaction> txs = new HashSet<>();
-        Set<Transaction> walletTransactions = kit.wallet().getTransactions(false);
-        logger.debug("[getTransactions] Found {} transactions in wallet. Will search for transactions with at least {} confirmations",
-            walletTransactions.size(),
-            minConfirmations
-        );
-
-        for (Transaction tx : walletTransactions) {
-            TransactionConfidence confidence = tx.getConfidence();
-            if (confidence.getConfidenceType() != ConfidenceType.BUILDING || confidence.getDepthInBlocks() < minConfirmations) {
-                logger.trace(
-                    "[getTransactions] Skipping transaction {} (wtxid: {}) with confidence type {} and depth {}",
-                    tx.getTxId(),
-                    tx.getWTxId(),
-                    confidence.getConfidenceType(),
-                    confidence.getDepthInBlocks()
-                );
-                continue;
-            }
-
-            txs.add(tx);
-            logger.trace(
-                "[getTransactions] Adding transaction {} (wtxid: {}) with confidence type {} and depth {}",
-                tx.getTxId(),
-                tx.getWTxId(),
-                confidence.getConfidenceType(),
-                confidence.getDepthInBlocks()
-            );
-        }
-
-        return txs;
+        return new HashSet<>(getTransactionMap(minConfirmations).values());
     }
 
     @Override
     public Map<Sha256Hash, Transaction> getTransactionMap(int minConfirmations) {
-        Map<Sha256Hash, Transaction> result = new HashMap<>();
-        Set<Transaction> txs = getTransactions(minConfirmations);
-        logger.trace(
-            "[getTransactionMap] Found {} transactions with at least {} confirmations",
-            txs.size(),
-            minConfirmations
-        );
-
-        for (Transaction tx : txs) {
-            logger.trace(
-                "[getTransactionMap] Adding transaction {} (wtxid: {}) to the map",
-                tx.getTxId(),
-                tx.getWTxId()
-            );
-            result.put(tx.getWTxId(), tx);
-        }
-
-        return result;
+        Map<Sha256Hash, Transaction> txs = confirmedTransactionIndex.getTransactions(minConfirmations, this::getBestChainHeight);
+        logger.trace("[getTransactionMap] Serving transactions with at least {} confirmations from the index", minConfirmations);
+        return txs;
     }
 
     @Override
@@ -7,4 +7,11 @@ import org.bitcoinj.core.Block;
  */
 public interface BlockListener {
     void onBlock(Block block);
+
+    /**
+     * Called with the index of the block transactions, shared by all the listeners of the block.
+     */
+    default void onBlock(Block block, BlockTransactionIndex blockTransactionIndex) {
+        onBlock(block);
+    }
 }
@@ -0,0 +1,145 @@
+package co.rsk.federate.bitcoin;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.PartialMerkleTree;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.Utils;
+
+/**
+ * Merkle trees of the transactions of a block, built once per block so any number of
+ * partial merkle trees can be extracted from them.
+ * The txid and wtxid trees are built on first use, hashing every transaction and inner node
+ * a single time. Extracting a partial merkle tree then only walks the stored levels,
+ * producing the same result as {@link PartialMerkleTree#buildFromLeaves}.
+ */
+public class BlockMerkleTree {
+
+    private final NetworkParameters parameters;
+    private final List<Transaction> transactions;
+
+    private List<Sha256Hash[]> txIdLevels;
+    private List<Sha256Hash[]> wtxIdLevels;
+
+    public BlockMerkleTree(Block block) {
+        this.parameters = block.getParams();
+        this.transactions = block.getTransactions();
+    }
+
+    /**
+     * Builds the partial merkle tree that proves the inclusion of the given transaction.
+     * When using the wtxid, the coinbase is included as a zero hash, as in the witness commitment.
+     */
+    public synchronized PartialMerkleTree buildPartialMerkleTree(Transaction transaction, boolean useWtxId) {
+        Sha256Hash transactionId = useWtxId ? transaction.getWTxId() : transaction.getTxId();
+        List<Sha256Hash[]> levels = getLevels(useWtxId);
+        Sha256Hash[] leaves = levels.get(0);
+
+        byte[] includeBits = new byte[(int) Math.ceil(leaves.length / 8.0)];
+        for (int i = 0; i < leaves.length; i++) {
+            if (leaves[i].equals(transactionId)) {
+                Utils.setBitLE(includeBits, i);
+            }
+        }
+
+        List<Boolean> matchedChildBits = new ArrayList<>();
+        List<Sha256Hash> hashes = new ArrayList<>();
+        traverseAndBuild(levels, levels.size() - 1, 0, includeBits, matchedChildBits, hashes);
+
+        byte[] bits = new byte[(int) Math.ceil(matchedChildBits.size() / 8.0)];
+        for (int i = 0; i < matchedChildBits.size(); i++) {
+            if (matchedChildBits.get(i)) {
+                Utils.setBitLE(bits, i);
+            }
+        }
+        return new PartialMerkleTree(parameters, bits, hashes, leaves.length);
+    }
+
+    public synchronized Sha256Hash getMerkleRoot(boolean useWtxId) {
+        List<Sha256Hash[]> levels = getLevels(useWtxId);
+        return levels.get(levels.size() - 1)[0];
+    }
+
+    private List<Sha256Hash[]> getLevels(boolean useWtxId) {
+        if (useWtxId) {
+            if (wtxIdLevels == null) {
+                wtxIdLevels = buildLevels(true);
+            }
+            return wtxIdLevels;
+        }
+        if (txIdLevels == null) {
+            txIdLevels = buildLevels(false);
+        }
+        return txIdLevels;
+    }
+
+    private List<Sha256Hash[]> buildLevels(boolean useWtxId) {
+        Sha256Hash[] leaves = new Sha256Hash[transactions.size()];
+        for (int i = 0; i < leaves.length; i++) {
+            Transaction tx = transactions.get(i);
+            // If we are using wtxId, the coinbase must be included as a ZERO hash
+            if (useWtxId && tx.isCoinBase()) {
+                leaves[i] = Sha256Hash.ZERO_HASH;
+            } else {
+                leaves[i] = useWtxId ? tx.getWTxId() : tx.getTxId();
+            }
+        }
+
+        List<Sha256Hash[]> levels = new ArrayList<>();
+        levels.add(leaves);
+        Sha256Hash[] level = leaves;
+        while (level.length > 1) {
+            Sha256Hash[] parentLevel = new Sha256Hash[(level.length + 1) / 2];
+            for (int pos = 0; pos < parentLevel.length; pos++) {
+                Sha256Hash left = level[pos * 2];
+                // Odd levels pair their last node with itself
+                Sha256Hash right = pos * 2 + 1 < level.length ? level[pos * 2 + 1] : left;
+                parentLevel[pos] = combineLeftRight(left, right);
+            }
+            levels.add(parentLevel);
+            level = parentLevel;
+        }
+        return levels;
+    }
+
+    private void traverseAndBuild(
+        List<Sha256Hash[]> levels,
+        int height,
+        int pos,
+        byte[] includeBits,
+        List<Boolean> matchedChildBits,
+        List<Sha256Hash> hashes) {
+
+        int leavesCount = levels.get(0).length;
+        boolean parentOfMatch = false;
+        for (int p = pos << height; p < (pos + 1) << height && p < leavesCount; p++) {
+            if (Utils.checkBitLE(includeBits, p)) {
+                parentOfMatch = true;
+                break;
+            }
+        }
+        matchedChildBits.add(parentOfMatch);
+
+        if (height == 0 || !parentOfMatch) {
+            hashes.add(levels.get(height)[pos]);
+            return;
+        }
+
+        int childHeight = height - 1;
+        int childPos = pos * 2;
+        traverseAndBuild(levels, childHeight, childPos, includeBits, matchedChildBits, hashes);
+        if (childPos + 1 < levels.get(childHeight).length) {
+            traverseAndBuild(levels, childHeight, childPos + 1, includeBits, matchedChildBits, hashes);
+        }
+    }
+
+    private static Sha256Hash combineLeftRight(Sha256Hash left, Sha256Hash right) {
+        return Sha256Hash.wrapReversed(Sha256Hash.hashTwice(
+            Utils.reverseBytes(left.getBytes()), 0, Sha256Hash.LENGTH,
+            Utils.reverseBytes(right.getBytes()), 0, Sha256Hash.LENGTH
+        ));
+    }
+}
@@ -0,0 +1,102 @@
+package co.rsk.federate.bitcoin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+
+/**
+ * Wtxids of the transactions of a block, mapped to their position in the block.
+ * Built once per downloaded block and shared by every {@link BlockListener}, so each one
+ * can check which of its tracked transactions are in the block without hashing them again.
+ * The {@link BlockMerkleTree} of the block is shared the same way.
+ */
+public class BlockTransactionIndex {
+
+    // Below this size hashing the transactions in parallel isn't worth it
+    private static final int PARALLEL_HASHING_THRESHOLD = 64;
+
+    private final Block block;
+    private final Map<Sha256Hash, Integer> wtxIdIndexes;
+
+    private BlockMerkleTree blockMerkleTree;
+
+    private BlockTransactionIndex(Block block, Map<Sha256Hash, Integer> wtxIdIndexes) {
+        this.block = block;
+        this.wtxIdIndexes = Collections.unmodifiableMap(wtxIdIndexes);
+    }
+
+    public static BlockTransactionIndex of(Block block) {
+        return of(block, ForkJoinPool.commonPool());
+    }
+
+    public static BlockTransactionIndex of(Block block, ForkJoinPool pool) {
+        List<Transaction> transactions = block.getTransactions();
+        Sha256Hash[] wtxIds = new Sha256Hash[transactions.size()];
+        IntStream indexes = IntStream.range(0, wtxIds.length);
+        if (wtxIds.length < PARALLEL_HASHING_THRESHOLD) {
+            indexes.forEach(i -> wtxIds[i] = transactions.get(i).getWTxId());
+        } else {
+            // Parallel streams run in the pool they are started from
+            pool.submit(() -> indexes.parallel().forEach(i -> wtxIds[i] = transactions.get(i).getWTxId())).join();
+        }
+
+        Map<Sha256Hash, Integer> wtxIdIndexes = new HashMap<>(wtxIds.length * 2);
+        for (int i = 0; i < wtxIds.length; i++) {
+            wtxIdIndexes.putIfAbsent(wtxIds[i], i);
+        }
+        return new BlockTransactionIndex(block, wtxIdIndexes);
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    public Map<Sha256Hash, Integer> getWtxIdIndexes() {
+        return wtxIdIndexes;
+    }
+
+    /**
+     * Finds the transactions of the block whose wtxid is in the given collection,
+     * iterating over the smaller of both. The transactions are returned in block order.
+     */
+    public List<Transaction> findTransactions(Collection<Sha256Hash> wtxIds) {
+        List<Integer> foundIndexes = new ArrayList<>();
+        if (wtxIds.size() < wtxIdIndexes.size()) {
+            for (Sha256Hash wtxId : wtxIds) {
+                Integer index = wtxIdIndexes.get(wtxId);
+                if (index != null) {
+                    foundIndexes.add(index);
+                }
+            }
+        } else {
+            wtxIdIndexes.forEach((wtxId, index) -> {
+                if (wtxIds.contains(wtxId)) {
+                    foundIndexes.add(index);
+                }
+            });
+        }
+
+        Collections.sort(foundIndexes);
+        List<Transaction> transactions = block.getTransactions();
+        List<Transaction> foundTransactions = new ArrayList<>(foundIndexes.size());
+        for (Integer index : foundIndexes) {
+            foundTransactions.add(transactions.get(index));
+        }
+        return foundTransactions;
+    }
+
+    public synchronized BlockMerkleTree getBlockMerkleTree() {
+        if (blockMerkleTree == null) {
+            blockMerkleTree = new BlockMerkleTree(block);
+        }
+        return blockMerkleTree;
+    }
+}
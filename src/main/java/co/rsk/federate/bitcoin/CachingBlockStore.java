@@ -0,0 +1,93 @@
+package co.rsk.federate.bitcoin;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.BlockStoreException;
+
+/**
+ * Read through cache of the most recently used blocks of a block store, bounded by the amount of blocks.
+ * Blocks are cached as they are put, so new best blocks are served without reading them back.
+ * A block never changes for a given hash, so a reorganization only needs the chain head to be replaced,
+ * which always happens through this store.
+ */
+public class CachingBlockStore implements BlockStore {
+
+    private final BlockStore blockStore;
+    private final Cache<Sha256Hash, StoredBlock> blocks;
+
+    private volatile StoredBlock chainHead;
+
+    public CachingBlockStore(BlockStore blockStore, int maximumCachedBlocks) {
+        this.blockStore = blockStore;
+        this.blocks = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(1, maximumCachedBlocks))
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public void put(StoredBlock block) throws BlockStoreException {
+        blockStore.put(block);
+        blocks.put(block.getHeader().getHash(), block);
+    }
+
+    @Override
+    public StoredBlock get(Sha256Hash hash) throws BlockStoreException {
+        StoredBlock block = blocks.getIfPresent(hash);
+        if (block != null) {
+            return block;
+        }
+
+        block = blockStore.get(hash);
+        // Missing blocks are not cached, they may be put later
+        if (block != null) {
+            blocks.put(hash, block);
+        }
+        return block;
+    }
+
+    @Override
+    public StoredBlock getChainHead() throws BlockStoreException {
+        StoredBlock currentChainHead = chainHead;
+        if (currentChainHead == null) {
+            synchronized (this) {
+                if (chainHead == null) {
+                    chainHead = blockStore.getChainHead();
+                    if (chainHead != null) {
+                        blocks.put(chainHead.getHeader().getHash(), chainHead);
+                    }
+                }
+                currentChainHead = chainHead;
+            }
+        }
+        return currentChainHead;
+    }
+
+    @Override
+    public synchronized void setChainHead(StoredBlock newChainHead) throws BlockStoreException {
+        blockStore.setChainHead(newChainHead);
+        chainHead = newChainHead;
+        blocks.put(newChainHead.getHeader().getHash(), newChainHead);
+    }
+
+    @Override
+    public synchronized void close() throws BlockStoreException {
+        blocks.invalidateAll();
+        chainHead = null;
+        blockStore.close();
+    }
+
+    @Override
+    public NetworkParameters getParams() {
+        return blockStore.getParams();
+    }
+
+    public CacheStats getStats() {
+        return blocks.stats();
+    }
+}
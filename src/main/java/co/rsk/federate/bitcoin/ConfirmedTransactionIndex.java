@@ -0,0 +1,127 @@
+package co.rsk.federate.bitcoin;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.Maps;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionConfidence;
+import org.bitcoinj.core.TransactionConfidence.ConfidenceType;
+import org.bitcoinj.core.listeners.TransactionConfidenceEventListener;
+import org.bitcoinj.wallet.Wallet;
+import org.bitcoinj.wallet.listeners.WalletReorganizeEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wallet transactions included in the best chain, keyed by wtxid along with the height they were included at.
+ * Kept up to date from the wallet confidence events, so the confirmations of a transaction can be checked
+ * against the best chain height without scanning the whole wallet on each query.
+ * The index is built from a full wallet scan on the first query, and again after a reorganization.
+ */
+public class ConfirmedTransactionIndex implements TransactionConfidenceEventListener, WalletReorganizeEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfirmedTransactionIndex.class);
+
+    private record Entry(Transaction transaction, int appearedAtChainHeight) {
+
+        int getDepthInBlocks(Supplier<Integer> bestChainHeight) {
+            if (appearedAtChainHeight < 0) {
+                // Inclusion height unknown, rely on the depth tracked by the confidence
+                return transaction.getConfidence().getDepthInBlocks();
+            }
+            return bestChainHeight.get() - appearedAtChainHeight + 1;
+        }
+    }
+
+    private final Supplier<Wallet> walletSupplier;
+    private final Map<Sha256Hash, Entry> entries = new ConcurrentHashMap<>();
+
+    // Both guarded by this. The version changes on every event, so a rebuild
+    // that raced with one is not trusted and is done again on the next query
+    private long version;
+    private boolean valid;
+
+    public ConfirmedTransactionIndex(Supplier<Wallet> walletSupplier) {
+        this.walletSupplier = walletSupplier;
+    }
+
+    @Override
+    public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+        synchronized (this) {
+            version++;
+            if (valid) {
+                update(tx);
+            }
+        }
+    }
+
+    @Override
+    public void onReorganize(Wallet wallet) {
+        logger.debug("[onReorganize] Wallet reorganized, confirmed transactions will be indexed again");
+        synchronized (this) {
+            version++;
+            valid = false;
+        }
+    }
+
+    /**
+     * Returns a read only view of the indexed transactions with at least the given confirmations, keyed by wtxid.
+     * The best chain height is only read if needed, once per view.
+     */
+    public Map<Sha256Hash, Transaction> getTransactions(int minConfirmations, IntSupplier bestChainHeightSupplier) {
+        ensureValid();
+        Supplier<Integer> bestChainHeight = Suppliers.memoize(bestChainHeightSupplier::getAsInt);
+        Map<Sha256Hash, Entry> confirmedEntries = Maps.filterValues(
+            entries,
+            entry -> entry.getDepthInBlocks(bestChainHeight) >= minConfirmations
+        );
+        return Collections.unmodifiableMap(Maps.transformValues(confirmedEntries, Entry::transaction));
+    }
+
+    private void ensureValid() {
+        long versionBeforeScan;
+        synchronized (this) {
+            if (valid) {
+                return;
+            }
+            versionBeforeScan = version;
+        }
+
+        // Scan out of the lock, since the wallet fires its events holding its own lock
+        Map<Sha256Hash, Entry> scannedEntries = new HashMap<>();
+        for (Transaction tx : walletSupplier.get().getTransactions(false)) {
+            toEntry(tx).ifPresent(entry -> scannedEntries.put(tx.getWTxId(), entry));
+        }
+
+        synchronized (this) {
+            entries.clear();
+            entries.putAll(scannedEntries);
+            valid = version == versionBeforeScan;
+        }
+        logger.debug("[ensureValid] Indexed {} confirmed transactions from the wallet", scannedEntries.size());
+    }
+
+    private void update(Transaction tx) {
+        Optional<Entry> entry = toEntry(tx);
+        if (entry.isPresent()) {
+            entries.put(tx.getWTxId(), entry.get());
+        } else {
+            entries.remove(tx.getWTxId());
+        }
+    }
+
+    private static Optional<Entry> toEntry(Transaction tx) {
+        TransactionConfidence confidence = tx.getConfidence();
+        if (confidence.getConfidenceType() != ConfidenceType.BUILDING) {
+            return Optional.empty();
+        }
+        return Optional.of(new Entry(tx, confidence.getAppearedAtChainHeight()));
+    }
+}
@@ -1,6 +1,9 @@
 package co.rsk.federate.bitcoin;
 
+import com.google.common.cache.CacheStats;
 import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
 import org.bitcoinj.core.Context;
 import org.bitcoinj.core.listeners.BlocksDownloadedEventListener;
 import org.bitcoinj.core.listeners.NewBestBlockListener;
@@ -11,18 +14,25 @@ import org.bitcoinj.store.LevelDBBlockStore;
 import org.bitcoinj.wallet.listeners.WalletCoinsReceivedEventListener;
 import org.bitcoinj.wallet.listeners.WalletCoinsSentEventListener;
 import org.ethereum.util.FileUtil;
+import org.iq80.leveldb.DBException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class Kit extends WalletAppKit {
 
     private static final Logger logger = LoggerFactory.getLogger(Kit.class);
+    private static final String BEST_CHAIN_HEIGHT_INDEX_DIRECTORY = "chain-heights";
+    // About half a year of headers. Each cached header takes a few hundred bytes of heap, far more than
+    // its compact serialization, with its hashes and chain work
+    private static final int BLOCK_STORE_CACHE_MAXIMUM_BLOCKS = 25_000;
 
     private final Context btcContext;
     private BlocksDownloadedEventListener blockListener;
     private WalletCoinsReceivedEventListener coinsReceivedListener;
     private WalletCoinsSentEventListener coinsSentListener;
     private NewBestBlockListener newBestBlockListener;
+    private BestChainHeightIndex bestChainHeightIndex;
+    private CachingBlockStore cachingBlockStore;
 
     public Kit(Context btcContext, File directory, String filePrefix) {
         super(btcContext.getParams(), directory, filePrefix, 1514764800);
@@ -65,9 +75,40 @@ public class Kit extends WalletAppKit {
         logger.debug("[onSetupCompleted] Setup completed");
     }
 
+    /**
+     * Index of the best chain block hashes by height, stored next to the chain.
+     * Opened on first use, it is kept up to date by whoever listens to the new best blocks.
+     */
+    public synchronized BestChainHeightIndex bestChainHeightIndex() throws BlockStoreException {
+        if (bestChainHeightIndex == null) {
+            try {
+                bestChainHeightIndex = BestChainHeightIndex.open(new File(directory, BEST_CHAIN_HEIGHT_INDEX_DIRECTORY));
+            } catch (IOException | DBException e) {
+                throw new BlockStoreException(e);
+            }
+        }
+        return bestChainHeightIndex;
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        super.shutDown();
+        synchronized (this) {
+            if (bestChainHeightIndex != null) {
+                bestChainHeightIndex.close();
+                bestChainHeightIndex = null;
+            }
+        }
+    }
+
+    public Optional<CacheStats> blockStoreCacheStats() {
+        return Optional.ofNullable(cachingBlockStore).map(CachingBlockStore::getStats);
+    }
+
     @Override
     protected BlockStore provideBlockStore(File file) throws BlockStoreException {
-        return new LevelDBBlockStore(btcContext, getChainFile());
+        cachingBlockStore = new CachingBlockStore(new LevelDBBlockStore(btcContext, getChainFile()), BLOCK_STORE_CACHE_MAXIMUM_BLOCKS);
+        return cachingBlockStore;
     }
 
     @Override
@@ -44,6 +44,8 @@ import co.rsk.peg.federation.ErpFederation;
 import co.rsk.peg.federation.Federation;
 import co.rsk.peg.federation.FederationMember;
 import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -52,6 +54,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.PreDestroy;
@@ -96,6 +102,16 @@ public class BtcReleaseClient {
     private final BridgeConstants bridgeConstants;
     private final boolean isPegoutEnabled;
     private final PegoutSignedCache pegoutSignedCache;
+    private final int pegoutSigningMaxPerBlock;
+    private final Duration pegoutSigningTimeBudget;
+    private final Clock clock = Clock.systemUTC();
+    private final PegoutSigningMetrics pegoutSigningMetrics = new PegoutSigningMetrics();
+    // Builds the messages of the next pegout while the current one is being signed by the HSM
+    private final ExecutorService messagesPreparationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PegoutMessagesPreparation");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private PeerGroup peerGroup;
     private ECDSASigner signer;
@@ -118,7 +134,9 @@ public class BtcReleaseClient {
         this.isPegoutEnabled = systemProperties.isPegoutEnabled();
         this.nodeBlockProcessor = nodeBlockProcessor;
         this.pegoutSignedCache = new PegoutSignedCacheImpl(
-            systemProperties.getPegoutSignedCacheTtl(), Clock.systemUTC());
+            systemProperties.getPegoutSignedCacheTtl(), clock);
+        this.pegoutSigningMaxPerBlock = Math.max(1, systemProperties.getPegoutSigningMaxPerBlock());
+        this.pegoutSigningTimeBudget = systemProperties.getPegoutSigningTimeBudget();
     }
 
     public void setup(
@@ -190,8 +208,13 @@ public class BtcReleaseClient {
         }
     }
 
+    public PegoutSigningMetrics getPegoutSigningMetrics() {
+        return pegoutSigningMetrics;
+    }
+
     @PreDestroy
     public void tearDown() {
+        messagesPreparationExecutor.shutdownNow();
         org.bitcoinj.core.Context.propagate(
             new org.bitcoinj.core.Context(
                 ThinConverter.toOriginalInstance(bridgeConstants.getBtcParamsString())));
@@ -207,6 +230,8 @@ public class BtcReleaseClient {
                 return;
             }
 
+            signerMessageBuilderFactory.onBestBlock(block);
+
             // Sign svp spend tx waiting for signatures, if it exists,
             // before attempting to sign any pegouts.
             federatorSupport.getStateForProposedFederator()
@@ -329,9 +354,8 @@ public class BtcReleaseClient {
             // TODO: Sorting and then looping again is not efficient but we are making a compromise on performance here as we don't have that many release txs
             // Sort descending
             pegoutsReadyToSign.sort((a, b) -> (int) (b.getPegoutCreationBlock().getNumber() - a.getPegoutCreationBlock().getNumber()));
-            // Sign only the first element
             if (!pegoutsReadyToSign.isEmpty()) {
-                signRelease(version, pegoutsReadyToSign.get(0));
+                signReleases(version, pegoutsReadyToSign);
             }
         } catch (Exception e) {
             logger.error("[processReleases] There was an error trying to process pegouts", e);
@@ -484,7 +508,104 @@ public class BtcReleaseClient {
         }
     }
 
+    /**
+     * Signs the given pegouts in order until the per block limit or the time budget is reached. The messages
+     * of the next pegout are built while the HSM signs the current one.
+     */
+    private void signReleases(int signerVersion, List<ReleaseCreationInformation> pegoutsReadyToSign) {
+        Instant startedAt = clock.instant();
+        Instant deadline = startedAt.plus(pegoutSigningTimeBudget);
+        int pegoutsToSign = Math.min(pegoutsReadyToSign.size(), pegoutSigningMaxPerBlock);
+        int pegoutsSigned = 0;
+
+        CompletableFuture<List<SignerMessage>> nextMessages = prepareMessagesAsync(signerVersion, pegoutsReadyToSign.get(0));
+        for (int index = 0; index < pegoutsToSign; index++) {
+            CompletableFuture<List<SignerMessage>> messages = nextMessages;
+            nextMessages = index + 1 < pegoutsToSign ?
+                prepareMessagesAsync(signerVersion, pegoutsReadyToSign.get(index + 1)) :
+                null;
+
+            if (signRelease(signerVersion, pegoutsReadyToSign.get(index), messages)) {
+                pegoutsSigned++;
+            }
+
+            if (nextMessages != null && !clock.instant().isBefore(deadline)) {
+                logger.info(
+                    "[signReleases] Signing time budget of {} ms exhausted, {} pegouts left for the next block",
+                    pegoutSigningTimeBudget.toMillis(),
+                    pegoutsReadyToSign.size() - index - 1
+                );
+                nextMessages.cancel(false);
+                break;
+            }
+        }
+
+        Duration signingDuration = Duration.between(startedAt, clock.instant());
+        pegoutSigningMetrics.onBlock(pegoutsSigned, pegoutsReadyToSign.size() - pegoutsSigned, signingDuration);
+        logger.debug(
+            "[signReleases] Signed {} of {} pegouts ready to sign in {} ms",
+            pegoutsSigned,
+            pegoutsReadyToSign.size(),
+            signingDuration.toMillis()
+        );
+    }
+
+    private CompletableFuture<List<SignerMessage>> prepareMessagesAsync(
+        int signerVersion,
+        ReleaseCreationInformation pegoutCreationInformation
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return buildMessagesToSign(signerVersion, pegoutCreationInformation);
+            } catch (SignerMessageBuilderException | HSMClientException e) {
+                throw new CompletionException(e);
+            }
+        }, messagesPreparationExecutor);
+    }
+
+    private List<SignerMessage> buildMessagesToSign(
+        int signerVersion,
+        ReleaseCreationInformation pegoutCreationInformation
+    ) throws SignerMessageBuilderException, HSMClientException {
+        // The context is thread local, the messages may be built outside the thread that signs them
+        co.rsk.bitcoinj.core.Context.propagate(new co.rsk.bitcoinj.core.Context(bridgeConstants.getBtcParams()));
+        // A single builder for all the inputs, so the parts shared by their messages are built once
+        SignerMessageBuilder messageBuilder = signerMessageBuilderFactory.buildFromConfig(
+            signerVersion,
+            pegoutCreationInformation
+        );
+        List<SignerMessage> messagesToSign = new ArrayList<>();
+        int inputsSize = pegoutCreationInformation.getPegoutBtcTx().getInputs().size();
+        for (int inputIndex = 0; inputIndex < inputsSize; inputIndex++) {
+            messagesToSign.add(messageBuilder.buildMessageForIndex(inputIndex));
+        }
+        return messagesToSign;
+    }
+
+    private static List<SignerMessage> awaitMessagesToSign(CompletableFuture<List<SignerMessage>> messages)
+        throws SignerMessageBuilderException, HSMClientException {
+        try {
+            return messages.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SignerMessageBuilderException signerMessageBuilderException) {
+                throw signerMessageBuilderException;
+            }
+            if (e.getCause() instanceof HSMClientException hsmClientException) {
+                throw hsmClientException;
+            }
+            throw e;
+        }
+    }
+
     protected void signRelease(int signerVersion, ReleaseCreationInformation pegoutCreationInformation) {
+        signRelease(signerVersion, pegoutCreationInformation, prepareMessagesAsync(signerVersion, pegoutCreationInformation));
+    }
+
+    private boolean signRelease(
+        int signerVersion,
+        ReleaseCreationInformation pegoutCreationInformation,
+        CompletableFuture<List<SignerMessage>> messages
+    ) {
         Keccak256 pegoutCreationRskTxHash = pegoutCreationInformation.getPegoutCreationRskTxHash();
         BtcTransaction pegoutBtcTx = pegoutCreationInformation.getPegoutBtcTx();
         logger.debug(
@@ -496,16 +617,8 @@ public class BtcReleaseClient {
         try {
             logger.trace("[signRelease] Enforce signer requirements");
             releaseRequirementsEnforcer.enforce(signerVersion, pegoutCreationInformation);
-            co.rsk.bitcoinj.core.Context.propagate(new co.rsk.bitcoinj.core.Context(bridgeConstants.getBtcParams()));
             List<byte[]> signatures = new ArrayList<>();
-            int inputsSize = pegoutBtcTx.getInputs().size();
-            for (int inputIndex = 0; inputIndex < inputsSize; inputIndex++) {
-                SignerMessageBuilder messageBuilder = signerMessageBuilderFactory.buildFromConfig(
-                    signerVersion,
-                    pegoutCreationInformation,
-                    inputIndex
-                );
-                SignerMessage messageToSign = messageBuilder.buildMessageForIndex(inputIndex);
+            for (SignerMessage messageToSign : awaitMessagesToSign(messages)) {
                 logger.trace("[signRelease] Message to sign: {}", messageToSign.getClass());
                 ECKey.ECDSASignature ethSig = signer.sign(BTC.getKeyId(), messageToSign);
                 logger.debug("[signRelease] Message successfully signed");
@@ -518,6 +631,7 @@ public class BtcReleaseClient {
 
             pegoutSignedCache.putIfAbsent(pegoutCreationRskTxHash);
             logger.trace("[signRelease] Put pegoutCreationRskTxHash {} in the pegouts signed cache", pegoutCreationRskTxHash);
+            return true;
         } catch (SignerException e) {
             String message = String.format("Error signing pegout created in rsk transaction %s", pegoutCreationRskTxHash);
             logger.error(message, e);
@@ -531,6 +645,7 @@ public class BtcReleaseClient {
             );
             logger.error(message, e);
         }
+        return false;
     }
 
     // Executed when a tx is ready for broadcasting
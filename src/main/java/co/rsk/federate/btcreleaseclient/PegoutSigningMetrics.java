@@ -0,0 +1,49 @@
+package co.rsk.federate.btcreleaseclient;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Throughput of the pegouts signed for each best block. Pegouts ready to be signed but left for a later
+ * block, because the per block limit or the time budget was reached, are counted as backlog.
+ */
+public class PegoutSigningMetrics {
+
+    private int pegoutsSignedLastBlock;
+    private int pegoutsLeftLastBlock;
+    private long totalPegoutsSigned;
+    private Duration lastSigningDuration;
+
+    synchronized void onBlock(int pegoutsSigned, int pegoutsLeft, Duration signingDuration) {
+        pegoutsSignedLastBlock = pegoutsSigned;
+        pegoutsLeftLastBlock = pegoutsLeft;
+        totalPegoutsSigned += pegoutsSigned;
+        lastSigningDuration = signingDuration;
+    }
+
+    public synchronized int getPegoutsSignedLastBlock() {
+        return pegoutsSignedLastBlock;
+    }
+
+    public synchronized int getPegoutsLeftLastBlock() {
+        return pegoutsLeftLastBlock;
+    }
+
+    public synchronized long getTotalPegoutsSigned() {
+        return totalPegoutsSigned;
+    }
+
+    public synchronized Optional<Duration> getLastSigningDuration() {
+        return Optional.ofNullable(lastSigningDuration);
+    }
+
+    /**
+     * Pegouts signed per second during the last block in which any pegout was processed
+     */
+    public synchronized Optional<Double> getLastSigningThroughput() {
+        if (lastSigningDuration == null || lastSigningDuration.isZero()) {
+            return Optional.empty();
+        }
+        return Optional.of(pegoutsSignedLastBlock * 1e9 / lastSigningDuration.toNanos());
+    }
+}
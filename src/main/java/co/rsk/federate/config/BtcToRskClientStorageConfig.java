@@ -0,0 +1,48 @@
+package co.rsk.federate.config;
+
+import co.rsk.federate.io.BtcToRskClientStorageType;
+import co.rsk.federate.io.JournalSyncPolicy;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Represents the configuration of the storage used by the btc to rsk clients
+ * to keep track of the peg-ins pending to be informed to the Bridge.
+ */
+public class BtcToRskClientStorageConfig {
+    private final BtcToRskClientStorageType type;
+    private final JournalSyncPolicy journalSyncPolicy;
+    private final Duration journalSyncInterval;
+    private final int journalCompactionThreshold;
+
+    public BtcToRskClientStorageConfig(
+        BtcToRskClientStorageType type,
+        JournalSyncPolicy journalSyncPolicy,
+        Duration journalSyncInterval,
+        int journalCompactionThreshold
+    ) {
+        this.type = Objects.requireNonNull(type);
+        this.journalSyncPolicy = Objects.requireNonNull(journalSyncPolicy);
+        this.journalSyncInterval = Objects.requireNonNull(journalSyncInterval);
+        if (journalCompactionThreshold <= 0) {
+            throw new IllegalArgumentException("Journal compaction threshold must be positive");
+        }
+        this.journalCompactionThreshold = journalCompactionThreshold;
+    }
+
+    public BtcToRskClientStorageType getType() {
+        return type;
+    }
+
+    public JournalSyncPolicy getJournalSyncPolicy() {
+        return journalSyncPolicy;
+    }
+
+    public Duration getJournalSyncInterval() {
+        return journalSyncInterval;
+    }
+
+    public int getJournalCompactionThreshold() {
+        return journalCompactionThreshold;
+    }
+}
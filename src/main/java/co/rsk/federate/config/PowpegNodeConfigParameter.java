@@ -16,16 +16,45 @@ public enum PowpegNodeConfigParameter {
     GAS_PRICE("federator.gasPrice", "0"),
     GAS_PRICE_PROVIDER("federator.gasPriceProvider", ""),
     AMOUNT_HEADERS("federator.amountOfHeadersToSend", "25"),
+    // When the Bridge is further behind than a single batch of headers, up to this many
+    // consecutive receiveHeaders txs are sent in a turn so it catches up faster
+    MAX_HEADER_BATCHES_PER_TURN("federator.maxHeaderBatchesPerTurn", "10"),
+    // When enabled, the Bridge values that only depend on its storage are read straight
+    // from the repository at the best block instead of executing a call to the Bridge
+    DIRECT_BRIDGE_STORAGE_READS("federator.directBridgeStorageReads", Boolean.FALSE.toString()),
     // 6000 blocks is 150% the amount of blocks the Bridge waits before confirming a
     // peg-out. If this powpeg-node was shutdown for 48hs this depth will be enough
     // to resync all the information. If this powpeg-node was shutdown for longer
     // periods, most likely the transaction was signed by other pegnatories.
     BTC_INIT_MAX_DEPTH("federator.pegoutStorageInitializationDepth", "6000"),
+    // The federations are read from the Bridge when it logs a federation change, and at least
+    // once every this many blocks in case a change was missed
+    FEDERATION_RECONCILIATION_INTERVAL("federator.federationReconciliationIntervalInBlocks", "20"),
+    // Blocks a mined registration or receiveHeaders tx is remembered, so it is not sent again
+    // before the Bridge state read by the clients reflects it
+    IN_FLIGHT_BRIDGE_TX_RETENTION_BLOCKS("federator.inFlightBridgeTxRetentionBlocks", "10"),
+    // When enabled, the gas of receiveHeaders and addSignature txs is estimated from the size of their
+    // call data, learned from previous executions, instead of executing them
+    GAS_MODEL_ENABLED("federator.gasModel.enabled", Boolean.FALSE.toString()),
+    // One in every this many estimates of the gas model is replaced by a full execution
+    GAS_MODEL_FULL_EXECUTION_INTERVAL("federator.gasModel.fullExecutionInterval", "10"),
     BTC_PEER_ADDRESSES("federator.bitcoinPeerAddresses", ""),
     BTC_WRAPPER_STARTUP_CHECK_INTERVAL("federator.bitcoinWrapperStartupCheckIntervalMinutes", "10"),
     // The time to live (TTL) duration for the peg-out signed cache,
     // specifies the validity period for the signed peg-outs.
     PEGOUT_CACHE_TTL("federator.pegoutSignedCacheTtlInMinutes", "30"),
+    // Pegouts waiting for signatures are signed, newest first, up to this many per best block
+    PEGOUT_SIGNING_MAX_PER_BLOCK("federator.pegoutSigning.maxPerBlock", "5"),
+    // No more pegouts are signed for a best block once this much time has been spent signing them
+    PEGOUT_SIGNING_TIME_BUDGET("federator.pegoutSigning.timeBudgetInMillis", "20000"),
+    // When enabled, the pegouts created by the Bridge are indexed in a local database, rebuilt on
+    // start from the last pegoutStorageInitializationDepth blocks, instead of scanning the receipts
+    PEGOUT_CREATION_INDEX_ENABLED("federator.pegoutCreationIndex.enabled", Boolean.FALSE.toString()),
+    // Storage engine used by the btc to rsk clients to keep track of the pending peg-ins
+    BTC_TO_RSK_CLIENT_STORAGE_TYPE("federator.btcToRskClientStorage.type", "file"),
+    BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_POLICY("federator.btcToRskClientStorage.journal.syncPolicy", "interval"),
+    BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_INTERVAL("federator.btcToRskClientStorage.journal.syncIntervalInMillis", "1000"),
+    BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_COMPACTION_THRESHOLD("federator.btcToRskClientStorage.journal.compactionThreshold", "10000"),
     SIGNERS("federator.signers", "");
 
     private final String path;
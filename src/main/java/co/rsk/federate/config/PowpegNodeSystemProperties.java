@@ -4,11 +4,14 @@ import static co.rsk.federate.config.PowpegNodeConfigParameter.*;
 
 import co.rsk.config.ConfigLoader;
 import co.rsk.config.RskSystemProperties;
+import co.rsk.federate.io.BtcToRskClientStorageType;
+import co.rsk.federate.io.JournalSyncPolicy;
 import co.rsk.federate.signing.config.SignerConfig;
 import com.typesafe.config.Config;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 public class PowpegNodeSystemProperties extends RskSystemProperties {
 
@@ -75,6 +78,48 @@ public class PowpegNodeSystemProperties extends RskSystemProperties {
         );
     }
 
+    public int getMaxHeaderBatchesPerTurn() {
+        return getInt(
+            MAX_HEADER_BATCHES_PER_TURN.getPath(),
+            MAX_HEADER_BATCHES_PER_TURN.getDefaultValue(Integer::parseInt)
+        );
+    }
+
+    public boolean isDirectBridgeStorageReadsEnabled() {
+        return getBoolean(
+            DIRECT_BRIDGE_STORAGE_READS.getPath(),
+            DIRECT_BRIDGE_STORAGE_READS.getDefaultValue(Boolean::parseBoolean)
+        );
+    }
+
+    public long getFederationReconciliationIntervalInBlocks() {
+        return getLong(
+            FEDERATION_RECONCILIATION_INTERVAL.getPath(),
+            FEDERATION_RECONCILIATION_INTERVAL.getDefaultValue(Long::parseLong)
+        );
+    }
+
+    public long getInFlightBridgeTxRetentionBlocks() {
+        return getLong(
+            IN_FLIGHT_BRIDGE_TX_RETENTION_BLOCKS.getPath(),
+            IN_FLIGHT_BRIDGE_TX_RETENTION_BLOCKS.getDefaultValue(Long::parseLong)
+        );
+    }
+
+    public boolean isGasModelEnabled() {
+        return getBoolean(
+            GAS_MODEL_ENABLED.getPath(),
+            GAS_MODEL_ENABLED.getDefaultValue(Boolean::parseBoolean)
+        );
+    }
+
+    public long getGasModelFullExecutionInterval() {
+        return getLong(
+            GAS_MODEL_FULL_EXECUTION_INTERVAL.getPath(),
+            GAS_MODEL_FULL_EXECUTION_INTERVAL.getDefaultValue(Long::parseLong)
+        );
+    }
+
     public int getBtcReleaseClientInitializationMaxDepth() {
         return getInt(
             BTC_INIT_MAX_DEPTH.getPath(),
@@ -102,6 +147,42 @@ public class PowpegNodeSystemProperties extends RskSystemProperties {
         ));
     }
 
+    public int getPegoutSigningMaxPerBlock() {
+        return getInt(
+            PEGOUT_SIGNING_MAX_PER_BLOCK.getPath(),
+            PEGOUT_SIGNING_MAX_PER_BLOCK.getDefaultValue(Integer::parseInt)
+        );
+    }
+
+    public Duration getPegoutSigningTimeBudget() {
+        return Duration.ofMillis(getLong(
+            PEGOUT_SIGNING_TIME_BUDGET.getPath(),
+            PEGOUT_SIGNING_TIME_BUDGET.getDefaultValue(Long::parseLong)
+        ));
+    }
+
+    public boolean isPegoutCreationIndexEnabled() {
+        return getBoolean(
+            PEGOUT_CREATION_INDEX_ENABLED.getPath(),
+            PEGOUT_CREATION_INDEX_ENABLED.getDefaultValue(Boolean::parseBoolean)
+        );
+    }
+
+    public BtcToRskClientStorageConfig btcToRskClientStorageConfig() {
+        return new BtcToRskClientStorageConfig(
+            BtcToRskClientStorageType.fromConfigName(getStringOrDefault(BTC_TO_RSK_CLIENT_STORAGE_TYPE)),
+            JournalSyncPolicy.fromConfigName(getStringOrDefault(BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_POLICY)),
+            Duration.ofMillis(getLong(
+                BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_INTERVAL.getPath(),
+                BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_INTERVAL.getDefaultValue(Long::parseLong)
+            )),
+            getInt(
+                BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_COMPACTION_THRESHOLD.getPath(),
+                BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_COMPACTION_THRESHOLD.getDefaultValue(Integer::parseInt)
+            )
+        );
+    }
+
     public Long federatorGasPrice() {
         return getLong(
             GAS_PRICE.getPath(),
@@ -130,6 +211,12 @@ public class PowpegNodeSystemProperties extends RskSystemProperties {
         return new SignerConfig(key, signerConfigTree);
     }
 
+    private String getStringOrDefault(PowpegNodeConfigParameter parameter) {
+        return configFromFiles.hasPath(parameter.getPath())
+            ? configFromFiles.getString(parameter.getPath())
+            : parameter.getDefaultValue(Function.identity());
+    }
+
     private Config signersConfigTree() {
         return configFromFiles.hasPath(SIGNERS.getPath())
             ? configFromFiles.getObject(SIGNERS.getPath()).toConfig()
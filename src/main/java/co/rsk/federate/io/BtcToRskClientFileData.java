@@ -15,8 +15,12 @@ public class BtcToRskClientFileData {
     private final Map<Sha256Hash, CoinbaseInformation> coinbaseInformationMap;
 
     public BtcToRskClientFileData() {
-        this.transactionsProofs = new ConcurrentHashMap<>();
-        this.coinbaseInformationMap = new ConcurrentHashMap<>();
+        this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    BtcToRskClientFileData(Map<Sha256Hash, List<Proof>> transactionsProofs, Map<Sha256Hash, CoinbaseInformation> coinbaseInformationMap) {
+        this.transactionsProofs = transactionsProofs;
+        this.coinbaseInformationMap = coinbaseInformationMap;
     }
 
     public Map<Sha256Hash, List<Proof>> getTransactionProofs() {
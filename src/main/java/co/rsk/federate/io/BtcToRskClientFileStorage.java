@@ -11,4 +11,10 @@ public interface BtcToRskClientFileStorage {
     void write(BtcToRskClientFileData data) throws IOException;
 
     BtcToRskClientFileReadResult read(NetworkParameters networkParameters) throws IOException;
+
+    /**
+     * Releases the resources held by the storage. Nothing else can be done with it afterwards.
+     */
+    default void close() throws IOException {
+    }
 }
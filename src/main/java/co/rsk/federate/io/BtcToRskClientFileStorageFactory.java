@@ -1,10 +1,26 @@
 package co.rsk.federate.io;
 
+import co.rsk.federate.config.BtcToRskClientStorageConfig;
+import java.time.Duration;
+
 public class BtcToRskClientFileStorageFactory {
+    private static final BtcToRskClientStorageConfig DEFAULT_STORAGE_CONFIG = new BtcToRskClientStorageConfig(
+        BtcToRskClientStorageType.FILE,
+        JournalSyncPolicy.INTERVAL,
+        Duration.ofSeconds(1),
+        10_000
+    );
+
     private final DirectoryStorageInfo directoryStorageInfo;
+    private final BtcToRskClientStorageConfig storageConfig;
 
     public BtcToRskClientFileStorageFactory(DirectoryStorageInfo directoryStorageInfo) {
+        this(directoryStorageInfo, DEFAULT_STORAGE_CONFIG);
+    }
+
+    public BtcToRskClientFileStorageFactory(DirectoryStorageInfo directoryStorageInfo, BtcToRskClientStorageConfig storageConfig) {
         this.directoryStorageInfo = directoryStorageInfo;
+        this.storageConfig = storageConfig;
     }
 
     public BtcToRskClientFileStorage forActive() {
@@ -16,6 +32,18 @@ public class BtcToRskClientFileStorageFactory {
 
     private BtcToRskClientFileStorage create(String filePathCustomizer) {
         BtcToRskClientFileStorageInfo btcToRskClientFileStorageInfo = new BtcToRskClientFileStorageInfo(directoryStorageInfo, filePathCustomizer);
-        return new BtcToRskClientFileStorageImpl(btcToRskClientFileStorageInfo);
+        switch (storageConfig.getType()) {
+            case JOURNAL:
+                return new BtcToRskClientJournalFileStorage(
+                    btcToRskClientFileStorageInfo,
+                    storageConfig.getJournalSyncPolicy(),
+                    storageConfig.getJournalSyncInterval(),
+                    storageConfig.getJournalCompactionThreshold()
+                );
+            case LEVELDB:
+                return new BtcToRskClientLevelDbStorage(btcToRskClientFileStorageInfo);
+            default:
+                return new BtcToRskClientFileStorageImpl(btcToRskClientFileStorageInfo);
+        }
     }
 }
@@ -40,12 +40,7 @@ public class BtcToRskClientFileStorageImpl implements BtcToRskClientFileStorage
 
         File dataFile = new File(storageInfo.getFilePath());
 
-        byte[] proofsForFile = Proof.encodeProofs(data.getTransactionProofs());
-        byte[] coinbasesForFile = this.serializeCoinbaseInformation(data.getCoinbaseInformationMap());
-
-        byte[] encodedData = RLP.encodeList(proofsForFile, coinbasesForFile);
-
-        FileUtils.writeByteArrayToFile(dataFile, encodedData);
+        FileUtils.writeByteArrayToFile(dataFile, encode(data));
     }
 
     @Override
@@ -58,6 +53,13 @@ public class BtcToRskClientFileStorageImpl implements BtcToRskClientFileStorage
         return this.readFromRlp(FileUtils.readFileToByteArray(file), networkParameters);
     }
 
+    byte[] encode(BtcToRskClientFileData data) {
+        byte[] proofsForFile = Proof.encodeProofs(data.getTransactionProofs());
+        byte[] coinbasesForFile = this.serializeCoinbaseInformation(data.getCoinbaseInformationMap());
+
+        return RLP.encodeList(proofsForFile, coinbasesForFile);
+    }
+
     private BtcToRskClientFileReadResult readFromRlp(byte[] fileData, NetworkParameters networkParameters) {
         BtcToRskClientFileData data = new BtcToRskClientFileData();
 
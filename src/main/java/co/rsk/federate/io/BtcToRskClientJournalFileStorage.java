@@ -0,0 +1,458 @@
+package co.rsk.federate.io;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import co.rsk.federate.CoinbaseInformation;
+import co.rsk.federate.Proof;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.ethereum.util.RLP;
+import org.ethereum.util.RLPList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Storage that keeps the last compacted state in the same RLP encoded file used by
+ * {@link BtcToRskClientFileStorageImpl} (the snapshot) and appends every later change
+ * to a journal file next to it.
+ * Each call to {@link #write(BtcToRskClientFileData)} only appends the entries that changed
+ * since the previous call, grouped in a single append and at most one fsync. Once the journal
+ * reaches the compaction threshold, the snapshot is rewritten and the journal discarded.
+ * With the interval sync policy, records appended without a sync are synced once the interval
+ * elapses, even if nothing else is written, and when the storage is closed.
+ * Since the snapshot format is unchanged, files written by the previous storage are read as is.
+ */
+public class BtcToRskClientJournalFileStorage implements BtcToRskClientFileStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(BtcToRskClientJournalFileStorage.class);
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String SNAPSHOT_TEMPORARY_SUFFIX = ".tmp";
+    // record length plus record checksum
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+
+    private final FileStorageInfo storageInfo;
+    private final BtcToRskClientFileStorageImpl snapshotStorage;
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final JournalSyncPolicy syncPolicy;
+    private final long syncIntervalInNanos;
+    private final int compactionThreshold;
+    private final ScheduledExecutorService syncScheduler;
+
+    // Last state known to be in the snapshot plus the journal, used to find out what changed on each write
+    private final Map<Sha256Hash, List<Proof>> persistedTransactionProofs = new HashMap<>();
+    private final Map<Sha256Hash, CoinbaseInformation> persistedCoinbaseInformation = new HashMap<>();
+    private int journalRecordsCount;
+    private long lastSyncInNanos;
+    private boolean hasUnsyncedRecords;
+    private boolean isSyncScheduled;
+    private boolean compactionRequired;
+
+    public BtcToRskClientJournalFileStorage(
+        FileStorageInfo storageInfo,
+        JournalSyncPolicy syncPolicy,
+        Duration syncInterval,
+        int compactionThreshold
+    ) {
+        this.storageInfo = storageInfo;
+        this.snapshotStorage = new BtcToRskClientFileStorageImpl(storageInfo);
+        this.snapshotPath = Paths.get(storageInfo.getFilePath());
+        this.journalPath = Paths.get(storageInfo.getFilePath() + JOURNAL_SUFFIX);
+        this.syncPolicy = syncPolicy;
+        this.syncIntervalInNanos = syncInterval.toNanos();
+        this.compactionThreshold = compactionThreshold;
+        this.lastSyncInNanos = System.nanoTime();
+        this.syncScheduler = syncPolicy == JournalSyncPolicy.INTERVAL ?
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "BtcToRskClientJournalSync");
+                thread.setDaemon(true);
+                return thread;
+            }) :
+            null;
+    }
+
+    @Override
+    public FileStorageInfo getInfo() {
+        return this.storageInfo;
+    }
+
+    @Override
+    public synchronized void write(BtcToRskClientFileData data) throws IOException {
+        if (data == null) {
+            throw new IOException("Data is null");
+        }
+
+        if (compactionRequired) {
+            compact(data);
+            return;
+        }
+
+        JournalBatch batch = new JournalBatch();
+        collectTransactionProofsChanges(data.getTransactionProofs(), batch);
+        collectCoinbaseInformationChanges(data.getCoinbaseInformationMap(), batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            appendToJournal(batch.getEncodedRecords());
+        } catch (IOException e) {
+            // We can't tell how much of the batch made it to the journal, rewrite everything on the next write
+            compactionRequired = true;
+            throw e;
+        }
+        batch.applyPersistedChanges();
+        journalRecordsCount += batch.getRecordsCount();
+
+        if (journalRecordsCount >= compactionThreshold) {
+            logger.debug("[write] Journal reached {} records, compacting", journalRecordsCount);
+            compact(data);
+        }
+    }
+
+    @Override
+    public synchronized BtcToRskClientFileReadResult read(NetworkParameters networkParameters) throws IOException {
+        BtcToRskClientFileReadResult snapshotReadResult = snapshotStorage.read(networkParameters);
+        if (!Boolean.TRUE.equals(snapshotReadResult.getSuccess())) {
+            return snapshotReadResult;
+        }
+
+        BtcToRskClientFileData data = snapshotReadResult.getData();
+        if (Files.exists(journalPath)) {
+            int replayedRecords = replayJournal(data, networkParameters);
+            logger.info("[read] Replayed {} journal records from {}", replayedRecords, journalPath);
+            // Fold the journal into the snapshot so the next start doesn't need to replay it again
+            compact(data);
+        } else {
+            rememberPersistedState(data);
+        }
+
+        return new BtcToRskClientFileReadResult(Boolean.TRUE, data);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+        }
+        synchronized (this) {
+            isSyncScheduled = false;
+            if (syncPolicy != JournalSyncPolicy.NEVER) {
+                syncJournal();
+            }
+        }
+    }
+
+    synchronized boolean hasUnsyncedRecords() {
+        return hasUnsyncedRecords;
+    }
+
+    synchronized boolean isSyncScheduled() {
+        return isSyncScheduled;
+    }
+
+    private void collectTransactionProofsChanges(Map<Sha256Hash, List<Proof>> transactionProofs, JournalBatch batch) {
+        for (Map.Entry<Sha256Hash, List<Proof>> entry : transactionProofs.entrySet()) {
+            Sha256Hash txHash = entry.getKey();
+            List<Proof> proofs = entry.getValue();
+            List<Proof> persistedProofs = persistedTransactionProofs.get(txHash);
+            if (persistedProofs != null && containsSameProofs(persistedProofs, proofs)) {
+                continue;
+            }
+
+            List<Proof> proofsCopy = new ArrayList<>(proofs);
+            batch.addRecord(
+                JournalRecordType.PUT_TRANSACTION_PROOFS,
+                txHash,
+                Proof.serializeProofList(proofsCopy),
+                () -> persistedTransactionProofs.put(txHash, proofsCopy)
+            );
+        }
+
+        for (Sha256Hash txHash : persistedTransactionProofs.keySet()) {
+            if (!transactionProofs.containsKey(txHash)) {
+                batch.addRecord(
+                    JournalRecordType.REMOVE_TRANSACTION_PROOFS,
+                    txHash,
+                    new byte[]{},
+                    () -> persistedTransactionProofs.remove(txHash)
+                );
+            }
+        }
+    }
+
+    private static boolean containsSameProofs(List<Proof> persistedProofs, List<Proof> proofs) {
+        if (persistedProofs.size() != proofs.size()) {
+            return false;
+        }
+        // Proofs are never modified once created, comparing references is enough
+        for (int i = 0; i < proofs.size(); i++) {
+            if (persistedProofs.get(i) != proofs.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectCoinbaseInformationChanges(Map<Sha256Hash, CoinbaseInformation> coinbaseInformationMap, JournalBatch batch) {
+        for (Map.Entry<Sha256Hash, CoinbaseInformation> entry : coinbaseInformationMap.entrySet()) {
+            Sha256Hash blockHash = entry.getKey();
+            CoinbaseInformation coinbaseInformation = entry.getValue();
+            if (persistedCoinbaseInformation.get(blockHash) == coinbaseInformation) {
+                continue;
+            }
+
+            batch.addRecord(
+                JournalRecordType.PUT_COINBASE_INFORMATION,
+                blockHash,
+                coinbaseInformation.serializeToRLP(),
+                () -> persistedCoinbaseInformation.put(blockHash, coinbaseInformation)
+            );
+        }
+
+        for (Sha256Hash blockHash : persistedCoinbaseInformation.keySet()) {
+            if (!coinbaseInformationMap.containsKey(blockHash)) {
+                batch.addRecord(
+                    JournalRecordType.REMOVE_COINBASE_INFORMATION,
+                    blockHash,
+                    new byte[]{},
+                    () -> persistedCoinbaseInformation.remove(blockHash)
+                );
+            }
+        }
+    }
+
+    private void appendToJournal(byte[] encodedRecords) throws IOException {
+        Files.createDirectories(journalPath.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(journalPath, CREATE, WRITE, APPEND)) {
+            writeFully(channel, encodedRecords);
+            if (shouldSync()) {
+                channel.force(false);
+                lastSyncInNanos = System.nanoTime();
+                hasUnsyncedRecords = false;
+            } else {
+                hasUnsyncedRecords = true;
+                scheduleSync();
+            }
+        }
+    }
+
+    private void scheduleSync() {
+        if (syncScheduler == null || isSyncScheduled) {
+            return;
+        }
+        long delayInNanos = Math.max(0, syncIntervalInNanos - (System.nanoTime() - lastSyncInNanos));
+        syncScheduler.schedule(this::onScheduledSync, delayInNanos, TimeUnit.NANOSECONDS);
+        isSyncScheduled = true;
+    }
+
+    private synchronized void onScheduledSync() {
+        isSyncScheduled = false;
+        try {
+            syncJournal();
+        } catch (IOException e) {
+            logger.error("[onScheduledSync] Could not sync journal {}", journalPath, e);
+        }
+    }
+
+    private void syncJournal() throws IOException {
+        if (!hasUnsyncedRecords || !Files.exists(journalPath)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, WRITE)) {
+            channel.force(false);
+        }
+        lastSyncInNanos = System.nanoTime();
+        hasUnsyncedRecords = false;
+    }
+
+    private boolean shouldSync() {
+        switch (syncPolicy) {
+            case ALWAYS:
+                return true;
+            case INTERVAL:
+                return System.nanoTime() - lastSyncInNanos >= syncIntervalInNanos;
+            default:
+                return false;
+        }
+    }
+
+    private void compact(BtcToRskClientFileData data) throws IOException {
+        Path temporarySnapshotPath = Paths.get(storageInfo.getFilePath() + SNAPSHOT_TEMPORARY_SUFFIX);
+        Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(temporarySnapshotPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeFully(channel, snapshotStorage.encode(data));
+            if (syncPolicy != JournalSyncPolicy.NEVER) {
+                channel.force(true);
+            }
+        }
+        Files.move(temporarySnapshotPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // If the node stops before the journal is deleted, replaying it over the new snapshot
+        // gives back the same state, since every record carries the whole value for its key.
+        Files.deleteIfExists(journalPath);
+
+        rememberPersistedState(data);
+        journalRecordsCount = 0;
+        hasUnsyncedRecords = false;
+        compactionRequired = false;
+        logger.debug("[compact] Snapshot {} rewritten", snapshotPath);
+    }
+
+    private void rememberPersistedState(BtcToRskClientFileData data) {
+        persistedTransactionProofs.clear();
+        data.getTransactionProofs().forEach((txHash, proofs) -> persistedTransactionProofs.put(txHash, new ArrayList<>(proofs)));
+        persistedCoinbaseInformation.clear();
+        persistedCoinbaseInformation.putAll(data.getCoinbaseInformationMap());
+    }
+
+    private int replayJournal(BtcToRskClientFileData data, NetworkParameters networkParameters) throws IOException {
+        ByteBuffer journal = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+        int replayedRecords = 0;
+
+        while (journal.remaining() >= RECORD_HEADER_SIZE) {
+            int recordLength = journal.getInt();
+            int recordChecksum = journal.getInt();
+            if (recordLength < 0 || recordLength > journal.remaining()) {
+                break;
+            }
+
+            byte[] record = new byte[recordLength];
+            journal.get(record);
+            if (checksum(record) != recordChecksum) {
+                break;
+            }
+
+            try {
+                applyRecord(record, data, networkParameters);
+            } catch (Exception e) {
+                logger.warn("[replayJournal] Invalid journal record found. {}", e.getMessage());
+                break;
+            }
+            replayedRecords++;
+        }
+
+        if (journal.hasRemaining()) {
+            // A record can only be incomplete if the node stopped in the middle of an append
+            logger.warn("[replayJournal] Discarding incomplete journal records found at the end of {}", journalPath);
+        }
+
+        return replayedRecords;
+    }
+
+    private static void applyRecord(byte[] record, BtcToRskClientFileData data, NetworkParameters networkParameters) throws Exception {
+        RLPList rlpList = (RLPList) RLP.decode2(record).get(0);
+        JournalRecordType type = JournalRecordType.fromCode(rlpList.get(0).getRLPData()[0]);
+        Sha256Hash key = Sha256Hash.wrap(rlpList.get(1).getRLPData());
+        byte[] payload = rlpList.get(2).getRLPData();
+
+        switch (type) {
+            case PUT_TRANSACTION_PROOFS:
+                data.getTransactionProofs().put(key, Proof.deserializeProofList(payload, networkParameters));
+                break;
+            case REMOVE_TRANSACTION_PROOFS:
+                data.getTransactionProofs().remove(key);
+                break;
+            case PUT_COINBASE_INFORMATION:
+                data.getCoinbaseInformationMap().put(key, CoinbaseInformation.fromRlp(payload, networkParameters));
+                break;
+            case REMOVE_COINBASE_INFORMATION:
+                data.getCoinbaseInformationMap().remove(key);
+                break;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private enum JournalRecordType {
+        PUT_TRANSACTION_PROOFS((byte) 1),
+        REMOVE_TRANSACTION_PROOFS((byte) 2),
+        PUT_COINBASE_INFORMATION((byte) 3),
+        REMOVE_COINBASE_INFORMATION((byte) 4);
+
+        private final byte code;
+
+        JournalRecordType(byte code) {
+            this.code = code;
+        }
+
+        static JournalRecordType fromCode(byte code) {
+            return Arrays.stream(values())
+                .filter(type -> type.code == code)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown journal record type " + code));
+        }
+    }
+
+    /**
+     * Records to be appended by a single write, together with the changes to apply
+     * to the persisted state once the append succeeds.
+     */
+    private static class JournalBatch {
+        private final ByteArrayOutputStream encodedRecords = new ByteArrayOutputStream();
+        private final List<Runnable> persistedChanges = new ArrayList<>();
+
+        void addRecord(JournalRecordType type, Sha256Hash key, byte[] payload, Runnable persistedChange) {
+            byte[] record = RLP.encodeList(
+                RLP.encodeElement(new byte[]{ type.code }),
+                RLP.encodeElement(key.getBytes()),
+                RLP.encodeElement(payload)
+            );
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            header.putInt(record.length);
+            header.putInt(checksum(record));
+
+            encodedRecords.writeBytes(header.array());
+            encodedRecords.writeBytes(record);
+            persistedChanges.add(persistedChange);
+        }
+
+        boolean isEmpty() {
+            return persistedChanges.isEmpty();
+        }
+
+        int getRecordsCount() {
+            return persistedChanges.size();
+        }
+
+        byte[] getEncodedRecords() {
+            return encodedRecords.toByteArray();
+        }
+
+        void applyPersistedChanges() {
+            persistedChanges.forEach(Runnable::run);
+        }
+    }
+}
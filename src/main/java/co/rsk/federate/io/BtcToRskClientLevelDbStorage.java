@@ -0,0 +1,200 @@
+package co.rsk.federate.io;
+
+import co.rsk.federate.CoinbaseInformation;
+import co.rsk.federate.Proof;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.fusesource.leveldbjni.JniDBFactory;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBException;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Storage that keeps the proofs of every tracked transaction and the coinbase information
+ * in a LevelDB database, keyed by wtxid and block hash respectively.
+ * Only the keys are kept in memory, the values are read from the database when needed.
+ * On the first start, the content of the RLP encoded file used by {@link BtcToRskClientFileStorageImpl}
+ * is imported into the database. The file is left untouched.
+ */
+public class BtcToRskClientLevelDbStorage implements BtcToRskClientFileStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(BtcToRskClientLevelDbStorage.class);
+
+    private static final String RLP_FILE_EXTENSION = ".rlp";
+    private static final String DATABASE_SUFFIX = "-db";
+    private static final byte METADATA_KEY_PREFIX = 0;
+    private static final byte TRANSACTION_PROOFS_KEY_PREFIX = 1;
+    private static final byte COINBASE_INFORMATION_KEY_PREFIX = 2;
+    private static final byte[] FILE_IMPORTED_KEY = { METADATA_KEY_PREFIX, 1 };
+    private static final int DATA_KEY_LENGTH = Sha256Hash.LENGTH + 1;
+
+    private final FileStorageInfo storageInfo;
+    private final File databaseDirectory;
+    private final Object lock = new Object();
+
+    private DB db;
+    private LevelDbBackedMap<List<Proof>> transactionProofs;
+    private LevelDbBackedMap<CoinbaseInformation> coinbaseInformation;
+
+    public BtcToRskClientLevelDbStorage(FileStorageInfo storageInfo) {
+        this.storageInfo = storageInfo;
+        String filePath = storageInfo.getFilePath();
+        if (filePath.endsWith(RLP_FILE_EXTENSION)) {
+            filePath = filePath.substring(0, filePath.length() - RLP_FILE_EXTENSION.length());
+        }
+        this.databaseDirectory = new File(filePath + DATABASE_SUFFIX);
+    }
+
+    @Override
+    public FileStorageInfo getInfo() {
+        return this.storageInfo;
+    }
+
+    @Override
+    public BtcToRskClientFileReadResult read(NetworkParameters networkParameters) throws IOException {
+        synchronized (lock) {
+            openDatabase();
+            transactionProofs = new LevelDbBackedMap<>(
+                db,
+                lock,
+                TRANSACTION_PROOFS_KEY_PREFIX,
+                Proof::serializeProofList,
+                encodedProofs -> Proof.deserializeProofList(encodedProofs, networkParameters)
+            );
+            coinbaseInformation = new LevelDbBackedMap<>(
+                db,
+                lock,
+                COINBASE_INFORMATION_KEY_PREFIX,
+                CoinbaseInformation::serializeToRLP,
+                encodedCoinbase -> CoinbaseInformation.fromRlp(encodedCoinbase, networkParameters)
+            );
+
+            try {
+                if (db.get(FILE_IMPORTED_KEY) == null && !importFile(networkParameters)) {
+                    return new BtcToRskClientFileReadResult(Boolean.FALSE, null);
+                }
+                loadKeys();
+            } catch (DBException e) {
+                throw new IOException("Could not read from database " + databaseDirectory.getAbsolutePath(), e);
+            }
+
+            logger.info(
+                "[read] Loaded {} transactions and {} coinbase information entries from {}",
+                transactionProofs.size(),
+                coinbaseInformation.size(),
+                databaseDirectory
+            );
+            return new BtcToRskClientFileReadResult(Boolean.TRUE, new BtcToRskClientFileData(transactionProofs, coinbaseInformation));
+        }
+    }
+
+    @Override
+    public void write(BtcToRskClientFileData data) throws IOException {
+        if (data == null) {
+            throw new IOException("Data is null");
+        }
+
+        synchronized (lock) {
+            if (db == null) {
+                throw new IOException("Storage must be read before being written");
+            }
+            if (data.getTransactionProofs() != transactionProofs || data.getCoinbaseInformationMap() != coinbaseInformation) {
+                replaceContent(data);
+            }
+
+            try (WriteBatch batch = db.createWriteBatch()) {
+                LevelDbBackedMap.FlushedChanges<List<Proof>> flushedProofs = transactionProofs.flush(batch);
+                LevelDbBackedMap.FlushedChanges<CoinbaseInformation> flushedCoinbaseInformation = coinbaseInformation.flush(batch);
+                db.write(batch);
+                transactionProofs.onFlushed(flushedProofs);
+                coinbaseInformation.onFlushed(flushedCoinbaseInformation);
+            } catch (DBException e) {
+                throw new IOException("Could not write to database " + databaseDirectory.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (db != null) {
+                db.close();
+                db = null;
+            }
+        }
+    }
+
+    private void openDatabase() throws IOException {
+        if (db != null) {
+            return;
+        }
+        File directory = new File(storageInfo.getDirectoryPath());
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory.getAbsolutePath());
+        }
+        Options options = new Options();
+        options.createIfMissing(true);
+        db = JniDBFactory.factory.open(databaseDirectory, options);
+    }
+
+    private boolean importFile(NetworkParameters networkParameters) throws IOException {
+        BtcToRskClientFileReadResult fileReadResult = new BtcToRskClientFileStorageImpl(storageInfo).read(networkParameters);
+        if (!Boolean.TRUE.equals(fileReadResult.getSuccess())) {
+            logger.error("[importFile] Could not import {} into {}", storageInfo.getFilePath(), databaseDirectory);
+            return false;
+        }
+
+        BtcToRskClientFileData fileData = fileReadResult.getData();
+        try (WriteBatch batch = db.createWriteBatch()) {
+            fileData.getTransactionProofs().forEach((txHash, proofs) ->
+                batch.put(transactionProofs.toDbKey(txHash), Proof.serializeProofList(proofs))
+            );
+            fileData.getCoinbaseInformationMap().forEach((blockHash, coinbase) ->
+                batch.put(coinbaseInformation.toDbKey(blockHash), coinbase.serializeToRLP())
+            );
+            batch.put(FILE_IMPORTED_KEY, new byte[]{ 1 });
+            db.write(batch);
+        }
+
+        logger.info(
+            "[importFile] Imported {} transactions and {} coinbase information entries from {}",
+            fileData.getTransactionProofs().size(),
+            fileData.getCoinbaseInformationMap().size(),
+            storageInfo.getFilePath()
+        );
+        return true;
+    }
+
+    private void loadKeys() throws IOException {
+        try (DBIterator iterator = db.iterator()) {
+            for (iterator.seekToFirst(); iterator.hasNext(); iterator.next()) {
+                byte[] key = iterator.peekNext().getKey();
+                if (key.length != DATA_KEY_LENGTH) {
+                    continue;
+                }
+                Sha256Hash hash = Sha256Hash.wrap(Arrays.copyOfRange(key, 1, DATA_KEY_LENGTH));
+                if (key[0] == TRANSACTION_PROOFS_KEY_PREFIX) {
+                    transactionProofs.loadKey(hash);
+                } else if (key[0] == COINBASE_INFORMATION_KEY_PREFIX) {
+                    coinbaseInformation.loadKey(hash);
+                }
+            }
+        }
+    }
+
+    private void replaceContent(BtcToRskClientFileData data) {
+        // Only happens if the caller didn't keep the data read from this storage
+        List.copyOf(transactionProofs.keySet()).forEach(transactionProofs::remove);
+        List.copyOf(coinbaseInformation.keySet()).forEach(coinbaseInformation::remove);
+        data.getTransactionProofs().forEach(transactionProofs::put);
+        data.getCoinbaseInformationMap().forEach(coinbaseInformation::put);
+    }
+}
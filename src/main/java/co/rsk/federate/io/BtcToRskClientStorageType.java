@@ -0,0 +1,25 @@
+package co.rsk.federate.io;
+
+import java.util.Arrays;
+
+public enum BtcToRskClientStorageType {
+    // Rewrites the whole RLP encoded file on every change
+    FILE("file"),
+    // Appends every change to a journal that is periodically compacted into the RLP encoded file
+    JOURNAL("journal"),
+    // Keeps every entry in a LevelDB database, holding only the keys in memory
+    LEVELDB("leveldb");
+
+    private final String configName;
+
+    BtcToRskClientStorageType(String configName) {
+        this.configName = configName;
+    }
+
+    public static BtcToRskClientStorageType fromConfigName(String configName) {
+        return Arrays.stream(values())
+            .filter(type -> type.configName.equalsIgnoreCase(configName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown btc to rsk client storage type: " + configName));
+    }
+}
@@ -0,0 +1,30 @@
+package co.rsk.federate.io;
+
+import java.util.Arrays;
+
+/**
+ * Defines when the journal is flushed to the underlying device.
+ * Every write is always handed over to the operating system in a single append,
+ * this only determines how often an explicit fsync is requested.
+ */
+public enum JournalSyncPolicy {
+    // fsync after every write
+    ALWAYS("always"),
+    // fsync at most once per configured interval, grouping every write done in between
+    INTERVAL("interval"),
+    // let the operating system decide when to flush
+    NEVER("never");
+
+    private final String configName;
+
+    JournalSyncPolicy(String configName) {
+        this.configName = configName;
+    }
+
+    public static JournalSyncPolicy fromConfigName(String configName) {
+        return Arrays.stream(values())
+            .filter(policy -> policy.configName.equalsIgnoreCase(configName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown journal sync policy: " + configName));
+    }
+}
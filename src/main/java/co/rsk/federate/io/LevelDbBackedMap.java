@@ -0,0 +1,223 @@
+package co.rsk.federate.io;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.bitcoinj.core.Sha256Hash;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+
+/**
+ * Map whose values live in a LevelDB database under a key prefix.
+ * Only the keys are kept in memory, together with the values put and the keys removed since the last flush.
+ * Values are decoded from the database on every read, so changes made to a returned value
+ * are not persisted unless the value is put back into the map.
+ * Updates are made while holding the given lock, so a flush can't interleave with them.
+ */
+class LevelDbBackedMap<V> extends AbstractMap<Sha256Hash, V> {
+
+    private final DB db;
+    private final Object lock;
+    private final byte keyPrefix;
+    private final Function<V, byte[]> encoder;
+    private final ValueDecoder<V> decoder;
+
+    private final Set<Sha256Hash> keys = ConcurrentHashMap.newKeySet();
+    private final Map<Sha256Hash, V> pendingValues = new ConcurrentHashMap<>();
+    private final Set<Sha256Hash> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    LevelDbBackedMap(DB db, Object lock, byte keyPrefix, Function<V, byte[]> encoder, ValueDecoder<V> decoder) {
+        this.db = db;
+        this.lock = lock;
+        this.keyPrefix = keyPrefix;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Adds to the in memory index a key whose value is already stored in the database.
+     */
+    void loadKey(Sha256Hash key) {
+        keys.add(key);
+    }
+
+    /**
+     * Adds the values put and the keys removed since the last flush to the batch. Once the batch is
+     * written, {@link #onFlushed(FlushedChanges)} must be called with the returned changes.
+     * Both calls are expected to be made while holding the lock.
+     */
+    FlushedChanges<V> flush(WriteBatch batch) {
+        FlushedChanges<V> flushedChanges = new FlushedChanges<>(Map.copyOf(pendingValues), Set.copyOf(pendingDeletes));
+        flushedChanges.deletedKeys().forEach(key -> batch.delete(toDbKey(key)));
+        flushedChanges.values().forEach((key, value) -> batch.put(toDbKey(key), encoder.apply(value)));
+        return flushedChanges;
+    }
+
+    void onFlushed(FlushedChanges<V> flushedChanges) {
+        // Values put again while flushing are kept for the next flush
+        flushedChanges.values().forEach(pendingValues::remove);
+        pendingDeletes.removeAll(flushedChanges.deletedKeys());
+    }
+
+    byte[] toDbKey(Sha256Hash key) {
+        byte[] dbKey = new byte[Sha256Hash.LENGTH + 1];
+        dbKey[0] = keyPrefix;
+        System.arraycopy(key.getBytes(), 0, dbKey, 1, Sha256Hash.LENGTH);
+        return dbKey;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return keys.contains(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof Sha256Hash) || !keys.contains(key)) {
+            return null;
+        }
+
+        V pendingValue = pendingValues.get(key);
+        if (pendingValue != null) {
+            return pendingValue;
+        }
+
+        byte[] encodedValue = db.get(toDbKey((Sha256Hash) key));
+        if (encodedValue == null) {
+            return null;
+        }
+        try {
+            return decoder.decode(encodedValue);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not decode value stored for " + key, e);
+        }
+    }
+
+    /**
+     * The value is persisted on the next flush.
+     */
+    @Override
+    public V put(Sha256Hash key, V value) {
+        synchronized (lock) {
+            V previousValue = get(key);
+            keys.add(key);
+            pendingDeletes.remove(key);
+            pendingValues.put(key, value);
+            return previousValue;
+        }
+    }
+
+    /**
+     * The value is deleted from the database on the next flush.
+     */
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof Sha256Hash)) {
+            return null;
+        }
+
+        synchronized (lock) {
+            V previousValue = get(key);
+            if (!keys.remove(key)) {
+                return null;
+            }
+            pendingValues.remove(key);
+            pendingDeletes.add((Sha256Hash) key);
+            return previousValue;
+        }
+    }
+
+    @Override
+    public int size() {
+        return keys.size();
+    }
+
+    @Override
+    public Set<Entry<Sha256Hash, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Sha256Hash, V>> iterator() {
+                Iterator<Sha256Hash> keysIterator = keys.iterator();
+                return new Iterator<>() {
+                    private Sha256Hash currentKey;
+
+                    @Override
+                    public boolean hasNext() {
+                        return keysIterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<Sha256Hash, V> next() {
+                        currentKey = keysIterator.next();
+                        return new LazyEntry(currentKey);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (currentKey == null) {
+                            throw new IllegalStateException();
+                        }
+                        LevelDbBackedMap.this.remove(currentKey);
+                        currentKey = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+
+    private class LazyEntry implements Entry<Sha256Hash, V> {
+        private final Sha256Hash key;
+
+        LazyEntry(Sha256Hash key) {
+            this.key = key;
+        }
+
+        @Override
+        public Sha256Hash getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return get(key);
+        }
+
+        @Override
+        public V setValue(V value) {
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            return key.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            V value = getValue();
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+    }
+
+    record FlushedChanges<V>(Map<Sha256Hash, V> values, Set<Sha256Hash> deletedKeys) {
+    }
+
+    @FunctionalInterface
+    interface ValueDecoder<V> {
+        V decode(byte[] encodedValue) throws Exception;
+    }
+}
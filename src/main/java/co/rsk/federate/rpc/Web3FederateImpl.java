@@ -3,6 +3,9 @@ package co.rsk.federate.rpc;
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.NetworkStateExporter;
 import co.rsk.federate.BtcToRskClient;
+import co.rsk.federate.HeaderRelayMetrics;
+import co.rsk.federate.btcreleaseclient.BtcReleaseClient;
+import co.rsk.federate.btcreleaseclient.PegoutSigningMetrics;
 import co.rsk.logfilter.BlocksBloomStore;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.mine.MinerClient;
@@ -20,6 +23,8 @@ import co.rsk.rpc.modules.rsk.RskModule;
 import co.rsk.rpc.modules.trace.TraceModule;
 import co.rsk.rpc.modules.txpool.TxPoolModule;
 import co.rsk.scoring.PeerScoringManager;
+import java.util.HashMap;
+import java.util.Map;
 import org.ethereum.core.Blockchain;
 import org.ethereum.core.SignatureCache;
 import org.ethereum.db.BlockStore;
@@ -34,6 +39,7 @@ public class Web3FederateImpl extends Web3RskImpl {
 
     private final BtcToRskClient btcToRskClientActive;
     private final BtcToRskClient btcToRskClientRetiring;
+    private final BtcReleaseClient btcReleaseClient;
 
     public Web3FederateImpl(
             Ethereum eth,
@@ -51,6 +57,7 @@ public class Web3FederateImpl extends Web3RskImpl {
             RskModule rskModule,
             BtcToRskClient btcToRskClientActive,
             BtcToRskClient btcToRskClientRetiring,
+            BtcReleaseClient btcReleaseClient,
             ChannelManager channelManager,
             PeerScoringManager peerScoringManager,
             NetworkStateExporter networkStateExporter,
@@ -96,10 +103,38 @@ public class Web3FederateImpl extends Web3RskImpl {
         );
         this.btcToRskClientActive = btcToRskClientActive;
         this.btcToRskClientRetiring = btcToRskClientRetiring;
+        this.btcReleaseClient = btcReleaseClient;
     }
 
     public void fed_updateBridge() {
         btcToRskClientActive.updateBridge();
         btcToRskClientRetiring.updateBridge();
     }
+
+    public Map<String, Object> fed_headerRelayMetrics() {
+        HeaderRelayMetrics metrics = btcToRskClientActive.getHeaderRelayMetrics();
+        Map<String, Object> result = new HashMap<>();
+        result.put("batchesSentLastTurn", metrics.getBatchesSentLastTurn());
+        result.put("totalBatchesSent", metrics.getTotalBatchesSent());
+        result.put("catchingUp", metrics.isCatchingUp());
+        metrics.getLastCatchUpLatencyToTip().ifPresent(latency ->
+            result.put("lastCatchUpLatencyToTipInMillis", latency.toMillis())
+        );
+        return result;
+    }
+
+    public Map<String, Object> fed_pegoutSigningMetrics() {
+        PegoutSigningMetrics metrics = btcReleaseClient.getPegoutSigningMetrics();
+        Map<String, Object> result = new HashMap<>();
+        result.put("pegoutsSignedLastBlock", metrics.getPegoutsSignedLastBlock());
+        result.put("pegoutsLeftLastBlock", metrics.getPegoutsLeftLastBlock());
+        result.put("totalPegoutsSigned", metrics.getTotalPegoutsSigned());
+        metrics.getLastSigningDuration().ifPresent(duration ->
+            result.put("lastSigningDurationInMillis", duration.toMillis())
+        );
+        metrics.getLastSigningThroughput().ifPresent(throughput ->
+            result.put("lastSigningThroughputPerSecond", throughput)
+        );
+        return result;
+    }
 }
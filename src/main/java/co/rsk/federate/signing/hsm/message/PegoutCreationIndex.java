@@ -0,0 +1,416 @@
+package co.rsk.federate.signing.hsm.message;
+
+import co.rsk.bitcoinj.core.Coin;
+import co.rsk.bitcoinj.core.Sha256Hash;
+import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
+import co.rsk.peg.BridgeEvents;
+import co.rsk.peg.bitcoin.UtxoUtils;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.db.BlockStore;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.db.TransactionInfo;
+import org.ethereum.facade.Ethereum;
+import org.ethereum.listener.EthereumListenerAdapter;
+import org.ethereum.util.RLP;
+import org.ethereum.util.RLPList;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.PrecompiledContracts;
+import org.fusesource.leveldbjni.JniDBFactory;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBException;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the pegouts created by the Bridge, kept in a LevelDB database, so the information needed to sign
+ * a pegout can be read without scanning the receipt store.
+ * Every imported block is indexed, best chain or not, and the entries are keyed by pegout btc tx hash and
+ * rsk block hash, so whoever reads them must check that the block is still in the best chain.
+ * On start, the best chain blocks within the given depth that were not indexed yet are indexed in the background,
+ * and the entries of older blocks are dropped.
+ */
+public class PegoutCreationIndex {
+
+    public record PegoutCreation(
+        Keccak256 pegoutCreationRskTxHash,
+        Keccak256 blockHash,
+        long blockNumber,
+        int receiptIndex,
+        List<Coin> utxoOutpointValues
+    ) { }
+
+    private static final Logger logger = LoggerFactory.getLogger(PegoutCreationIndex.class);
+
+    private static final byte PEGOUT_CREATION_KEY_PREFIX = 1;
+    private static final byte INDEXED_BLOCK_KEY_PREFIX = 2;
+    private static final int PEGOUT_CREATION_KEY_LENGTH = 1 + Sha256Hash.LENGTH + Keccak256.HASH_LEN;
+    private static final int INDEXED_BLOCK_KEY_LENGTH = 1 + Keccak256.HASH_LEN;
+    // Entries out of the depth are dropped once this many more blocks have been indexed
+    private static final int PRUNE_INTERVAL = 1_000;
+
+    private final File databaseDirectory;
+    private final Ethereum ethereum;
+    private final BlockStore blockStore;
+    private final ReceiptStore receiptStore;
+    private final int depth;
+
+    private final Map<Sha256Hash, List<PegoutCreation>> pegoutCreations = new HashMap<>();
+    private final Map<Keccak256, Long> indexedBlocks = new HashMap<>();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PegoutCreationIndexRebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DB db;
+    private long lastPrunedBlockNumber;
+    private CompletableFuture<Void> rebuildTask = CompletableFuture.completedFuture(null);
+
+    public PegoutCreationIndex(
+        File databaseDirectory,
+        Ethereum ethereum,
+        BlockStore blockStore,
+        ReceiptStore receiptStore,
+        int depth
+    ) {
+        this.databaseDirectory = databaseDirectory;
+        this.ethereum = ethereum;
+        this.blockStore = blockStore;
+        this.receiptStore = receiptStore;
+        this.depth = depth;
+    }
+
+    /**
+     * Loads the index and starts indexing the imported blocks. The best chain blocks that were not indexed yet
+     * are indexed in the background, the pegouts they created are not found in the index until then.
+     */
+    public void start() throws IOException {
+        synchronized (this) {
+            openDatabase();
+            try {
+                load();
+            } catch (DBException e) {
+                throw new IOException("Could not read from database " + databaseDirectory.getAbsolutePath(), e);
+            }
+        }
+
+        // Registered before rebuilding, the blocks imported meanwhile are skipped by the rebuild once indexed
+        ethereum.addListener(new EthereumListenerAdapter() {
+            @Override
+            public void onBlock(Block block, List<TransactionReceipt> receipts) {
+                PegoutCreationIndex.this.onBlock(block, receipts);
+            }
+        });
+        rebuildTask = CompletableFuture.runAsync(this::rebuild, rebuildExecutor);
+    }
+
+    public synchronized void close() {
+        rebuildExecutor.shutdownNow();
+        if (db == null) {
+            return;
+        }
+        try {
+            db.close();
+        } catch (IOException e) {
+            logger.error("[close] Could not close database {}", databaseDirectory, e);
+        }
+        db = null;
+    }
+
+    CompletableFuture<Void> getRebuildTask() {
+        return rebuildTask;
+    }
+
+    public synchronized List<PegoutCreation> getPegoutCreations(Sha256Hash pegoutBtcTxHash) {
+        return List.copyOf(pegoutCreations.getOrDefault(pegoutBtcTxHash, List.of()));
+    }
+
+    synchronized void onBlock(Block block, List<TransactionReceipt> receipts) {
+        if (db == null) {
+            return;
+        }
+        try {
+            indexBlock(block, receipts);
+            long oldestBlockNumberToKeep = block.getNumber() - depth;
+            if (oldestBlockNumberToKeep - lastPrunedBlockNumber >= PRUNE_INTERVAL) {
+                prune(oldestBlockNumberToKeep);
+            }
+        } catch (DBException e) {
+            logger.error("[onBlock] Could not index pegouts created in block {}", block.getNumber(), e);
+        }
+    }
+
+    private void openDatabase() throws IOException {
+        if (db != null) {
+            return;
+        }
+        File directory = databaseDirectory.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory.getAbsolutePath());
+        }
+        Options options = new Options();
+        options.createIfMissing(true);
+        db = JniDBFactory.factory.open(databaseDirectory, options);
+    }
+
+    private void load() {
+        try (DBIterator iterator = db.iterator()) {
+            for (iterator.seekToFirst(); iterator.hasNext(); iterator.next()) {
+                Map.Entry<byte[], byte[]> entry = iterator.peekNext();
+                byte[] key = entry.getKey();
+                if (key.length == PEGOUT_CREATION_KEY_LENGTH && key[0] == PEGOUT_CREATION_KEY_PREFIX) {
+                    Sha256Hash pegoutBtcTxHash = Sha256Hash.wrap(Arrays.copyOfRange(key, 1, 1 + Sha256Hash.LENGTH));
+                    addPegoutCreation(pegoutBtcTxHash, deserializePegoutCreation(entry.getValue()));
+                } else if (key.length == INDEXED_BLOCK_KEY_LENGTH && key[0] == INDEXED_BLOCK_KEY_PREFIX) {
+                    indexedBlocks.put(new Keccak256(Arrays.copyOfRange(key, 1, INDEXED_BLOCK_KEY_LENGTH)), decodeLong(entry.getValue()));
+                }
+            }
+        } catch (IOException e) {
+            throw new DBException(e);
+        }
+    }
+
+    private void rebuild() {
+        Block bestBlock = blockStore.getBestBlock();
+        if (bestBlock == null) {
+            return;
+        }
+        long oldestBlockNumberToKeep = bestBlock.getNumber() - depth;
+
+        int blocksIndexed = 0;
+        try {
+            synchronized (this) {
+                if (db == null) {
+                    return;
+                }
+                prune(oldestBlockNumberToKeep);
+            }
+
+            // The lock is taken block by block, so the imported blocks are indexed while rebuilding
+            for (long blockNumber = Math.max(0, oldestBlockNumberToKeep); blockNumber <= bestBlock.getNumber(); blockNumber++) {
+                Block block = blockStore.getChainBlockByNumber(blockNumber);
+                if (block == null || isIndexed(block)) {
+                    continue;
+                }
+                Optional<List<TransactionReceipt>> receipts = getReceipts(block);
+                if (receipts.isEmpty()) {
+                    logger.warn("[rebuild] Receipts of block {} not found, its pegouts are not indexed", blockNumber);
+                    continue;
+                }
+                synchronized (this) {
+                    if (db == null) {
+                        return;
+                    }
+                    indexBlock(block, receipts.get());
+                }
+                blocksIndexed++;
+            }
+        } catch (DBException e) {
+            logger.error("[rebuild] Could not index the pegouts created in the best chain blocks", e);
+            return;
+        }
+
+        logger.info(
+            "[rebuild] Indexed {} blocks up to block {}. {} pegouts indexed",
+            blocksIndexed,
+            bestBlock.getNumber(),
+            getIndexedPegoutsCount()
+        );
+    }
+
+    private synchronized boolean isIndexed(Block block) {
+        return indexedBlocks.containsKey(block.getHash());
+    }
+
+    private synchronized int getIndexedPegoutsCount() {
+        return pegoutCreations.size();
+    }
+
+    private Optional<List<TransactionReceipt>> getReceipts(Block block) {
+        List<TransactionReceipt> receipts = new ArrayList<>();
+        for (Transaction transaction : block.getTransactionsList()) {
+            Optional<TransactionInfo> txInfo = receiptStore.get(transaction.getHash().getBytes(), block.getHash().getBytes());
+            if (txInfo.isEmpty()) {
+                return Optional.empty();
+            }
+            receipts.add(txInfo.get().getReceipt());
+        }
+        return Optional.of(receipts);
+    }
+
+    private void indexBlock(Block block, List<TransactionReceipt> receipts) {
+        if (indexedBlocks.containsKey(block.getHash())) {
+            return;
+        }
+        List<Transaction> transactions = block.getTransactionsList();
+        if (transactions.size() != receipts.size()) {
+            logger.warn("[indexBlock] Block {} has {} transactions but {} receipts", block.getNumber(), transactions.size(), receipts.size());
+            return;
+        }
+
+        Map<Sha256Hash, PegoutCreation> blockPegoutCreations = new HashMap<>();
+        for (int receiptIndex = 0; receiptIndex < receipts.size(); receiptIndex++) {
+            Keccak256 rskTxHash = transactions.get(receiptIndex).getHash();
+            blockPegoutCreations.putAll(getPegoutCreations(block, rskTxHash, receiptIndex, receipts.get(receiptIndex)));
+        }
+
+        try (WriteBatch batch = db.createWriteBatch()) {
+            blockPegoutCreations.forEach((pegoutBtcTxHash, pegoutCreation) ->
+                batch.put(toPegoutCreationKey(pegoutBtcTxHash, block.getHash()), serializePegoutCreation(pegoutCreation))
+            );
+            batch.put(toIndexedBlockKey(block.getHash()), BigInteger.valueOf(block.getNumber()).toByteArray());
+            db.write(batch);
+        } catch (IOException e) {
+            throw new DBException(e);
+        }
+
+        blockPegoutCreations.forEach(this::addPegoutCreation);
+        indexedBlocks.put(block.getHash(), block.getNumber());
+        if (!blockPegoutCreations.isEmpty()) {
+            logger.debug("[indexBlock] Indexed {} pegouts created in block {}", blockPegoutCreations.size(), block.getHash());
+        }
+    }
+
+    private Map<Sha256Hash, PegoutCreation> getPegoutCreations(
+        Block block,
+        Keccak256 rskTxHash,
+        int receiptIndex,
+        TransactionReceipt receipt
+    ) {
+        // Since RSKIP375, release_requested and pegout_transaction_created events
+        // are emitted in the same transaction where the pegout was created
+        List<Sha256Hash> requestedPegouts = new ArrayList<>();
+        Map<Sha256Hash, byte[]> createdPegouts = new HashMap<>();
+        for (LogInfo logInfo : receipt.getLogInfoList()) {
+            if (!isLogFromBridge(logInfo)) {
+                continue;
+            }
+            List<DataWord> topics = logInfo.getTopics();
+            if (isEvent(topics, 3, BridgeEvents.RELEASE_REQUESTED.getEvent().encodeSignatureLong()) &&
+                Arrays.equals(topics.get(1).getData(), rskTxHash.getBytes())) {
+                requestedPegouts.add(Sha256Hash.wrap(topics.get(2).getData()));
+            } else if (isEvent(topics, 2, BridgeEvents.PEGOUT_TRANSACTION_CREATED.getEvent().encodeSignatureLong())) {
+                byte[] encodedUtxoOutpointValues = (byte[]) BridgeEvents.PEGOUT_TRANSACTION_CREATED.getEvent()
+                    .decodeEventData(logInfo.getData())[0];
+                createdPegouts.put(Sha256Hash.wrap(topics.get(1).getData()), encodedUtxoOutpointValues);
+            }
+        }
+
+        Map<Sha256Hash, PegoutCreation> result = new HashMap<>();
+        for (Sha256Hash pegoutBtcTxHash : requestedPegouts) {
+            byte[] encodedUtxoOutpointValues = createdPegouts.get(pegoutBtcTxHash);
+            if (encodedUtxoOutpointValues != null) {
+                result.put(pegoutBtcTxHash, new PegoutCreation(
+                    rskTxHash,
+                    block.getHash(),
+                    block.getNumber(),
+                    receiptIndex,
+                    UtxoUtils.decodeOutpointValues(encodedUtxoOutpointValues)
+                ));
+            }
+        }
+        return result;
+    }
+
+    private void prune(long oldestBlockNumberToKeep) {
+        List<Keccak256> blocksToPrune = indexedBlocks.entrySet().stream()
+            .filter(indexedBlock -> indexedBlock.getValue() < oldestBlockNumberToKeep)
+            .map(Map.Entry::getKey)
+            .toList();
+        if (!blocksToPrune.isEmpty()) {
+            try (WriteBatch batch = db.createWriteBatch()) {
+                pegoutCreations.forEach((pegoutBtcTxHash, creations) -> creations.stream()
+                    .filter(pegoutCreation -> pegoutCreation.blockNumber() < oldestBlockNumberToKeep)
+                    .forEach(pegoutCreation -> batch.delete(toPegoutCreationKey(pegoutBtcTxHash, pegoutCreation.blockHash())))
+                );
+                blocksToPrune.forEach(blockHash -> batch.delete(toIndexedBlockKey(blockHash)));
+                db.write(batch);
+            } catch (IOException e) {
+                throw new DBException(e);
+            }
+
+            pegoutCreations.values().forEach(creations ->
+                creations.removeIf(pegoutCreation -> pegoutCreation.blockNumber() < oldestBlockNumberToKeep)
+            );
+            pegoutCreations.values().removeIf(List::isEmpty);
+            blocksToPrune.forEach(indexedBlocks::remove);
+            logger.debug("[prune] Dropped the pegouts indexed for {} blocks below block {}", blocksToPrune.size(), oldestBlockNumberToKeep);
+        }
+        lastPrunedBlockNumber = oldestBlockNumberToKeep;
+    }
+
+    private void addPegoutCreation(Sha256Hash pegoutBtcTxHash, PegoutCreation pegoutCreation) {
+        pegoutCreations.computeIfAbsent(pegoutBtcTxHash, hash -> new ArrayList<>()).add(pegoutCreation);
+    }
+
+    private static boolean isLogFromBridge(LogInfo logInfo) {
+        return new RskAddress(logInfo.getAddress()).equals(PrecompiledContracts.BRIDGE_ADDR);
+    }
+
+    private static boolean isEvent(List<DataWord> topics, int expectedTopicsSize, byte[] eventSignature) {
+        return topics.size() == expectedTopicsSize && Arrays.equals(topics.get(0).getData(), eventSignature);
+    }
+
+    private static byte[] toPegoutCreationKey(Sha256Hash pegoutBtcTxHash, Keccak256 blockHash) {
+        byte[] key = new byte[PEGOUT_CREATION_KEY_LENGTH];
+        key[0] = PEGOUT_CREATION_KEY_PREFIX;
+        System.arraycopy(pegoutBtcTxHash.getBytes(), 0, key, 1, Sha256Hash.LENGTH);
+        System.arraycopy(blockHash.getBytes(), 0, key, 1 + Sha256Hash.LENGTH, Keccak256.HASH_LEN);
+        return key;
+    }
+
+    private static byte[] toIndexedBlockKey(Keccak256 blockHash) {
+        byte[] key = new byte[INDEXED_BLOCK_KEY_LENGTH];
+        key[0] = INDEXED_BLOCK_KEY_PREFIX;
+        System.arraycopy(blockHash.getBytes(), 0, key, 1, Keccak256.HASH_LEN);
+        return key;
+    }
+
+    static byte[] serializePegoutCreation(PegoutCreation pegoutCreation) {
+        return RLP.encodeList(
+            RLP.encodeElement(pegoutCreation.pegoutCreationRskTxHash().getBytes()),
+            RLP.encodeElement(pegoutCreation.blockHash().getBytes()),
+            RLP.encodeBigInteger(BigInteger.valueOf(pegoutCreation.blockNumber())),
+            RLP.encodeBigInteger(BigInteger.valueOf(pegoutCreation.receiptIndex())),
+            RLP.encodeElement(UtxoUtils.encodeOutpointValues(pegoutCreation.utxoOutpointValues()))
+        );
+    }
+
+    static PegoutCreation deserializePegoutCreation(byte[] serializedPegoutCreation) {
+        RLPList rlpList = (RLPList) RLP.decode2(serializedPegoutCreation).get(0);
+        return new PegoutCreation(
+            new Keccak256(rlpList.get(0).getRLPData()),
+            new Keccak256(rlpList.get(1).getRLPData()),
+            decodeLong(rlpList.get(2).getRLPData()),
+            (int) decodeLong(rlpList.get(3).getRLPData()),
+            UtxoUtils.decodeOutpointValues(rlpList.get(4).getRLPData())
+        );
+    }
+
+    private static long decodeLong(byte[] encodedValue) {
+        if (encodedValue == null || encodedValue.length == 0) {
+            return 0;
+        }
+        return new BigInteger(1, encodedValue).longValue();
+    }
+}
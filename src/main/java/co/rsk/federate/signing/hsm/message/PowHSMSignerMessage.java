@@ -28,13 +28,10 @@ import co.rsk.bitcoinj.core.BtcTransaction;
 import co.rsk.bitcoinj.core.Coin;
 import co.rsk.bitcoinj.core.Sha256Hash;
 import co.rsk.bitcoinj.core.TransactionWitness;
-import co.rsk.peg.bitcoin.BitcoinUtils;
 import co.rsk.trie.Trie;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -45,12 +42,10 @@ public class PowHSMSignerMessage extends SignerMessage {
 
     private static final String SIGHASH_LEGACY_MODE = "legacy";
     private static final String SIGHASH_SEGWIT_MODE = "segwit";
+    private final PowHSMSignerMessageEnvelope envelope;
     private final BtcTransaction btcTransaction;
     private final int inputIndex;
-    private final TransactionReceipt txReceipt;
-    private final List<Trie> receiptMerkleProof;
     private final Sha256Hash sigHash;
-    private final List<Coin> outpointValues;
 
     public PowHSMSignerMessage(
         BtcTransaction btcTransaction,
@@ -60,12 +55,14 @@ public class PowHSMSignerMessage extends SignerMessage {
         Sha256Hash sigHash,
         List<Coin> outpointValues
     ) {
-        this.btcTransaction = btcTransaction;
+        this(new PowHSMSignerMessageEnvelope(btcTransaction, txReceipt, receiptMerkleProof, outpointValues), index, sigHash);
+    }
+
+    public PowHSMSignerMessage(PowHSMSignerMessageEnvelope envelope, int index, Sha256Hash sigHash) {
+        this.envelope = envelope;
+        this.btcTransaction = envelope.getBtcTransaction();
         this.inputIndex = index;
-        this.txReceipt = txReceipt;
-        this.receiptMerkleProof = Collections.unmodifiableList(receiptMerkleProof);
         this.sigHash = sigHash;
-        this.outpointValues = Collections.unmodifiableList(outpointValues);
     }
 
     @Override
@@ -78,15 +75,11 @@ public class PowHSMSignerMessage extends SignerMessage {
     }
 
     public String getTransactionReceipt() {
-        return Hex.toHexString(txReceipt.getEncoded());
+        return envelope.getEncodedTxReceipt();
     }
 
     public String[] getReceiptMerkleProof() {
-        String[] encodedReceipts = new String[receiptMerkleProof.size()];
-        for (int i = 0; i < encodedReceipts.length; i++) {
-            encodedReceipts[i] = Hex.toHexString(receiptMerkleProof.get(i).toMessage());
-        }
-        return encodedReceipts;
+        return envelope.getEncodedReceiptMerkleProof();
     }
 
     public Sha256Hash getSigHash() {
@@ -95,10 +88,7 @@ public class PowHSMSignerMessage extends SignerMessage {
 
     public JsonNode getMessageToSign() {
         ObjectNode messageToSend = new ObjectMapper().createObjectNode();
-        // The hsm expects the transaction without any witness data
-        BtcTransaction txWithoutWitness = BitcoinUtils.getTransactionWithoutWitness(btcTransaction);
-        byte[] serializedTx = txWithoutWitness.bitcoinSerialize();
-        messageToSend.put(TX.getFieldName(), Hex.toHexString(serializedTx));
+        messageToSend.put(TX.getFieldName(), envelope.getEncodedTxWithoutWitness());
         messageToSend.put(INPUT.getFieldName(), inputIndex);
         if (hasWitness()) {
             populateWithSegwitValues(messageToSend);
@@ -124,7 +114,7 @@ public class PowHSMSignerMessage extends SignerMessage {
     }
 
     private long getOutpointValueForInputIndex() {
-        return Optional.of(outpointValues)
+        return Optional.of(envelope.getOutpointValues())
             .filter(values -> inputIndex >= 0 && inputIndex < values.size())
             .map(values -> values.get(inputIndex))
             .map(Coin::getValue)
@@ -147,15 +137,13 @@ public class PowHSMSignerMessage extends SignerMessage {
         }
 
         PowHSMSignerMessage message = (PowHSMSignerMessage) o;
-        return this.btcTransaction.equals(message.btcTransaction) &&
-            this.inputIndex == message.inputIndex &&
-            Arrays.equals(this.txReceipt.getEncoded(), message.txReceipt.getEncoded()) &&
-            this.receiptMerkleProof.equals(message.receiptMerkleProof) &&
+        return this.inputIndex == message.inputIndex &&
+            this.envelope.hasSameContentAs(message.envelope) &&
             this.sigHash.equals(message.sigHash);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(btcTransaction, inputIndex, txReceipt, receiptMerkleProof);
+        return Objects.hash(btcTransaction, inputIndex, envelope.getTxReceipt(), envelope.getReceiptMerkleProof());
     }
 }
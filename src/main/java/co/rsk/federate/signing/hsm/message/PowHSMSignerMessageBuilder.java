@@ -1,7 +1,6 @@
 package co.rsk.federate.signing.hsm.message;
 
 import co.rsk.bitcoinj.core.Sha256Hash;
-import co.rsk.core.bc.BlockHashesHelper;
 import co.rsk.core.bc.BlockHashesHelperException;
 import co.rsk.federate.signing.SigHashCalculator;
 import co.rsk.trie.Trie;
@@ -12,34 +11,44 @@ import org.slf4j.LoggerFactory;
 
 public class PowHSMSignerMessageBuilder extends SignerMessageBuilder {
     private static final Logger logger = LoggerFactory.getLogger(PowHSMSignerMessageBuilder.class);
-    private final ReceiptStore receiptStore;
+    private final ReceiptsTrieCache receiptsTrieCache;
     private final ReleaseCreationInformation releaseCreationInformation;
 
-    private List<Trie> receiptMerkleProof;
-    private boolean envelopeCreated;
+    private PowHSMSignerMessageEnvelope envelope;
 
     public PowHSMSignerMessageBuilder(
         ReceiptStore receiptStore,
         ReleaseCreationInformation releaseCreationInformation,
         SigHashCalculator sigHashCalculator
+    ) {
+        this(new ReceiptsTrieCache(receiptStore), releaseCreationInformation, sigHashCalculator);
+    }
+
+    PowHSMSignerMessageBuilder(
+        ReceiptsTrieCache receiptsTrieCache,
+        ReleaseCreationInformation releaseCreationInformation,
+        SigHashCalculator sigHashCalculator
     ) {
         super(releaseCreationInformation.getPegoutBtcTx(), sigHashCalculator);
-        this.receiptStore = receiptStore;
+        this.receiptsTrieCache = receiptsTrieCache;
         this.releaseCreationInformation = releaseCreationInformation;
-        this.envelopeCreated = false;
     }
 
     private void buildMessageEnvelope() throws BlockHashesHelperException {
-        if (envelopeCreated) {
+        if (envelope != null) {
             return;
         }
 
-        receiptMerkleProof = BlockHashesHelper.calculateReceiptsTrieRootFor(
+        List<Trie> receiptMerkleProof = receiptsTrieCache.getReceiptMerkleProof(
             releaseCreationInformation.getPegoutCreationBlock(),
-            receiptStore,
             releaseCreationInformation.getPegoutCreationRskTxHash()
         );
-        envelopeCreated = true;
+        envelope = new PowHSMSignerMessageEnvelope(
+            unsignedBtcTx,
+            releaseCreationInformation.getTransactionReceipt(),
+            receiptMerkleProof,
+            releaseCreationInformation.getUtxoOutpointValues()
+        );
     }
 
     public SignerMessage buildMessageForIndex(int inputIndex) throws SignerMessageBuilderException {
@@ -52,13 +61,6 @@ public class PowHSMSignerMessageBuilder extends SignerMessageBuilder {
 
         Sha256Hash sigHash = sigHashCalculator.calculate(unsignedBtcTx, inputIndex);
 
-        return new PowHSMSignerMessage(
-            unsignedBtcTx,
-            inputIndex,
-            releaseCreationInformation.getTransactionReceipt(),
-            receiptMerkleProof,
-            sigHash,
-            releaseCreationInformation.getUtxoOutpointValues()
-        );
+        return new PowHSMSignerMessage(envelope, inputIndex, sigHash);
     }
 }
@@ -0,0 +1,85 @@
+package co.rsk.federate.signing.hsm.message;
+
+import co.rsk.bitcoinj.core.BtcTransaction;
+import co.rsk.bitcoinj.core.Coin;
+import co.rsk.peg.bitcoin.BitcoinUtils;
+import co.rsk.trie.Trie;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.ethereum.core.TransactionReceipt;
+import org.spongycastle.util.encoders.Hex;
+
+/**
+ * The part of the messages sent to the powHSM that is the same for every input of a pegout: the pegout
+ * without witness data, the receipt of the rsk tx that created it and the receipt merkle proof.
+ * It is encoded once per pegout and shared by the messages of all its inputs.
+ */
+public class PowHSMSignerMessageEnvelope {
+
+    private final BtcTransaction btcTransaction;
+    private final TransactionReceipt txReceipt;
+    private final List<Trie> receiptMerkleProof;
+    private final List<Coin> outpointValues;
+
+    private final String encodedTxWithoutWitness;
+    private final byte[] serializedTxReceipt;
+    private final String encodedTxReceipt;
+    private final String[] encodedReceiptMerkleProof;
+
+    public PowHSMSignerMessageEnvelope(
+        BtcTransaction btcTransaction,
+        TransactionReceipt txReceipt,
+        List<Trie> receiptMerkleProof,
+        List<Coin> outpointValues
+    ) {
+        this.btcTransaction = btcTransaction;
+        this.txReceipt = txReceipt;
+        this.receiptMerkleProof = Collections.unmodifiableList(receiptMerkleProof);
+        this.outpointValues = Collections.unmodifiableList(outpointValues);
+
+        // The hsm expects the transaction without any witness data
+        BtcTransaction txWithoutWitness = BitcoinUtils.getTransactionWithoutWitness(btcTransaction);
+        this.encodedTxWithoutWitness = Hex.toHexString(txWithoutWitness.bitcoinSerialize());
+        this.serializedTxReceipt = txReceipt.getEncoded();
+        this.encodedTxReceipt = Hex.toHexString(serializedTxReceipt);
+        this.encodedReceiptMerkleProof = new String[receiptMerkleProof.size()];
+        for (int i = 0; i < encodedReceiptMerkleProof.length; i++) {
+            encodedReceiptMerkleProof[i] = Hex.toHexString(receiptMerkleProof.get(i).toMessage());
+        }
+    }
+
+    public BtcTransaction getBtcTransaction() {
+        return btcTransaction;
+    }
+
+    public TransactionReceipt getTxReceipt() {
+        return txReceipt;
+    }
+
+    public List<Trie> getReceiptMerkleProof() {
+        return receiptMerkleProof;
+    }
+
+    public List<Coin> getOutpointValues() {
+        return outpointValues;
+    }
+
+    public String getEncodedTxWithoutWitness() {
+        return encodedTxWithoutWitness;
+    }
+
+    public String getEncodedTxReceipt() {
+        return encodedTxReceipt;
+    }
+
+    public String[] getEncodedReceiptMerkleProof() {
+        return Arrays.copyOf(encodedReceiptMerkleProof, encodedReceiptMerkleProof.length);
+    }
+
+    boolean hasSameContentAs(PowHSMSignerMessageEnvelope other) {
+        return this.btcTransaction.equals(other.btcTransaction) &&
+            Arrays.equals(this.serializedTxReceipt, other.serializedTxReceipt) &&
+            this.receiptMerkleProof.equals(other.receiptMerkleProof);
+    }
+}
@@ -0,0 +1,115 @@
+package co.rsk.federate.signing.hsm.message;
+
+import co.rsk.core.bc.BlockHashesHelper;
+import co.rsk.core.bc.BlockHashesHelperException;
+import co.rsk.crypto.Keccak256;
+import co.rsk.trie.Trie;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.db.TransactionInfo;
+import org.ethereum.util.RLP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receipts tries of the blocks where pegouts were created, keyed by block hash, so the receipt merkle proofs
+ * of several pegouts created in the same block, or of a pegout signed again, do not rebuild the whole trie.
+ * A trie is only kept when its hash matches the receipts root of the block, and all of them are dropped
+ * when the best chain is reorganized.
+ */
+class ReceiptsTrieCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptsTrieCache.class);
+    private static final int MAXIMUM_SIZE = 100;
+
+    private final ReceiptStore receiptStore;
+    private final Cache<Keccak256, Trie> receiptsTries = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .recordStats()
+        .build();
+
+    private Keccak256 bestBlockHash;
+
+    ReceiptsTrieCache(ReceiptStore receiptStore) {
+        this.receiptStore = receiptStore;
+    }
+
+    List<Trie> getReceiptMerkleProof(Block block, Keccak256 txHash) throws BlockHashesHelperException {
+        List<Transaction> transactions = block.getTransactionsList();
+        int txIndex = getTransactionIndex(transactions, txHash);
+        if (txIndex < 0) {
+            throw new BlockHashesHelperException(
+                String.format("Transaction %s is not included in block %s", txHash, block.getHash())
+            );
+        }
+
+        Trie receiptsTrie = receiptsTries.getIfPresent(block.getHash());
+        if (receiptsTrie == null) {
+            receiptsTrie = buildReceiptsTrie(block, transactions);
+            if (Arrays.equals(receiptsTrie.getHash().getBytes(), block.getReceiptsRoot())) {
+                receiptsTries.put(block.getHash(), receiptsTrie);
+            } else {
+                logger.debug("[getReceiptMerkleProof] Receipts trie of block {} does not match its receipts root, not caching it", block.getHash());
+            }
+        }
+
+        return receiptsTrie.getNodes(RLP.encodeInt(txIndex));
+    }
+
+    synchronized void onBestBlock(Block bestBlock) {
+        if (Objects.equals(bestBlock.getHash(), bestBlockHash)) {
+            return;
+        }
+        boolean isReorganization = bestBlockHash != null && !bestBlockHash.equals(bestBlock.getParentHash());
+        bestBlockHash = bestBlock.getHash();
+        if (!isReorganization) {
+            return;
+        }
+
+        CacheStats stats = receiptsTries.stats();
+        logger.debug(
+            "[onBestBlock] Best chain reorganized at block {}, dropping {} receipts tries. Hits: {}, misses: {}",
+            bestBlock.getNumber(),
+            receiptsTries.size(),
+            stats.hitCount(),
+            stats.missCount()
+        );
+        receiptsTries.invalidateAll();
+    }
+
+    long size() {
+        return receiptsTries.size();
+    }
+
+    private Trie buildReceiptsTrie(Block block, List<Transaction> transactions) throws BlockHashesHelperException {
+        byte[] blockHash = block.getHash().getBytes();
+        List<TransactionReceipt> receipts = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            TransactionInfo txInfo = receiptStore.get(transaction.getHash().getBytes(), blockHash)
+                .orElseThrow(() -> new BlockHashesHelperException(
+                    String.format("Missing receipt for transaction %s in block %s", transaction.getHash(), block.getHash())
+                ));
+            txInfo.setTransaction(transaction);
+            receipts.add(txInfo.getReceipt());
+        }
+        return BlockHashesHelper.calculateReceiptsTrieRootFor(receipts);
+    }
+
+    private static int getTransactionIndex(List<Transaction> transactions, Keccak256 txHash) {
+        for (int index = 0; index < transactions.size(); index++) {
+            if (transactions.get(index).getHash().equals(txHash)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
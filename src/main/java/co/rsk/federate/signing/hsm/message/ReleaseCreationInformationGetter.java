@@ -2,10 +2,13 @@ package co.rsk.federate.signing.hsm.message;
 
 import co.rsk.bitcoinj.core.BtcTransaction;
 import co.rsk.bitcoinj.core.Coin;
+import co.rsk.bitcoinj.core.Sha256Hash;
 import co.rsk.core.RskAddress;
 import co.rsk.crypto.Keccak256;
 import co.rsk.peg.BridgeEvents;
 import co.rsk.peg.bitcoin.UtxoUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.ethereum.core.*;
 import org.ethereum.db.*;
 import org.ethereum.vm.DataWord;
@@ -26,22 +29,115 @@ public class ReleaseCreationInformationGetter {
     ) {
     }
 
+    private record ReleaseCreationKey(Keccak256 pegoutCreationRskTxHash, Sha256Hash pegoutBtcTxHash) { }
+
     private static final Logger logger = LoggerFactory.getLogger(ReleaseCreationInformationGetter.class);
+    private static final int MAXIMUM_CACHED_RELEASES = 1_000;
 
     private final BlockStore blockStore;
     private final ReceiptStore receiptStore;
+    private final PegoutCreationIndex pegoutCreationIndex;
+    // The information of the pegouts waiting for signatures is looked up on every best block, and it only
+    // changes when the block where the pegout was created is no longer in the best chain
+    private final Cache<ReleaseCreationKey, ReleaseCreationInformation> releasesCreationInformation = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_CACHED_RELEASES)
+        .build();
 
     public ReleaseCreationInformationGetter(
         ReceiptStore receiptStore,
         BlockStore blockStore
+    ) {
+        this(receiptStore, blockStore, null);
+    }
+
+    public ReleaseCreationInformationGetter(
+        ReceiptStore receiptStore,
+        BlockStore blockStore,
+        PegoutCreationIndex pegoutCreationIndex
     ) {
         this.blockStore = blockStore;
         this.receiptStore = receiptStore;
+        this.pegoutCreationIndex = pegoutCreationIndex;
     }
 
     public ReleaseCreationInformation getTxInfoToSign(
         Keccak256 pegoutCreationRskTxHash,
         BtcTransaction pegoutBtcTx
+    ) throws HSMReleaseCreationInformationException {
+        ReleaseCreationKey key = new ReleaseCreationKey(pegoutCreationRskTxHash, pegoutBtcTx.getHash());
+        ReleaseCreationInformation cachedReleaseCreationInformation = releasesCreationInformation.getIfPresent(key);
+        if (cachedReleaseCreationInformation != null) {
+            if (isInMainChain(cachedReleaseCreationInformation.getPegoutCreationBlock())) {
+                logger.trace("[getTxInfoToSign] Release creation information of rsk transaction {} found in cache", pegoutCreationRskTxHash);
+                return new ReleaseCreationInformation(
+                    cachedReleaseCreationInformation.getPegoutCreationBlock(),
+                    cachedReleaseCreationInformation.getTransactionReceipt(),
+                    pegoutCreationRskTxHash,
+                    pegoutBtcTx,
+                    cachedReleaseCreationInformation.getUtxoOutpointValues()
+                );
+            }
+            logger.debug(
+                "[getTxInfoToSign] Block {} where rsk transaction {} was included is no longer in the best chain",
+                cachedReleaseCreationInformation.getPegoutCreationBlock().getHash(),
+                pegoutCreationRskTxHash
+            );
+            releasesCreationInformation.invalidate(key);
+        }
+
+        Optional<ReleaseCreationInformation> indexedReleaseCreationInformation = getIndexedTxInfoToSign(pegoutCreationRskTxHash, pegoutBtcTx);
+        ReleaseCreationInformation releaseCreationInformation = indexedReleaseCreationInformation.isPresent() ?
+            indexedReleaseCreationInformation.get() :
+            lookupTxInfoToSign(pegoutCreationRskTxHash, pegoutBtcTx);
+        if (releaseCreationInformation.getPegoutCreationBlock() != null) {
+            releasesCreationInformation.put(key, releaseCreationInformation);
+        }
+        return releaseCreationInformation;
+    }
+
+    private boolean isInMainChain(Block block) {
+        Block mainChainBlock = blockStore.getChainBlockByNumber(block.getNumber());
+        return mainChainBlock != null && mainChainBlock.getHash().equals(block.getHash());
+    }
+
+    private Optional<ReleaseCreationInformation> getIndexedTxInfoToSign(
+        Keccak256 pegoutCreationRskTxHash,
+        BtcTransaction pegoutBtcTx
+    ) {
+        if (pegoutCreationIndex == null) {
+            return Optional.empty();
+        }
+
+        for (PegoutCreationIndex.PegoutCreation pegoutCreation : pegoutCreationIndex.getPegoutCreations(pegoutBtcTx.getHash())) {
+            if (!pegoutCreation.pegoutCreationRskTxHash().equals(pegoutCreationRskTxHash)) {
+                continue;
+            }
+            Block pegoutCreationRskBlock = blockStore.getChainBlockByNumber(pegoutCreation.blockNumber());
+            if (pegoutCreationRskBlock == null || !pegoutCreationRskBlock.getHash().equals(pegoutCreation.blockHash())) {
+                continue;
+            }
+            Optional<TransactionInfo> pegoutCreationRskTxInfo = receiptStore
+                .get(pegoutCreationRskTxHash.getBytes(), pegoutCreation.blockHash().getBytes())
+                .filter(txInfo -> txInfo.getIndex() == pegoutCreation.receiptIndex());
+            if (pegoutCreationRskTxInfo.isEmpty()) {
+                continue;
+            }
+
+            logger.trace("[getTxInfoToSign] Rsk transaction {} found in the pegout creation index", pegoutCreationRskTxHash);
+            return Optional.of(new ReleaseCreationInformation(
+                pegoutCreationRskBlock,
+                pegoutCreationRskTxInfo.get().getReceipt(),
+                pegoutCreationRskTxHash,
+                pegoutBtcTx,
+                pegoutCreation.utxoOutpointValues()
+            ));
+        }
+        return Optional.empty();
+    }
+
+    private ReleaseCreationInformation lookupTxInfoToSign(
+        Keccak256 pegoutCreationRskTxHash,
+        BtcTransaction pegoutBtcTx
     ) throws HSMReleaseCreationInformationException {
         logger.debug("[getTxInfoToSign] Going to lookup rsk transaction {} to get pegout to sign", pegoutCreationRskTxHash);
 
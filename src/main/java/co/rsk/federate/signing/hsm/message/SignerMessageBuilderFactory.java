@@ -7,60 +7,52 @@ import co.rsk.federate.signing.SegwitSigHashCalculatorImpl;
 import co.rsk.federate.signing.SigHashCalculator;
 import co.rsk.federate.signing.hsm.HSMVersion;
 import co.rsk.federate.signing.hsm.HSMUnsupportedVersionException;
+import org.ethereum.core.Block;
 import org.ethereum.db.ReceiptStore;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
 import static co.rsk.peg.bitcoin.BitcoinUtils.inputHasWitness;
 
 public class SignerMessageBuilderFactory {
-    private static final Logger logger = LoggerFactory.getLogger(SignerMessageBuilderFactory.class);
-
-    private final ReceiptStore receiptStore;
+    private final ReceiptsTrieCache receiptsTrieCache;
 
     public SignerMessageBuilderFactory(ReceiptStore receiptStore) {
-        this.receiptStore = receiptStore;
+        this.receiptsTrieCache = new ReceiptsTrieCache(receiptStore);
+    }
+
+    /**
+     * To be called on every new best block, so the receipts tries kept for the
+     * powHSM messages are dropped when the best chain is reorganized
+     */
+    public void onBestBlock(Block bestBlock) {
+        receiptsTrieCache.onBestBlock(bestBlock);
     }
 
+    /**
+     * Builds a message builder for every input of the pegout, so whatever is common to all of
+     * them is only computed once. The sig hash is calculated according to each input type.
+     */
     public SignerMessageBuilder buildFromConfig(
         int signerVersion,
-        ReleaseCreationInformation releaseCreationInformation,
-        int inputIndex
+        ReleaseCreationInformation releaseCreationInformation
     ) throws HSMUnsupportedVersionException {
         HSMVersion hsmVersion = HSMVersion.fromNumber(signerVersion);
+        BtcTransaction releaseTx = releaseCreationInformation.getPegoutBtcTx();
+        SigHashCalculator sigHashCalculator = getPerInputSigHashCalculator(releaseCreationInformation);
 
         if (!hsmVersion.isPowHSM()) {
-            return buildSignerMessageBuilderV1(releaseCreationInformation, inputIndex);
-        }
-        return buildPowHSMSignerMessageBuilder(releaseCreationInformation, inputIndex);
-    }
-
-    private SignerMessageBuilderV1 buildSignerMessageBuilderV1(ReleaseCreationInformation releaseCreationInformation, int inputIndex) {
-        logger.trace("[buildSignerMessageBuilderV1] SignerMessageBuilder building SignerMessageBuilderV1");
-
-        BtcTransaction releaseTx = releaseCreationInformation.getPegoutBtcTx();
-        if (inputHasWitness(releaseTx, inputIndex)) {
-            SigHashCalculator sigHashCalculator = getSegwitSigHashCalculator(releaseCreationInformation);
             return new SignerMessageBuilderV1(releaseTx, sigHashCalculator);
         }
-
-        SigHashCalculator sigHashCalculator = new LegacySigHashCalculatorImpl();
-        return new SignerMessageBuilderV1(releaseTx, sigHashCalculator);
+        return new PowHSMSignerMessageBuilder(receiptsTrieCache, releaseCreationInformation, sigHashCalculator);
     }
 
-    private PowHSMSignerMessageBuilder buildPowHSMSignerMessageBuilder(ReleaseCreationInformation releaseCreationInformation, int inputIndex) {
-        logger.trace("[buildPowHSMSignerMessageBuilder] SignerMessageBuilder building PowHSMSignerMessageBuilder");
-
-        BtcTransaction releaseTx = releaseCreationInformation.getPegoutBtcTx();
-        if (inputHasWitness(releaseTx, inputIndex)) {
-            SigHashCalculator sigHashCalculator = getSegwitSigHashCalculator(releaseCreationInformation);
-            return new PowHSMSignerMessageBuilder(receiptStore, releaseCreationInformation, sigHashCalculator);
-        }
-
-        SigHashCalculator sigHashCalculator = new LegacySigHashCalculatorImpl();
-        return new PowHSMSignerMessageBuilder(receiptStore, releaseCreationInformation, sigHashCalculator);
+    private SigHashCalculator getPerInputSigHashCalculator(ReleaseCreationInformation releaseCreationInformation) {
+        SigHashCalculator legacySigHashCalculator = new LegacySigHashCalculatorImpl();
+        SigHashCalculator segwitSigHashCalculator = getSegwitSigHashCalculator(releaseCreationInformation);
+        return (btcTx, inputIndex) -> inputHasWitness(btcTx, inputIndex) ?
+            segwitSigHashCalculator.calculate(btcTx, inputIndex) :
+            legacySigHashCalculator.calculate(btcTx, inputIndex);
     }
 
     private SegwitSigHashCalculatorImpl getSegwitSigHashCalculator(ReleaseCreationInformation releaseCreationInformation) {
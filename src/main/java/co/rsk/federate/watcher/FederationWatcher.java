@@ -1,27 +1,58 @@
 package co.rsk.federate.watcher;
 
 import co.rsk.bitcoinj.core.Address;
+import co.rsk.crypto.Keccak256;
 import co.rsk.federate.FederationProvider;
+import co.rsk.peg.BridgeEvents;
 import co.rsk.peg.federation.Federation;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.ethereum.core.Block;
+import org.ethereum.core.Bloom;
+import org.ethereum.core.CallTransaction;
 import org.ethereum.core.TransactionReceipt;
+import org.ethereum.crypto.HashUtil;
 import org.ethereum.facade.Ethereum;
 import org.ethereum.listener.EthereumListenerAdapter;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.PrecompiledContracts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
 
 /**
  * Watches the RSK blockchain for changes to the active and retiring federations.
  * This class listens for new blocks in the RSK blockchain and checks if the active or
  * retiring federations have changed, notifying listeners when such changes occur.
+ *
+ * <p>The federations are only read from the Bridge when a best block carries one of its
+ * federation lifecycle events, when a new federation reaches its activation height, after
+ * a chain reorganization, and every {@code reconciliationIntervalInBlocks} blocks as a safety net.
  */
 public class FederationWatcher {
 
     private static final Logger logger = LoggerFactory.getLogger(FederationWatcher.class);
+    private static final byte[] BRIDGE_ADDRESS = PrecompiledContracts.BRIDGE_ADDR.getBytes();
+    private static final CallTransaction.Function COMMIT_FEDERATION_EVENT = BridgeEvents.COMMIT_FEDERATION.getEvent();
+    private static final DataWord COMMIT_FEDERATION_TOPIC = DataWord.valueOf(COMMIT_FEDERATION_EVENT.encodeSignatureLong());
+    private static final List<DataWord> FEDERATION_CHANGE_TOPICS = List.of(
+        COMMIT_FEDERATION_TOPIC,
+        DataWord.valueOf(BridgeEvents.COMMIT_FEDERATION_FAILED.getEvent().encodeSignatureLong())
+    );
+    private static final List<Bloom> FEDERATION_CHANGE_BLOOMS = FEDERATION_CHANGE_TOPICS.stream()
+        .map(FederationWatcher::getBridgeLogBloom)
+        .toList();
 
     private final Ethereum rsk;
+    private final long reconciliationIntervalInBlocks;
+
+    private Keccak256 lastBestBlockHash;
+    private long lastUpdateBlockNumber;
+    private boolean isStateUpToDate;
+    private long nextActivationBlockNumber = Long.MAX_VALUE;
 
     private FederationProvider federationProvider;
     private FederationWatcherListener federationWatcherListener; 
@@ -34,9 +65,11 @@ public class FederationWatcher {
      * Constructs a new {@code FederationWatcher} with the specified RSK client.
      *
      * @param rsk the Ethereum client used to listen for new blocks on the RSK blockchain
+     * @param reconciliationIntervalInBlocks the maximum amount of blocks between two reads of the federations
      */
-    public FederationWatcher(Ethereum rsk) {
+    public FederationWatcher(Ethereum rsk, long reconciliationIntervalInBlocks) {
         this.rsk = rsk;
+        this.reconciliationIntervalInBlocks = reconciliationIntervalInBlocks;
     }
 
     /**
@@ -72,12 +105,75 @@ public class FederationWatcher {
                 // 
                 // A client trying to send bitcoins to the new federation without waiting
                 // a good number of confirmations would be, essentially, "playing with fire".
-                logger.info("[onBestBlock] New best block, updating state");
-                updateState();
+                onNewBestBlock(block, receipts);
             }
         });
     }
 
+    private void onNewBestBlock(Block block, List<TransactionReceipt> receipts) {
+        long blockNumber = block.getNumber();
+        boolean isReorganization = lastBestBlockHash != null && !lastBestBlockHash.equals(block.getParentHash());
+        boolean hasFederationChangeEvent = hasFederationChangeEvent(block, receipts);
+        boolean isActivationDue = blockNumber >= nextActivationBlockNumber;
+        boolean isReconciliationDue = blockNumber - lastUpdateBlockNumber >= reconciliationIntervalInBlocks;
+        lastBestBlockHash = block.getHash();
+
+        if (isStateUpToDate && !isReorganization && !hasFederationChangeEvent && !isActivationDue && !isReconciliationDue) {
+            logger.trace("[onNewBestBlock] No federation changes expected in block {}", blockNumber);
+            return;
+        }
+
+        logger.info(
+            "[onNewBestBlock] New best block {}, updating state. Reorganization: {}, federation event: {}, activation: {}",
+            blockNumber,
+            isReorganization,
+            hasFederationChangeEvent,
+            isActivationDue
+        );
+        // If a listener fails the state is read again on the next best block
+        isStateUpToDate = false;
+        updateState();
+        isStateUpToDate = true;
+        lastUpdateBlockNumber = blockNumber;
+        // The new federation is read on its activation block and the next one, in case it is active from the latter
+        if (blockNumber > nextActivationBlockNumber) {
+            nextActivationBlockNumber = Long.MAX_VALUE;
+        }
+    }
+
+    private boolean hasFederationChangeEvent(Block block, List<TransactionReceipt> receipts) {
+        Bloom blockBloom = new Bloom(block.getLogBloom());
+        if (FEDERATION_CHANGE_BLOOMS.stream().noneMatch(blockBloom::matches)) {
+            return false;
+        }
+
+        List<LogInfo> federationChangeLogs = receipts.stream()
+            .map(TransactionReceipt::getLogInfoList)
+            .flatMap(List::stream)
+            .filter(logInfo -> Arrays.equals(logInfo.getAddress(), BRIDGE_ADDRESS))
+            .filter(logInfo -> !logInfo.getTopics().isEmpty() && FEDERATION_CHANGE_TOPICS.contains(logInfo.getTopics().get(0)))
+            .toList();
+
+        federationChangeLogs.stream()
+            .filter(logInfo -> COMMIT_FEDERATION_TOPIC.equals(logInfo.getTopics().get(0)))
+            .forEach(this::onCommitFederation);
+
+        return !federationChangeLogs.isEmpty();
+    }
+
+    private void onCommitFederation(LogInfo commitFederationLog) {
+        Object[] eventData = COMMIT_FEDERATION_EVENT.decodeEventData(commitFederationLog.getData());
+        long activationBlockNumber = ((BigInteger) eventData[eventData.length - 1]).longValue();
+        logger.info("[onCommitFederation] New federation committed, to be activated at block {}", activationBlockNumber);
+        nextActivationBlockNumber = Math.min(nextActivationBlockNumber, activationBlockNumber);
+    }
+
+    private static Bloom getBridgeLogBloom(DataWord topic) {
+        Bloom bloom = Bloom.create(HashUtil.keccak256(BRIDGE_ADDRESS));
+        bloom.or(Bloom.create(HashUtil.keccak256(topic.getData())));
+        return bloom;
+    }
+
     /**
      * Updates the current state of the federations by checking if the active or
      * retiring federations have changed. If a federation change is detected, it notifies
@@ -0,0 +1,129 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.params.RegTestParams;
+import org.bitcoinj.store.BlockStoreException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BridgeBtcBlockchainTrackerTest {
+
+    private static final NetworkParameters PARAMETERS = RegTestParams.get();
+    private static final int BRIDGE_INITIAL_HEIGHT = 10;
+
+    private FederatorSupport federatorSupport;
+    private Map<Sha256Hash, StoredBlock> bestChain;
+    private StoredBlock[] bridgeChain;
+    private BridgeBtcBlockchainTracker tracker;
+    private int nonce;
+
+    @BeforeEach
+    void setUp() {
+        federatorSupport = mock(FederatorSupport.class);
+        when(federatorSupport.getBtcBlockchainInitialBlockHeight()).thenReturn(BRIDGE_INITIAL_HEIGHT);
+        when(federatorSupport.getBtcBlockchainBlockHashAtDepth(anyInt())).thenAnswer(invocation -> {
+            int depth = invocation.getArgument(0);
+            return bridgeChain[bridgeChain.length - 1 - depth].getHeader().getHash();
+        });
+        bestChain = new HashMap<>();
+        tracker = new BridgeBtcBlockchainTracker(
+            federatorSupport,
+            blockHash -> Optional.ofNullable(bestChain.get(blockHash))
+        );
+    }
+
+    @Test
+    void findMatchingAncestor_whenBridgeTipIsInBestChain_shouldOnlyLookUpTheTip() throws BlockStoreException {
+        bridgeChain = createChain(new StoredBlock[0], 100);
+        addToBestChain(bridgeChain, 0, 100);
+
+        Optional<StoredBlock> ancestor = tracker.findMatchingAncestor(100);
+
+        assertEquals(Optional.of(bridgeChain[100]), ancestor);
+        verify(federatorSupport, times(1)).getBtcBlockchainBlockHashAtDepth(anyInt());
+        verify(federatorSupport, never()).getBtcBlockchainInitialBlockHeight();
+    }
+
+    @Test
+    void findMatchingAncestor_whenBridgeForked_shouldFindTheForkPoint() throws BlockStoreException {
+        int forkHeight = 37;
+        StoredBlock[] federatorChain = createChain(new StoredBlock[0], 110);
+        addToBestChain(federatorChain, 0, 110);
+        bridgeChain = createChain(copyUpTo(federatorChain, forkHeight), 100);
+
+        Optional<StoredBlock> ancestor = tracker.findMatchingAncestor(100);
+
+        assertEquals(Optional.of(federatorChain[forkHeight]), ancestor);
+    }
+
+    @Test
+    void findMatchingAncestor_afterBridgeForked_shouldStartFromTheLastMatchedBlock() throws BlockStoreException {
+        StoredBlock[] federatorChain = createChain(new StoredBlock[0], 70);
+        addToBestChain(federatorChain, 0, 70);
+        bridgeChain = copyUpTo(federatorChain, 50);
+        tracker.findMatchingAncestor(50);
+
+        int forkHeight = 55;
+        bridgeChain = createChain(copyUpTo(federatorChain, forkHeight), 60);
+        Optional<StoredBlock> ancestor = tracker.findMatchingAncestor(60);
+
+        assertEquals(Optional.of(federatorChain[forkHeight]), ancestor);
+        // The last matched block is at depth 10, so the exponential search is not needed
+        verify(federatorSupport, never()).getBtcBlockchainBlockHashAtDepth(1);
+        verify(federatorSupport, never()).getBtcBlockchainBlockHashAtDepth(8);
+    }
+
+    @Test
+    void findMatchingAncestor_whenNoBridgeBlockIsInBestChain_shouldReturnEmpty() throws BlockStoreException {
+        bridgeChain = createChain(new StoredBlock[0], 100);
+        StoredBlock[] federatorChain = createChain(new StoredBlock[0], 110);
+        addToBestChain(federatorChain, 0, 110);
+
+        Optional<StoredBlock> ancestor = tracker.findMatchingAncestor(100);
+
+        assertTrue(ancestor.isEmpty());
+        verify(federatorSupport, times(1)).getBtcBlockchainBlockHashAtDepth(100 - BRIDGE_INITIAL_HEIGHT);
+    }
+
+    private void addToBestChain(StoredBlock[] chain, int fromHeight, int toHeight) {
+        for (int height = fromHeight; height <= toHeight; height++) {
+            bestChain.put(chain[height].getHeader().getHash(), chain[height]);
+        }
+    }
+
+    private StoredBlock[] copyUpTo(StoredBlock[] chain, int height) {
+        StoredBlock[] copy = new StoredBlock[height + 1];
+        System.arraycopy(chain, 0, copy, 0, height + 1);
+        return copy;
+    }
+
+    private StoredBlock[] createChain(StoredBlock[] baseChain, int toHeight) {
+        StoredBlock[] chain = new StoredBlock[toHeight + 1];
+        System.arraycopy(baseChain, 0, chain, 0, baseChain.length);
+        Sha256Hash previousHash = baseChain.length == 0 ? Sha256Hash.ZERO_HASH : baseChain[baseChain.length - 1].getHeader().getHash();
+        for (int height = baseChain.length; height <= toHeight; height++) {
+            Sha256Hash merkleRoot = Sha256Hash.of(BigInteger.valueOf(nonce++).toByteArray());
+            Block header = new Block(PARAMETERS, 1, previousHash, merkleRoot, 1, 1, 1, new ArrayList<>());
+            chain[height] = new StoredBlock(header, BigInteger.ONE, height);
+            previousHash = header.getHash();
+        }
+        return chain;
+    }
+}
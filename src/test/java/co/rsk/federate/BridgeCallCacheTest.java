@@ -0,0 +1,88 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
+import co.rsk.federate.signing.utils.TestUtils;
+import co.rsk.peg.Bridge;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BridgeCallCacheTest {
+
+    private static final RskAddress FEDERATOR_ADDRESS = new RskAddress(TestUtils.getEcKeyFromSeed("federator").getAddress());
+    private static final Keccak256 BLOCK_HASH = TestUtils.createHash(1);
+    private static final Keccak256 NEXT_BLOCK_HASH = TestUtils.createHash(2);
+
+    private BridgeCallCache bridgeCallCache;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        bridgeCallCache = new BridgeCallCache(List.of(Bridge.GET_FEDERATION_SIZE, Bridge.GET_FEDERATOR_PUBLIC_KEY_OF_TYPE));
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void isCached_shouldOnlyCacheTheOptedInFunctions() {
+        assertTrue(bridgeCallCache.isCached(Bridge.GET_FEDERATION_SIZE));
+        assertFalse(bridgeCallCache.isCached(Bridge.IS_BTC_TX_HASH_ALREADY_PROCESSED));
+    }
+
+    @Test
+    void get_whenCalledTwiceOnTheSameBestBlock_shouldCallTheBridgeOnce() {
+        byte[] encodedCall = Bridge.GET_FEDERATION_SIZE.encode();
+
+        assertEquals(BigInteger.TEN, get(BLOCK_HASH, encodedCall, BigInteger.TEN));
+        assertEquals(BigInteger.TEN, get(BLOCK_HASH, encodedCall, BigInteger.ONE));
+
+        assertEquals(1, calls.get());
+        assertEquals(1, bridgeCallCache.getStats().hitCount());
+        assertEquals(1, bridgeCallCache.getStats().missCount());
+    }
+
+    @Test
+    void get_whenBestBlockChanges_shouldCallTheBridgeAgain() {
+        byte[] encodedCall = Bridge.GET_FEDERATION_SIZE.encode();
+        get(BLOCK_HASH, encodedCall, BigInteger.TEN);
+
+        assertEquals(BigInteger.ONE, get(NEXT_BLOCK_HASH, encodedCall, BigInteger.ONE));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void get_whenCalledWithDifferentArguments_shouldCallTheBridgeForEach() {
+        byte[] firstKeyCall = Bridge.GET_FEDERATOR_PUBLIC_KEY_OF_TYPE.encode(0, "btc");
+        byte[] secondKeyCall = Bridge.GET_FEDERATOR_PUBLIC_KEY_OF_TYPE.encode(1, "btc");
+
+        assertEquals(BigInteger.ONE, get(BLOCK_HASH, firstKeyCall, BigInteger.ONE));
+        assertEquals(BigInteger.TWO, get(BLOCK_HASH, secondKeyCall, BigInteger.TWO));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void get_whenResultIsNull_shouldNotCacheIt() {
+        byte[] encodedCall = Bridge.GET_FEDERATION_SIZE.encode();
+
+        assertNull(get(BLOCK_HASH, encodedCall, null));
+        assertEquals(BigInteger.TEN, get(BLOCK_HASH, encodedCall, BigInteger.TEN));
+
+        assertEquals(2, calls.get());
+    }
+
+    private BigInteger get(Keccak256 blockHash, byte[] encodedCall, BigInteger result) {
+        return bridgeCallCache.get(blockHash, FEDERATOR_ADDRESS, encodedCall, () -> {
+            calls.incrementAndGet();
+            return result;
+        });
+    }
+}
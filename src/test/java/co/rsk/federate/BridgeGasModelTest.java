@@ -0,0 +1,89 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BridgeGasModelTest {
+
+    private static final String METHOD = "receiveHeaders";
+    private static final long FULL_EXECUTION_INTERVAL = 5;
+
+    private BridgeGasModel gasModel;
+
+    @BeforeEach
+    void setUp() {
+        gasModel = new BridgeGasModel(FULL_EXECUTION_INTERVAL);
+    }
+
+    @Test
+    void estimate_whenNotEnoughObservations_shouldNotEstimate() {
+        for (int i = 1; i < BridgeGasModel.MIN_OBSERVATIONS; i++) {
+            gasModel.observe(METHOD, i * 100, gasFor(i * 100));
+        }
+
+        assertFalse(gasModel.estimate(METHOD, 500).isPresent());
+    }
+
+    @Test
+    void estimate_whenGasIsLinearOnSize_shouldEstimateItWithTheSafetyMargin() {
+        observeLinear();
+
+        OptionalLong estimate = gasModel.estimate(METHOD, 550);
+
+        assertTrue(estimate.isPresent());
+        assertEquals((long) Math.ceil(gasFor(550) * (1 + BridgeGasModel.SAFETY_MARGIN)), estimate.getAsLong());
+    }
+
+    @Test
+    void estimate_whenSizeWasNeverSeen_shouldNotExtrapolate() {
+        observeLinear();
+
+        assertFalse(gasModel.estimate(METHOD, 50).isPresent());
+        assertFalse(gasModel.estimate(METHOD, 100_000).isPresent());
+    }
+
+    @Test
+    void estimate_whenMethodWasNeverSeen_shouldNotEstimate() {
+        observeLinear();
+
+        assertFalse(gasModel.estimate("addSignature", 500).isPresent());
+    }
+
+    @Test
+    void estimate_whenObservationsDiverge_shouldNotEstimate() {
+        observeLinear();
+
+        gasModel.observe(METHOD, 500, gasFor(500) * 2);
+
+        assertFalse(gasModel.estimate(METHOD, 500).isPresent());
+    }
+
+    @Test
+    void estimate_shouldLeaveOneInEveryIntervalToAFullExecution() {
+        observeLinear();
+
+        int estimates = 0;
+        for (int i = 0; i < FULL_EXECUTION_INTERVAL * 2; i++) {
+            if (gasModel.estimate(METHOD, 500).isPresent()) {
+                estimates++;
+            }
+        }
+
+        assertEquals((FULL_EXECUTION_INTERVAL - 1) * 2, estimates);
+    }
+
+    private void observeLinear() {
+        for (int i = 1; i <= BridgeGasModel.MIN_OBSERVATIONS; i++) {
+            gasModel.observe(METHOD, i * 100, gasFor(i * 100));
+        }
+    }
+
+    private static long gasFor(int callDataSize) {
+        return 21_000L + 16L * callDataSize;
+    }
+}
@@ -0,0 +1,127 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.rsk.db.RepositoryLocator;
+import co.rsk.peg.BridgeSupport;
+import co.rsk.peg.BridgeSupportFactory;
+import co.rsk.peg.federation.FederationMember;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+import org.ethereum.core.Block;
+import org.ethereum.core.BlockHeader;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.Repository;
+import org.ethereum.crypto.ECKey;
+import org.ethereum.vm.PrecompiledContracts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BridgeSnapshotTest {
+
+    private BridgeSupport bridgeSupport;
+    private BridgeSnapshot bridgeSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        bridgeSupport = mock(BridgeSupport.class);
+        bridgeSnapshot = new BridgeSnapshot(mock(Block.class), bridgeSupport);
+    }
+
+    @Test
+    void getFederationMembers_shouldBuildThemFromTheKeysOfEachFederator() {
+        // Arrange
+        when(bridgeSupport.getActiveFederationSize()).thenReturn(2);
+        when(bridgeSupport.getActiveFederatorPublicKeyOfType(anyInt(), any()))
+            .thenAnswer(invocation -> getPublicKey(invocation.getArgument(0), invocation.getArgument(1)));
+
+        // Act
+        List<FederationMember> members = bridgeSnapshot.getFederationMembers();
+
+        // Assert
+        assertEquals(2, members.size());
+        for (int i = 0; i < members.size(); i++) {
+            FederationMember member = members.get(i);
+            assertArrayEquals(getPublicKey(i, FederationMember.KeyType.BTC), member.getBtcPublicKey().getPubKey());
+            assertArrayEquals(getPublicKey(i, FederationMember.KeyType.RSK), member.getRskPublicKey().getPubKey());
+            assertArrayEquals(getPublicKey(i, FederationMember.KeyType.MST), member.getMstPublicKey().getPubKey());
+        }
+    }
+
+    @Test
+    void getRetiringFederationMembers_whenRetiringFederationDoesNotExist_shouldReturnEmptyList() {
+        // Arrange
+        when(bridgeSupport.getRetiringFederationSize()).thenReturn(-1);
+
+        // Act
+        List<FederationMember> members = bridgeSnapshot.getRetiringFederationMembers();
+
+        // Assert
+        assertTrue(members.isEmpty());
+        verify(bridgeSupport, never()).getRetiringFederatorPublicKeyOfType(anyInt(), any());
+    }
+
+    @Test
+    void getProposedFederationMembers_whenSomeKeyIsMissing_shouldThrowIllegalStateException() {
+        // Arrange
+        when(bridgeSupport.getProposedFederationSize()).thenReturn(Optional.of(1));
+        when(bridgeSupport.getProposedFederatorPublicKeyOfType(anyInt(), any()))
+            .thenAnswer(invocation -> {
+                FederationMember.KeyType keyType = invocation.getArgument(1);
+                if (keyType == FederationMember.KeyType.MST) {
+                    return Optional.empty();
+                }
+                return Optional.of(ECKey.fromPublicOnly(getPublicKey(invocation.getArgument(0), keyType)));
+            });
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> bridgeSnapshot.getProposedFederationMembers());
+    }
+
+    @Test
+    void atBestBlock_shouldBuildOneBridgeSupportOnTheRepositoryAtTheBestBlock() {
+        // Arrange
+        Blockchain blockchain = mock(Blockchain.class);
+        RepositoryLocator repositoryLocator = mock(RepositoryLocator.class);
+        BridgeSupportFactory bridgeSupportFactory = mock(BridgeSupportFactory.class);
+        Block bestBlock = mock(Block.class);
+        BlockHeader bestBlockHeader = mock(BlockHeader.class);
+        Repository repository = mock(Repository.class);
+        when(blockchain.getBestBlock()).thenReturn(bestBlock);
+        when(bestBlock.getHeader()).thenReturn(bestBlockHeader);
+        when(bestBlock.getNumber()).thenReturn(10L);
+        when(repositoryLocator.startTrackingAt(bestBlockHeader)).thenReturn(repository);
+        when(bridgeSupportFactory.newInstance(repository, bestBlock, PrecompiledContracts.BRIDGE_ADDR, null))
+            .thenReturn(bridgeSupport);
+        when(bridgeSupport.getActiveFederationSize()).thenReturn(1);
+        when(bridgeSupport.getActiveFederatorPublicKeyOfType(anyInt(), any()))
+            .thenAnswer(invocation -> getPublicKey(invocation.getArgument(0), invocation.getArgument(1)));
+        BridgeSnapshot.Factory factory = new BridgeSnapshot.Factory(blockchain, repositoryLocator, bridgeSupportFactory);
+
+        // Act
+        BridgeSnapshot snapshot = factory.atBestBlock();
+        snapshot.getFederationMembers();
+        snapshot.getFederationCreationTime();
+        snapshot.getFederationAddress();
+
+        // Assert
+        assertEquals(10L, snapshot.getBlockNumber());
+        verify(repositoryLocator, times(1)).startTrackingAt(bestBlockHeader);
+        verify(bridgeSupportFactory, times(1)).newInstance(any(), any(), any(), any());
+    }
+
+    private static byte[] getPublicKey(int index, FederationMember.KeyType keyType) {
+        return ECKey.fromPrivate(BigInteger.valueOf(index * 10L + keyType.ordinal() + 1)).getPubKey();
+    }
+}
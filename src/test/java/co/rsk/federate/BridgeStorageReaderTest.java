@@ -0,0 +1,150 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import co.rsk.bitcoinj.core.BtcTransaction;
+import co.rsk.bitcoinj.core.NetworkParameters;
+import co.rsk.bitcoinj.core.Sha256Hash;
+import co.rsk.core.bc.BlockTxSignatureCache;
+import co.rsk.core.bc.ReceivedTxSignatureCache;
+import co.rsk.db.MutableTrieImpl;
+import co.rsk.db.RepositoryLocator;
+import co.rsk.federate.bitcoin.BitcoinTestUtils;
+import co.rsk.federate.signing.utils.TestUtils;
+import co.rsk.peg.BridgeStorageProvider;
+import co.rsk.peg.BridgeSupport;
+import co.rsk.peg.BridgeSupportFactory;
+import co.rsk.peg.BtcBlockStoreWithCache;
+import co.rsk.peg.CoinbaseInformation;
+import co.rsk.peg.RepositoryBtcBlockStoreWithCache;
+import co.rsk.peg.constants.BridgeConstants;
+import co.rsk.peg.constants.BridgeRegTestConstants;
+import co.rsk.trie.Trie;
+import org.ethereum.config.blockchain.upgrades.ActivationConfig;
+import org.ethereum.config.blockchain.upgrades.ConsensusRule;
+import org.ethereum.core.Block;
+import org.ethereum.core.BlockHeader;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.Repository;
+import org.ethereum.db.MutableRepository;
+import org.ethereum.vm.PrecompiledContracts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cross-checks the values read straight from the Bridge storage against the ones
+ * the Bridge returns when it is called, which are computed by {@link BridgeSupport}.
+ */
+class BridgeStorageReaderTest {
+
+    private static final BridgeConstants BRIDGE_CONSTANTS = new BridgeRegTestConstants();
+    private static final NetworkParameters BTC_PARAMS = BRIDGE_CONSTANTS.getBtcParams();
+
+    private Repository repository;
+    private Block bestBlock;
+    private ActivationConfig activationConfig;
+    private ActivationConfig.ForBlock activations;
+    private BtcBlockStoreWithCache.Factory btcBlockStoreFactory;
+    private BridgeStorageProvider provider;
+    private BridgeStorageReader bridgeStorageReader;
+
+    @BeforeEach
+    void setUp() {
+        repository = new MutableRepository(new MutableTrieImpl(null, new Trie()));
+
+        bestBlock = mock(Block.class);
+        when(bestBlock.getNumber()).thenReturn(1L);
+        when(bestBlock.getHeader()).thenReturn(mock(BlockHeader.class));
+        Blockchain blockchain = mock(Blockchain.class);
+        when(blockchain.getBestBlock()).thenReturn(bestBlock);
+
+        RepositoryLocator repositoryLocator = mock(RepositoryLocator.class);
+        when(repositoryLocator.startTrackingAt(any())).thenAnswer(invocation -> repository.startTracking());
+
+        activations = mock(ActivationConfig.ForBlock.class);
+        when(activations.isActive(any(ConsensusRule.class))).thenReturn(true);
+        activationConfig = mock(ActivationConfig.class);
+        when(activationConfig.forBlock(anyLong())).thenReturn(activations);
+
+        btcBlockStoreFactory = new RepositoryBtcBlockStoreWithCache.Factory(BTC_PARAMS);
+        provider = new BridgeStorageProvider(repository, BTC_PARAMS, activations);
+        bridgeStorageReader = new BridgeStorageReader(
+            blockchain,
+            repositoryLocator,
+            BRIDGE_CONSTANTS,
+            activationConfig,
+            btcBlockStoreFactory
+        );
+    }
+
+    @Test
+    void getBtcTxHashProcessedHeight_whenProcessed_shouldMatchTheBridge() throws Exception {
+        Sha256Hash btcTxHash = BitcoinTestUtils.createHash(1);
+        provider.setHeightBtcTxhashAlreadyProcessed(btcTxHash, 100L);
+        provider.save();
+        BridgeSupport bridgeSupport = buildBridgeSupport();
+
+        assertTrue(bridgeSupport.isBtcTxHashAlreadyProcessed(btcTxHash));
+        assertEquals(bridgeSupport.getBtcTxHashProcessedHeight(btcTxHash), bridgeStorageReader.getBtcTxHashProcessedHeight(btcTxHash).orElseThrow());
+    }
+
+    @Test
+    void getBtcTxHashProcessedHeight_whenNotProcessed_shouldMatchTheBridge() throws Exception {
+        Sha256Hash btcTxHash = BitcoinTestUtils.createHash(2);
+        BridgeSupport bridgeSupport = buildBridgeSupport();
+
+        assertFalse(bridgeSupport.isBtcTxHashAlreadyProcessed(btcTxHash));
+        assertEquals(bridgeSupport.getBtcTxHashProcessedHeight(btcTxHash), bridgeStorageReader.getBtcTxHashProcessedHeight(btcTxHash).orElse(-1L));
+    }
+
+    @Test
+    void hasBlockCoinbaseInformed_shouldMatchTheBridge() {
+        Sha256Hash informedBlockHash = BitcoinTestUtils.createHash(3);
+        Sha256Hash notInformedBlockHash = BitcoinTestUtils.createHash(4);
+        provider.setCoinbaseInformation(informedBlockHash, new CoinbaseInformation(BitcoinTestUtils.createHash(5)));
+        provider.save();
+        BridgeSupport bridgeSupport = buildBridgeSupport();
+
+        assertTrue(bridgeStorageReader.hasBlockCoinbaseInformed(informedBlockHash));
+        assertEquals(bridgeSupport.hasBtcBlockCoinbaseTransactionInformation(informedBlockHash), bridgeStorageReader.hasBlockCoinbaseInformed(informedBlockHash));
+        assertEquals(bridgeSupport.hasBtcBlockCoinbaseTransactionInformation(notInformedBlockHash), bridgeStorageReader.hasBlockCoinbaseInformed(notInformedBlockHash));
+    }
+
+    @Test
+    void getBtcBlockchainBestChainHeight_shouldMatchTheBridge() throws Exception {
+        BridgeSupport bridgeSupport = buildBridgeSupport();
+        // The Bridge initializes its BTC blockchain the first time it is read
+        int bestChainHeight = bridgeSupport.getBtcBlockchainBestChainHeight();
+        bridgeSupport.save();
+
+        assertEquals(bestChainHeight, bridgeStorageReader.getBtcBlockchainBestChainHeight());
+    }
+
+    @Test
+    void getStateForFederator_shouldMatchTheBridge() throws Exception {
+        BtcTransaction pegout = BitcoinTestUtils.createTxFromP2pkh(BTC_PARAMS);
+        provider.getPegoutsWaitingForSignatures().put(TestUtils.createHash(1), pegout);
+        provider.save();
+        BridgeSupport bridgeSupport = buildBridgeSupport();
+
+        assertArrayEquals(bridgeSupport.getStateForBtcReleaseClient(), bridgeStorageReader.getStateForFederator().encodeToRlp());
+        assertEquals(pegout, bridgeStorageReader.getStateForFederator().getRskTxsWaitingForSignatures().get(TestUtils.createHash(1)));
+    }
+
+    private BridgeSupport buildBridgeSupport() {
+        BridgeSupportFactory bridgeSupportFactory = new BridgeSupportFactory(
+            btcBlockStoreFactory,
+            BRIDGE_CONSTANTS,
+            activationConfig,
+            new BlockTxSignatureCache(new ReceivedTxSignatureCache())
+        );
+        return bridgeSupportFactory.newInstance(repository, bestBlock, PrecompiledContracts.BRIDGE_ADDR, null);
+    }
+}
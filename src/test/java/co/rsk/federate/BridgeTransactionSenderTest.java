@@ -0,0 +1,96 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.rsk.core.ReversibleTransactionExecutor;
+import co.rsk.core.RskAddress;
+import co.rsk.federate.config.PowpegNodeSystemProperties;
+import co.rsk.federate.signing.utils.TestUtils;
+import co.rsk.peg.Bridge;
+import java.util.Collections;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.TransactionPool;
+import org.ethereum.facade.Ethereum;
+import org.ethereum.vm.program.ProgramResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BridgeTransactionSenderTest {
+
+    private static final RskAddress FEDERATOR_ADDRESS = new RskAddress(TestUtils.getEcKeyFromSeed("federator").getAddress());
+    private static final long GAS_USED = 100_000L;
+
+    private ReversibleTransactionExecutor reversibleTransactionExecutor;
+    private BridgeTransactionSender bridgeTransactionSender;
+
+    @BeforeEach
+    void setUp() {
+        Blockchain blockchain = mock(Blockchain.class);
+        when(blockchain.getBestBlock()).thenReturn(mock(Block.class));
+
+        ProgramResult programResult = mock(ProgramResult.class);
+        when(programResult.getGasUsed()).thenReturn(GAS_USED);
+        when(programResult.getLogInfoList()).thenReturn(Collections.emptyList());
+        reversibleTransactionExecutor = mock(ReversibleTransactionExecutor.class);
+        when(reversibleTransactionExecutor.executeTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
+            .thenReturn(programResult);
+
+        PowpegNodeSystemProperties config = mock(PowpegNodeSystemProperties.class);
+        when(config.federatorGasPrice()).thenReturn(0L);
+        when(config.getInFlightBridgeTxRetentionBlocks()).thenReturn(10L);
+        when(config.isGasModelEnabled()).thenReturn(true);
+        when(config.getGasModelFullExecutionInterval()).thenReturn(0L);
+
+        bridgeTransactionSender = new BridgeTransactionSender(
+            mock(Ethereum.class),
+            blockchain,
+            mock(TransactionPool.class),
+            reversibleTransactionExecutor,
+            config
+        );
+    }
+
+    @Test
+    void estimateGas_whenModelIsConfidentForReceiveHeaders_shouldNotExecuteIt() {
+        // Arrange
+        Object[] headers = new Object[]{new byte[80]};
+        for (int i = 0; i < BridgeGasModel.MIN_OBSERVATIONS; i++) {
+            bridgeTransactionSender.preflight(FEDERATOR_ADDRESS, Bridge.RECEIVE_HEADERS, new Object[]{headers});
+        }
+        clearInvocations(reversibleTransactionExecutor);
+
+        // Act
+        long gas = bridgeTransactionSender.estimateGas(FEDERATOR_ADDRESS, Bridge.RECEIVE_HEADERS, new Object[]{headers});
+
+        // Assert
+        assertEquals((long) Math.ceil(GAS_USED * (1 + BridgeGasModel.SAFETY_MARGIN)), gas);
+        verify(reversibleTransactionExecutor, never())
+            .executeTransaction(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void estimateGas_whenRegisterBtcTransactionWasSeenEnoughTimes_shouldStillExecuteIt() {
+        // Arrange
+        Object[] registerArgs = new Object[]{new byte[200], 1, new byte[100]};
+        for (int i = 0; i < BridgeGasModel.MIN_OBSERVATIONS; i++) {
+            bridgeTransactionSender.preflight(FEDERATOR_ADDRESS, Bridge.REGISTER_BTC_TRANSACTION, registerArgs);
+        }
+        clearInvocations(reversibleTransactionExecutor);
+
+        // Act
+        long gas = bridgeTransactionSender.estimateGas(FEDERATOR_ADDRESS, Bridge.REGISTER_BTC_TRANSACTION, registerArgs);
+
+        // Assert
+        assertEquals(GAS_USED, gas);
+        verify(reversibleTransactionExecutor, times(1))
+            .executeTransaction(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+}
@@ -772,6 +772,95 @@ class BtcToRskClientTest {
         assertEquals(1, federatorSupport.getSendReceiveHeadersInvocations());
     }
 
+    @Test
+    void updateBlockchain_whenBridgeIsSeveralBatchesBehind_shouldSendBatchesUntilTheTip() throws Exception {
+        StoredBlock[] blocks = createBlockchain(100);
+        SimpleBitcoinWrapper bitcoinWrapper = new SimpleBitcoinWrapper();
+        bitcoinWrapper.setBlocks(blocks);
+        SimpleFederatorSupport federatorSupport = new SimpleFederatorSupport();
+        federatorSupport.setBtcBlockchainBestChainHeight(1);
+        federatorSupport.setBlockHashes(createHashChain(blocks, 1));
+        federatorSupport.setReceiveHeadersGasPerHeader(1_000);
+        federatorSupport.setRskBestBlockGasLimit(6_800_000);
+        BtcToRskClient client = buildClientToCatchUp(bitcoinWrapper, federatorSupport, 25, 10);
+
+        int numberOfBlocksSent = client.updateBridgeBtcBlockchain();
+
+        Block[] headers = federatorSupport.getReceiveHeaders();
+        assertEquals(99, numberOfBlocksSent);
+        assertEquals(99, headers.length);
+        for (int i = 0; i < headers.length; i++) {
+            assertEquals(blocks[i + 2].getHeader().getHash(), headers[i].getHash());
+        }
+        // 25 + 25 + 25 + 24 headers, all sent with the gas estimated for the first batch plus a margin
+        assertEquals(4, federatorSupport.getSendReceiveHeadersInvocations());
+        assertEquals(List.of(27_500L, 27_500L, 27_500L, 27_500L), federatorSupport.getReceiveHeadersGasLimits());
+        assertEquals(4, client.getHeaderRelayMetrics().getBatchesSentLastTurn());
+        assertFalse(client.getHeaderRelayMetrics().isCatchingUp());
+    }
+
+    @Test
+    void updateBlockchain_whenMaxBatchesPerTurnIsReached_shouldKeepCatchingUpNextTurn() throws Exception {
+        StoredBlock[] blocks = createBlockchain(100);
+        SimpleBitcoinWrapper bitcoinWrapper = new SimpleBitcoinWrapper();
+        bitcoinWrapper.setBlocks(blocks);
+        SimpleFederatorSupport federatorSupport = new SimpleFederatorSupport();
+        federatorSupport.setBtcBlockchainBestChainHeight(1);
+        federatorSupport.setBlockHashes(createHashChain(blocks, 1));
+        federatorSupport.setReceiveHeadersGasPerHeader(1_000);
+        federatorSupport.setRskBestBlockGasLimit(6_800_000);
+        BtcToRskClient client = buildClientToCatchUp(bitcoinWrapper, federatorSupport, 25, 2);
+
+        int numberOfBlocksSent = client.updateBridgeBtcBlockchain();
+
+        assertEquals(50, numberOfBlocksSent);
+        assertEquals(2, federatorSupport.getSendReceiveHeadersInvocations());
+        assertEquals(blocks[51].getHeader().getHash(), federatorSupport.getReceiveHeaders()[49].getHash());
+        assertTrue(client.getHeaderRelayMetrics().isCatchingUp());
+        assertTrue(client.getHeaderRelayMetrics().getLastCatchUpLatencyToTip().isEmpty());
+    }
+
+    @Test
+    void updateBlockchain_whenBatchDoesNotFitInRskBlock_shouldSendSmallerBatches() throws Exception {
+        StoredBlock[] blocks = createBlockchain(100);
+        SimpleBitcoinWrapper bitcoinWrapper = new SimpleBitcoinWrapper();
+        bitcoinWrapper.setBlocks(blocks);
+        SimpleFederatorSupport federatorSupport = new SimpleFederatorSupport();
+        federatorSupport.setBtcBlockchainBestChainHeight(1);
+        federatorSupport.setBlockHashes(createHashChain(blocks, 1));
+        federatorSupport.setReceiveHeadersGasPerHeader(1_000);
+        // Only half of the block gas limit is used, so 10 headers per batch
+        federatorSupport.setRskBestBlockGasLimit(20_000);
+        BtcToRskClient client = buildClientToCatchUp(bitcoinWrapper, federatorSupport, 25, 3);
+
+        int numberOfBlocksSent = client.updateBridgeBtcBlockchain();
+
+        assertEquals(30, numberOfBlocksSent);
+        assertEquals(3, federatorSupport.getSendReceiveHeadersInvocations());
+        assertEquals(List.of(11_000L, 11_000L, 11_000L), federatorSupport.getReceiveHeadersGasLimits());
+    }
+
+    private BtcToRskClient buildClientToCatchUp(
+        SimpleBitcoinWrapper bitcoinWrapper,
+        SimpleFederatorSupport federatorSupport,
+        int amountOfHeadersToSend,
+        int maxHeaderBatchesPerTurn
+    ) throws Exception {
+        PowpegNodeSystemProperties config = mock(PowpegNodeSystemProperties.class);
+        when(config.getAmountOfHeadersToSend()).thenReturn(amountOfHeadersToSend);
+        when(config.getMaxHeaderBatchesPerTurn()).thenReturn(maxHeaderBatchesPerTurn);
+
+        return btcToRskClientBuilder
+            .withActivationConfig(activationConfig)
+            .withBitcoinWrapper(bitcoinWrapper)
+            .withFederatorSupport(federatorSupport)
+            .withBridgeConstants(bridgeRegTestConstants)
+            .withBtcLockSenderProvider(mockBtcLockSenderProvider(TxSenderAddressType.P2PKH))
+            .withFederation(activeFederation)
+            .withFedNodeSystemProperties(config)
+            .build();
+    }
+
     @Test
     void updateBlockchainWithDeepFork() throws Exception {
         SimpleBitcoinWrapper bitcoinWrapper = new SimpleBitcoinWrapper();
@@ -816,11 +905,14 @@ class BtcToRskClientTest {
         assertNotNull(headers);
         // Search depth should go down to the maximum depth (height - inital height = 200 - 10 = 190)
         // That means depth should be called with: 0, 1, 2, 4, 8, 16, 32, 64, 128, 190.
-        // At the end, blockchain should be updated with 225 - 10 = 215 blocks.
-        Stream.of(0, 1, 2, 4, 8, 16, 32, 64, 128, 190).forEach(depth ->
+        // Then the depths in between 128 and 190 are bisected down to the fork, at depth 200 - 20 = 180.
+        // At the end, blockchain should be updated with 225 - 20 = 205 blocks.
+        Stream.of(0, 1, 2, 4, 8, 16, 32, 64, 128, 190, 180).forEach(depth ->
             verify(federatorSupport, times(1)).getBtcBlockchainBlockHashAtDepth(depth)
         );
-        assertEquals(amountOfHeadersToSend, headers.length);
+        assertEquals(FEDERATOR_HEIGHT - FORK_HEIGHT, headers.length);
+        assertEquals(blocks[FORK_HEIGHT + 1].getHeader().getHash(), headers[0].getHash());
+        assertEquals(blocks[FEDERATOR_HEIGHT].getHeader().getHash(), headers[headers.length - 1].getHash());
 
         // Only one receive headers invocation
         assertEquals(1, federatorSupport.getSendReceiveHeadersInvocations());
@@ -1647,6 +1739,7 @@ class BtcToRskClientTest {
         private BtcToRskClient activeFedClient;
         private BtcToRskClient retiringFedClient;
         private FederatorSupport federatorSupport;
+        private BridgeSnapshot bridgeSnapshot;
         private BtcLockSenderProvider btcLockSenderProvider;
         private PeginInstructionsProvider peginInstructionsProvider;
         private PowpegNodeSystemProperties config;
@@ -1670,9 +1763,11 @@ class BtcToRskClientTest {
             when(config.getAmountOfHeadersToSend()).thenReturn(100);
 
             federatorSupport = mock(FederatorSupport.class);
+            bridgeSnapshot = mock(BridgeSnapshot.class);
+            when(federatorSupport.snapshotAtBestBlock()).thenReturn(bridgeSnapshot);
             when(federatorSupport.getConfigForBestBlock()).thenReturn(activations);
             // assuming no retiring fed for general setup
-            when(federatorSupport.getRetiringFederationSize()).thenReturn(FEDERATION_NON_EXISTENT.getCode());
+            when(bridgeSnapshot.getRetiringFederationSize()).thenReturn(FEDERATION_NON_EXISTENT.getCode());
 
             btcLockSenderProvider = new BtcLockSenderProvider();
             peginInstructionsProvider = new PeginInstructionsProvider();
@@ -1742,51 +1837,30 @@ class BtcToRskClientTest {
 
         private void setUpActiveFed(Federation activeFederation) {
             when(federatorSupport.getFederationSize()).thenReturn(activeFederation.getSize());
-            for (int i = 0; i < activeFederation.getSize(); i++) {
-                FederationMember member = activeFederation.getMembers().get(i);
-                org.ethereum.crypto.ECKey btcKey = org.ethereum.crypto.ECKey.fromPublicOnly(member.getBtcPublicKey().getPubKey());
-                when(federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC)).thenReturn(btcKey);
-                org.ethereum.crypto.ECKey rskKey = member.getRskPublicKey();
-                when(federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK)).thenReturn(rskKey);
-                org.ethereum.crypto.ECKey mstKey = member.getMstPublicKey();
-                when(federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.MST)).thenReturn(mstKey);
-            }
-            when(federatorSupport.getFederationCreationTime()).thenReturn(activeFederation.getCreationTime());
-            when(federatorSupport.getFederationCreationBlockNumber()).thenReturn(activeFederation.getCreationBlockNumber());
+            when(bridgeSnapshot.getFederationMembers()).thenReturn(activeFederation.getMembers());
+            when(bridgeSnapshot.getFederationCreationTime()).thenReturn(activeFederation.getCreationTime());
+            when(bridgeSnapshot.getFederationCreationBlockNumber()).thenReturn(activeFederation.getCreationBlockNumber());
             when(federatorSupport.getBtcParams()).thenReturn(MAINNET_BTC_PARAMS);
             when(federatorSupport.getFederationAddress()).thenReturn(activeFederation.getAddress());
+            when(bridgeSnapshot.getFederationAddress()).thenReturn(activeFederation.getAddress());
         }
 
         private void setUpRetiringFed(Federation retiringFederation) {
-            when(federatorSupport.getRetiringFederationSize()).thenReturn(retiringFederation.getSize());
-            for (int i = 0; i < retiringFederation.getSize(); i++) {
-                FederationMember member = retiringFederation.getMembers().get(i);
-                org.ethereum.crypto.ECKey btcKey = org.ethereum.crypto.ECKey.fromPublicOnly(member.getBtcPublicKey().getPubKey());
-                when(federatorSupport.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC)).thenReturn(btcKey);
-                org.ethereum.crypto.ECKey rskKey = member.getRskPublicKey();
-                when(federatorSupport.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK)).thenReturn(rskKey);
-                org.ethereum.crypto.ECKey mstKey = member.getMstPublicKey();
-                when(federatorSupport.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.MST)).thenReturn(mstKey);
-            }
-            when(federatorSupport.getRetiringFederationCreationTime()).thenReturn(retiringFederation.getCreationTime());
-            when(federatorSupport.getRetiringFederationCreationBlockNumber()).thenReturn(retiringFederation.getCreationBlockNumber());
+            when(bridgeSnapshot.getRetiringFederationSize()).thenReturn(retiringFederation.getSize());
+            when(bridgeSnapshot.getRetiringFederationMembers()).thenReturn(retiringFederation.getMembers());
+            when(bridgeSnapshot.getRetiringFederationCreationTime()).thenReturn(retiringFederation.getCreationTime());
+            when(bridgeSnapshot.getRetiringFederationCreationBlockNumber()).thenReturn(retiringFederation.getCreationBlockNumber());
             when(federatorSupport.getRetiringFederationAddress()).thenReturn(Optional.of(retiringFederation.getAddress()));
+            when(bridgeSnapshot.getRetiringFederationAddress()).thenReturn(Optional.of(retiringFederation.getAddress()));
         }
 
         private void setUpProposedFed(Federation proposedFederation) {
-            when(federatorSupport.getProposedFederationSize()).thenReturn(Optional.of(proposedFederation.getSize()));
-            for (int i = 0; i < proposedFederation.getSize(); i++) {
-                FederationMember member = proposedFederation.getMembers().get(i);
-                org.ethereum.crypto.ECKey btcKey = org.ethereum.crypto.ECKey.fromPublicOnly(member.getBtcPublicKey().getPubKey());
-                when(federatorSupport.getProposedFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC)).thenReturn(Optional.of(btcKey));
-                org.ethereum.crypto.ECKey rskKey = member.getRskPublicKey();
-                when(federatorSupport.getProposedFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK)).thenReturn(Optional.of(rskKey));
-                org.ethereum.crypto.ECKey mstKey = member.getMstPublicKey();
-                when(federatorSupport.getProposedFederatorPublicKeyOfType(i, FederationMember.KeyType.MST)).thenReturn(Optional.of(mstKey));
-            }
-            when(federatorSupport.getProposedFederationCreationTime()).thenReturn(Optional.of(proposedFederation.getCreationTime()));
-            when(federatorSupport.getProposedFederationCreationBlockNumber()).thenReturn(Optional.of(proposedFederation.getCreationBlockNumber()));
+            when(bridgeSnapshot.getProposedFederationSize()).thenReturn(Optional.of(proposedFederation.getSize()));
+            when(bridgeSnapshot.getProposedFederationMembers()).thenReturn(proposedFederation.getMembers());
+            when(bridgeSnapshot.getProposedFederationCreationTime()).thenReturn(Optional.of(proposedFederation.getCreationTime()));
+            when(bridgeSnapshot.getProposedFederationCreationBlockNumber()).thenReturn(Optional.of(proposedFederation.getCreationBlockNumber()));
             when(federatorSupport.getProposedFederationAddress()).thenReturn(Optional.of(proposedFederation.getAddress()));
+            when(bridgeSnapshot.getProposedFederationAddress()).thenReturn(Optional.of(proposedFederation.getAddress()));
         }
 
         private BtcToRskClient buildClient(BtcToRskClientFileStorage btcToRskClientFileStorage, Federation federationToListen) throws Exception {
@@ -1866,6 +1940,29 @@ class BtcToRskClientTest {
             assertTxSentToBridgeByActiveFedClient(peginBtcTx);
         }
 
+        @Test
+        void updateBridgeBtcTransactions_whenBridgeWouldRejectIt_shouldNotRetryItOnTheNextTurn() throws Exception {
+            // arrange
+            Federation federation = TestUtils.createP2shP2wshErpFederation(
+                MAINNET_BTC_PARAMS,
+                20
+            );
+            setUpActiveFedClient(federation);
+            var peginBtcTx = createTxFromP2pkh(MAINNET_BTC_PARAMS);
+            addOutputToFedWithMinimumPeginValue(peginBtcTx, federation.getAddress());
+
+            setUpTx(activeFedClient, peginBtcTx, DEFAULT_BLOCK_WITH_TX_INDEX);
+            when(federatorSupport.sendRegisterBtcTransaction(any(Transaction.class), anyInt(), any(Proof.class)))
+                .thenReturn(Optional.of(mock(BridgePreflight.class)));
+
+            // act
+            activeFedClient.updateBridgeBtcTransactions();
+            activeFedClient.updateBridgeBtcTransactions();
+
+            // assert
+            verify(federatorSupport, times(1)).sendRegisterBtcTransaction(any(Transaction.class), anyInt(), any(Proof.class));
+        }
+
         @Test
         void updateBridgeBtcTransactions_legacyPeginFromP2pkh_amountBelowMinimum_shouldNotBeInformed() throws Exception {
             // arrange
@@ -3696,7 +3793,7 @@ class BtcToRskClientTest {
             long heightBeforeRemovingTxFromProofs = heightAtWhichRemoveTxFromProofs - 1;
             when(federatorSupport.getRskBestChainHeight()).thenReturn(heightBeforeRemovingTxFromProofs);
             activeFedClient.updateBridgeBtcTransactions();
-            verify(federatorSupport, never()).sendRegisterBtcTransaction(eq(peginTx), anyInt(), any(PartialMerkleTree.class));
+            verify(federatorSupport, never()).sendRegisterBtcTransaction(eq(peginTx), anyInt(), any(Proof.class));
             assertWTxIdIsInProofsFile(testnetParams, btcToRskActiveFedClientFileStorage, peginTx);
             // check that right when btcToRskMinimumAcceptableConfirmationsOnRskTestnet
             // blocks have passed, the fed does not send the tx to the bridge either
@@ -3704,7 +3801,7 @@ class BtcToRskClientTest {
             when(federatorSupport.getRskBestChainHeight()).thenReturn(heightAtWhichRemoveTxFromProofs);
             activeFedClient.updateBridgeBtcTransactions();
 
-            verify(federatorSupport, never()).sendRegisterBtcTransaction(eq(peginTx), anyInt(), any(PartialMerkleTree.class));
+            verify(federatorSupport, never()).sendRegisterBtcTransaction(eq(peginTx), anyInt(), any(Proof.class));
             assertWTxIdIsNotInProofsFile(testnetParams, btcToRskActiveFedClientFileStorage, peginTx);
         }
 
@@ -3968,21 +4065,20 @@ class BtcToRskClientTest {
         private void assertTxSentToBridge(BtcToRskClientFileStorage btcToRskClientFileStorage, BtcTransaction btcTx, int blockWithTxHeight) throws IOException {
             var tx = ThinConverter.toOriginalInstance(MAINNET_BTC_PARAMS_STRING, btcTx);
 
-            org.bitcoinj.core.PartialMerkleTree pmt = getPMT(btcToRskClientFileStorage, tx);
-            verify(federatorSupport).sendRegisterBtcTransaction(tx, blockWithTxHeight, pmt);
+            Proof proof = getProof(btcToRskClientFileStorage, tx);
+            verify(federatorSupport).sendRegisterBtcTransaction(tx, blockWithTxHeight, proof);
         }
 
-        private org.bitcoinj.core.PartialMerkleTree getPMT(BtcToRskClientFileStorage btcToRskClientFileStorage, Transaction tx) throws IOException {
+        private Proof getProof(BtcToRskClientFileStorage btcToRskClientFileStorage, Transaction tx) throws IOException {
             BtcToRskClientFileData fileData = btcToRskClientFileStorage.read(MAINNET_PARAMS).getData();
             List<Proof> proofs = fileData.getTransactionProofs().get(tx.getWTxId());
 
-            Proof proof = proofs.get(0);
-            return proof.getPartialMerkleTree();
+            return proofs.get(0);
         }
 
         private void assertTxNotSentToBridge(BtcTransaction btcTx) {
             var tx = ThinConverter.toOriginalInstance(MAINNET_BTC_PARAMS_STRING, btcTx);
-            verify(federatorSupport, never()).sendRegisterBtcTransaction(eq(tx), anyInt(), any(PartialMerkleTree.class));
+            verify(federatorSupport, never()).sendRegisterBtcTransaction(eq(tx), anyInt(), any(Proof.class));
         }
 
         private void assertCoinbaseTxSentToBridge(CoinbaseInformation coinbaseInformation) {
@@ -4007,6 +4103,7 @@ class BtcToRskClientTest {
                 btcToRskClientFileStorage,
                 btcLockSenderProvider,
                 peginInstructionsProvider,
+                new FederationProviderFromFederatorSupport(federatorSupport, BRIDGE_MAINNET_CONSTANTS.getFederationConstants()),
                 config
             );
             // start client again
@@ -4085,8 +4182,7 @@ class BtcToRskClientTest {
 
         // Assert
         // No interactions with the federation or updates to the bridge
-        verify(federatorSupport, never()).sendRegisterBtcTransaction(any(Transaction.class), anyInt(), any(
-            PartialMerkleTree.class));
+        verify(federatorSupport, never()).sendRegisterBtcTransaction(any(Transaction.class), anyInt(), any(Proof.class));
         verify(federatorSupport, never()).sendReceiveHeaders(any(Block[].class));
         verify(federatorSupport, never()).sendRegisterCoinbaseTransaction(any(CoinbaseInformation.class));
         verify(federatorSupport, never()).sendUpdateCollections();
@@ -4214,6 +4310,8 @@ class BtcToRskClientTest {
         Transaction peginBtcTx = createSegwitTransaction();
 
         FederatorSupport federatorSupport = mock(FederatorSupport.class);
+        BridgeSnapshot bridgeSnapshot = mock(BridgeSnapshot.class);
+        when(federatorSupport.snapshotAtBestBlock()).thenReturn(bridgeSnapshot);
         when(federatorSupport.getBtcBlockchainBestChainHeight()).thenReturn(1);
         when(federatorSupport.isBtcTxHashAlreadyProcessed(peginBtcTx.getTxId())).thenReturn(true);
         when(federatorSupport.getBtcTxHashProcessedHeight(peginBtcTx.getTxId())).thenReturn(1L);
@@ -4221,28 +4319,21 @@ class BtcToRskClientTest {
 
         when(federatorSupport.getFederationSize()).thenReturn(activeFederation.getSize());
 
-        for (int i = 0; i < activeFederation.getSize(); i++) {
-            FederationMember member = activeFederation.getMembers().get(i);
-            org.ethereum.crypto.ECKey btcKey = org.ethereum.crypto.ECKey.fromPublicOnly(member.getBtcPublicKey().getPubKey());
-            when(federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC))
-                .thenReturn(btcKey);
-            when(federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK))
-                .thenReturn(member.getRskPublicKey());
-            when(federatorSupport.getFederatorPublicKeyOfType(i, FederationMember.KeyType.MST))
-                .thenReturn(member.getMstPublicKey());
-        }
+        when(bridgeSnapshot.getFederationMembers()).thenReturn(activeFederation.getMembers());
 
-        when(federatorSupport.getFederationCreationTime())
+        when(bridgeSnapshot.getFederationCreationTime())
             .thenReturn(activeFederation.getCreationTime());
-        when(federatorSupport.getFederationCreationBlockNumber())
+        when(bridgeSnapshot.getFederationCreationBlockNumber())
             .thenReturn(activeFederation.getCreationBlockNumber());
         when(federatorSupport.getBtcParams())
             .thenReturn(bridgeRegTestConstants.getBtcParams());
         when(federatorSupport.getFederationAddress())
             .thenReturn(activeFederation.getAddress());
+        when(bridgeSnapshot.getFederationAddress())
+            .thenReturn(activeFederation.getAddress());
 
-        when(federatorSupport.getRetiringFederationSize()).thenReturn(FEDERATION_NON_EXISTENT.getCode());
-        when(federatorSupport.getProposedFederationSize()).thenReturn(Optional.empty());
+        when(bridgeSnapshot.getRetiringFederationSize()).thenReturn(FEDERATION_NON_EXISTENT.getCode());
+        when(bridgeSnapshot.getProposedFederationSize()).thenReturn(Optional.empty());
 
         BitcoinWrapper bitcoinWrapper = mock(BitcoinWrapper.class);
         when(bitcoinWrapper.getBestChainHeight()).thenReturn(1);
@@ -4282,7 +4373,7 @@ class BtcToRskClientTest {
         btcToRskClient.updateBridge();
 
         verify(federatorSupport, times(1)).isBtcTxHashAlreadyProcessed(peginBtcTx.getTxId());
-        verify(federatorSupport, never()).sendRegisterBtcTransaction(any(Transaction.class), anyInt(), any(PartialMerkleTree.class));
+        verify(federatorSupport, never()).sendRegisterBtcTransaction(any(Transaction.class), anyInt(), any(Proof.class));
     }
 
     private BtcToRskClient buildWithFactory(FederatorSupport federatorSupport, NodeBlockProcessor nodeBlockProcessor) {
@@ -4316,6 +4407,7 @@ class BtcToRskClientTest {
             btcToRskClientFileStorage,
             btcLockSenderProvider,
             peginInstructionsProvider,
+            new FederationProviderFromFederatorSupport(federatorSupport, bridgeConstants.getFederationConstants()),
             config
         );
         btcToRskClient.start(activeFederation);
@@ -1,6 +1,9 @@
 package co.rsk.federate;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Collections;
@@ -59,6 +62,37 @@ class CoinbaseInformationTest {
         assertEquals(coinbaseInformation,CoinbaseInformation.fromRlp(coinbaseInformation.serializeToRLP(), parameters));
     }
 
+    @Test
+    void fromRlp_shouldDecodeTheTransactionLazily() throws Exception {
+        List<Sha256Hash> hashes = Collections.singletonList(Sha256Hash.ZERO_HASH);
+        PartialMerkleTree pmt = new PartialMerkleTree(parameters, new byte[] {}, hashes, hashes.size());
+        Transaction tx = getTx();
+        CoinbaseInformation coinbaseInformation = new CoinbaseInformation(tx, Sha256Hash.ZERO_HASH, Sha256Hash.ZERO_HASH, pmt);
+        byte[] encoded = coinbaseInformation.serializeToRLP();
+
+        CoinbaseInformation decodedCoinbaseInformation = CoinbaseInformation.fromRlp(encoded, parameters);
+
+        assertArrayEquals(encoded, decodedCoinbaseInformation.serializeToRLP());
+        assertEquals(tx.getTxId(), decodedCoinbaseInformation.getCoinbaseTransactionId());
+        assertArrayEquals(pmt.bitcoinSerialize(), decodedCoinbaseInformation.getSerializedPmt());
+        assertSame(decodedCoinbaseInformation.getCoinbaseTransaction(), decodedCoinbaseInformation.getCoinbaseTransaction());
+        assertEquals(pmt, decodedCoinbaseInformation.getPmt());
+        assertEquals(tx, decodedCoinbaseInformation.getCoinbaseTransaction());
+    }
+
+    @Test
+    void getSerializedCoinbaseTransactionWithoutWitness_shouldNotIncludeTheWitness() throws Exception {
+        Transaction tx = getTx();
+        CoinbaseInformation coinbaseInformation = new CoinbaseInformation(tx, null, null, null);
+
+        byte[] serializedTx = coinbaseInformation.getSerializedCoinbaseTransactionWithoutWitness();
+
+        Transaction txWithoutWitness = new Transaction(parameters, serializedTx);
+        assertFalse(txWithoutWitness.hasWitnesses());
+        assertEquals(tx.getTxId(), txWithoutWitness.getTxId());
+        assertEquals(tx.getTxId(), coinbaseInformation.getCoinbaseTransactionId());
+    }
+
     private Transaction getTx() {
         return getTx(true, true);
     }
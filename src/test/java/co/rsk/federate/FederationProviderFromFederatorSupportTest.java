@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -38,11 +40,14 @@ class FederationProviderFromFederatorSupportTest {
     private static final Instant creationTime = Instant.ofEpochSecond(5);
 
     private FederatorSupport federatorSupportMock;
+    private BridgeSnapshot bridgeSnapshotMock;
     private FederationProvider federationProvider;
 
     @BeforeEach
     void setup() {
         federatorSupportMock = mock(FederatorSupport.class);
+        bridgeSnapshotMock = mock(BridgeSnapshot.class);
+        when(federatorSupportMock.snapshotAtBestBlock()).thenReturn(bridgeSnapshotMock);
         federationProvider = new FederationProviderFromFederatorSupport(
             federatorSupportMock,
             federationConstants
@@ -54,7 +59,7 @@ class FederationProviderFromFederatorSupportTest {
         // arrange
         Federation expectedFederation = createP2shP2wshErpFederation();
         setupActiveFederation(expectedFederation);
-        when(federatorSupportMock.getFederationAddress()).thenReturn(expectedFederation.getAddress());
+        when(bridgeSnapshotMock.getFederationAddress()).thenReturn(expectedFederation.getAddress());
         int expectedFederationSize = expectedFederation.getSize();
         setupActiveFederationKeys(expectedFederationSize);
         // act
@@ -68,10 +73,27 @@ class FederationProviderFromFederatorSupportTest {
         assertEquals(expectedFederationAddress, actualFederationAddress);
     }
 
+    @Test
+    void getActiveFederation_shouldReadAllItsFieldsOnTheSameSnapshot() {
+        // arrange
+        Federation expectedFederation = createP2shP2wshErpFederation();
+        setupActiveFederation(expectedFederation);
+        when(bridgeSnapshotMock.getFederationAddress()).thenReturn(expectedFederation.getAddress());
+        setupActiveFederationKeys(expectedFederation.getSize());
+        // act
+        federationProvider.getActiveFederation();
+        // assert
+        verify(federatorSupportMock, times(1)).snapshotAtBestBlock();
+        verify(federatorSupportMock, never()).getFederationMembers();
+        verify(federatorSupportMock, never()).getFederationCreationTime();
+        verify(federatorSupportMock, never()).getFederationCreationBlockNumber();
+        verify(federatorSupportMock, never()).getFederationAddress();
+    }
+
     private void setupActiveFederation(Federation activeFederation) {
         when(federatorSupportMock.getFederationSize()).thenReturn(activeFederation.getSize());
         when(federatorSupportMock.getFederationThreshold()).thenReturn(activeFederation.getNumberOfSignaturesRequired());
-        when(federatorSupportMock.getFederationCreationTime()).thenReturn(activeFederation.getCreationTime());
+        when(bridgeSnapshotMock.getFederationCreationTime()).thenReturn(activeFederation.getCreationTime());
         when(federatorSupportMock.getBtcParams()).thenReturn(activeFederation.getBtcParams());
     }
 
@@ -86,7 +108,7 @@ class FederationProviderFromFederatorSupportTest {
             buildBtcECKey(10000), buildBtcECKey(20000), buildBtcECKey(30000)
         );
         Address unknownFederationAddress = BitcoinTestUtils.createP2SHMultisigAddress(networkParameters, unknownFederationKeys);
-        when(federatorSupportMock.getFederationAddress()).thenReturn(unknownFederationAddress);
+        when(bridgeSnapshotMock.getFederationAddress()).thenReturn(unknownFederationAddress);
 
         // act & assert
         assertThrows(IllegalStateException.class, () -> federationProvider.getActiveFederation());
@@ -107,26 +129,26 @@ class FederationProviderFromFederatorSupportTest {
     @Test
     void getRetiringFederation_none() {
         // Arrange
-        when(federatorSupportMock.getRetiringFederationSize()).thenReturn(FEDERATION_NON_EXISTENT.getCode());
+        when(bridgeSnapshotMock.getRetiringFederationSize()).thenReturn(FEDERATION_NON_EXISTENT.getCode());
         assertEquals(Optional.empty(), federationProvider.getRetiringFederation());
         // Act & Assert
-        verify(federatorSupportMock).getRetiringFederationSize();
+        verify(bridgeSnapshotMock).getRetiringFederationSize();
     }
 
     @Test
     void getRetiringFederation_whenAddressNotPresent_shouldThrowIllegalStateException() {
         // Arrange
-        when(federatorSupportMock.getRetiringFederationSize()).thenReturn(3);
-        when(federatorSupportMock.getRetiringFederationAddress()).thenReturn(Optional.empty()); // Address is missing
+        when(bridgeSnapshotMock.getRetiringFederationSize()).thenReturn(3);
+        when(bridgeSnapshotMock.getRetiringFederationAddress()).thenReturn(Optional.empty()); // Address is missing
         // Act & Assert
         assertThrows(IllegalStateException.class, () -> federationProvider.getRetiringFederation());
     }
 
     private void setupRetiringFederation(Federation retiringFederation) {
-        when(federatorSupportMock.getRetiringFederationSize()).thenReturn(retiringFederation.getSize());
+        when(bridgeSnapshotMock.getRetiringFederationSize()).thenReturn(retiringFederation.getSize());
         when(federatorSupportMock.getRetiringFederationThreshold()).thenReturn(retiringFederation.getNumberOfSignaturesRequired());
-        when(federatorSupportMock.getRetiringFederationCreationTime()).thenReturn(creationTime);
-        when(federatorSupportMock.getRetiringFederationAddress()).thenReturn(Optional.of(retiringFederation.getAddress()));
+        when(bridgeSnapshotMock.getRetiringFederationCreationTime()).thenReturn(creationTime);
+        when(bridgeSnapshotMock.getRetiringFederationAddress()).thenReturn(Optional.of(retiringFederation.getAddress()));
         when(federatorSupportMock.getBtcParams()).thenReturn(networkParameters);
     }
 
@@ -153,13 +175,13 @@ class FederationProviderFromFederatorSupportTest {
     @Test
     void getProposedFederation_whenProposedFederationSizeIsNonExistent_shouldReturnEmptyOptional() {
         // Arrange
-        when(federatorSupportMock.getProposedFederationSize())
+        when(bridgeSnapshotMock.getProposedFederationSize())
             .thenReturn(Optional.of(FEDERATION_NON_EXISTENT.getCode()));
         // Act
         Optional<Federation> proposedFederation = federationProvider.getProposedFederation();
         // Assert
         assertFalse(proposedFederation.isPresent());
-        verify(federatorSupportMock).getProposedFederationSize();
+        verify(bridgeSnapshotMock).getProposedFederationSize();
     }
 
     @Test
@@ -167,8 +189,8 @@ class FederationProviderFromFederatorSupportTest {
         // Arrange
         Federation expectedFederation = createP2shP2wshErpFederation();
         setupProposedFederation(expectedFederation);
-        when(federatorSupportMock.getProposedFederatorPublicKeyOfType(0, FederationMember.KeyType.BTC))
-            .thenReturn(Optional.empty());
+        setupProposedFederationKeys(expectedFederation.getSize());
+        when(bridgeSnapshotMock.getProposedFederationCreationTime()).thenReturn(Optional.empty());
         // Act & Assert
         assertThrows(IllegalStateException.class, () -> federationProvider.getProposedFederation());
     }
@@ -191,11 +213,11 @@ class FederationProviderFromFederatorSupportTest {
     }
 
     private void setupProposedFederation(Federation federation) {
-        when(federatorSupportMock.getProposedFederationSize()).thenReturn(Optional.of(federation.getSize()));
-        when(federatorSupportMock.getProposedFederationCreationTime()).thenReturn(Optional.of(federation.getCreationTime()));
-        when(federatorSupportMock.getProposedFederationAddress()).thenReturn(Optional.of(federation.getAddress()));
+        when(bridgeSnapshotMock.getProposedFederationSize()).thenReturn(Optional.of(federation.getSize()));
+        when(bridgeSnapshotMock.getProposedFederationCreationTime()).thenReturn(Optional.of(federation.getCreationTime()));
+        when(bridgeSnapshotMock.getProposedFederationAddress()).thenReturn(Optional.of(federation.getAddress()));
         when(federatorSupportMock.getBtcParams()).thenReturn(federation.getBtcParams());
-        when(federatorSupportMock.getProposedFederationCreationBlockNumber()).thenReturn(Optional.of(federation.getCreationBlockNumber()));
+        when(bridgeSnapshotMock.getProposedFederationCreationBlockNumber()).thenReturn(Optional.of(federation.getCreationBlockNumber()));
     }
 
     @Test
@@ -247,30 +269,26 @@ class FederationProviderFromFederatorSupportTest {
     }
 
     private void setupActiveFederationKeys(int federationSize) {
-        for (int i = 0; i < federationSize; i++) {
-            int privateKey = (i + 1) * 1000;
-            when(federatorSupportMock.getFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC)).thenReturn(buildECKey(privateKey));
-            when(federatorSupportMock.getFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK)).thenReturn(buildECKey(privateKey + 1));
-            when(federatorSupportMock.getFederatorPublicKeyOfType(i, FederationMember.KeyType.MST)).thenReturn(buildECKey(privateKey + 2L));
-        }
+        when(bridgeSnapshotMock.getFederationMembers()).thenReturn(buildFederationMembers(federationSize));
     }
 
     private void setupRetiringFederationKeys(int federationSize) {
-        for (int i = 0; i < federationSize; i++) {
-            int privateKey = (i + 1) * 1000;
-            when(federatorSupportMock.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC)).thenReturn(buildECKey(privateKey));
-            when(federatorSupportMock.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK)).thenReturn(buildECKey(privateKey + 1));
-            when(federatorSupportMock.getRetiringFederatorPublicKeyOfType(i, FederationMember.KeyType.MST)).thenReturn(buildECKey(privateKey + 2));
-        }
+        when(bridgeSnapshotMock.getRetiringFederationMembers()).thenReturn(buildFederationMembers(federationSize));
     }
 
     private void setupProposedFederationKeys(int federationSize) {
-        for (int i = 0; i < federationSize; i++) {
+        when(bridgeSnapshotMock.getProposedFederationMembers()).thenReturn(buildFederationMembers(federationSize));
+    }
+
+    private static List<FederationMember> buildFederationMembers(int federationSize) {
+        return IntStream.range(0, federationSize).mapToObj(i -> {
             int privateKey = (i + 1) * 1000;
-            when(federatorSupportMock.getProposedFederatorPublicKeyOfType(i, FederationMember.KeyType.BTC)).thenReturn(Optional.of(buildECKey(privateKey)));
-            when(federatorSupportMock.getProposedFederatorPublicKeyOfType(i, FederationMember.KeyType.RSK)).thenReturn(Optional.of(buildECKey(privateKey + 1)));
-            when(federatorSupportMock.getProposedFederatorPublicKeyOfType(i, FederationMember.KeyType.MST)).thenReturn(Optional.of(buildECKey(privateKey + 2L)));
-        }
+            return new FederationMember(
+                BtcECKey.fromPublicOnly(buildECKey(privateKey).getPubKey()),
+                buildECKey(privateKey + 1),
+                buildECKey(privateKey + 2L)
+            );
+        }).toList();
     }
 
     private static BtcECKey buildBtcECKey(long seed) {
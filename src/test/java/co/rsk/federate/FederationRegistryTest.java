@@ -0,0 +1,109 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.rsk.bitcoinj.core.BtcECKey;
+import co.rsk.bitcoinj.core.NetworkParameters;
+import co.rsk.peg.federation.Federation;
+import co.rsk.peg.federation.FederationArgs;
+import co.rsk.peg.federation.FederationFactory;
+import co.rsk.peg.federation.FederationMember;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import org.ethereum.crypto.ECKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FederationRegistryTest {
+
+    private static final NetworkParameters NETWORK_PARAMETERS = NetworkParameters.fromID(NetworkParameters.ID_REGTEST);
+    private static final Federation FIRST_FEDERATION = buildFederation(1000, 2000, 3000);
+    private static final Federation SECOND_FEDERATION = buildFederation(4000, 5000, 6000);
+
+    private FederationProvider federationProvider;
+    private FederationRegistry federationRegistry;
+
+    @BeforeEach
+    void setUp() {
+        federationProvider = mock(FederationProvider.class);
+        federationRegistry = new FederationRegistry(federationProvider);
+    }
+
+    @Test
+    void getActiveFederation_whenAddressDoesNotChange_shouldBuildItOnce() {
+        when(federationProvider.getActiveFederationAddress()).thenReturn(FIRST_FEDERATION.getAddress());
+        when(federationProvider.getActiveFederation()).thenReturn(FIRST_FEDERATION);
+
+        assertSame(FIRST_FEDERATION, federationRegistry.getActiveFederation());
+        assertSame(FIRST_FEDERATION, federationRegistry.getActiveFederation());
+
+        verify(federationProvider, times(1)).getActiveFederation();
+        verify(federationProvider, times(2)).getActiveFederationAddress();
+    }
+
+    @Test
+    void getActiveFederation_whenAddressChanges_shouldBuildTheNewOne() {
+        when(federationProvider.getActiveFederationAddress()).thenReturn(FIRST_FEDERATION.getAddress());
+        when(federationProvider.getActiveFederation()).thenReturn(FIRST_FEDERATION);
+        federationRegistry.getActiveFederation();
+
+        when(federationProvider.getActiveFederationAddress()).thenReturn(SECOND_FEDERATION.getAddress());
+        when(federationProvider.getActiveFederation()).thenReturn(SECOND_FEDERATION);
+
+        assertSame(SECOND_FEDERATION, federationRegistry.getActiveFederation());
+        verify(federationProvider, times(2)).getActiveFederation();
+    }
+
+    @Test
+    void getActiveFederation_whenItChangesWhileBeingBuilt_shouldNotKeepIt() {
+        when(federationProvider.getActiveFederationAddress()).thenReturn(FIRST_FEDERATION.getAddress());
+        when(federationProvider.getActiveFederation()).thenReturn(SECOND_FEDERATION);
+
+        assertSame(SECOND_FEDERATION, federationRegistry.getActiveFederation());
+        federationRegistry.getActiveFederation();
+
+        verify(federationProvider, times(2)).getActiveFederation();
+    }
+
+    @Test
+    void getRetiringFederation_whenThereIsNoRetiringFederation_shouldNotBuildIt() {
+        when(federationProvider.getRetiringFederationAddress()).thenReturn(Optional.empty());
+
+        assertTrue(federationRegistry.getRetiringFederation().isEmpty());
+        verify(federationProvider, never()).getRetiringFederation();
+    }
+
+    @Test
+    void getRetiringFederation_whenItWasTheActiveOne_shouldReuseTheBuiltFederation() {
+        when(federationProvider.getActiveFederationAddress()).thenReturn(FIRST_FEDERATION.getAddress());
+        when(federationProvider.getActiveFederation()).thenReturn(FIRST_FEDERATION);
+        federationRegistry.getActiveFederation();
+        when(federationProvider.getRetiringFederationAddress()).thenReturn(Optional.of(FIRST_FEDERATION.getAddress()));
+
+        assertEquals(Optional.of(FIRST_FEDERATION), federationRegistry.getRetiringFederation());
+        verify(federationProvider, never()).getRetiringFederation();
+    }
+
+    private static Federation buildFederation(Integer... pks) {
+        FederationArgs federationArgs = new FederationArgs(
+            Arrays.stream(pks).map(n -> new FederationMember(
+                BtcECKey.fromPrivate(BigInteger.valueOf(n)),
+                new ECKey(),
+                new ECKey()
+            )).toList(),
+            Instant.ofEpochMilli(1000L),
+            0L,
+            NETWORK_PARAMETERS
+        );
+        return FederationFactory.buildStandardMultiSigFederation(federationArgs);
+    }
+}
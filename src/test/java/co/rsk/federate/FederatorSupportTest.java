@@ -35,6 +35,9 @@ import org.bitcoinj.core.TransactionWitness;
 import org.bouncycastle.util.encoders.Hex;
 import org.ethereum.core.Blockchain;
 import org.ethereum.crypto.ECKey;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.program.ProgramResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
@@ -86,15 +89,93 @@ class FederatorSupportTest {
 
         doAnswer((Answer<Void>) invocation -> {
             Object[] args = invocation.getArguments();
-            assertEquals(Bridge.RECEIVE_HEADERS, args[2]);
-            Object secondArg = ((Object[]) args[3])[0];
+            assertEquals(BridgeTxKey.of(Bridge.RECEIVE_HEADERS, block.getHash()), args[0]);
+            assertEquals(Bridge.RECEIVE_HEADERS, args[3]);
+            Object secondArg = ((Object[]) args[4])[0];
             assertEquals(Hex.toHexString(headerToExpect), Hex.toHexString((byte[])secondArg));
             return null;
-        }).when(bridgeTransactionSender).sendRskTx(any(), any(), any(), any());
+        }).when(bridgeTransactionSender).sendTrackedRskTx(any(), any(), any(), any(), any());
 
         fs.sendReceiveHeaders(headersToSend);
 
-        verify(bridgeTransactionSender, times(1)).sendRskTx(any(), any(), any(), any());
+        verify(bridgeTransactionSender, times(1)).sendTrackedRskTx(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void sendRegisterBtcTransaction_whenRegistrationIsInFlight_shouldNotExecuteIt() {
+        org.bitcoinj.core.NetworkParameters networkParameters = ThinConverter.toOriginalInstance(
+            BridgeMainNetConstants.getInstance().getBtcParamsString()
+        );
+        org.bitcoinj.core.Transaction tx = new org.bitcoinj.core.Transaction(networkParameters);
+        when(bridgeTransactionSender.isInFlight(BridgeTxKey.of(Bridge.REGISTER_BTC_TRANSACTION, tx.getTxId())))
+            .thenReturn(true);
+
+        Optional<BridgePreflight> rejection = federatorSupport.sendRegisterBtcTransaction(tx, 1, mock(Proof.class));
+
+        assertTrue(rejection.isEmpty());
+        verify(bridgeTransactionSender, never()).preflight(any(), any(), any(Object[].class));
+        verify(bridgeTransactionSender, never()).sendTrackedRskTxWithGasLimit(any(), any(), any(), any(), anyLong(), any(Object[].class));
+    }
+
+    @Test
+    void sendRegisterBtcTransaction_whenBridgeEmitsNoEvent_shouldReturnItAsRefusedAndNotSendIt() {
+        // Arrange
+        org.bitcoinj.core.Transaction tx = new org.bitcoinj.core.Transaction(
+            ThinConverter.toOriginalInstance(BridgeMainNetConstants.getInstance().getBtcParamsString())
+        );
+        ProgramResult programResult = mock(ProgramResult.class);
+        when(programResult.getLogInfoList()).thenReturn(Collections.emptyList());
+        when(bridgeTransactionSender.preflight(any(), any(), any(Object[].class)))
+            .thenReturn(new BridgePreflight(Bridge.REGISTER_BTC_TRANSACTION, programResult));
+
+        // Act
+        Optional<BridgePreflight> refusal = federatorSupport.sendRegisterBtcTransaction(tx, 1, mock(Proof.class));
+
+        // Assert
+        assertTrue(refusal.isPresent());
+        assertEquals("no Bridge event emitted", refusal.get().getRejectionReason());
+        verify(bridgeTransactionSender, never()).sendTrackedRskTxWithGasLimit(any(), any(), any(), any(), anyLong(), any(Object[].class));
+    }
+
+    @Test
+    void sendRegisterBtcTransaction_whenExecutionThrows_shouldNotRefuseItNorSendIt() {
+        // Arrange
+        org.bitcoinj.core.Transaction tx = new org.bitcoinj.core.Transaction(
+            ThinConverter.toOriginalInstance(BridgeMainNetConstants.getInstance().getBtcParamsString())
+        );
+        ProgramResult programResult = mock(ProgramResult.class);
+        when(programResult.getException()).thenReturn(new RuntimeException("block store not available"));
+        when(bridgeTransactionSender.preflight(any(), any(), any(Object[].class)))
+            .thenReturn(new BridgePreflight(Bridge.REGISTER_BTC_TRANSACTION, programResult));
+
+        // Act
+        Optional<BridgePreflight> refusal = federatorSupport.sendRegisterBtcTransaction(tx, 1, mock(Proof.class));
+
+        // Assert
+        assertTrue(refusal.isEmpty());
+        verify(bridgeTransactionSender, never()).sendTrackedRskTxWithGasLimit(any(), any(), any(), any(), anyLong(), any(Object[].class));
+    }
+
+    @Test
+    void sendRegisterBtcTransaction_whenBridgeEmitsAnEvent_shouldSendIt() {
+        // Arrange
+        org.bitcoinj.core.Transaction tx = new org.bitcoinj.core.Transaction(
+            ThinConverter.toOriginalInstance(BridgeMainNetConstants.getInstance().getBtcParamsString())
+        );
+        LogInfo bridgeEvent = new LogInfo(PrecompiledContracts.BRIDGE_ADDR.getBytes(), Collections.emptyList(), new byte[0]);
+        ProgramResult programResult = mock(ProgramResult.class);
+        when(programResult.getLogInfoList()).thenReturn(List.of(bridgeEvent));
+        when(programResult.getGasUsed()).thenReturn(100_000L);
+        when(bridgeTransactionSender.preflight(any(), any(), any(Object[].class)))
+            .thenReturn(new BridgePreflight(Bridge.REGISTER_BTC_TRANSACTION, programResult));
+
+        // Act
+        Optional<BridgePreflight> refusal = federatorSupport.sendRegisterBtcTransaction(tx, 1, mock(Proof.class));
+
+        // Assert
+        assertTrue(refusal.isEmpty());
+        verify(bridgeTransactionSender, times(1))
+            .sendTrackedRskTxWithGasLimit(any(), any(), any(), eq(Bridge.REGISTER_BTC_TRANSACTION), eq(100_000L), any(Object[].class));
     }
 
     @Test
@@ -129,18 +210,19 @@ class FederatorSupportTest {
 
         doAnswer((Answer<Void>) invocation -> {
             Object[] args = invocation.getArguments();
-            assertEquals(BridgeMethods.REGISTER_BTC_COINBASE_TRANSACTION.getFunction(), args[2]);
-            assertArrayEquals(coinbaseInformation.getSerializedCoinbaseTransactionWithoutWitness(), (byte[])args[3]);
-            assertEquals(coinbaseInformation.getBlockHash().getBytes(), args[4]);
-            assertArrayEquals(coinbaseInformation.getPmt().bitcoinSerialize(), (byte[])args[5]);
-            assertEquals(coinbaseInformation.getWitnessRoot().getBytes(), args[6]);
-            assertArrayEquals(coinbaseInformation.getCoinbaseWitnessReservedValue(), (byte[])args[7]);
+            assertEquals(BridgeTxKey.of(Bridge.REGISTER_BTC_COINBASE_TRANSACTION, coinbaseInformation.getBlockHash()), args[0]);
+            assertEquals(BridgeMethods.REGISTER_BTC_COINBASE_TRANSACTION.getFunction(), args[3]);
+            assertArrayEquals(coinbaseInformation.getSerializedCoinbaseTransactionWithoutWitness(), (byte[])args[4]);
+            assertEquals(coinbaseInformation.getBlockHash().getBytes(), args[5]);
+            assertArrayEquals(coinbaseInformation.getPmt().bitcoinSerialize(), (byte[])args[6]);
+            assertEquals(coinbaseInformation.getWitnessRoot().getBytes(), args[7]);
+            assertArrayEquals(coinbaseInformation.getCoinbaseWitnessReservedValue(), (byte[])args[8]);
             return null;
-        }).when(bridgeTransactionSender).sendRskTx(any(), any(), any(), any(), any(), any(), any(), any());
+        }).when(bridgeTransactionSender).sendTrackedRskTx(any(), any(), any(), any(), any(), any(), any(), any(), any());
 
         fs.sendRegisterCoinbaseTransaction(coinbaseInformation);
 
-        verify(bridgeTransactionSender, times(1)).sendRskTx(any(), any(), any(), any(), any(), any(), any(), any());
+        verify(bridgeTransactionSender, times(1)).sendTrackedRskTx(any(), any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -323,6 +405,81 @@ class FederatorSupportTest {
         );
     }
 
+    @Test
+    void getBtcTxHashProcessedHeight_whenReadingFromBridgeStorage_shouldNotCallTheBridge() {
+        // Arrange
+        BridgeStorageReader bridgeStorageReader = mock(BridgeStorageReader.class);
+        FederatorSupport fs = new FederatorSupport(
+            mock(Blockchain.class),
+            new TestSystemProperties(),
+            bridgeTransactionSender,
+            bridgeStorageReader,
+            null
+        );
+        Sha256Hash processedTxHash = createHash();
+        Sha256Hash notProcessedTxHash = Sha256Hash.ZERO_HASH;
+        when(bridgeStorageReader.getBtcTxHashProcessedHeight(co.rsk.bitcoinj.core.Sha256Hash.wrap(processedTxHash.getBytes())))
+            .thenReturn(Optional.of(100L));
+        when(bridgeStorageReader.getBtcTxHashProcessedHeight(co.rsk.bitcoinj.core.Sha256Hash.wrap(notProcessedTxHash.getBytes())))
+            .thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertTrue(fs.isBtcTxHashAlreadyProcessed(processedTxHash));
+        assertEquals(100L, fs.getBtcTxHashProcessedHeight(processedTxHash));
+        assertFalse(fs.isBtcTxHashAlreadyProcessed(notProcessedTxHash));
+        assertEquals(-1L, fs.getBtcTxHashProcessedHeight(notProcessedTxHash));
+        verify(bridgeTransactionSender, never()).callTx(any(), any(), any());
+    }
+
+    @Test
+    void hasBlockCoinbaseInformed_whenReadingFromBridgeStorage_shouldNotCallTheBridge() {
+        // Arrange
+        BridgeStorageReader bridgeStorageReader = mock(BridgeStorageReader.class);
+        FederatorSupport fs = new FederatorSupport(
+            mock(Blockchain.class),
+            new TestSystemProperties(),
+            bridgeTransactionSender,
+            bridgeStorageReader,
+            null
+        );
+        Sha256Hash blockHash = createHash();
+        when(bridgeStorageReader.hasBlockCoinbaseInformed(co.rsk.bitcoinj.core.Sha256Hash.wrap(blockHash.getBytes())))
+            .thenReturn(true);
+        when(bridgeStorageReader.getBtcBlockchainBestChainHeight()).thenReturn(10);
+
+        // Act & Assert
+        assertTrue(fs.hasBlockCoinbaseInformed(blockHash));
+        assertEquals(10, fs.getBtcBlockchainBestChainHeight());
+        verify(bridgeTransactionSender, never()).callTx(any(), any());
+        verify(bridgeTransactionSender, never()).callTx(any(), any(), any());
+    }
+
+    @Test
+    void getFederationMembers_shouldReadThemOnASnapshotOfTheBestBlock() {
+        // Arrange
+        BridgeSnapshot.Factory bridgeSnapshotFactory = mock(BridgeSnapshot.Factory.class);
+        BridgeSnapshot snapshot = mock(BridgeSnapshot.class);
+        when(bridgeSnapshotFactory.atBestBlock()).thenReturn(snapshot);
+        List<FederationMember> expectedMembers = List.of(new FederationMember(new BtcECKey(), new ECKey(), new ECKey()));
+        when(snapshot.getFederationMembers()).thenReturn(expectedMembers);
+        FederatorSupport fs = new FederatorSupport(
+            mock(Blockchain.class),
+            new TestSystemProperties(),
+            bridgeTransactionSender,
+            null,
+            bridgeSnapshotFactory
+        );
+
+        // Act
+        List<FederationMember> members = fs.getFederationMembers();
+
+        // Assert
+        assertEquals(expectedMembers, members);
+        verify(bridgeSnapshotFactory, times(1)).atBestBlock();
+        verify(bridgeTransactionSender, never()).callTx(any(), any());
+        verify(bridgeTransactionSender, never()).callTx(any(), any(), any());
+    }
+
     @Test
     void getProposedFederationCreationTime_whenCreationTimeIsNull_shouldReturnEmptyOptional() {
         // Arrange
@@ -0,0 +1,54 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HeaderRelayMetricsTest {
+
+    private static final Instant START = Instant.ofEpochSecond(1_700_000_000L);
+
+    private Clock clock;
+    private HeaderRelayMetrics headerRelayMetrics;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(START);
+        headerRelayMetrics = new HeaderRelayMetrics(clock);
+    }
+
+    @Test
+    void onTurn_whenReachingTheTip_shouldNotBeCatchingUp() {
+        headerRelayMetrics.onTurn(1, true);
+
+        assertFalse(headerRelayMetrics.isCatchingUp());
+        assertEquals(1, headerRelayMetrics.getBatchesSentLastTurn());
+        assertEquals(Optional.empty(), headerRelayMetrics.getLastCatchUpLatencyToTip());
+    }
+
+    @Test
+    void onTurn_whenCatchingUpForSeveralTurns_shouldMeasureTheLatencyToTipFromTheFirstOne() {
+        headerRelayMetrics.onTurn(10, false);
+        when(clock.instant()).thenReturn(START.plusSeconds(60));
+        headerRelayMetrics.onTurn(10, false);
+        assertTrue(headerRelayMetrics.isCatchingUp());
+
+        when(clock.instant()).thenReturn(START.plusSeconds(90));
+        headerRelayMetrics.onTurn(3, true);
+
+        assertFalse(headerRelayMetrics.isCatchingUp());
+        assertEquals(3, headerRelayMetrics.getBatchesSentLastTurn());
+        assertEquals(23, headerRelayMetrics.getTotalBatchesSent());
+        assertEquals(Optional.of(Duration.ofSeconds(90)), headerRelayMetrics.getLastCatchUpLatencyToTip());
+    }
+}
@@ -0,0 +1,128 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.federate.InFlightBridgeTxTracker.ResolvedTx;
+import co.rsk.federate.InFlightBridgeTxTracker.TxStatus;
+import co.rsk.federate.signing.utils.TestUtils;
+import co.rsk.peg.Bridge;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InFlightBridgeTxTrackerTest {
+
+    private static final long RETENTION_BLOCKS = 3L;
+    private static final BridgeTxKey KEY = BridgeTxKey.of(Bridge.REGISTER_BTC_TRANSACTION, "btcTxId");
+    private static final Keccak256 TX_HASH = TestUtils.createHash(1);
+    private static final long GAS_USED = 50_000L;
+
+    private List<SubmittedRskTx> minedTxs;
+    private List<Long> minedTxsGasUsed;
+    private InFlightBridgeTxTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        minedTxs = new ArrayList<>();
+        minedTxsGasUsed = new ArrayList<>();
+        tracker = new InFlightBridgeTxTracker(RETENTION_BLOCKS, (minedTx, gasUsed) -> {
+            minedTxs.add(minedTx);
+            minedTxsGasUsed.add(gasUsed);
+        });
+    }
+
+    @Test
+    void tryAdd_whenTxIsAlreadyInFlight_shouldNotAddIt() {
+        assertTrue(tracker.tryAdd(KEY));
+        assertFalse(tracker.tryAdd(KEY));
+        assertTrue(tracker.tryAdd(BridgeTxKey.of(Bridge.REGISTER_BTC_TRANSACTION, "otherBtcTxId")));
+    }
+
+    @Test
+    void contains_whenTxIsInFlight_shouldReturnTrue() {
+        assertFalse(tracker.contains(KEY));
+
+        tracker.tryAdd(KEY);
+
+        assertTrue(tracker.contains(KEY));
+    }
+
+    @Test
+    void onSubmitted_whenTxWasNotSubmitted_shouldForgetIt() {
+        tracker.tryAdd(KEY);
+
+        tracker.onSubmitted(KEY, Optional.empty());
+
+        assertTrue(tracker.tryAdd(KEY));
+    }
+
+    @Test
+    void onRskBestBlock_whenTxIsPending_shouldKeepIt() {
+        submit(10L);
+
+        tracker.onRskBestBlock(11L, txHash -> ResolvedTx.of(TxStatus.PENDING));
+
+        assertFalse(tracker.tryAdd(KEY));
+    }
+
+    @Test
+    void onRskBestBlock_whenTxWasDropped_shouldForgetIt() {
+        submit(10L);
+
+        tracker.onRskBestBlock(11L, txHash -> ResolvedTx.of(TxStatus.DROPPED));
+
+        assertTrue(tracker.tryAdd(KEY));
+    }
+
+    @Test
+    void onRskBestBlock_whenTxFailed_shouldForgetIt() {
+        submit(10L);
+
+        tracker.onRskBestBlock(11L, txHash -> ResolvedTx.of(TxStatus.FAILED));
+
+        assertTrue(tracker.tryAdd(KEY));
+    }
+
+    @Test
+    void onRskBestBlock_whenTxWasMined_shouldKeepItForTheRetentionBlocks() {
+        submit(10L);
+
+        tracker.onRskBestBlock(11L, txHash -> ResolvedTx.mined(GAS_USED));
+        tracker.onRskBestBlock(13L, txHash -> ResolvedTx.mined(GAS_USED));
+        assertEquals(1, tracker.size());
+
+        tracker.onRskBestBlock(14L, txHash -> ResolvedTx.mined(GAS_USED));
+        assertEquals(0, tracker.size());
+        assertEquals(1, minedTxs.size());
+        assertEquals(List.of(GAS_USED), minedTxsGasUsed);
+    }
+
+    @Test
+    void onRskBestBlock_whenBestBlockDidNotChange_shouldNotResolveAgain() {
+        submit(10L);
+        tracker.onRskBestBlock(11L, txHash -> ResolvedTx.of(TxStatus.PENDING));
+
+        tracker.onRskBestBlock(11L, txHash -> ResolvedTx.of(TxStatus.DROPPED));
+
+        assertEquals(1, tracker.size());
+    }
+
+    @Test
+    void onRskBestBlock_whenTxWasNotSubmittedYet_shouldKeepIt() {
+        tracker.tryAdd(KEY);
+
+        tracker.onRskBestBlock(11L, txHash -> ResolvedTx.of(TxStatus.DROPPED));
+
+        assertFalse(tracker.tryAdd(KEY));
+    }
+
+    private void submit(long bestBlockNumber) {
+        tracker.tryAdd(KEY);
+        tracker.onSubmitted(KEY, Optional.of(new SubmittedRskTx(TX_HASH, 0L, bestBlockNumber, Bridge.REGISTER_BTC_TRANSACTION.name, 100)));
+    }
+}
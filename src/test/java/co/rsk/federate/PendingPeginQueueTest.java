@@ -0,0 +1,137 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import co.rsk.federate.PendingPeginQueue.Status;
+import java.util.List;
+import java.util.Set;
+import org.bitcoinj.core.Sha256Hash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PendingPeginQueueTest {
+
+    private static final Sha256Hash WTX_ID_1 = Sha256Hash.of(new byte[]{ 1 });
+    private static final Sha256Hash WTX_ID_2 = Sha256Hash.of(new byte[]{ 2 });
+
+    private PendingPeginQueue pendingPegins;
+
+    @BeforeEach
+    void setUp() {
+        pendingPegins = new PendingPeginQueue();
+    }
+
+    @Test
+    void sync_shouldAddUnknownTxsAsReadyToRegisterAndDropMissingOnes() {
+        pendingPegins.sync(List.of(WTX_ID_1));
+        pendingPegins.markAwaitingProof(WTX_ID_1);
+
+        pendingPegins.sync(List.of(WTX_ID_2));
+
+        assertNull(pendingPegins.getStatus(WTX_ID_1));
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_2));
+        assertEquals(0, pendingPegins.size(Status.AWAITING_PROOF));
+    }
+
+    @Test
+    void sync_shouldKeepStatusOfKnownTxs() {
+        pendingPegins.sync(List.of(WTX_ID_1));
+        pendingPegins.markAwaitingConfirmations(WTX_ID_1);
+
+        pendingPegins.sync(Set.of(WTX_ID_1));
+
+        assertEquals(Status.AWAITING_CONFIRMATIONS, pendingPegins.getStatus(WTX_ID_1));
+    }
+
+    @Test
+    void onNewBtcBestBlock_shouldMakeTxsAwaitingConfirmationsOrProofReady() {
+        Sha256Hash registeredWtxId = Sha256Hash.of(new byte[]{ 3 });
+        pendingPegins.sync(List.of(WTX_ID_1, WTX_ID_2, registeredWtxId));
+        pendingPegins.markAwaitingConfirmations(WTX_ID_1);
+        pendingPegins.markAwaitingProof(WTX_ID_2);
+        pendingPegins.markRegistered(registeredWtxId, 100);
+
+        pendingPegins.onNewBtcBestBlock();
+
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_1));
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_2));
+        assertEquals(Status.REGISTERED, pendingPegins.getStatus(registeredWtxId));
+        assertEquals(2, pendingPegins.size(Status.READY_TO_REGISTER));
+    }
+
+    @Test
+    void onProofAdded_shouldOnlyMakeThatTxReady() {
+        pendingPegins.sync(List.of(WTX_ID_1, WTX_ID_2));
+        pendingPegins.markAwaitingProof(WTX_ID_1);
+        pendingPegins.markAwaitingProof(WTX_ID_2);
+
+        pendingPegins.onProofAdded(WTX_ID_1);
+
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_1));
+        assertFalse(pendingPegins.isReadyToRegister(WTX_ID_2));
+    }
+
+    @Test
+    void onRskBestBlock_shouldMakeRegisteredTxReadyOnlyOnceFinalityHeightIsReached() {
+        pendingPegins.sync(List.of(WTX_ID_1));
+        pendingPegins.markRegistered(WTX_ID_1, 1_001);
+
+        pendingPegins.onRskBestBlock(1_000);
+        assertEquals(Status.REGISTERED, pendingPegins.getStatus(WTX_ID_1));
+
+        pendingPegins.onRskBestBlock(1_001);
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_1));
+        assertEquals(0, pendingPegins.size(Status.REGISTERED));
+    }
+
+    @Test
+    void onRskBestBlock_shouldMakeQuarantinedTxReadyOnlyOnceQuarantineIsOver() {
+        pendingPegins.sync(List.of(WTX_ID_1));
+        pendingPegins.markQuarantined(WTX_ID_1, 1_000);
+
+        pendingPegins.onRskBestBlock(1_000 + PendingPeginQueue.QUARANTINE_BLOCKS - 1);
+        assertEquals(Status.QUARANTINED, pendingPegins.getStatus(WTX_ID_1));
+
+        pendingPegins.onRskBestBlock(1_000 + PendingPeginQueue.QUARANTINE_BLOCKS);
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_1));
+        assertEquals(0, pendingPegins.size(Status.QUARANTINED));
+    }
+
+    @Test
+    void markQuarantined_whenRejectedAgain_shouldDoubleTheQuarantine() {
+        pendingPegins.sync(List.of(WTX_ID_1));
+        pendingPegins.markQuarantined(WTX_ID_1, 1_000);
+        pendingPegins.onRskBestBlock(1_000 + PendingPeginQueue.QUARANTINE_BLOCKS);
+
+        pendingPegins.markQuarantined(WTX_ID_1, 2_000);
+
+        pendingPegins.onRskBestBlock(2_000 + PendingPeginQueue.QUARANTINE_BLOCKS);
+        assertEquals(Status.QUARANTINED, pendingPegins.getStatus(WTX_ID_1));
+        pendingPegins.onRskBestBlock(2_000 + 2 * PendingPeginQueue.QUARANTINE_BLOCKS);
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_1));
+    }
+
+    @Test
+    void markQuarantined_whenRejectedManyTimes_shouldNotExceedTheMaximumQuarantine() {
+        pendingPegins.sync(List.of(WTX_ID_1));
+        for (int i = 0; i < 20; i++) {
+            pendingPegins.markQuarantined(WTX_ID_1, 1_000);
+        }
+
+        pendingPegins.onRskBestBlock(1_000 + PendingPeginQueue.MAX_QUARANTINE_BLOCKS);
+        assertTrue(pendingPegins.isReadyToRegister(WTX_ID_1));
+    }
+
+    @Test
+    void remove_shouldForgetTheTx() {
+        pendingPegins.add(WTX_ID_1);
+
+        pendingPegins.remove(WTX_ID_1);
+
+        assertNull(pendingPegins.getStatus(WTX_ID_1));
+        assertEquals(0, pendingPegins.size(Status.READY_TO_REGISTER));
+    }
+}
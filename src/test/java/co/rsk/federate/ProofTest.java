@@ -1,10 +1,12 @@
 package co.rsk.federate;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import co.rsk.federate.helpers.ProofBuilder;
@@ -146,4 +148,33 @@ class ProofTest {
         pList4.forEach(p -> assertTrue(originalList4.contains(p)));
         pList5.forEach(p -> assertTrue(originalList5.contains(p)));
     }
+
+    @Test
+    void decode_shouldKeepTheEncodingAndSerializedPartialMerkleTree() {
+        Proof proof = pb.buildProof(SHA_1);
+        byte[] encoded = proof.getEnconded();
+
+        Proof decodedProof = new Proof(encoded, this.networkParameters);
+
+        assertArrayEquals(encoded, decodedProof.getEnconded());
+        assertArrayEquals(proof.getPartialMerkleTree().bitcoinSerialize(), decodedProof.getSerializedPartialMerkleTree());
+        assertEquals(proof, decodedProof);
+        assertEquals(proof.hashCode(), decodedProof.hashCode());
+    }
+
+    @Test
+    void getPartialMerkleTree_shouldDecodeItOnlyOnce() {
+        Proof proof = new Proof(pb.buildProof(SHA_1).getEnconded(), this.networkParameters);
+
+        assertSame(proof.getPartialMerkleTree(), proof.getPartialMerkleTree());
+    }
+
+    @Test
+    void getEnconded_shouldNotExposeTheCachedEncoding() {
+        Proof proof = pb.buildProof(SHA_1);
+
+        proof.getEnconded()[0] = 0;
+
+        assertEquals(ENCODED_RESULT, Hex.toHexString(proof.getEnconded()));
+    }
 }
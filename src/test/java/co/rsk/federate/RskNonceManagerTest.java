@@ -0,0 +1,62 @@
+package co.rsk.federate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import co.rsk.core.RskAddress;
+import co.rsk.core.bc.PendingState;
+import java.math.BigInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RskNonceManagerTest {
+
+    private static final RskAddress FEDERATOR_ADDRESS = new RskAddress("0x0000000000000000000000000000000000000001");
+    private static final long BEST_BLOCK_NUMBER = 10L;
+
+    private PendingState pendingState;
+    private RskNonceManager nonceManager;
+
+    @BeforeEach
+    void setUp() {
+        pendingState = mock(PendingState.class);
+        when(pendingState.getNonce(FEDERATOR_ADDRESS)).thenReturn(BigInteger.valueOf(5));
+        nonceManager = new RskNonceManager();
+    }
+
+    @Test
+    void next_whenTxsWereAddedOnTheSameBlock_shouldAssignSequentialNonces() {
+        long firstNonce = nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER);
+        nonceManager.onAdded(FEDERATOR_ADDRESS, firstNonce);
+        long secondNonce = nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER);
+        nonceManager.onAdded(FEDERATOR_ADDRESS, secondNonce);
+
+        assertEquals(5L, firstNonce);
+        assertEquals(6L, secondNonce);
+        assertEquals(7L, nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER));
+    }
+
+    @Test
+    void next_whenTxWasRejected_shouldResyncFromPendingState() {
+        nonceManager.onAdded(FEDERATOR_ADDRESS, nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER));
+        nonceManager.resync(FEDERATOR_ADDRESS);
+
+        assertEquals(5L, nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER));
+    }
+
+    @Test
+    void next_whenBestBlockChanges_shouldResyncFromPendingState() {
+        nonceManager.onAdded(FEDERATOR_ADDRESS, 8L);
+
+        assertEquals(5L, nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER + 1));
+    }
+
+    @Test
+    void next_whenPendingStateIsAhead_shouldUsePendingStateNonce() {
+        nonceManager.onAdded(FEDERATOR_ADDRESS, nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER));
+        when(pendingState.getNonce(FEDERATOR_ADDRESS)).thenReturn(BigInteger.valueOf(9));
+
+        assertEquals(9L, nonceManager.next(pendingState, FEDERATOR_ADDRESS, BEST_BLOCK_NUMBER));
+    }
+}
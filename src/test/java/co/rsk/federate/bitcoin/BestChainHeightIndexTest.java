@@ -0,0 +1,198 @@
+package co.rsk.federate.bitcoin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.OptionalInt;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.params.RegTestParams;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.BlockStoreException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BestChainHeightIndexTest {
+
+    private static final NetworkParameters PARAMETERS = RegTestParams.get();
+    private static final int FIRST_STORED_HEIGHT = 10;
+    private static final int CHAIN_HEIGHT = 30;
+
+    @TempDir
+    private Path tempDir;
+
+    private BlockStore blockStore;
+    private StoredBlock[] blocks;
+    private int nonce;
+
+    @BeforeEach
+    void setUp() throws BlockStoreException {
+        blockStore = mock(BlockStore.class);
+        blocks = new StoredBlock[CHAIN_HEIGHT + 1];
+        Sha256Hash previousHash = Sha256Hash.ZERO_HASH;
+        for (int height = FIRST_STORED_HEIGHT; height <= CHAIN_HEIGHT; height++) {
+            blocks[height] = storeBlock(previousHash, height);
+            previousHash = blocks[height].getHeader().getHash();
+        }
+    }
+
+    @Test
+    void getBlockHash_shouldReturnBestChainBlockHashesDownToTheFirstStoredBlock() throws BlockStoreException {
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.inMemory();
+
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+
+        for (int height = FIRST_STORED_HEIGHT; height <= CHAIN_HEIGHT; height++) {
+            assertEquals(Optional.of(blocks[height].getHeader().getHash()), bestChainHeightIndex.getBlockHash(height));
+        }
+        assertEquals(Optional.empty(), bestChainHeightIndex.getBlockHash(FIRST_STORED_HEIGHT - 1));
+        assertEquals(Optional.empty(), bestChainHeightIndex.getBlockHash(CHAIN_HEIGHT + 1));
+    }
+
+    @Test
+    void onNewBestBlock_whenIndexIsEmpty_shouldOnlyIndexUpToTheMaxDepth() throws BlockStoreException {
+        int maxDepthToIndex = 5;
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.inMemory(maxDepthToIndex);
+
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+
+        int lowestIndexedHeight = CHAIN_HEIGHT - maxDepthToIndex + 1;
+        for (int height = lowestIndexedHeight; height <= CHAIN_HEIGHT; height++) {
+            assertEquals(Optional.of(blocks[height].getHeader().getHash()), bestChainHeightIndex.getBlockHash(height));
+        }
+        assertEquals(Optional.empty(), bestChainHeightIndex.getBlockHash(lowestIndexedHeight - 1));
+        assertEquals(OptionalInt.of(lowestIndexedHeight), bestChainHeightIndex.getLowestHeight());
+        verify(blockStore, never()).get(blocks[lowestIndexedHeight - 1].getHeader().getHash());
+    }
+
+    @Test
+    void onNewBestBlock_whenExtendingTheChain_shouldOnlyReadTheNewBlockParent() throws BlockStoreException {
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.inMemory();
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+        clearInvocations(blockStore);
+        StoredBlock newBestBlock = storeBlock(blocks[CHAIN_HEIGHT].getHeader().getHash(), CHAIN_HEIGHT + 1);
+
+        bestChainHeightIndex.onNewBestBlock(newBestBlock, blockStore);
+
+        verify(blockStore).get(blocks[CHAIN_HEIGHT].getHeader().getHash());
+        verify(blockStore, never()).get(blocks[CHAIN_HEIGHT - 1].getHeader().getHash());
+        assertEquals(Optional.of(newBestBlock.getHeader().getHash()), bestChainHeightIndex.getBlockHash(CHAIN_HEIGHT + 1));
+    }
+
+    @Test
+    void onNewBestBlock_whenAlreadyTheBestBlock_shouldNotReadTheBlockStore() throws BlockStoreException {
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.inMemory();
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+        clearInvocations(blockStore);
+
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+
+        verify(blockStore, never()).get(blocks[CHAIN_HEIGHT].getHeader().getPrevBlockHash());
+    }
+
+    @Test
+    void onNewBestBlock_whenReorganizingToLongerChain_shouldRewindToTheForkPoint() throws BlockStoreException {
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.inMemory();
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+        int forkHeight = 25;
+        StoredBlock[] forkedBlocks = storeFork(forkHeight, CHAIN_HEIGHT + 2);
+
+        bestChainHeightIndex.onNewBestBlock(forkedBlocks[CHAIN_HEIGHT + 2], blockStore);
+
+        for (int height = FIRST_STORED_HEIGHT; height <= forkHeight; height++) {
+            assertEquals(Optional.of(blocks[height].getHeader().getHash()), bestChainHeightIndex.getBlockHash(height));
+        }
+        for (int height = forkHeight + 1; height <= CHAIN_HEIGHT + 2; height++) {
+            assertEquals(Optional.of(forkedBlocks[height].getHeader().getHash()), bestChainHeightIndex.getBlockHash(height));
+        }
+    }
+
+    @Test
+    void onNewBestBlock_whenReorganizingToLowerChain_shouldRemoveHeightsAboveTheNewBestBlock() throws BlockStoreException {
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.inMemory();
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+        int forkHeight = 20;
+        StoredBlock[] forkedBlocks = storeFork(forkHeight, CHAIN_HEIGHT - 3);
+
+        bestChainHeightIndex.onNewBestBlock(forkedBlocks[CHAIN_HEIGHT - 3], blockStore);
+
+        assertEquals(Optional.of(forkedBlocks[CHAIN_HEIGHT - 3].getHeader().getHash()), bestChainHeightIndex.getBlockHash(CHAIN_HEIGHT - 3));
+        assertEquals(Optional.of(blocks[forkHeight].getHeader().getHash()), bestChainHeightIndex.getBlockHash(forkHeight));
+        for (int height = CHAIN_HEIGHT - 2; height <= CHAIN_HEIGHT; height++) {
+            assertEquals(Optional.empty(), bestChainHeightIndex.getBlockHash(height));
+        }
+    }
+
+    @Test
+    void open_shouldKeepTheIndexedChainAfterReopening() throws Exception {
+        File databaseDirectory = tempDir.resolve("chain-heights").toFile();
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.open(databaseDirectory);
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+        bestChainHeightIndex.close();
+        clearInvocations(blockStore);
+
+        BestChainHeightIndex reopenedBestChainHeightIndex = BestChainHeightIndex.open(databaseDirectory);
+        reopenedBestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+
+        try {
+            verify(blockStore, never()).get(blocks[CHAIN_HEIGHT].getHeader().getPrevBlockHash());
+            for (int height = FIRST_STORED_HEIGHT; height <= CHAIN_HEIGHT; height++) {
+                assertEquals(Optional.of(blocks[height].getHeader().getHash()), reopenedBestChainHeightIndex.getBlockHash(height));
+            }
+            assertTrue(reopenedBestChainHeightIndex.getBlockHash(FIRST_STORED_HEIGHT - 1).isEmpty());
+        } finally {
+            reopenedBestChainHeightIndex.close();
+        }
+    }
+
+    @Test
+    void open_whenChainWasReorganizedWhileClosed_shouldRewindOnNextBestBlock() throws Exception {
+        File databaseDirectory = tempDir.resolve("chain-heights").toFile();
+        BestChainHeightIndex bestChainHeightIndex = BestChainHeightIndex.open(databaseDirectory);
+        bestChainHeightIndex.onNewBestBlock(blocks[CHAIN_HEIGHT], blockStore);
+        bestChainHeightIndex.close();
+        int forkHeight = 28;
+        StoredBlock[] forkedBlocks = storeFork(forkHeight, CHAIN_HEIGHT);
+
+        BestChainHeightIndex reopenedBestChainHeightIndex = BestChainHeightIndex.open(databaseDirectory);
+        reopenedBestChainHeightIndex.onNewBestBlock(forkedBlocks[CHAIN_HEIGHT], blockStore);
+
+        try {
+            assertEquals(Optional.of(blocks[forkHeight].getHeader().getHash()), reopenedBestChainHeightIndex.getBlockHash(forkHeight));
+            assertEquals(Optional.of(forkedBlocks[CHAIN_HEIGHT].getHeader().getHash()), reopenedBestChainHeightIndex.getBlockHash(CHAIN_HEIGHT));
+        } finally {
+            reopenedBestChainHeightIndex.close();
+        }
+    }
+
+    private StoredBlock[] storeFork(int forkHeight, int newChainHeight) throws BlockStoreException {
+        StoredBlock[] forkedBlocks = new StoredBlock[newChainHeight + 1];
+        Sha256Hash previousHash = blocks[forkHeight].getHeader().getHash();
+        for (int height = forkHeight + 1; height <= newChainHeight; height++) {
+            forkedBlocks[height] = storeBlock(previousHash, height);
+            previousHash = forkedBlocks[height].getHeader().getHash();
+        }
+        return forkedBlocks;
+    }
+
+    private StoredBlock storeBlock(Sha256Hash previousHash, int height) throws BlockStoreException {
+        Sha256Hash merkleRoot = Sha256Hash.of(BigInteger.valueOf(nonce++).toByteArray());
+        Block header = new Block(PARAMETERS, 1, previousHash, merkleRoot, 1, 1, 1, new ArrayList<>());
+        StoredBlock storedBlock = new StoredBlock(header, BigInteger.ONE, height);
+        when(blockStore.get(header.getHash())).thenReturn(storedBlock);
+        return storedBlock;
+    }
+}
@@ -0,0 +1,123 @@
+package co.rsk.federate.bitcoin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import co.rsk.federate.adapter.ThinConverter;
+import co.rsk.peg.constants.BridgeConstants;
+import co.rsk.peg.constants.BridgeMainNetConstants;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.store.BlockStoreException;
+import org.bitcoinj.wallet.Wallet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BitcoinWrapperImplBestChainTest {
+
+    private static final BridgeConstants BRIDGE_CONSTANTS = BridgeMainNetConstants.getInstance();
+    private static final NetworkParameters NETWORK_PARAMS =
+        ThinConverter.toOriginalInstance(BRIDGE_CONSTANTS.getBtcParamsString());
+    private static final Context BTC_CONTEXT = new Context(NETWORK_PARAMS);
+    private static final int CHAIN_HEIGHT = 20;
+
+    @TempDir
+    private Path tempDir;
+
+    private KitStub kit;
+    private BitcoinWrapperImpl bitcoinWrapper;
+    private StoredBlock[] blocks;
+    private int nonce;
+
+    @BeforeEach
+    void setUp() throws BlockStoreException {
+        blocks = createChain(new StoredBlock[CHAIN_HEIGHT + 1], Sha256Hash.ZERO_HASH, 0, CHAIN_HEIGHT);
+        kit = new KitStub(BTC_CONTEXT, tempDir.toFile(), "test", mock(Wallet.class));
+        kit.setStore(blocks);
+
+        bitcoinWrapper = new BitcoinWrapperImpl(BTC_CONTEXT, kit);
+        bitcoinWrapper.setup(Collections.emptyList());
+        bitcoinWrapper.start(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void getBlockAtHeight_shouldReturnBestChainBlocks() throws BlockStoreException {
+        for (int height = 0; height <= CHAIN_HEIGHT; height++) {
+            assertEquals(blocks[height], bitcoinWrapper.getBlockAtHeight(height));
+        }
+        assertNull(bitcoinWrapper.getBlockAtHeight(CHAIN_HEIGHT + 1));
+    }
+
+    @Test
+    void getBlockAtHeight_whenHeightIsBelowTheIndexedOnes_shouldReturnBestChainBlock() throws BlockStoreException {
+        kit = new KitStub(BTC_CONTEXT, tempDir.toFile(), "test", mock(Wallet.class), BestChainHeightIndex.inMemory(5));
+        kit.setStore(blocks);
+        bitcoinWrapper = new BitcoinWrapperImpl(BTC_CONTEXT, kit);
+        bitcoinWrapper.setup(Collections.emptyList());
+
+        for (int height = 0; height <= CHAIN_HEIGHT; height++) {
+            assertEquals(blocks[height], bitcoinWrapper.getBlockAtHeight(height));
+        }
+    }
+
+    @Test
+    void getBlockAtHeight_afterNewBestBlock_shouldReturnIt() throws BlockStoreException {
+        bitcoinWrapper.getBlockAtHeight(CHAIN_HEIGHT);
+        StoredBlock[] extendedChain = createChain(blocks, blocks[CHAIN_HEIGHT].getHeader().getHash(), CHAIN_HEIGHT + 1, CHAIN_HEIGHT + 1);
+
+        kit.addBlocks(extendedChain[CHAIN_HEIGHT + 1]);
+
+        assertEquals(extendedChain[CHAIN_HEIGHT + 1], bitcoinWrapper.getBlockAtHeight(CHAIN_HEIGHT + 1));
+        assertEquals(blocks[CHAIN_HEIGHT], bitcoinWrapper.getBlockAtHeight(CHAIN_HEIGHT));
+    }
+
+    @Test
+    void getBlockAtHeight_afterReorgToLongerChain_shouldReturnBlocksOfTheNewChain() throws BlockStoreException {
+        bitcoinWrapper.getBlockAtHeight(CHAIN_HEIGHT);
+        int forkHeight = 15;
+        StoredBlock[] forkedChain = createChain(blocks, blocks[forkHeight].getHeader().getHash(), forkHeight + 1, CHAIN_HEIGHT + 2);
+
+        kit.addBlocks(Arrays.copyOfRange(forkedChain, forkHeight + 1, CHAIN_HEIGHT + 3));
+
+        assertEquals(blocks[forkHeight], bitcoinWrapper.getBlockAtHeight(forkHeight));
+        for (int height = forkHeight + 1; height <= CHAIN_HEIGHT + 2; height++) {
+            assertEquals(forkedChain[height], bitcoinWrapper.getBlockAtHeight(height));
+        }
+    }
+
+    @Test
+    void getBlockAtHeight_afterReorgToLowerChain_shouldNotReturnBlocksAboveTheNewChainHead() throws BlockStoreException {
+        bitcoinWrapper.getBlockAtHeight(CHAIN_HEIGHT);
+        int forkHeight = 10;
+        int newChainHeight = CHAIN_HEIGHT - 2;
+        StoredBlock[] forkedChain = createChain(blocks, blocks[forkHeight].getHeader().getHash(), forkHeight + 1, newChainHeight);
+
+        kit.addBlocks(Arrays.copyOfRange(forkedChain, forkHeight + 1, newChainHeight + 1));
+
+        assertEquals(forkedChain[newChainHeight], bitcoinWrapper.getBlockAtHeight(newChainHeight));
+        assertNull(bitcoinWrapper.getBlockAtHeight(CHAIN_HEIGHT));
+    }
+
+    private StoredBlock[] createChain(StoredBlock[] baseChain, Sha256Hash previousHash, int fromHeight, int toHeight) {
+        StoredBlock[] chain = new StoredBlock[toHeight + 1];
+        System.arraycopy(baseChain, 0, chain, 0, Math.min(fromHeight, baseChain.length));
+        for (int height = fromHeight; height <= toHeight; height++) {
+            Sha256Hash merkleRoot = Sha256Hash.of(BigInteger.valueOf(nonce++).toByteArray());
+            Block header = new Block(NETWORK_PARAMS, 1, previousHash, merkleRoot, 1, 1, 1, new ArrayList<>());
+            chain[height] = new StoredBlock(header, BigInteger.ONE, height);
+            previousHash = header.getHash();
+        }
+        return chain;
+    }
+}
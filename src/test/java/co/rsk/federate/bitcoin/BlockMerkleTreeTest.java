@@ -0,0 +1,143 @@
+package co.rsk.federate.bitcoin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.PartialMerkleTree;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionWitness;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.RegTestParams;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BlockMerkleTreeTest {
+
+    private static final NetworkParameters PARAMETERS = RegTestParams.get();
+    private static final Address ADDRESS = Address.fromString(PARAMETERS, "mvbnrCX3bg1cDRUu8pkecrvP6vQkSLDSou");
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 7, 8, 13, 64, 101 })
+    void buildPartialMerkleTree_shouldMatchTreeBuiltFromLeaves(int transactionsCount) {
+        Block block = buildBlock(transactionsCount);
+        BlockMerkleTree blockMerkleTree = new BlockMerkleTree(block);
+
+        for (Transaction tx : block.getTransactions()) {
+            assertEquals(buildFromLeaves(block, tx, false), blockMerkleTree.buildPartialMerkleTree(tx, false));
+            assertEquals(buildFromLeaves(block, tx, true), blockMerkleTree.buildPartialMerkleTree(tx, true));
+        }
+    }
+
+    @Test
+    void getMerkleRoot_shouldMatchBlockMerkleRoot() {
+        Block block = buildBlock(13);
+
+        Sha256Hash merkleRoot = new BlockMerkleTree(block).getMerkleRoot(false);
+
+        assertEquals(block.getMerkleRoot(), merkleRoot);
+    }
+
+    @Test
+    void getMerkleRoot_whenUsingWtxId_shouldMatchRootOfWtxIdPartialMerkleTree() {
+        Block block = buildBlock(13);
+        Transaction tx = block.getTransactions().get(5);
+
+        Sha256Hash witnessRoot = new BlockMerkleTree(block).getMerkleRoot(true);
+
+        assertEquals(buildFromLeaves(block, tx, true).getTxnHashAndMerkleRoot(new ArrayList<>()), witnessRoot);
+    }
+
+    @Test
+    void buildPartialMerkleTree_withLargeBlockAndSeveralPegins_shouldMatchTreesBuiltFromLeaves() {
+        int transactionsCount = 4_000;
+        int pegins = 8;
+        Block block = buildBlock(transactionsCount);
+        List<Transaction> transactions = block.getTransactions();
+        List<Transaction> peginTxs = new ArrayList<>();
+        for (int i = 1; i <= pegins; i++) {
+            peginTxs.add(transactions.get(i * transactionsCount / (pegins + 1)));
+        }
+        Transaction coinbase = transactions.get(0);
+
+        List<PartialMerkleTree> treesFromLeaves = new ArrayList<>();
+        for (Transaction peginTx : peginTxs) {
+            treesFromLeaves.add(buildFromLeaves(block, peginTx, true));
+        }
+        treesFromLeaves.add(buildFromLeaves(block, coinbase, false));
+
+        BlockMerkleTree blockMerkleTree = new BlockMerkleTree(block);
+        List<PartialMerkleTree> treesFromBlockMerkleTree = new ArrayList<>();
+        for (Transaction peginTx : peginTxs) {
+            treesFromBlockMerkleTree.add(blockMerkleTree.buildPartialMerkleTree(peginTx, true));
+        }
+        treesFromBlockMerkleTree.add(blockMerkleTree.buildPartialMerkleTree(coinbase, false));
+
+        assertEquals(treesFromLeaves, treesFromBlockMerkleTree);
+    }
+
+    // The way partial merkle trees were built before having BlockMerkleTree
+    private PartialMerkleTree buildFromLeaves(Block block, Transaction transaction, boolean useWtxId) {
+        List<Transaction> txns = block.getTransactions();
+        List<Sha256Hash> txHashes = new ArrayList<>(txns.size());
+        Sha256Hash transactionId = useWtxId ? transaction.getWTxId() : transaction.getTxId();
+        byte[] bits = new byte[(int) Math.ceil(txns.size() / 8.0)];
+        for (int i = 0; i < txns.size(); i++) {
+            Transaction tx = txns.get(i);
+            Sha256Hash txId = useWtxId ? tx.getWTxId() : tx.getTxId();
+            if (useWtxId && tx.isCoinBase()) {
+                txId = Sha256Hash.ZERO_HASH;
+            }
+            txHashes.add(txId);
+            if (txId.equals(transactionId)) {
+                Utils.setBitLE(bits, i);
+            }
+        }
+        return PartialMerkleTree.buildFromLeaves(block.getParams(), bits, txHashes);
+    }
+
+    private Block buildBlock(int transactionsCount) {
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(buildCoinbase());
+        for (int i = 1; i < transactionsCount; i++) {
+            // Mix legacy and segwit transactions
+            transactions.add(buildTransaction(i, i % 2 == 0));
+        }
+        // Without a merkle root the block calculates it from its transactions
+        return new Block(PARAMETERS, 2, Sha256Hash.ZERO_HASH, null, 1, 1, 1, transactions);
+    }
+
+    private Transaction buildCoinbase() {
+        Transaction coinbase = new Transaction(PARAMETERS);
+        TransactionInput input = new TransactionInput(PARAMETERS, null, new byte[]{ 1, 2 });
+        TransactionWitness witness = new TransactionWitness(1);
+        witness.setPush(0, Sha256Hash.ZERO_HASH.getBytes());
+        input.setWitness(witness);
+        coinbase.addInput(input);
+        coinbase.addOutput(Coin.COIN, ADDRESS);
+        return coinbase;
+    }
+
+    private Transaction buildTransaction(int seed, boolean withWitness) {
+        Transaction tx = new Transaction(PARAMETERS);
+        TransactionOutPoint outPoint = new TransactionOutPoint(PARAMETERS, 0, Sha256Hash.of(BigInteger.valueOf(seed).toByteArray()));
+        TransactionInput input = new TransactionInput(PARAMETERS, null, new byte[]{}, outPoint);
+        if (withWitness) {
+            TransactionWitness witness = new TransactionWitness(1);
+            witness.setPush(0, BigInteger.valueOf(seed).toByteArray());
+            input.setWitness(witness);
+        }
+        tx.addInput(input);
+        tx.addOutput(Coin.COIN, ADDRESS);
+        return tx;
+    }
+}
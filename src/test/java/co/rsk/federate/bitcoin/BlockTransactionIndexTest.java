@@ -0,0 +1,117 @@
+package co.rsk.federate.bitcoin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionWitness;
+import org.bitcoinj.params.RegTestParams;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BlockTransactionIndexTest {
+
+    private static final NetworkParameters PARAMETERS = RegTestParams.get();
+    private static final Address ADDRESS = Address.fromString(PARAMETERS, "mvbnrCX3bg1cDRUu8pkecrvP6vQkSLDSou");
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 500 })
+    void of_shouldMapEveryWtxIdToItsPositionInTheBlock(int transactionsCount) {
+        Block block = buildBlock(transactionsCount);
+
+        BlockTransactionIndex blockTransactionIndex = BlockTransactionIndex.of(block, new ForkJoinPool(4));
+
+        Map<Sha256Hash, Integer> wtxIdIndexes = blockTransactionIndex.getWtxIdIndexes();
+        assertEquals(transactionsCount, wtxIdIndexes.size());
+        List<Transaction> transactions = block.getTransactions();
+        for (int i = 0; i < transactionsCount; i++) {
+            assertEquals(i, wtxIdIndexes.get(transactions.get(i).getWTxId()));
+        }
+    }
+
+    @Test
+    void findTransactions_whenFewerWtxIdsThanTransactions_shouldReturnThemInBlockOrder() {
+        Block block = buildBlock(100);
+        List<Transaction> transactions = block.getTransactions();
+        List<Sha256Hash> wtxIds = List.of(
+            transactions.get(70).getWTxId(),
+            Sha256Hash.ZERO_HASH,
+            transactions.get(3).getWTxId()
+        );
+
+        List<Transaction> foundTransactions = BlockTransactionIndex.of(block).findTransactions(wtxIds);
+
+        assertEquals(List.of(transactions.get(3), transactions.get(70)), foundTransactions);
+    }
+
+    @Test
+    void findTransactions_whenMoreWtxIdsThanTransactions_shouldReturnThemInBlockOrder() {
+        Block block = buildBlock(10);
+        List<Transaction> transactions = block.getTransactions();
+        Set<Sha256Hash> wtxIds = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            wtxIds.add(Sha256Hash.of(BigInteger.valueOf(i).toByteArray()));
+        }
+        wtxIds.add(transactions.get(8).getWTxId());
+        wtxIds.add(transactions.get(2).getWTxId());
+
+        List<Transaction> foundTransactions = BlockTransactionIndex.of(block).findTransactions(wtxIds);
+
+        assertEquals(List.of(transactions.get(2), transactions.get(8)), foundTransactions);
+    }
+
+    @Test
+    void findTransactions_whenNoneTracked_shouldReturnEmptyList() {
+        Block block = buildBlock(10);
+
+        List<Transaction> foundTransactions = BlockTransactionIndex.of(block).findTransactions(Collections.emptySet());
+
+        assertTrue(foundTransactions.isEmpty());
+    }
+
+    @Test
+    void getBlockMerkleTree_shouldBuildItOnce() {
+        BlockTransactionIndex blockTransactionIndex = BlockTransactionIndex.of(buildBlock(10));
+
+        assertSame(blockTransactionIndex.getBlockMerkleTree(), blockTransactionIndex.getBlockMerkleTree());
+    }
+
+    private Block buildBlock(int transactionsCount) {
+        List<Transaction> transactions = new ArrayList<>();
+        Transaction coinbase = new Transaction(PARAMETERS);
+        coinbase.addInput(new TransactionInput(PARAMETERS, null, new byte[]{ 1, 2 }));
+        coinbase.addOutput(Coin.COIN, ADDRESS);
+        transactions.add(coinbase);
+        for (int i = 1; i < transactionsCount; i++) {
+            Transaction tx = new Transaction(PARAMETERS);
+            TransactionOutPoint outPoint = new TransactionOutPoint(PARAMETERS, 0, Sha256Hash.of(BigInteger.valueOf(i).toByteArray()));
+            TransactionInput input = new TransactionInput(PARAMETERS, null, new byte[]{}, outPoint);
+            if (i % 2 == 0) {
+                TransactionWitness witness = new TransactionWitness(1);
+                witness.setPush(0, BigInteger.valueOf(i).toByteArray());
+                input.setWitness(witness);
+            }
+            tx.addInput(input);
+            tx.addOutput(Coin.COIN, ADDRESS);
+            transactions.add(tx);
+        }
+        return new Block(PARAMETERS, 2, Sha256Hash.ZERO_HASH, null, 1, 1, 1, transactions);
+    }
+}
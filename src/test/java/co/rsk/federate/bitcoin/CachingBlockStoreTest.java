@@ -0,0 +1,107 @@
+package co.rsk.federate.bitcoin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.params.RegTestParams;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.BlockStoreException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingBlockStoreTest {
+
+    private static final NetworkParameters PARAMETERS = RegTestParams.get();
+    private static final int MAXIMUM_CACHED_BLOCKS = 1_000;
+
+    private BlockStore blockStore;
+    private CachingBlockStore cachingBlockStore;
+    private int nonce;
+
+    @BeforeEach
+    void setUp() {
+        blockStore = mock(BlockStore.class);
+        cachingBlockStore = new CachingBlockStore(blockStore, MAXIMUM_CACHED_BLOCKS);
+    }
+
+    @Test
+    void get_shouldOnlyReadTheBlockStoreOnce() throws BlockStoreException {
+        StoredBlock block = buildBlock(Sha256Hash.ZERO_HASH, 1);
+        Sha256Hash blockHash = block.getHeader().getHash();
+        when(blockStore.get(blockHash)).thenReturn(block);
+
+        assertEquals(block, cachingBlockStore.get(blockHash));
+        assertEquals(block, cachingBlockStore.get(blockHash));
+
+        verify(blockStore, times(1)).get(blockHash);
+        assertEquals(1, cachingBlockStore.getStats().hitCount());
+        assertEquals(1, cachingBlockStore.getStats().missCount());
+    }
+
+    @Test
+    void get_whenBlockIsMissing_shouldReadTheBlockStoreAgainNextTime() throws BlockStoreException {
+        StoredBlock block = buildBlock(Sha256Hash.ZERO_HASH, 1);
+        Sha256Hash blockHash = block.getHeader().getHash();
+
+        assertNull(cachingBlockStore.get(blockHash));
+        when(blockStore.get(blockHash)).thenReturn(block);
+
+        assertEquals(block, cachingBlockStore.get(blockHash));
+        verify(blockStore, times(2)).get(blockHash);
+    }
+
+    @Test
+    void put_shouldCacheTheBlock() throws BlockStoreException {
+        StoredBlock block = buildBlock(Sha256Hash.ZERO_HASH, 1);
+
+        cachingBlockStore.put(block);
+
+        assertEquals(block, cachingBlockStore.get(block.getHeader().getHash()));
+        verify(blockStore).put(block);
+        verify(blockStore, never()).get(block.getHeader().getHash());
+    }
+
+    @Test
+    void getChainHead_afterReorg_shouldReturnTheNewChainHead() throws BlockStoreException {
+        StoredBlock parent = buildBlock(Sha256Hash.ZERO_HASH, 1);
+        StoredBlock chainHead = buildBlock(parent.getHeader().getHash(), 2);
+        StoredBlock forkedChainHead = buildBlock(parent.getHeader().getHash(), 2);
+        when(blockStore.getChainHead()).thenReturn(chainHead);
+        assertEquals(chainHead, cachingBlockStore.getChainHead());
+
+        cachingBlockStore.setChainHead(forkedChainHead);
+
+        assertEquals(forkedChainHead, cachingBlockStore.getChainHead());
+        verify(blockStore).setChainHead(forkedChainHead);
+        verify(blockStore, times(1)).getChainHead();
+        // Blocks of the previous chain are still there, just not in the best chain
+        assertEquals(chainHead, cachingBlockStore.get(chainHead.getHeader().getHash()));
+    }
+
+    @Test
+    void get_whenCacheIsFull_shouldEvictBlocks() throws BlockStoreException {
+        CachingBlockStore smallCachingBlockStore = new CachingBlockStore(blockStore, 2);
+        for (int height = 1; height <= 10; height++) {
+            smallCachingBlockStore.put(buildBlock(Sha256Hash.ZERO_HASH, height));
+        }
+
+        assertEquals(8, smallCachingBlockStore.getStats().evictionCount());
+    }
+
+    private StoredBlock buildBlock(Sha256Hash previousHash, int height) {
+        Sha256Hash merkleRoot = Sha256Hash.of(BigInteger.valueOf(nonce++).toByteArray());
+        Block header = new Block(PARAMETERS, 1, previousHash, merkleRoot, 1, 1, 1, new ArrayList<>());
+        return new StoredBlock(header, BigInteger.ONE, height);
+    }
+}
@@ -0,0 +1,150 @@
+package co.rsk.federate.bitcoin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionConfidence.ConfidenceType;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.params.RegTestParams;
+import org.bitcoinj.wallet.Wallet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConfirmedTransactionIndexTest {
+
+    private static final NetworkParameters PARAMETERS = RegTestParams.get();
+    private static final Address ADDRESS = Address.fromString(PARAMETERS, "mvbnrCX3bg1cDRUu8pkecrvP6vQkSLDSou");
+    private static final int BEST_CHAIN_HEIGHT = 100;
+
+    private Set<Transaction> walletTxs;
+    private Wallet wallet;
+    private ConfirmedTransactionIndex confirmedTransactionIndex;
+
+    @BeforeEach
+    void setUp() {
+        Context.propagate(new Context(PARAMETERS));
+        walletTxs = new HashSet<>();
+        wallet = mock(Wallet.class);
+        when(wallet.getTransactions(false)).thenReturn(walletTxs);
+        confirmedTransactionIndex = new ConfirmedTransactionIndex(() -> wallet);
+    }
+
+    @Test
+    void getTransactions_shouldOnlyReturnBuildingTxsWithEnoughConfirmations() {
+        Transaction txWithSixConfirmations = buildingTx(1, BEST_CHAIN_HEIGHT - 5);
+        Transaction txWithFiveConfirmations = buildingTx(2, BEST_CHAIN_HEIGHT - 4);
+        Transaction pendingTx = buildTx(3);
+        walletTxs.addAll(Set.of(txWithSixConfirmations, txWithFiveConfirmations, pendingTx));
+
+        Map<Sha256Hash, Transaction> txs = confirmedTransactionIndex.getTransactions(6, () -> BEST_CHAIN_HEIGHT);
+
+        assertEquals(Map.of(txWithSixConfirmations.getWTxId(), txWithSixConfirmations), txs);
+    }
+
+    @Test
+    void getTransactions_whenInclusionHeightIsUnknown_shouldUseConfidenceDepth() {
+        Transaction tx = buildTx(1);
+        tx.getConfidence().setConfidenceType(ConfidenceType.BUILDING);
+        tx.getConfidence().setDepthInBlocks(6);
+        walletTxs.add(tx);
+
+        Map<Sha256Hash, Transaction> txs = confirmedTransactionIndex.getTransactions(6, () -> {
+            throw new IllegalStateException("Best chain height should not be needed");
+        });
+
+        assertEquals(tx, txs.get(tx.getWTxId()));
+    }
+
+    @Test
+    void getTransactions_shouldOnlyScanTheWalletOnce() {
+        walletTxs.add(buildingTx(1, BEST_CHAIN_HEIGHT));
+
+        confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+        confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+
+        verify(wallet, times(1)).getTransactions(false);
+    }
+
+    @Test
+    void onTransactionConfidenceChanged_whenTxIsIncluded_shouldIndexIt() {
+        confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+        Transaction tx = buildingTx(1, BEST_CHAIN_HEIGHT);
+
+        confirmedTransactionIndex.onTransactionConfidenceChanged(wallet, tx);
+
+        Map<Sha256Hash, Transaction> txs = confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+        assertEquals(tx, txs.get(tx.getWTxId()));
+        verify(wallet, times(1)).getTransactions(false);
+    }
+
+    @Test
+    void onTransactionConfidenceChanged_whenTxIsNoLongerBuilding_shouldRemoveIt() {
+        Transaction tx = buildingTx(1, BEST_CHAIN_HEIGHT);
+        walletTxs.add(tx);
+        Map<Sha256Hash, Transaction> txs = confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+        assertTrue(txs.containsKey(tx.getWTxId()));
+
+        tx.getConfidence().setConfidenceType(ConfidenceType.DEAD);
+        confirmedTransactionIndex.onTransactionConfidenceChanged(wallet, tx);
+
+        // The returned map is a view over the index
+        assertFalse(txs.containsKey(tx.getWTxId()));
+    }
+
+    @Test
+    void onReorganize_shouldScanTheWalletAgain() {
+        Transaction tx = buildingTx(1, BEST_CHAIN_HEIGHT);
+        walletTxs.add(tx);
+        confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+        Transaction txInNewChain = buildingTx(2, BEST_CHAIN_HEIGHT);
+        walletTxs.clear();
+        walletTxs.add(txInNewChain);
+
+        confirmedTransactionIndex.onReorganize(wallet);
+
+        Map<Sha256Hash, Transaction> txs = confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+        assertEquals(Map.of(txInNewChain.getWTxId(), txInNewChain), txs);
+        verify(wallet, times(2)).getTransactions(false);
+    }
+
+    @Test
+    void getTransactions_shouldReturnReadOnlyMap() {
+        Transaction tx = buildingTx(1, BEST_CHAIN_HEIGHT);
+        walletTxs.add(tx);
+
+        Map<Sha256Hash, Transaction> txs = confirmedTransactionIndex.getTransactions(1, () -> BEST_CHAIN_HEIGHT);
+
+        assertThrows(UnsupportedOperationException.class, () -> txs.remove(tx.getWTxId()));
+    }
+
+    private Transaction buildingTx(int seed, int appearedAtChainHeight) {
+        Transaction tx = buildTx(seed);
+        tx.getConfidence().setAppearedAtChainHeight(appearedAtChainHeight);
+        return tx;
+    }
+
+    private Transaction buildTx(int seed) {
+        Transaction tx = new Transaction(PARAMETERS);
+        TransactionOutPoint outPoint = new TransactionOutPoint(PARAMETERS, 0, Sha256Hash.of(BigInteger.valueOf(seed).toByteArray()));
+        tx.addInput(new TransactionInput(PARAMETERS, null, new byte[]{}, outPoint));
+        tx.addOutput(Coin.COIN, ADDRESS);
+        return tx;
+    }
+}
@@ -17,11 +17,17 @@ import static org.mockito.Mockito.when;
 // that are inherited from WalletAppKit class and can't be mocked
 public class KitStub extends Kit {
     private final Wallet wallet;
+    private final BestChainHeightIndex bestChainHeightIndex;
     private BlockStore store;
 
     public KitStub(Context btcContext, File directory, String filePrefix, Wallet wallet) {
+        this(btcContext, directory, filePrefix, wallet, BestChainHeightIndex.inMemory());
+    }
+
+    public KitStub(Context btcContext, File directory, String filePrefix, Wallet wallet, BestChainHeightIndex bestChainHeightIndex) {
         super(btcContext, directory, filePrefix);
         this.wallet = wallet;
+        this.bestChainHeightIndex = bestChainHeightIndex;
     }
 
     public void setStore(StoredBlock[] storedBlocks) throws BlockStoreException {
@@ -36,6 +42,15 @@ public class KitStub extends Kit {
         this.vChain = new BlockChain(context, wallet, store);
     }
 
+    // Adds the blocks to the store, the last one becoming the chain head.
+    // Blocks forking from a stored one simulate a reorganization
+    public void addBlocks(StoredBlock... storedBlocks) throws BlockStoreException {
+        for (StoredBlock storedBlock : storedBlocks) {
+            when(store.get(storedBlock.getHeader().getHash())).thenReturn(storedBlock);
+            when(store.getChainHead()).thenReturn(storedBlock);
+        }
+    }
+
     @Override
     protected void startUp() {
         // Not needed for tests
@@ -60,4 +75,9 @@ public class KitStub extends Kit {
     public BlockStore store() {
         return store;
     }
+
+    @Override
+    public BestChainHeightIndex bestChainHeightIndex() {
+        return bestChainHeightIndex;
+    }
 }
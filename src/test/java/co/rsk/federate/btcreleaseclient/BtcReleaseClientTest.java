@@ -470,6 +470,40 @@ class BtcReleaseClientTest {
             assertTxWasSigned(unprocessableTestnetPegoutRskTxCreationHash, BTC_SIG_2);
         }
 
+        @Test
+        void processReleases_whenTwoPegoutsAreReadyToSign_shouldSignBothInTheSameBlock() throws Exception {
+            // Arrange
+            setUpFederator(legacyFederation, keyFile1Member, KEY_FILE_VERSION, ETH_SIG_2);
+            setUpReleaseTxFromFed(legacyFederation);
+            addUnprocessableReleaseTxToSet(legacyFederation);
+
+            // act
+            client.processReleases(releases.entrySet());
+
+            // assert
+            assertTxWasSigned(releaseCreationRskTxHash, BTC_SIG_2);
+            assertTxWasSigned(unprocessableTestnetPegoutRskTxCreationHash, BTC_SIG_2);
+            assertEquals(2, client.getPegoutSigningMetrics().getPegoutsSignedLastBlock());
+            assertEquals(0, client.getPegoutSigningMetrics().getPegoutsLeftLastBlock());
+        }
+
+        @Test
+        void processReleases_whenMorePegoutsThanMaxPerBlockAreReadyToSign_shouldLeaveTheRestForTheNextBlock() throws Exception {
+            // Arrange
+            when(powpegNodeSystemProperties.getPegoutSigningMaxPerBlock()).thenReturn(1);
+            setUpFederator(legacyFederation, keyFile1Member, KEY_FILE_VERSION, ETH_SIG_2);
+            setUpReleaseTxFromFed(legacyFederation);
+            addUnprocessableReleaseTxToSet(legacyFederation);
+
+            // act
+            client.processReleases(releases.entrySet());
+
+            // assert
+            verify(federatorSupport, times(1)).addSignature(anyList(), any(byte[].class));
+            assertEquals(1, client.getPegoutSigningMetrics().getPegoutsSignedLastBlock());
+            assertEquals(1, client.getPegoutSigningMetrics().getPegoutsLeftLastBlock());
+        }
+
         @Test
         void processReleases_signWithHSM_legacyFed_whenSetHasUnprocessablePegout_testnet_shouldSkipJustIt() throws Exception {
             // Arrange
@@ -1120,9 +1154,10 @@ class BtcReleaseClientTest {
     }
 
     @Test
-    void having_two_pegouts_signs_only_one() throws Exception {
+    void having_two_pegouts_whenMaxPerBlockIsOne_signsOnlyOne() throws Exception {
         // Arrange
         powpegNodeSystemProperties = getPowpegNodeSystemProperties(true);
+        when(powpegNodeSystemProperties.getPegoutSigningMaxPerBlock()).thenReturn(1);
         Federation federation = TestUtils.createP2shP2wshErpFederation(params, 20);
         FederationMember federationMember = federation.getMembers().get(0);
         BtcTransaction tx1 = TestUtils.createBtcTransaction(params, federation);
@@ -1519,6 +1554,8 @@ class BtcReleaseClientTest {
         when(powpegNodeSystemProperties.getNetworkConstants()).thenReturn(constants);
         when(powpegNodeSystemProperties.getPegoutSignedCacheTtl())
             .thenReturn(PEGOUT_SIGNED_CACHE_TTL);
+        when(powpegNodeSystemProperties.getPegoutSigningMaxPerBlock()).thenReturn(5);
+        when(powpegNodeSystemProperties.getPegoutSigningTimeBudget()).thenReturn(Duration.ofSeconds(20));
         when(powpegNodeSystemProperties.isPegoutEnabled()).thenReturn(isPegoutEnabled); //enabled by default
         return powpegNodeSystemProperties;
     }
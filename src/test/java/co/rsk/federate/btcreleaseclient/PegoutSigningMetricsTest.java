@@ -0,0 +1,36 @@
+package co.rsk.federate.btcreleaseclient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PegoutSigningMetricsTest {
+
+    private PegoutSigningMetrics pegoutSigningMetrics;
+
+    @BeforeEach
+    void setUp() {
+        pegoutSigningMetrics = new PegoutSigningMetrics();
+    }
+
+    @Test
+    void getLastSigningThroughput_whenNoPegoutWasProcessed_shouldBeEmpty() {
+        assertEquals(Optional.empty(), pegoutSigningMetrics.getLastSigningThroughput());
+        assertEquals(Optional.empty(), pegoutSigningMetrics.getLastSigningDuration());
+    }
+
+    @Test
+    void onBlock_whenSeveralBlocksWereProcessed_shouldKeepTheLastOneAndAccumulateTheTotal() {
+        pegoutSigningMetrics.onBlock(3, 4, Duration.ofSeconds(6));
+        pegoutSigningMetrics.onBlock(2, 0, Duration.ofSeconds(4));
+
+        assertEquals(2, pegoutSigningMetrics.getPegoutsSignedLastBlock());
+        assertEquals(0, pegoutSigningMetrics.getPegoutsLeftLastBlock());
+        assertEquals(5, pegoutSigningMetrics.getTotalPegoutsSigned());
+        assertEquals(Optional.of(Duration.ofSeconds(4)), pegoutSigningMetrics.getLastSigningDuration());
+        assertEquals(Optional.of(0.5), pegoutSigningMetrics.getLastSigningThroughput());
+    }
+}
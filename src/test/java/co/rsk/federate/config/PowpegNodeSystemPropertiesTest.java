@@ -11,6 +11,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import co.rsk.config.ConfigLoader;
+import co.rsk.federate.io.BtcToRskClientStorageType;
+import co.rsk.federate.io.JournalSyncPolicy;
 import co.rsk.federate.signing.config.SignerConfig;
 import co.rsk.federate.signing.config.SignerType;
 import com.typesafe.config.Config;
@@ -99,6 +101,55 @@ class PowpegNodeSystemPropertiesTest {
         assertEquals(Duration.ofMinutes(defaultValue), powpegNodeSystemProperties.getPegoutSignedCacheTtl());
     }
 
+    @Test
+    void getPegoutSigningMaxPerBlock_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        int customValue = 2;
+        when(config.hasPath(PEGOUT_SIGNING_MAX_PER_BLOCK.getPath())).thenReturn(true);
+        when(config.getInt(PEGOUT_SIGNING_MAX_PER_BLOCK.getPath())).thenReturn(customValue);
+
+        assertEquals(customValue, powpegNodeSystemProperties.getPegoutSigningMaxPerBlock());
+    }
+
+    @Test
+    void getPegoutSigningMaxPerBlock_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(PEGOUT_SIGNING_MAX_PER_BLOCK.getPath())).thenReturn(false);
+
+        int defaultValue = PEGOUT_SIGNING_MAX_PER_BLOCK.getDefaultValue(Integer::parseInt);
+        assertEquals(defaultValue, powpegNodeSystemProperties.getPegoutSigningMaxPerBlock());
+    }
+
+    @Test
+    void getPegoutSigningTimeBudget_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        long customValue = 5_000L;
+        when(config.hasPath(PEGOUT_SIGNING_TIME_BUDGET.getPath())).thenReturn(true);
+        when(config.getLong(PEGOUT_SIGNING_TIME_BUDGET.getPath())).thenReturn(customValue);
+
+        assertEquals(Duration.ofMillis(customValue), powpegNodeSystemProperties.getPegoutSigningTimeBudget());
+    }
+
+    @Test
+    void getPegoutSigningTimeBudget_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(PEGOUT_SIGNING_TIME_BUDGET.getPath())).thenReturn(false);
+
+        long defaultValue = PEGOUT_SIGNING_TIME_BUDGET.getDefaultValue(Long::parseLong);
+        assertEquals(Duration.ofMillis(defaultValue), powpegNodeSystemProperties.getPegoutSigningTimeBudget());
+    }
+
+    @Test
+    void isPegoutCreationIndexEnabled_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        when(config.hasPath(PEGOUT_CREATION_INDEX_ENABLED.getPath())).thenReturn(true);
+        when(config.getBoolean(PEGOUT_CREATION_INDEX_ENABLED.getPath())).thenReturn(true);
+
+        assertTrue(powpegNodeSystemProperties.isPegoutCreationIndexEnabled());
+    }
+
+    @Test
+    void isPegoutCreationIndexEnabled_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(PEGOUT_CREATION_INDEX_ENABLED.getPath())).thenReturn(false);
+
+        assertFalse(powpegNodeSystemProperties.isPegoutCreationIndexEnabled());
+    }
+
     @Test
     void getAmountOfHeadersToSend_whenCustomConfigAvailable_shouldReturnCustomConfig() {
         int customValue = 10;
@@ -116,6 +167,142 @@ class PowpegNodeSystemPropertiesTest {
         assertEquals(defaultValue, powpegNodeSystemProperties.getAmountOfHeadersToSend());
     }
 
+    @Test
+    void getMaxHeaderBatchesPerTurn_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        int customValue = 3;
+        when(config.hasPath(MAX_HEADER_BATCHES_PER_TURN.getPath())).thenReturn(true);
+        when(config.getInt(MAX_HEADER_BATCHES_PER_TURN.getPath())).thenReturn(customValue);
+
+        assertEquals(customValue, powpegNodeSystemProperties.getMaxHeaderBatchesPerTurn());
+    }
+
+    @Test
+    void getMaxHeaderBatchesPerTurn_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(MAX_HEADER_BATCHES_PER_TURN.getPath())).thenReturn(false);
+
+        int defaultValue = MAX_HEADER_BATCHES_PER_TURN.getDefaultValue(Integer::parseInt);
+        assertEquals(defaultValue, powpegNodeSystemProperties.getMaxHeaderBatchesPerTurn());
+    }
+
+    @Test
+    void isDirectBridgeStorageReadsEnabled_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        when(config.hasPath(DIRECT_BRIDGE_STORAGE_READS.getPath())).thenReturn(true);
+        when(config.getBoolean(DIRECT_BRIDGE_STORAGE_READS.getPath())).thenReturn(true);
+
+        assertTrue(powpegNodeSystemProperties.isDirectBridgeStorageReadsEnabled());
+    }
+
+    @Test
+    void isDirectBridgeStorageReadsEnabled_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(DIRECT_BRIDGE_STORAGE_READS.getPath())).thenReturn(false);
+
+        assertFalse(powpegNodeSystemProperties.isDirectBridgeStorageReadsEnabled());
+    }
+
+    @Test
+    void getFederationReconciliationIntervalInBlocks_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        long customValue = 5L;
+        when(config.hasPath(FEDERATION_RECONCILIATION_INTERVAL.getPath())).thenReturn(true);
+        when(config.getLong(FEDERATION_RECONCILIATION_INTERVAL.getPath())).thenReturn(customValue);
+
+        assertEquals(customValue, powpegNodeSystemProperties.getFederationReconciliationIntervalInBlocks());
+    }
+
+    @Test
+    void getFederationReconciliationIntervalInBlocks_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(FEDERATION_RECONCILIATION_INTERVAL.getPath())).thenReturn(false);
+
+        long defaultValue = FEDERATION_RECONCILIATION_INTERVAL.getDefaultValue(Long::parseLong);
+        assertEquals(defaultValue, powpegNodeSystemProperties.getFederationReconciliationIntervalInBlocks());
+    }
+
+    @Test
+    void getInFlightBridgeTxRetentionBlocks_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        long customValue = 3L;
+        when(config.hasPath(IN_FLIGHT_BRIDGE_TX_RETENTION_BLOCKS.getPath())).thenReturn(true);
+        when(config.getLong(IN_FLIGHT_BRIDGE_TX_RETENTION_BLOCKS.getPath())).thenReturn(customValue);
+
+        assertEquals(customValue, powpegNodeSystemProperties.getInFlightBridgeTxRetentionBlocks());
+    }
+
+    @Test
+    void getInFlightBridgeTxRetentionBlocks_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(IN_FLIGHT_BRIDGE_TX_RETENTION_BLOCKS.getPath())).thenReturn(false);
+
+        long defaultValue = IN_FLIGHT_BRIDGE_TX_RETENTION_BLOCKS.getDefaultValue(Long::parseLong);
+        assertEquals(defaultValue, powpegNodeSystemProperties.getInFlightBridgeTxRetentionBlocks());
+    }
+
+    @Test
+    void isGasModelEnabled_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        when(config.hasPath(GAS_MODEL_ENABLED.getPath())).thenReturn(true);
+        when(config.getBoolean(GAS_MODEL_ENABLED.getPath())).thenReturn(true);
+
+        assertTrue(powpegNodeSystemProperties.isGasModelEnabled());
+    }
+
+    @Test
+    void isGasModelEnabled_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(GAS_MODEL_ENABLED.getPath())).thenReturn(false);
+
+        boolean defaultValue = GAS_MODEL_ENABLED.getDefaultValue(Boolean::parseBoolean);
+        assertEquals(defaultValue, powpegNodeSystemProperties.isGasModelEnabled());
+    }
+
+    @Test
+    void getGasModelFullExecutionInterval_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        long customValue = 4L;
+        when(config.hasPath(GAS_MODEL_FULL_EXECUTION_INTERVAL.getPath())).thenReturn(true);
+        when(config.getLong(GAS_MODEL_FULL_EXECUTION_INTERVAL.getPath())).thenReturn(customValue);
+
+        assertEquals(customValue, powpegNodeSystemProperties.getGasModelFullExecutionInterval());
+    }
+
+    @Test
+    void getGasModelFullExecutionInterval_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        when(config.hasPath(GAS_MODEL_FULL_EXECUTION_INTERVAL.getPath())).thenReturn(false);
+
+        long defaultValue = GAS_MODEL_FULL_EXECUTION_INTERVAL.getDefaultValue(Long::parseLong);
+        assertEquals(defaultValue, powpegNodeSystemProperties.getGasModelFullExecutionInterval());
+    }
+
+    @Test
+    void btcToRskClientStorageConfig_whenCustomConfigNotAvailable_shouldReturnDefaultConfig() {
+        BtcToRskClientStorageConfig storageConfig = powpegNodeSystemProperties.btcToRskClientStorageConfig();
+
+        assertEquals(BtcToRskClientStorageType.FILE, storageConfig.getType());
+        assertEquals(JournalSyncPolicy.INTERVAL, storageConfig.getJournalSyncPolicy());
+        assertEquals(Duration.ofSeconds(1), storageConfig.getJournalSyncInterval());
+        assertEquals(10_000, storageConfig.getJournalCompactionThreshold());
+    }
+
+    @Test
+    void btcToRskClientStorageConfig_whenCustomConfigAvailable_shouldReturnCustomConfig() {
+        when(config.hasPath(BTC_TO_RSK_CLIENT_STORAGE_TYPE.getPath())).thenReturn(true);
+        when(config.getString(BTC_TO_RSK_CLIENT_STORAGE_TYPE.getPath())).thenReturn("journal");
+        when(config.hasPath(BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_POLICY.getPath())).thenReturn(true);
+        when(config.getString(BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_POLICY.getPath())).thenReturn("always");
+        when(config.hasPath(BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_INTERVAL.getPath())).thenReturn(true);
+        when(config.getLong(BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_SYNC_INTERVAL.getPath())).thenReturn(200L);
+        when(config.hasPath(BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_COMPACTION_THRESHOLD.getPath())).thenReturn(true);
+        when(config.getInt(BTC_TO_RSK_CLIENT_STORAGE_JOURNAL_COMPACTION_THRESHOLD.getPath())).thenReturn(50);
+
+        BtcToRskClientStorageConfig storageConfig = powpegNodeSystemProperties.btcToRskClientStorageConfig();
+
+        assertEquals(BtcToRskClientStorageType.JOURNAL, storageConfig.getType());
+        assertEquals(JournalSyncPolicy.ALWAYS, storageConfig.getJournalSyncPolicy());
+        assertEquals(Duration.ofMillis(200), storageConfig.getJournalSyncInterval());
+        assertEquals(50, storageConfig.getJournalCompactionThreshold());
+    }
+
+    @Test
+    void btcToRskClientStorageConfig_whenUnknownStorageType_shouldThrowIllegalArgumentException() {
+        when(config.hasPath(BTC_TO_RSK_CLIENT_STORAGE_TYPE.getPath())).thenReturn(true);
+        when(config.getString(BTC_TO_RSK_CLIENT_STORAGE_TYPE.getPath())).thenReturn("unknown");
+
+        assertThrows(IllegalArgumentException.class, () -> powpegNodeSystemProperties.btcToRskClientStorageConfig());
+    }
+
     @Test
     void isFederatorEnabled_whenCustomConfigAvailable_shouldReturnCustomConfig() {
         boolean customValue = !FEDERATOR_ENABLED.getDefaultValue(Boolean::parseBoolean);
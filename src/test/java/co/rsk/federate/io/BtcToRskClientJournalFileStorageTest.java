@@ -0,0 +1,310 @@
+package co.rsk.federate.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import co.rsk.federate.CoinbaseInformation;
+import co.rsk.federate.Proof;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.PartialMerkleTree;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.core.TransactionWitness;
+import org.bitcoinj.params.RegTestParams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BtcToRskClientJournalFileStorageTest {
+
+    private static final String DIRECTORY_PATH = "src/test/java/co/rsk/federate/io" + File.separator + "journal-peg";
+    private static final String FILE_PATH = DIRECTORY_PATH + File.separator + "btctorskclient.rlp";
+    private static final String JOURNAL_PATH = FILE_PATH + ".journal";
+    private static final int COMPACTION_THRESHOLD = 100;
+
+    private final NetworkParameters parameters = RegTestParams.get();
+    private FileStorageInfo storageInfo;
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.clean();
+        storageInfo = mock(FileStorageInfo.class);
+        when(storageInfo.getDirectoryPath()).thenReturn(DIRECTORY_PATH);
+        when(storageInfo.getFilePath()).thenReturn(FILE_PATH);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.clean();
+    }
+
+    @Test
+    void read_whenNoFiles_shouldReturnEmptyData() throws IOException {
+        BtcToRskClientFileReadResult result = buildStorage().read(parameters);
+
+        assertTrue(result.getSuccess());
+        assertTrue(result.getData().getTransactionProofs().isEmpty());
+        assertTrue(result.getData().getCoinbaseInformationMap().isEmpty());
+    }
+
+    @Test
+    void read_whenSnapshotIsTrash_shouldFail() throws IOException {
+        FileUtils.writeByteArrayToFile(new File(FILE_PATH), new byte[]{ 6, 6, 6 });
+
+        BtcToRskClientFileReadResult result = buildStorage().read(parameters);
+
+        assertFalse(result.getSuccess());
+    }
+
+    @Test
+    void write_whenNullData_shouldThrowIOException() {
+        BtcToRskClientJournalFileStorage storage = buildStorage();
+
+        assertThrows(IOException.class, () -> storage.write(null));
+    }
+
+    @Test
+    void read_whenFileWrittenByPreviousStorage_shouldMigrateIt() throws Exception {
+        BtcToRskClientFileData fileData = new BtcToRskClientFileData();
+        fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 1 }), new ArrayList<>(List.of(buildProof(2))));
+        fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 3 }), new ArrayList<>());
+        CoinbaseInformation coinbaseInformation = buildCoinbaseInformation(Sha256Hash.of(new byte[]{ 4 }));
+        fileData.getCoinbaseInformationMap().put(coinbaseInformation.getBlockHash(), coinbaseInformation);
+        new BtcToRskClientFileStorageImpl(storageInfo).write(fileData);
+
+        BtcToRskClientFileReadResult result = buildStorage().read(parameters);
+
+        assertTrue(result.getSuccess());
+        assertEquals(fileData.getTransactionProofs(), result.getData().getTransactionProofs());
+        assertEquals(fileData.getCoinbaseInformationMap(), result.getData().getCoinbaseInformationMap());
+        assertFalse(new File(JOURNAL_PATH).exists());
+    }
+
+    @Test
+    void write_shouldAppendChangesToJournalWithoutRewritingSnapshot() throws Exception {
+        new BtcToRskClientFileStorageImpl(storageInfo).write(new BtcToRskClientFileData());
+        BtcToRskClientJournalFileStorage storage = buildStorage();
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        byte[] snapshot = FileUtils.readFileToByteArray(new File(FILE_PATH));
+
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>());
+        storage.write(fileData);
+        fileData.getTransactionProofs().get(txHash).add(buildProof(5));
+        storage.write(fileData);
+
+        assertArrayEquals(snapshot, FileUtils.readFileToByteArray(new File(FILE_PATH)));
+        assertTrue(new File(JOURNAL_PATH).exists());
+        BtcToRskClientFileReadResult result = buildStorage().read(parameters);
+        assertTrue(result.getSuccess());
+        assertEquals(fileData.getTransactionProofs(), result.getData().getTransactionProofs());
+    }
+
+    @Test
+    void write_whenNothingChanged_shouldNotAppendToJournal() throws Exception {
+        BtcToRskClientJournalFileStorage storage = buildStorage();
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 1 }), new ArrayList<>());
+        storage.write(fileData);
+        long journalSize = new File(JOURNAL_PATH).length();
+
+        storage.write(fileData);
+
+        assertEquals(journalSize, new File(JOURNAL_PATH).length());
+    }
+
+    @Test
+    void read_shouldReplayRemovals() throws Exception {
+        BtcToRskClientJournalFileStorage storage = buildStorage();
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHashToKeep = Sha256Hash.of(new byte[]{ 1 });
+        Sha256Hash txHashToRemove = Sha256Hash.of(new byte[]{ 2 });
+        CoinbaseInformation coinbaseInformation = buildCoinbaseInformation(Sha256Hash.of(new byte[]{ 3 }));
+        fileData.getTransactionProofs().put(txHashToKeep, new ArrayList<>());
+        fileData.getTransactionProofs().put(txHashToRemove, new ArrayList<>());
+        fileData.getCoinbaseInformationMap().put(coinbaseInformation.getBlockHash(), coinbaseInformation);
+        storage.write(fileData);
+
+        fileData.getTransactionProofs().remove(txHashToRemove);
+        fileData.getCoinbaseInformationMap().remove(coinbaseInformation.getBlockHash());
+        storage.write(fileData);
+
+        BtcToRskClientFileReadResult result = buildStorage().read(parameters);
+        assertTrue(result.getSuccess());
+        assertEquals(Collections.singleton(txHashToKeep), result.getData().getTransactionProofs().keySet());
+        assertTrue(result.getData().getCoinbaseInformationMap().isEmpty());
+    }
+
+    @Test
+    void read_whenJournalEndsWithIncompleteRecord_shouldIgnoreIt() throws Exception {
+        BtcToRskClientJournalFileStorage storage = buildStorage();
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>());
+        storage.write(fileData);
+        FileUtils.writeByteArrayToFile(new File(JOURNAL_PATH), new byte[]{ 0, 0, 1, 0, 6, 6 }, true);
+
+        BtcToRskClientFileReadResult result = buildStorage().read(parameters);
+
+        assertTrue(result.getSuccess());
+        assertEquals(Collections.singleton(txHash), result.getData().getTransactionProofs().keySet());
+        assertFalse(new File(JOURNAL_PATH).exists());
+    }
+
+    @Test
+    void write_whenCompactionThresholdReached_shouldFoldJournalIntoSnapshot() throws Exception {
+        BtcToRskClientJournalFileStorage storage = buildStorage();
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+
+        for (int i = 0; i < COMPACTION_THRESHOLD; i++) {
+            fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ (byte) i }), new ArrayList<>());
+            storage.write(fileData);
+        }
+
+        assertFalse(new File(JOURNAL_PATH).exists());
+        BtcToRskClientFileReadResult snapshotOnly = new BtcToRskClientFileStorageImpl(storageInfo).read(parameters);
+        assertEquals(fileData.getTransactionProofs(), snapshotOnly.getData().getTransactionProofs());
+    }
+
+    @Test
+    void write_whenIntervalPolicyAndIntervalNotElapsed_shouldScheduleSync() throws Exception {
+        BtcToRskClientJournalFileStorage storage = buildIntervalStorage(Duration.ofHours(1));
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 1 }), new ArrayList<>());
+
+        storage.write(fileData);
+
+        assertTrue(storage.hasUnsyncedRecords());
+        assertTrue(storage.isSyncScheduled());
+        storage.close();
+    }
+
+    @Test
+    void write_whenIntervalPolicyAndIntervalElapses_shouldSyncWithoutFurtherWrites() throws Exception {
+        BtcToRskClientJournalFileStorage storage = buildIntervalStorage(Duration.ofMillis(500));
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 1 }), new ArrayList<>());
+
+        storage.write(fileData);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (storage.hasUnsyncedRecords() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(storage.hasUnsyncedRecords());
+        assertFalse(storage.isSyncScheduled());
+        storage.close();
+    }
+
+    @Test
+    void close_whenIntervalPolicyLeftRecordsUnsynced_shouldSyncThemAndCancelScheduledSync() throws Exception {
+        BtcToRskClientJournalFileStorage storage = buildIntervalStorage(Duration.ofHours(1));
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>());
+        storage.write(fileData);
+
+        storage.close();
+
+        assertFalse(storage.hasUnsyncedRecords());
+        assertFalse(storage.isSyncScheduled());
+        BtcToRskClientFileData readData = buildStorage().read(parameters).getData();
+        assertTrue(readData.getTransactionProofs().containsKey(txHash));
+    }
+
+    @Test
+    void write_withLargeBacklog_shouldWriteFarLessBytesThanRewritingTheFile() throws Exception {
+        int backlogSize = 2_000;
+        int events = 50;
+        BtcToRskClientFileData fileData = new BtcToRskClientFileData();
+        for (int i = 0; i < backlogSize; i++) {
+            fileData.getTransactionProofs().put(Sha256Hash.of(intToBytes(i)), new ArrayList<>(List.of(buildProof(i))));
+        }
+        BtcToRskClientFileStorageImpl fileStorage = new BtcToRskClientFileStorageImpl(storageInfo);
+        fileStorage.write(fileData);
+        BtcToRskClientJournalFileStorage journalStorage = new BtcToRskClientJournalFileStorage(
+            storageInfo,
+            JournalSyncPolicy.NEVER,
+            Duration.ZERO,
+            Integer.MAX_VALUE
+        );
+        fileData = journalStorage.read(parameters).getData();
+
+        for (int i = 0; i < events; i++) {
+            fileData.getTransactionProofs().put(Sha256Hash.of(intToBytes(backlogSize + i)), new ArrayList<>());
+            journalStorage.write(fileData);
+        }
+        long bytesWrittenByJournalStorage = new File(JOURNAL_PATH).length();
+
+        long bytesWrittenByFileStorage = 0;
+        for (int i = 0; i < events; i++) {
+            fileStorage.write(fileData);
+            bytesWrittenByFileStorage += new File(FILE_PATH).length();
+        }
+
+        // Every event rewrites the whole backlog with the file storage, and appends a single record with the journal
+        assertTrue(bytesWrittenByJournalStorage * 100 < bytesWrittenByFileStorage);
+    }
+
+    private BtcToRskClientJournalFileStorage buildStorage() {
+        return new BtcToRskClientJournalFileStorage(
+            storageInfo,
+            JournalSyncPolicy.ALWAYS,
+            Duration.ZERO,
+            COMPACTION_THRESHOLD
+        );
+    }
+
+    private BtcToRskClientJournalFileStorage buildIntervalStorage(Duration syncInterval) {
+        return new BtcToRskClientJournalFileStorage(
+            storageInfo,
+            JournalSyncPolicy.INTERVAL,
+            syncInterval,
+            COMPACTION_THRESHOLD
+        );
+    }
+
+    private Proof buildProof(int seed) {
+        List<Sha256Hash> hashes = Collections.singletonList(Sha256Hash.of(intToBytes(seed)));
+        return new Proof(Sha256Hash.of(intToBytes(seed + 1)), new PartialMerkleTree(parameters, new byte[]{ 1 }, hashes, hashes.size()));
+    }
+
+    private CoinbaseInformation buildCoinbaseInformation(Sha256Hash blockHash) throws Exception {
+        Transaction coinbaseTx = new Transaction(parameters);
+        TransactionInput input = new TransactionInput(parameters, null, new byte[]{});
+        TransactionWitness witness = new TransactionWitness(1);
+        witness.setPush(0, Sha256Hash.ZERO_HASH.getBytes());
+        input.setWitness(witness);
+        coinbaseTx.addInput(input);
+        TransactionOutput output = new TransactionOutput(parameters, null, Coin.COIN, Address.fromString(parameters, "mvbnrCX3bg1cDRUu8pkecrvP6vQkSLDSou"));
+        coinbaseTx.addOutput(output);
+
+        List<Sha256Hash> hashes = Collections.singletonList(Sha256Hash.ZERO_HASH);
+        PartialMerkleTree pmt = new PartialMerkleTree(parameters, new byte[]{}, hashes, hashes.size());
+        return new CoinbaseInformation(coinbaseTx, Sha256Hash.ZERO_HASH, blockHash, pmt);
+    }
+
+    private static byte[] intToBytes(int value) {
+        return new byte[]{ (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value };
+    }
+
+    private void clean() throws IOException {
+        FileUtils.deleteDirectory(new File(DIRECTORY_PATH));
+    }
+}
@@ -0,0 +1,231 @@
+package co.rsk.federate.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import co.rsk.federate.CoinbaseInformation;
+import co.rsk.federate.Proof;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.PartialMerkleTree;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.core.TransactionWitness;
+import org.bitcoinj.params.RegTestParams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BtcToRskClientLevelDbStorageTest {
+
+    private static final String DIRECTORY_PATH = "src/test/java/co/rsk/federate/io" + File.separator + "leveldb-peg";
+    private static final String FILE_PATH = DIRECTORY_PATH + File.separator + "btctorskclient.rlp";
+
+    private final NetworkParameters parameters = RegTestParams.get();
+    private FileStorageInfo storageInfo;
+    private BtcToRskClientLevelDbStorage storage;
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.clean();
+        storageInfo = mock(FileStorageInfo.class);
+        when(storageInfo.getDirectoryPath()).thenReturn(DIRECTORY_PATH);
+        when(storageInfo.getFilePath()).thenReturn(FILE_PATH);
+        storage = new BtcToRskClientLevelDbStorage(storageInfo);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        storage.close();
+        this.clean();
+    }
+
+    @Test
+    void read_whenNothingStored_shouldReturnEmptyData() throws IOException {
+        BtcToRskClientFileReadResult result = storage.read(parameters);
+
+        assertTrue(result.getSuccess());
+        assertTrue(result.getData().getTransactionProofs().isEmpty());
+        assertTrue(result.getData().getCoinbaseInformationMap().isEmpty());
+    }
+
+    @Test
+    void write_whenNotReadBefore_shouldThrowIOException() {
+        BtcToRskClientFileData fileData = new BtcToRskClientFileData();
+
+        assertThrows(IOException.class, () -> storage.write(fileData));
+    }
+
+    @Test
+    void read_whenFileWrittenByPreviousStorage_shouldImportIt() throws Exception {
+        BtcToRskClientFileData fileData = new BtcToRskClientFileData();
+        fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 1 }), new ArrayList<>(List.of(buildProof(2))));
+        fileData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 3 }), new ArrayList<>());
+        CoinbaseInformation coinbaseInformation = buildCoinbaseInformation(Sha256Hash.of(new byte[]{ 4 }));
+        fileData.getCoinbaseInformationMap().put(coinbaseInformation.getBlockHash(), coinbaseInformation);
+        new BtcToRskClientFileStorageImpl(storageInfo).write(fileData);
+
+        BtcToRskClientFileReadResult result = storage.read(parameters);
+
+        assertTrue(result.getSuccess());
+        assertEquals(fileData.getTransactionProofs(), result.getData().getTransactionProofs());
+        assertEquals(fileData.getCoinbaseInformationMap(), result.getData().getCoinbaseInformationMap());
+    }
+
+    @Test
+    void read_whenFileWrittenByPreviousStorageIsTrash_shouldFail() throws IOException {
+        FileUtils.writeByteArrayToFile(new File(FILE_PATH), new byte[]{ 6, 6, 6 });
+
+        BtcToRskClientFileReadResult result = storage.read(parameters);
+
+        assertFalse(result.getSuccess());
+    }
+
+    @Test
+    void read_whenFileAlreadyImported_shouldNotImportItAgain() throws Exception {
+        BtcToRskClientFileData fileData = new BtcToRskClientFileData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>());
+        new BtcToRskClientFileStorageImpl(storageInfo).write(fileData);
+        BtcToRskClientFileData importedData = storage.read(parameters).getData();
+        importedData.getTransactionProofs().remove(txHash);
+        storage.write(importedData);
+        storage.close();
+
+        storage = new BtcToRskClientLevelDbStorage(storageInfo);
+        BtcToRskClientFileReadResult result = storage.read(parameters);
+
+        assertTrue(result.getSuccess());
+        assertTrue(result.getData().getTransactionProofs().isEmpty());
+    }
+
+    @Test
+    void write_shouldPersistChangesAcrossRestarts() throws Exception {
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHashToKeep = Sha256Hash.of(new byte[]{ 1 });
+        Sha256Hash txHashToRemove = Sha256Hash.of(new byte[]{ 2 });
+        CoinbaseInformation coinbaseInformation = buildCoinbaseInformation(Sha256Hash.of(new byte[]{ 3 }));
+        fileData.getTransactionProofs().put(txHashToKeep, new ArrayList<>(List.of(buildProof(4))));
+        fileData.getTransactionProofs().put(txHashToRemove, new ArrayList<>());
+        fileData.getCoinbaseInformationMap().put(coinbaseInformation.getBlockHash(), coinbaseInformation);
+        storage.write(fileData);
+        fileData.getTransactionProofs().remove(txHashToRemove);
+        storage.write(fileData);
+        storage.close();
+
+        storage = new BtcToRskClientLevelDbStorage(storageInfo);
+        BtcToRskClientFileReadResult result = storage.read(parameters);
+
+        assertTrue(result.getSuccess());
+        assertEquals(Collections.singleton(txHashToKeep), result.getData().getTransactionProofs().keySet());
+        assertEquals(List.of(buildProof(4)), result.getData().getTransactionProofs().get(txHashToKeep));
+        assertEquals(coinbaseInformation, result.getData().getCoinbaseInformationMap().get(coinbaseInformation.getBlockHash()));
+    }
+
+    @Test
+    void write_whenValueChangedWithoutPuttingItBack_shouldNotPersistTheChange() throws Exception {
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>());
+        storage.write(fileData);
+
+        fileData.getTransactionProofs().get(txHash).add(buildProof(2));
+        storage.write(fileData);
+
+        assertTrue(fileData.getTransactionProofs().get(txHash).isEmpty());
+    }
+
+    @Test
+    void write_whenKeyRemovedAfterLastWrite_shouldKeepItStoredUntilNextWrite() throws Exception {
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>(List.of(buildProof(2))));
+        storage.write(fileData);
+
+        fileData.getTransactionProofs().remove(txHash);
+        storage.close();
+
+        storage = new BtcToRskClientLevelDbStorage(storageInfo);
+        BtcToRskClientFileReadResult result = storage.read(parameters);
+        assertEquals(Collections.singleton(txHash), result.getData().getTransactionProofs().keySet());
+    }
+
+    @Test
+    void put_whenPreviousValueWasWritten_shouldReturnIt() throws Exception {
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>(List.of(buildProof(2))));
+        storage.write(fileData);
+
+        List<Proof> previousProofs = fileData.getTransactionProofs().put(txHash, new ArrayList<>(List.of(buildProof(3))));
+
+        assertEquals(List.of(buildProof(2)), previousProofs);
+    }
+
+    @Test
+    void remove_whenValueWasWritten_shouldReturnIt() throws Exception {
+        BtcToRskClientFileData fileData = storage.read(parameters).getData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 1 });
+        fileData.getTransactionProofs().put(txHash, new ArrayList<>(List.of(buildProof(2))));
+        storage.write(fileData);
+
+        List<Proof> removedProofs = fileData.getTransactionProofs().remove(txHash);
+
+        assertEquals(List.of(buildProof(2)), removedProofs);
+        assertFalse(fileData.getTransactionProofs().containsKey(txHash));
+    }
+
+    @Test
+    void write_whenDataWasNotReadFromStorage_shouldReplaceStoredContent() throws Exception {
+        BtcToRskClientFileData storedData = storage.read(parameters).getData();
+        storedData.getTransactionProofs().put(Sha256Hash.of(new byte[]{ 1 }), new ArrayList<>());
+        storage.write(storedData);
+
+        BtcToRskClientFileData newData = new BtcToRskClientFileData();
+        Sha256Hash txHash = Sha256Hash.of(new byte[]{ 2 });
+        newData.getTransactionProofs().put(txHash, new ArrayList<>());
+        storage.write(newData);
+        storage.close();
+
+        storage = new BtcToRskClientLevelDbStorage(storageInfo);
+        BtcToRskClientFileReadResult result = storage.read(parameters);
+        assertEquals(Collections.singleton(txHash), result.getData().getTransactionProofs().keySet());
+    }
+
+    private Proof buildProof(int seed) {
+        List<Sha256Hash> hashes = Collections.singletonList(Sha256Hash.of(new byte[]{ (byte) seed }));
+        return new Proof(Sha256Hash.of(new byte[]{ (byte) (seed + 1) }), new PartialMerkleTree(parameters, new byte[]{ 1 }, hashes, hashes.size()));
+    }
+
+    private CoinbaseInformation buildCoinbaseInformation(Sha256Hash blockHash) throws Exception {
+        Transaction coinbaseTx = new Transaction(parameters);
+        TransactionInput input = new TransactionInput(parameters, null, new byte[]{});
+        TransactionWitness witness = new TransactionWitness(1);
+        witness.setPush(0, Sha256Hash.ZERO_HASH.getBytes());
+        input.setWitness(witness);
+        coinbaseTx.addInput(input);
+        TransactionOutput output = new TransactionOutput(parameters, null, Coin.COIN, Address.fromString(parameters, "mvbnrCX3bg1cDRUu8pkecrvP6vQkSLDSou"));
+        coinbaseTx.addOutput(output);
+
+        List<Sha256Hash> hashes = Collections.singletonList(Sha256Hash.ZERO_HASH);
+        PartialMerkleTree pmt = new PartialMerkleTree(parameters, new byte[]{}, hashes, hashes.size());
+        return new CoinbaseInformation(coinbaseTx, Sha256Hash.ZERO_HASH, blockHash, pmt);
+    }
+
+    private void clean() throws IOException {
+        FileUtils.deleteDirectory(new File(DIRECTORY_PATH));
+    }
+}
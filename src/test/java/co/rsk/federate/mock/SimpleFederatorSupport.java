@@ -1,10 +1,15 @@
 package co.rsk.federate.mock;
 
 import static co.rsk.peg.federation.FederationChangeResponseCode.FEDERATION_NON_EXISTENT;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import co.rsk.bitcoinj.core.Address;
 import co.rsk.bitcoinj.core.NetworkParameters;
+import co.rsk.federate.BridgePreflight;
+import co.rsk.federate.BridgeSnapshot;
 import co.rsk.federate.FederatorSupport;
+import co.rsk.federate.Proof;
 import co.rsk.federate.config.TestSystemProperties;
 import co.rsk.peg.federation.Federation;
 import co.rsk.peg.federation.FederationMember;
@@ -27,6 +32,9 @@ public class SimpleFederatorSupport extends FederatorSupport {
     private int height = 0;
     private Sha256Hash[] blockHashes;
     private int initialChainHeight = 0;
+    private long receiveHeadersGasPerHeader = 0;
+    private long rskBestBlockGasLimit = 0;
+    private final List<Long> receiveHeadersGasLimits = new ArrayList<>();
 
     public SimpleFederatorSupport() {
         super(null, new TestSystemProperties(), null);
@@ -87,6 +95,12 @@ public class SimpleFederatorSupport extends FederatorSupport {
             case MST -> member.getMstPublicKey();
         };
     }
+
+    @Override
+    public List<FederationMember> getFederationMembers() {
+        return federation.getMembers();
+    }
+
     @Override
     public Instant getFederationCreationTime() {
         return federation.getCreationTime();
@@ -97,6 +111,18 @@ public class SimpleFederatorSupport extends FederatorSupport {
         return federation.getCreationBlockNumber();
     }
 
+    @Override
+    public BridgeSnapshot snapshotAtBestBlock() {
+        BridgeSnapshot snapshot = mock(BridgeSnapshot.class);
+        when(snapshot.getFederationAddress()).thenReturn(federation.getAddress());
+        when(snapshot.getFederationMembers()).thenReturn(federation.getMembers());
+        when(snapshot.getFederationCreationTime()).thenReturn(federation.getCreationTime());
+        when(snapshot.getFederationCreationBlockNumber()).thenReturn(federation.getCreationBlockNumber());
+        when(snapshot.getRetiringFederationSize()).thenReturn(FEDERATION_NON_EXISTENT.getCode());
+        when(snapshot.getProposedFederationSize()).thenReturn(Optional.empty());
+        return snapshot;
+    }
+
     @Override
     public NetworkParameters getBtcParams() {
         return federation.getBtcParams();
@@ -126,6 +152,34 @@ public class SimpleFederatorSupport extends FederatorSupport {
         sendReceiveHeadersInvocations++;
     }
 
+    @Override
+    public void sendReceiveHeaders(Block[] headers, long gasLimit) {
+        sendReceiveHeaders(headers);
+        receiveHeadersGasLimits.add(gasLimit);
+    }
+
+    @Override
+    public long estimateReceiveHeadersGas(Block[] headers) {
+        return headers.length * receiveHeadersGasPerHeader;
+    }
+
+    public void setReceiveHeadersGasPerHeader(long gasPerHeader) {
+        receiveHeadersGasPerHeader = gasPerHeader;
+    }
+
+    @Override
+    public long getRskBestBlockGasLimit() {
+        return rskBestBlockGasLimit;
+    }
+
+    public void setRskBestBlockGasLimit(long gasLimit) {
+        rskBestBlockGasLimit = gasLimit;
+    }
+
+    public List<Long> getReceiveHeadersGasLimits() {
+        return receiveHeadersGasLimits;
+    }
+
     public Block[] getReceiveHeaders() {
         return this.headers;
     }
@@ -135,14 +189,15 @@ public class SimpleFederatorSupport extends FederatorSupport {
     }
 
     @Override
-    public void sendRegisterBtcTransaction(Transaction tx, int blockHeight, PartialMerkleTree pmt) {
+    public Optional<BridgePreflight> sendRegisterBtcTransaction(Transaction tx, int blockHeight, Proof proof) {
         TransactionSentToRegisterBtcTransaction txSentToRegisterBtcTransaction = new TransactionSentToRegisterBtcTransaction();
 
         txSentToRegisterBtcTransaction.tx = tx;
         txSentToRegisterBtcTransaction.blockHeight = blockHeight;
-        txSentToRegisterBtcTransaction.pmt = pmt;
+        txSentToRegisterBtcTransaction.pmt = proof.getPartialMerkleTree();
 
         txsSentToRegisterBtcTransaction.add(txSentToRegisterBtcTransaction);
+        return Optional.empty();
     }
 
     @Override
@@ -0,0 +1,171 @@
+package co.rsk.federate.signing.hsm.message;
+
+import static co.rsk.federate.EventsTestUtils.createPegoutTransactionCreatedLog;
+import static co.rsk.federate.EventsTestUtils.createReleaseRequestedLog;
+import static co.rsk.federate.signing.utils.TestUtils.addLogToRskTxReceipt;
+import static co.rsk.federate.signing.utils.TestUtils.buildTxInfo;
+import static co.rsk.federate.signing.utils.TestUtils.buildTxReceiptForRskTx;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import co.rsk.bitcoinj.core.Coin;
+import co.rsk.bitcoinj.core.Sha256Hash;
+import co.rsk.crypto.Keccak256;
+import co.rsk.federate.bitcoin.BitcoinTestUtils;
+import co.rsk.federate.signing.hsm.message.PegoutCreationIndex.PegoutCreation;
+import co.rsk.federate.signing.utils.TestUtils;
+import co.rsk.peg.bitcoin.UtxoUtils;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.db.BlockStore;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.facade.Ethereum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+class PegoutCreationIndexTest {
+
+    private static final String DIRECTORY_PATH = "src/test/java/co/rsk/federate/signing/hsm/message" + File.separator + "leveldb-pegout-creation-index";
+    private static final int DEPTH = 10;
+    private static final long BLOCK_NUMBER = 100;
+
+    private final Sha256Hash pegoutBtcTxHash = BitcoinTestUtils.createHash(1);
+    private final Keccak256 pegoutCreationRskTxHash = TestUtils.createHash(123);
+    private final List<Coin> utxoOutpointValues = List.of(Coin.COIN, Coin.valueOf(50_000));
+
+    private Ethereum ethereum;
+    private BlockStore blockStore;
+    private ReceiptStore receiptStore;
+    private PegoutCreationIndex pegoutCreationIndex;
+    private Block block;
+    private TransactionReceipt anotherRskTxReceipt;
+    private TransactionReceipt pegoutCreationRskTxReceipt;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.clean();
+        ethereum = mock(Ethereum.class);
+        blockStore = mock(BlockStore.class);
+        receiptStore = mock(ReceiptStore.class);
+        pegoutCreationIndex = buildPegoutCreationIndex();
+
+        Transaction anotherRskTx = mock(Transaction.class);
+        when(anotherRskTx.getHash()).thenReturn(TestUtils.createHash(456));
+        anotherRskTxReceipt = buildTxReceiptForRskTx(anotherRskTx.getHash());
+        Transaction pegoutCreationRskTx = mock(Transaction.class);
+        when(pegoutCreationRskTx.getHash()).thenReturn(pegoutCreationRskTxHash);
+        pegoutCreationRskTxReceipt = buildTxReceiptForRskTx(pegoutCreationRskTxHash);
+        addLogToRskTxReceipt(
+            pegoutCreationRskTxReceipt,
+            createPegoutTransactionCreatedLog(pegoutBtcTxHash, UtxoUtils.encodeOutpointValues(utxoOutpointValues))
+        );
+
+        block = TestUtils.mockBlock(BLOCK_NUMBER, TestUtils.createHash(100));
+        when(block.getTransactionsList()).thenReturn(List.of(anotherRskTx, pegoutCreationRskTx));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pegoutCreationIndex.close();
+        this.clean();
+    }
+
+    @Test
+    void onBlock_whenBlockCreatesAPegout_shouldIndexIt() throws IOException {
+        addReleaseRequestedLog();
+        pegoutCreationIndex.start();
+
+        pegoutCreationIndex.onBlock(block, List.of(anotherRskTxReceipt, pegoutCreationRskTxReceipt));
+
+        assertIndexedPegoutCreation(pegoutCreationIndex);
+    }
+
+    @Test
+    void onBlock_whenReleaseRequestedEventIsMissing_shouldNotIndexThePegout() throws IOException {
+        pegoutCreationIndex.start();
+
+        pegoutCreationIndex.onBlock(block, List.of(anotherRskTxReceipt, pegoutCreationRskTxReceipt));
+
+        assertTrue(pegoutCreationIndex.getPegoutCreations(pegoutBtcTxHash).isEmpty());
+    }
+
+    @Test
+    void start_whenRestarted_shouldLoadTheIndexedPegouts() throws IOException {
+        addReleaseRequestedLog();
+        pegoutCreationIndex.start();
+        pegoutCreationIndex.onBlock(block, List.of(anotherRskTxReceipt, pegoutCreationRskTxReceipt));
+        pegoutCreationIndex.close();
+
+        pegoutCreationIndex = buildPegoutCreationIndex();
+        pegoutCreationIndex.start();
+
+        assertIndexedPegoutCreation(pegoutCreationIndex);
+    }
+
+    @Test
+    void start_whenBestChainBlocksWereNotIndexed_shouldIndexThemFromTheReceiptStore() throws IOException {
+        addReleaseRequestedLog();
+        when(blockStore.getBestBlock()).thenReturn(block);
+        when(blockStore.getChainBlockByNumber(BLOCK_NUMBER)).thenReturn(block);
+        for (int i = 0; i < block.getTransactionsList().size(); i++) {
+            TransactionReceipt receipt = i == 0 ? anotherRskTxReceipt : pegoutCreationRskTxReceipt;
+            when(receiptStore.get(block.getTransactionsList().get(i).getHash().getBytes(), block.getHash().getBytes()))
+                .thenReturn(Optional.of(buildTxInfo(receipt, block.getHash(), i)));
+        }
+
+        pegoutCreationIndex.start();
+        pegoutCreationIndex.getRebuildTask().join();
+
+        assertIndexedPegoutCreation(pegoutCreationIndex);
+    }
+
+    @Test
+    void start_shouldListenToTheImportedBlocksBeforeRebuilding() throws IOException {
+        when(blockStore.getBestBlock()).thenReturn(block);
+
+        pegoutCreationIndex.start();
+        pegoutCreationIndex.getRebuildTask().join();
+
+        InOrder inOrder = inOrder(ethereum, blockStore);
+        inOrder.verify(ethereum).addListener(any());
+        inOrder.verify(blockStore).getBestBlock();
+    }
+
+    @Test
+    void deserializePegoutCreation_whenSerialized_shouldReturnTheSamePegoutCreation() {
+        PegoutCreation pegoutCreation = new PegoutCreation(pegoutCreationRskTxHash, block.getHash(), BLOCK_NUMBER, 1, utxoOutpointValues);
+
+        byte[] serializedPegoutCreation = PegoutCreationIndex.serializePegoutCreation(pegoutCreation);
+
+        assertEquals(pegoutCreation, PegoutCreationIndex.deserializePegoutCreation(serializedPegoutCreation));
+    }
+
+    private PegoutCreationIndex buildPegoutCreationIndex() {
+        return new PegoutCreationIndex(new File(DIRECTORY_PATH), ethereum, blockStore, receiptStore, DEPTH);
+    }
+
+    private void addReleaseRequestedLog() {
+        addLogToRskTxReceipt(pegoutCreationRskTxReceipt, createReleaseRequestedLog(pegoutCreationRskTxHash, pegoutBtcTxHash, Coin.COIN));
+    }
+
+    private void assertIndexedPegoutCreation(PegoutCreationIndex index) {
+        PegoutCreation expectedPegoutCreation = new PegoutCreation(pegoutCreationRskTxHash, block.getHash(), BLOCK_NUMBER, 1, utxoOutpointValues);
+        assertEquals(List.of(expectedPegoutCreation), index.getPegoutCreations(pegoutBtcTxHash));
+    }
+
+    private void clean() throws IOException {
+        FileUtils.deleteDirectory(new File(DIRECTORY_PATH));
+    }
+}
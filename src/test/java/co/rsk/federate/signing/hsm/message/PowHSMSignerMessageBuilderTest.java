@@ -4,7 +4,10 @@ import static co.rsk.federate.EventsTestUtils.*;
 import static co.rsk.federate.bitcoin.BitcoinTestUtils.*;
 import static co.rsk.federate.signing.HSMField.TX;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import co.rsk.bitcoinj.core.*;
@@ -162,6 +165,60 @@ class PowHSMSignerMessageBuilderTest {
         assertEquals(actualPowHSMSignerMessage, anotherMessageFromSameBuilderAndIndex);
     }
 
+    @Test
+    void buildMessageForIndex_whenPegoutHasManyInputs_shouldBuildTheSharedPartsOnce() throws Exception {
+        // Arrange
+        int inputsCount = 50;
+        List<Coin> outpointValues = Collections.nCopies(inputsCount, Coin.COIN);
+        BtcTransaction pegoutBtcTx = createPegout(
+            btcMainnetParams,
+            activeFederation,
+            outpointValues,
+            Collections.singletonList(userAddress)
+        );
+        byte[] serializedOutpointValues = BridgeSerializationUtils.serializeOutpointsValues(outpointValues);
+        pegoutCreationRskTxReceipt.setLogInfoList(createCommonPegoutLogs(
+            pegoutCreationRskTx.getHash(),
+            pegoutBtcTx,
+            serializedOutpointValues
+        ));
+        ReleaseCreationInformation releaseCreationInformation = new ReleaseCreationInformation(
+            pegoutCreationBlock,
+            pegoutCreationRskTxReceipt,
+            pegoutCreationRskTx.getHash(),
+            pegoutBtcTx,
+            outpointValues
+        );
+        SignerMessageBuilder messageBuilder = new SignerMessageBuilderFactory(receiptStore).buildFromConfig(
+            TestUtils.getLatestHsmVersion().getNumber(),
+            releaseCreationInformation
+        );
+
+        // Act
+        List<PowHSMSignerMessage> messages = new ArrayList<>();
+        for (int inputIndex = 0; inputIndex < inputsCount; inputIndex++) {
+            messages.add((PowHSMSignerMessage) messageBuilder.buildMessageForIndex(inputIndex));
+        }
+
+        // Assert
+        // the receipts trie is only built for the first input
+        verify(receiptStore, times(pegoutCreationBlock.getTransactionsList().size())).get(any(), any());
+
+        PowHSMSignerMessage firstMessage = messages.get(0);
+        SigHashCalculator sigHashCalculator = new SegwitSigHashCalculatorImpl(outpointValues);
+        for (int inputIndex = 0; inputIndex < inputsCount; inputIndex++) {
+            PowHSMSignerMessage message = messages.get(inputIndex);
+            assertEquals(inputIndex, message.getInputIndex());
+            assertEquals(sigHashCalculator.calculate(pegoutBtcTx, inputIndex), message.getSigHash());
+            assertSame(firstMessage.getTransactionReceipt(), message.getTransactionReceipt());
+            assertSame(
+                firstMessage.getMessageToSign().get(TX.getFieldName()).asText(),
+                message.getMessageToSign().get(TX.getFieldName()).asText()
+            );
+            assertArrayEquals(firstMessage.getReceiptMerkleProof(), message.getReceiptMerkleProof());
+        }
+    }
+
     @Test
     void buildMessageForIndex_fails() {
         BlockHeaderBuilder blockHeaderBuilder = new BlockHeaderBuilder(mock(ActivationConfig.class));
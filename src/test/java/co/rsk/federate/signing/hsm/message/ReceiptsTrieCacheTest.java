@@ -0,0 +1,123 @@
+package co.rsk.federate.signing.hsm.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.rsk.core.bc.BlockHashesHelper;
+import co.rsk.core.bc.BlockHashesHelperException;
+import co.rsk.crypto.Keccak256;
+import co.rsk.federate.signing.utils.TestUtils;
+import co.rsk.trie.Trie;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.db.TransactionInfo;
+import org.ethereum.util.RLP;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReceiptsTrieCacheTest {
+
+    private static final int TRANSACTIONS_IN_BLOCK = 3;
+
+    private ReceiptStore receiptStore;
+    private ReceiptsTrieCache receiptsTrieCache;
+    private List<Transaction> transactions;
+    private List<TransactionReceipt> receipts;
+    private Block block;
+
+    @BeforeEach
+    void setUp() {
+        receiptStore = mock(ReceiptStore.class);
+        receiptsTrieCache = new ReceiptsTrieCache(receiptStore);
+
+        Keccak256 blockHash = TestUtils.createHash(100);
+        transactions = new ArrayList<>();
+        receipts = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS_IN_BLOCK; i++) {
+            Transaction transaction = mock(Transaction.class);
+            Keccak256 txHash = TestUtils.createHash(i);
+            when(transaction.getHash()).thenReturn(txHash);
+            transactions.add(transaction);
+
+            TransactionReceipt receipt = new TransactionReceipt();
+            receipt.setLogInfoList(new ArrayList<>());
+            receipts.add(receipt);
+
+            TransactionInfo txInfo = mock(TransactionInfo.class);
+            when(txInfo.getReceipt()).thenReturn(receipt);
+            when(receiptStore.get(txHash.getBytes(), blockHash.getBytes())).thenReturn(Optional.of(txInfo));
+        }
+
+        block = createBlock(blockHash, TestUtils.createHash(99), BlockHashesHelper.calculateReceiptsTrieRoot(receipts, true));
+    }
+
+    @Test
+    void getReceiptMerkleProof_whenSeveralPegoutsWereCreatedInTheSameBlock_shouldBuildTheTrieOnce() throws Exception {
+        for (int i = 0; i < TRANSACTIONS_IN_BLOCK; i++) {
+            List<Trie> expectedProof = BlockHashesHelper.calculateReceiptsTrieRootFor(receipts).getNodes(RLP.encodeInt(i));
+
+            assertEquals(expectedProof, receiptsTrieCache.getReceiptMerkleProof(block, transactions.get(i).getHash()));
+        }
+
+        verify(receiptStore, times(TRANSACTIONS_IN_BLOCK)).get(any(), any());
+        assertEquals(1, receiptsTrieCache.size());
+    }
+
+    @Test
+    void getReceiptMerkleProof_whenTrieDoesNotMatchTheReceiptsRoot_shouldNotCacheIt() throws Exception {
+        Block blockWithAnotherReceiptsRoot = createBlock(block.getHash(), block.getParentHash(), new byte[32]);
+        Keccak256 txHash = transactions.get(0).getHash();
+
+        receiptsTrieCache.getReceiptMerkleProof(blockWithAnotherReceiptsRoot, txHash);
+        receiptsTrieCache.getReceiptMerkleProof(blockWithAnotherReceiptsRoot, txHash);
+
+        verify(receiptStore, times(2 * TRANSACTIONS_IN_BLOCK)).get(any(), any());
+        assertEquals(0, receiptsTrieCache.size());
+    }
+
+    @Test
+    void getReceiptMerkleProof_whenTransactionIsNotInTheBlock_shouldThrowBlockHashesHelperException() {
+        Keccak256 anotherTxHash = TestUtils.createHash(50);
+
+        assertThrows(BlockHashesHelperException.class, () -> receiptsTrieCache.getReceiptMerkleProof(block, anotherTxHash));
+    }
+
+    @Test
+    void onBestBlock_whenBestBlockExtendsTheBestChain_shouldKeepTheTries() throws Exception {
+        receiptsTrieCache.onBestBlock(block);
+        receiptsTrieCache.getReceiptMerkleProof(block, transactions.get(0).getHash());
+
+        receiptsTrieCache.onBestBlock(createBlock(TestUtils.createHash(101), block.getHash(), new byte[32]));
+
+        assertEquals(1, receiptsTrieCache.size());
+    }
+
+    @Test
+    void onBestBlock_whenBestChainIsReorganized_shouldDropTheTries() throws Exception {
+        receiptsTrieCache.onBestBlock(block);
+        receiptsTrieCache.getReceiptMerkleProof(block, transactions.get(0).getHash());
+
+        receiptsTrieCache.onBestBlock(createBlock(TestUtils.createHash(101), TestUtils.createHash(98), new byte[32]));
+
+        assertEquals(0, receiptsTrieCache.size());
+    }
+
+    private Block createBlock(Keccak256 hash, Keccak256 parentHash, byte[] receiptsRoot) {
+        Block mockedBlock = mock(Block.class);
+        when(mockedBlock.getHash()).thenReturn(hash);
+        when(mockedBlock.getParentHash()).thenReturn(parentHash);
+        when(mockedBlock.getReceiptsRoot()).thenReturn(receiptsRoot);
+        when(mockedBlock.getTransactionsList()).thenReturn(transactions);
+        return mockedBlock;
+    }
+}
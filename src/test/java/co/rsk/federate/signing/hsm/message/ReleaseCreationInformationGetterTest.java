@@ -4,6 +4,9 @@ import static co.rsk.federate.EventsTestUtils.*;
 import static co.rsk.federate.signing.utils.TestUtils.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import co.rsk.bitcoinj.core.BtcTransaction;
@@ -12,6 +15,7 @@ import co.rsk.bitcoinj.core.Sha256Hash;
 import co.rsk.core.RskAddress;
 import co.rsk.crypto.Keccak256;
 import co.rsk.federate.bitcoin.BitcoinTestUtils;
+import co.rsk.federate.signing.hsm.message.PegoutCreationIndex.PegoutCreation;
 import co.rsk.federate.signing.utils.TestUtils;
 import co.rsk.peg.BridgeEvents;
 import co.rsk.peg.pegin.RejectedPeginReason;
@@ -119,6 +123,88 @@ class ReleaseCreationInformationGetterTest {
         assertTxInfoToSign(releaseCreationInformationGetter);
     }
 
+    @Test
+    void getTxInfoToSign_whenCalledAgainForTheSamePegout_shouldNotLookItUpAgain() throws HSMReleaseCreationInformationException {
+        // Arrange
+        addNeededLogsForSigning();
+        ReleaseCreationInformationGetter releaseCreationInformationGetter = new ReleaseCreationInformationGetter(
+            receiptStore,
+            blockStore
+        );
+        releaseCreationInformationGetter.getTxInfoToSign(pegoutCreationRskTxHash, pegoutBtcTx);
+
+        // act & assert
+        assertTxInfoToSign(releaseCreationInformationGetter);
+        verify(receiptStore, times(1)).getInMainChain(pegoutCreationRskTxHashBytes, blockStore);
+    }
+
+    @Test
+    void getTxInfoToSign_whenPegoutCreationBlockWasReplacedByAReorg_shouldLookItUpAgain() throws HSMReleaseCreationInformationException {
+        // Arrange
+        addNeededLogsForSigning();
+        ReleaseCreationInformationGetter releaseCreationInformationGetter = new ReleaseCreationInformationGetter(
+            receiptStore,
+            blockStore
+        );
+        releaseCreationInformationGetter.getTxInfoToSign(pegoutCreationRskTxHash, pegoutBtcTx);
+
+        Block blockFromAnotherChain = mock(Block.class);
+        when(blockFromAnotherChain.getHash()).thenReturn(TestUtils.createHash(789));
+        when(blockStore.getChainBlockByNumber(pegoutCreationBlock.getNumber())).thenReturn(blockFromAnotherChain);
+
+        // act
+        releaseCreationInformationGetter.getTxInfoToSign(pegoutCreationRskTxHash, pegoutBtcTx);
+
+        // assert
+        verify(receiptStore, times(2)).getInMainChain(pegoutCreationRskTxHashBytes, blockStore);
+    }
+
+    @Test
+    void getTxInfoToSign_whenPegoutIsIndexed_shouldNotLookItUpInTheReceipts() throws HSMReleaseCreationInformationException {
+        // Arrange
+        List<Coin> utxoOutpointValues = List.of(Coin.COIN);
+        PegoutCreationIndex pegoutCreationIndex = mock(PegoutCreationIndex.class);
+        when(pegoutCreationIndex.getPegoutCreations(pegoutBtcTxHash)).thenReturn(List.of(
+            new PegoutCreation(pegoutCreationRskTxHash, pegoutCreationBlock.getHash(), pegoutCreationBlock.getNumber(), 1, utxoOutpointValues)
+        ));
+
+        // act
+        ReleaseCreationInformationGetter releaseCreationInformationGetter = new ReleaseCreationInformationGetter(
+            receiptStore,
+            blockStore,
+            pegoutCreationIndex
+        );
+
+        // assert
+        assertTxInfoToSign(releaseCreationInformationGetter);
+        assertEquals(
+            utxoOutpointValues,
+            releaseCreationInformationGetter.getTxInfoToSign(pegoutCreationRskTxHash, pegoutBtcTx).getUtxoOutpointValues()
+        );
+        verify(receiptStore, never()).getInMainChain(pegoutCreationRskTxHashBytes, blockStore);
+    }
+
+    @Test
+    void getTxInfoToSign_whenPegoutIsIndexedInABlockOutOfTheBestChain_shouldLookItUpInTheReceipts() throws HSMReleaseCreationInformationException {
+        // Arrange
+        addNeededLogsForSigning();
+        PegoutCreationIndex pegoutCreationIndex = mock(PegoutCreationIndex.class);
+        when(pegoutCreationIndex.getPegoutCreations(pegoutBtcTxHash)).thenReturn(List.of(
+            new PegoutCreation(pegoutCreationRskTxHash, TestUtils.createHash(789), pegoutCreationBlock.getNumber(), 1, List.of(Coin.COIN))
+        ));
+
+        // act
+        ReleaseCreationInformationGetter releaseCreationInformationGetter = new ReleaseCreationInformationGetter(
+            receiptStore,
+            blockStore,
+            pegoutCreationIndex
+        );
+
+        // assert
+        assertTxInfoToSign(releaseCreationInformationGetter);
+        verify(receiptStore, times(1)).getInMainChain(pegoutCreationRskTxHashBytes, blockStore);
+    }
+
     @Test
     void getTxInfoToSign_whenRejectedPeginHasPegoutCreatedEvent_returnsCorrectTxInfo() throws HSMReleaseCreationInformationException {
         // Arrange
@@ -41,25 +41,23 @@ class SignerMessageBuilderFactoryTest {
     void buildWithWrongVersion(int wrongVersion) {
         assertThrows(HSMUnsupportedVersionException.class, () -> factory.buildFromConfig(
             wrongVersion,
-            mock(ReleaseCreationInformation.class),
-            0
+            mock(ReleaseCreationInformation.class)
         ));
 
     }
 
     @Test
-    void buildFromHSMVersion1() throws HSMClientException {
+    void buildFromConfig_forAllInputs_whenHSMVersion1_shouldBuildSignerMessageBuilderV1() throws HSMClientException {
         BtcTransaction tx = new BtcTransaction(BridgeMainNetConstants.getInstance().getBtcParams());
         tx.addInput(Sha256Hash.ZERO_HASH, 0, new Script(new byte[]{}));
+        tx.addInput(Sha256Hash.ZERO_HASH, 1, new Script(new byte[]{}));
         ReleaseCreationInformation releaseCreationInformation = mock(ReleaseCreationInformation.class);
         when(releaseCreationInformation.getPegoutBtcTx()).thenReturn(tx);
+        when(releaseCreationInformation.getUtxoOutpointValues()).thenReturn(Collections.emptyList());
 
-        SignerMessageBuilder signerMessageVersion1 = factory.buildFromConfig(
-            1,
-            releaseCreationInformation,
-            0
-        );
-        assertInstanceOf(SignerMessageBuilderV1.class, signerMessageVersion1);
+        SignerMessageBuilder messageBuilder = factory.buildFromConfig(1, releaseCreationInformation);
+
+        assertInstanceOf(SignerMessageBuilderV1.class, messageBuilder);
     }
 
     @Test
@@ -85,8 +83,7 @@ class SignerMessageBuilderFactoryTest {
                 Keccak256.ZERO_HASH,
                 tx,
                 Collections.emptyList()
-            ),
-            0
+            )
         );
         assertInstanceOf(PowHSMSignerMessageBuilder.class, messageBuilder);
     }
@@ -14,8 +14,10 @@ import static org.mockito.Mockito.when;
 
 import co.rsk.bitcoinj.core.BtcECKey;
 import co.rsk.bitcoinj.core.NetworkParameters;
+import co.rsk.crypto.Keccak256;
 import co.rsk.federate.FederationProvider;
 import co.rsk.federate.signing.utils.TestUtils;
+import co.rsk.peg.BridgeEvents;
 import co.rsk.peg.federation.Federation;
 import co.rsk.peg.federation.FederationArgs;
 import co.rsk.peg.federation.FederationFactory;
@@ -26,9 +28,16 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
+import org.ethereum.core.Block;
+import org.ethereum.core.Bloom;
+import org.ethereum.core.CallTransaction;
+import org.ethereum.core.TransactionReceipt;
 import org.ethereum.crypto.ECKey;
 import org.ethereum.facade.Ethereum;
 import org.ethereum.listener.EthereumListenerAdapter;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.PrecompiledContracts;
 import org.junit.jupiter.api.Test;
 import org.mockito.invocation.InvocationOnMock;
 
@@ -37,6 +46,7 @@ class FederationWatcherTest {
     // Constants for network and block information
     private static final NetworkParameters NETWORK_PARAMETERS = NetworkParameters.fromID(NetworkParameters.ID_REGTEST);
     private static final long CREATION_BLOCK_NUMBER = 0L;
+    private static final long RECONCILIATION_INTERVAL_IN_BLOCKS = 20L;
 
     // First federation constants
     private static final List<FederationMember> FIRST_FEDERATION_MEMBERS = 
@@ -65,7 +75,8 @@ class FederationWatcherTest {
     private final Ethereum rsk = mock(Ethereum.class);
     private final FederationProvider federationProvider = mock(FederationProvider.class);
     private final FederationWatcherListener federationWatcherListener = mock(FederationWatcherListener.class);
-    private final FederationWatcher federationWatcher = new FederationWatcher(rsk);
+    private final FederationWatcher federationWatcher = new FederationWatcher(rsk, RECONCILIATION_INTERVAL_IN_BLOCKS);
+    private final Block bestBlock = buildBlock(1L, TestUtils.createHash(0));
 
     @Test
     void start_whenFederationWatcherIsSetUp_shouldAddListener() throws Exception {
@@ -91,7 +102,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -119,7 +130,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -148,7 +159,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -178,7 +189,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -206,7 +217,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -234,7 +245,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -261,7 +272,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -288,7 +299,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -316,7 +327,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -344,7 +355,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -372,7 +383,7 @@ class FederationWatcherTest {
         federationWatcher.start(federationProvider, federationWatcherListener);
 
         // Act
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationProvider).getProposedFederationAddress();
@@ -406,14 +417,136 @@ class FederationWatcherTest {
 
         // Act
         // Since the notification failed, the new active federation must not be recorded as notified
-        assertThrows(RuntimeException.class, () -> rskListener.onBestBlock(null, null));
+        assertThrows(RuntimeException.class, () -> rskListener.onBestBlock(bestBlock, List.of()));
         // So the very same change is detected again on the next best block, and retried
-        rskListener.onBestBlock(null, null);
+        rskListener.onBestBlock(bestBlock, List.of());
 
         // Assert
         verify(federationWatcherListener, times(2)).onActiveFederationChange(SECOND_FEDERATION);
     }
 
+    @Test
+    void onBestBlock_whenStateIsUpToDateAndNoFederationEvent_shouldNotReadTheFederations() throws Exception {
+        // Arrange
+        var rskListener = setupAndGetRskListener(null, FIRST_FEDERATION, null);
+        setUpUnchangedFederations();
+        federationWatcher.start(federationProvider, federationWatcherListener);
+        rskListener.onBestBlock(bestBlock, List.of());
+
+        // Act
+        rskListener.onBestBlock(buildBlock(2L, bestBlock.getHash()), List.of());
+
+        // Assert
+        verify(federationProvider, times(1)).getActiveFederationAddress();
+    }
+
+    @Test
+    void onBestBlock_whenBlockHasCommitFederationEvent_shouldReadTheFederations() throws Exception {
+        // Arrange
+        var rskListener = setupAndGetRskListener(null, FIRST_FEDERATION, null);
+        setUpUnchangedFederations();
+        federationWatcher.start(federationProvider, federationWatcherListener);
+        rskListener.onBestBlock(bestBlock, List.of());
+        LogInfo commitFederationLog = buildCommitFederationLog(100L);
+        Block blockWithEvent = buildBlock(2L, bestBlock.getHash(), commitFederationLog);
+
+        // Act
+        rskListener.onBestBlock(blockWithEvent, List.of(buildReceipt(commitFederationLog)));
+
+        // Assert
+        verify(federationProvider, times(2)).getActiveFederationAddress();
+    }
+
+    @Test
+    void onBestBlock_whenCommittedFederationReachesActivation_shouldReadTheFederations() throws Exception {
+        // Arrange
+        var rskListener = setupAndGetRskListener(null, FIRST_FEDERATION, null);
+        setUpUnchangedFederations();
+        federationWatcher.start(federationProvider, federationWatcherListener);
+        LogInfo commitFederationLog = buildCommitFederationLog(5L);
+        Block blockWithEvent = buildBlock(2L, TestUtils.createHash(0), commitFederationLog);
+        rskListener.onBestBlock(blockWithEvent, List.of(buildReceipt(commitFederationLog)));
+        Block blockBeforeActivation = buildBlock(4L, blockWithEvent.getHash());
+        rskListener.onBestBlock(blockBeforeActivation, List.of());
+
+        // Act
+        rskListener.onBestBlock(buildBlock(5L, blockBeforeActivation.getHash()), List.of());
+
+        // Assert
+        verify(federationProvider, times(2)).getActiveFederationAddress();
+    }
+
+    @Test
+    void onBestBlock_whenChainIsReorganized_shouldReadTheFederations() throws Exception {
+        // Arrange
+        var rskListener = setupAndGetRskListener(null, FIRST_FEDERATION, null);
+        setUpUnchangedFederations();
+        federationWatcher.start(federationProvider, federationWatcherListener);
+        rskListener.onBestBlock(bestBlock, List.of());
+
+        // Act
+        rskListener.onBestBlock(buildBlock(2L, TestUtils.createHash(100)), List.of());
+
+        // Assert
+        verify(federationProvider, times(2)).getActiveFederationAddress();
+    }
+
+    @Test
+    void onBestBlock_whenReconciliationIntervalIsReached_shouldReadTheFederations() throws Exception {
+        // Arrange
+        var rskListener = setupAndGetRskListener(null, FIRST_FEDERATION, null);
+        setUpUnchangedFederations();
+        federationWatcher.start(federationProvider, federationWatcherListener);
+        rskListener.onBestBlock(bestBlock, List.of());
+
+        // Act
+        Block block = bestBlock;
+        for (long blockNumber = 2L; blockNumber <= 1L + RECONCILIATION_INTERVAL_IN_BLOCKS; blockNumber++) {
+            block = buildBlock(blockNumber, block.getHash());
+            rskListener.onBestBlock(block, List.of());
+        }
+
+        // Assert
+        verify(federationProvider, times(2)).getActiveFederationAddress();
+    }
+
+    private void setUpUnchangedFederations() {
+        when(federationProvider.getProposedFederationAddress()).thenReturn(Optional.empty());
+        when(federationProvider.getActiveFederationAddress()).thenReturn(FIRST_FEDERATION.getAddress());
+        when(federationProvider.getRetiringFederationAddress()).thenReturn(Optional.empty());
+    }
+
+    private static Block buildBlock(long number, Keccak256 parentHash, LogInfo... logs) {
+        Bloom bloom = new Bloom();
+        Arrays.stream(logs).map(LogInfo::getBloom).forEach(bloom::or);
+
+        Block block = mock(Block.class);
+        when(block.getNumber()).thenReturn(number);
+        when(block.getHash()).thenReturn(TestUtils.createHash((int) number));
+        when(block.getParentHash()).thenReturn(parentHash);
+        when(block.getLogBloom()).thenReturn(bloom.getData());
+        return block;
+    }
+
+    private static LogInfo buildCommitFederationLog(long activationBlockNumber) {
+        CallTransaction.Function commitFederationEvent = BridgeEvents.COMMIT_FEDERATION.getEvent();
+        byte[] data = commitFederationEvent.encodeEventData(
+            new byte[]{},
+            FIRST_FEDERATION.getAddress().toBase58(),
+            new byte[]{},
+            SECOND_FEDERATION.getAddress().toBase58(),
+            activationBlockNumber
+        );
+        List<DataWord> topics = List.of(DataWord.valueOf(commitFederationEvent.encodeSignatureLong()));
+        return new LogInfo(PrecompiledContracts.BRIDGE_ADDR.getBytes(), topics, data);
+    }
+
+    private static TransactionReceipt buildReceipt(LogInfo... logs) {
+        TransactionReceipt receipt = mock(TransactionReceipt.class);
+        when(receipt.getLogInfoList()).thenReturn(List.of(logs));
+        return receipt;
+    }
+
     private EthereumListenerAdapter setupAndGetRskListener(
             Federation proposedFederation, Federation activeFederation, Federation retiringFederation) throws Exception {
         // Mock the behavior of adding a listener